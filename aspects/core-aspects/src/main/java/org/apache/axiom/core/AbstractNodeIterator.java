@@ -48,6 +48,19 @@ public abstract class AbstractNodeIterator<T> implements NodeIterator<T> {
 
     protected abstract boolean matches(CoreNode node) throws CoreModelException;
 
+    /**
+     * Get the child of the start node from which to start the iteration on the
+     * {@link Axis#CHILDREN} axis. Subclasses may override this to skip children that are known not
+     * to match.
+     * 
+     * @param startNode
+     *            the start node
+     * @return the first candidate child, or <code>null</code> if there are no candidates
+     */
+    CoreChildNode getFirstChild(CoreParentNode startNode) {
+        return startNode.coreGetFirstChild();
+    }
+
     public final boolean hasNext() {
         if (!hasNext) {
             CoreNode node = currentNode;
@@ -60,7 +73,7 @@ public abstract class AbstractNodeIterator<T> implements NodeIterator<T> {
                     switch (axis) {
                         case CHILDREN:
                             if (node == null) {
-                                node = startNode.coreGetFirstChild();
+                                node = getFirstChild(startNode);
                             } else {
                                 node = ((CoreChildNode)node).coreGetNextSibling();
                             }
@@ -78,8 +91,10 @@ public abstract class AbstractNodeIterator<T> implements NodeIterator<T> {
                                 boolean visitChildren = true;
                                 while (true) {
                                     // TODO: test for CoreContainer instead????
-                                    if (visitChildren && node instanceof CoreElement) {
-                                        CoreChildNode firstChild = ((CoreElement)node).coreGetFirstChild();
+                                    // The start node is also visited if it is not an element
+                                    // (e.g. a document on the DESCENDANTS_OR_SELF axis)
+                                    if (visitChildren && (node instanceof CoreElement || node == startNode)) {
+                                        CoreChildNode firstChild = ((CoreParentNode)node).coreGetFirstChild();
                                         if (firstChild != null) {
                                             depth++;
                                             node = firstChild;
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core;
+
+/**
+ * Hash index of the namespace aware attributes of an element, keyed by namespace URI and local
+ * name. The index is created by {@link CoreElement} when a lookup walks more than
+ * {@link #THRESHOLD} attributes, and it is maintained when attributes are added or removed. It is
+ * discarded if an attribute of the element is renamed or if it can't be maintained incrementally.
+ * <p>
+ * The index only answers lookups performed with a {@link NSAwareAttributeMatcher}. If there are
+ * several attributes with the same name (which can only occur if the application renames
+ * attributes), the index contains the first one in document order, which is the attribute a
+ * linear search would find.
+ */
+final class AttributeIndex {
+    /**
+     * The number of attributes above which an index is created.
+     */
+    static final int THRESHOLD = 8;
+
+    /**
+     * Open addressing hash table with linear probing. The length is a power of 2.
+     */
+    private CoreNSAwareAttribute[] table;
+    private int size;
+    private int nsUnawareCount;
+    private boolean duplicates;
+
+    private AttributeIndex(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize*2) {
+            capacity <<= 1;
+        }
+        table = new CoreNSAwareAttribute[capacity];
+    }
+
+    /**
+     * Create an index for the given attribute list.
+     *
+     * @param firstAttribute
+     *            the first attribute of the element
+     * @param count
+     *            the (estimated) number of attributes
+     * @return the index
+     */
+    static AttributeIndex create(CoreAttribute firstAttribute, int count) {
+        AttributeIndex index = new AttributeIndex(count);
+        for (CoreAttribute attr = firstAttribute; attr != null; attr = attr.coreGetNextAttribute()) {
+            index.add(attr);
+        }
+        return index;
+    }
+
+    /**
+     * Check if the index can be used for a lookup with the given matcher.
+     */
+    static boolean supports(AttributeMatcher matcher) {
+        return matcher instanceof NSAwareAttributeMatcher;
+    }
+
+    /**
+     * Check if the index can answer a lookup with the given matcher and namespace URI.
+     */
+    boolean canLookup(AttributeMatcher matcher, String namespaceURI) {
+        // A NSAwareAttributeMatcher may also match namespace unaware attributes when the namespace
+        // URI is empty; these are not in the index.
+        return matcher instanceof NSAwareAttributeMatcher
+                && (nsUnawareCount == 0 || namespaceURI.length() > 0);
+    }
+
+    private static int hash(String namespaceURI, String localName) {
+        int h = localName.hashCode() * 31 + namespaceURI.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    CoreNSAwareAttribute get(String namespaceURI, String localName) {
+        int mask = table.length-1;
+        int i = hash(namespaceURI, localName) & mask;
+        CoreNSAwareAttribute attr;
+        while ((attr = table[i]) != null) {
+            if (localName.equals(attr.coreGetLocalName())
+                    && namespaceURI.equals(attr.coreGetNamespaceURI())) {
+                return attr;
+            }
+            i = (i+1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Add an attribute that has been appended to the element.
+     */
+    void add(CoreAttribute attr) {
+        if (attr instanceof CoreNSAwareAttribute) {
+            CoreNSAwareAttribute nsAwareAttr = (CoreNSAwareAttribute)attr;
+            if (size*2 >= table.length) {
+                rehash();
+            }
+            String namespaceURI = nsAwareAttr.coreGetNamespaceURI();
+            String localName = nsAwareAttr.coreGetLocalName();
+            int mask = table.length-1;
+            int i = hash(namespaceURI, localName) & mask;
+            CoreNSAwareAttribute existing;
+            while ((existing = table[i]) != null) {
+                if (localName.equals(existing.coreGetLocalName())
+                        && namespaceURI.equals(existing.coreGetNamespaceURI())) {
+                    // Keep the first attribute in document order
+                    duplicates = true;
+                    return;
+                }
+                i = (i+1) & mask;
+            }
+            table[i] = nsAwareAttr;
+            size++;
+        } else if (attr instanceof CoreNSUnawareAttribute) {
+            nsUnawareCount++;
+        }
+    }
+
+    /**
+     * Replace an attribute by another one at the same position in the attribute list.
+     *
+     * @return <code>false</code> if the index can't be maintained and must be discarded
+     */
+    boolean replace(CoreAttribute oldAttr, CoreAttribute newAttr) {
+        if (oldAttr instanceof CoreNSAwareAttribute && newAttr instanceof CoreNSAwareAttribute) {
+            CoreNSAwareAttribute oldNSAwareAttr = (CoreNSAwareAttribute)oldAttr;
+            CoreNSAwareAttribute newNSAwareAttr = (CoreNSAwareAttribute)newAttr;
+            if (oldNSAwareAttr.coreGetLocalName().equals(newNSAwareAttr.coreGetLocalName())
+                    && oldNSAwareAttr.coreGetNamespaceURI().equals(newNSAwareAttr.coreGetNamespaceURI())) {
+                int i = indexOf(oldNSAwareAttr);
+                if (i != -1) {
+                    table[i] = newNSAwareAttr;
+                }
+                return true;
+            }
+        } else if (oldAttr instanceof CoreNamespaceDeclaration && newAttr instanceof CoreNamespaceDeclaration) {
+            return true;
+        }
+        // This may happen with matchers that don't match on namespace URI and local name
+        return false;
+    }
+
+    /**
+     * Remove an attribute that has been removed from the element.
+     *
+     * @return <code>false</code> if the index can't be maintained and must be discarded
+     */
+    boolean remove(CoreAttribute attr) {
+        if (attr instanceof CoreNSAwareAttribute) {
+            int i = indexOf((CoreNSAwareAttribute)attr);
+            if (i != -1) {
+                if (duplicates) {
+                    // Another attribute with the same name may need to take the place of the
+                    // removed one; we can't determine that without a linear search.
+                    return false;
+                }
+                delete(i);
+            }
+        } else if (attr instanceof CoreNSUnawareAttribute) {
+            nsUnawareCount--;
+        }
+        return true;
+    }
+
+    private int indexOf(CoreNSAwareAttribute attr) {
+        int mask = table.length-1;
+        int i = hash(attr.coreGetNamespaceURI(), attr.coreGetLocalName()) & mask;
+        CoreNSAwareAttribute existing;
+        while ((existing = table[i]) != null) {
+            if (existing == attr) {
+                return i;
+            }
+            i = (i+1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Delete the entry at the given position and shift back the entries that follow in the same
+     * probe sequence.
+     */
+    private void delete(int i) {
+        int mask = table.length-1;
+        table[i] = null;
+        size--;
+        int j = i;
+        while (true) {
+            j = (j+1) & mask;
+            CoreNSAwareAttribute attr = table[j];
+            if (attr == null) {
+                return;
+            }
+            int k = hash(attr.coreGetNamespaceURI(), attr.coreGetLocalName()) & mask;
+            // Move the entry if its home position k is not cyclically in (i, j]
+            if (i <= j ? (k <= i || k > j) : (k <= i && k > j)) {
+                table[i] = attr;
+                table[j] = null;
+                i = j;
+            }
+        }
+    }
+
+    private void rehash() {
+        CoreNSAwareAttribute[] oldTable = table;
+        table = new CoreNSAwareAttribute[oldTable.length*2];
+        int mask = table.length-1;
+        for (int j=0; j<oldTable.length; j++) {
+            CoreNSAwareAttribute attr = oldTable[j];
+            if (attr != null) {
+                int i = hash(attr.coreGetNamespaceURI(), attr.coreGetLocalName()) & mask;
+                while (table[i] != null) {
+                    i = (i+1) & mask;
+                }
+                table[i] = attr;
+            }
+        }
+    }
+}
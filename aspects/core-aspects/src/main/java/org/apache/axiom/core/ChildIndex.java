@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the namespace aware child elements of a parent node, keyed by local name and namespace
+ * URI. The index is created by {@link CoreParentNode#coreGetFirstChildByName(String, String)} when
+ * a lookup walks more than {@link #THRESHOLD} children.
+ * <p>
+ * The index only covers a prefix of the child list, ending with {@link #lastIndexed}. Children
+ * appended after that node (by the builder or by the application) are added to the index lazily,
+ * the next time a lookup is performed; this means that appending a child never has to update the
+ * index and that the index never triggers the builder. Indexing stops at the first element whose
+ * name is not available without expanding it (see {@link CoreNSAwareElement#internalIsNameAvailable()}).
+ * Lookups that fail in the index continue with a linear search starting after
+ * {@link #lastIndexed}.
+ * <p>
+ * For every local name, and for every combination of namespace URI and local name, the index
+ * contains the first element in document order, which is the element a linear search would find.
+ * The index is updated incrementally when a child is removed; it is discarded if a child is
+ * inserted before the end of the child list or if an indexed element is renamed.
+ */
+final class ChildIndex {
+    /**
+     * The number of children above which an index is created.
+     */
+    static final int THRESHOLD = 8;
+
+    private static final class Entry {
+        /**
+         * The first element with the given local name, in any namespace.
+         */
+        CoreNSAwareElement first;
+
+        /**
+         * The first element with the given local name, for each namespace URI.
+         */
+        final Map<String,CoreNSAwareElement> byNamespaceURI = new HashMap<String,CoreNSAwareElement>(4);
+    }
+
+    private final Map<String,Entry> entries = new HashMap<String,Entry>();
+
+    /**
+     * The last child covered by the index, or <code>null</code> if no child has been indexed yet.
+     */
+    private CoreChildNode lastIndexed;
+
+    /**
+     * Add the children that have been appended since the last call to this method.
+     *
+     * @param content
+     *            the content of the parent node
+     * @return the last child covered by the index
+     */
+    CoreChildNode update(Content content) {
+        CoreChildNode child = lastIndexed == null ? content.firstChild : lastIndexed.nextSibling;
+        while (child != null) {
+            if (child instanceof CoreNSAwareElement) {
+                CoreNSAwareElement element = (CoreNSAwareElement)child;
+                if (!element.internalIsNameAvailable()) {
+                    break;
+                }
+                add(element);
+            }
+            lastIndexed = child;
+            child = child.nextSibling;
+        }
+        return lastIndexed;
+    }
+
+    private void add(CoreNSAwareElement element) {
+        String localName = element.coreGetLocalName();
+        String namespaceURI = element.coreGetNamespaceURI();
+        Entry entry = entries.get(localName);
+        if (entry == null) {
+            entry = new Entry();
+            entry.first = element;
+            entries.put(localName, entry);
+        }
+        if (!entry.byNamespaceURI.containsKey(namespaceURI)) {
+            entry.byNamespaceURI.put(namespaceURI, element);
+        }
+        element.setFlag(Flags.INDEXED, true);
+    }
+
+    /**
+     * Look up the first indexed element with the given name.
+     *
+     * @param namespaceURI
+     *            the namespace URI, or <code>null</code> to match elements in any namespace
+     * @param localName
+     *            the local name
+     * @return the element, or <code>null</code> if there is no matching element in the part of the
+     *         child list covered by the index
+     */
+    CoreNSAwareElement get(String namespaceURI, String localName) {
+        Entry entry = entries.get(localName);
+        if (entry == null) {
+            return null;
+        } else if (namespaceURI == null) {
+            return entry.first;
+        } else {
+            return entry.byNamespaceURI.get(namespaceURI);
+        }
+    }
+
+    /**
+     * Update the index for a child that is about to be removed from the parent. This must be called
+     * while the child is still linked to its siblings.
+     *
+     * @param child
+     *            the child being removed
+     */
+    void remove(CoreChildNode child) {
+        boolean isLastIndexed = child == lastIndexed;
+        if (isLastIndexed) {
+            lastIndexed = child.previousSibling;
+        }
+        if (!(child instanceof CoreNSAwareElement) || !child.getFlag(Flags.INDEXED)) {
+            return;
+        }
+        child.setFlag(Flags.INDEXED, false);
+        CoreNSAwareElement element = (CoreNSAwareElement)child;
+        String localName = element.coreGetLocalName();
+        String namespaceURI = element.coreGetNamespaceURI();
+        Entry entry = entries.get(localName);
+        if (entry == null) {
+            return;
+        }
+        boolean replaceFirst = entry.first == element;
+        boolean replaceByNamespaceURI = entry.byNamespaceURI.get(namespaceURI) == element;
+        if (!replaceFirst && !replaceByNamespaceURI) {
+            return;
+        }
+        if (replaceFirst) {
+            entry.first = null;
+        }
+        if (replaceByNamespaceURI) {
+            entry.byNamespaceURI.remove(namespaceURI);
+        }
+        // Find the next element with the same name in the part of the child list covered by the
+        // index.
+        if (!isLastIndexed) {
+            CoreChildNode node = child.nextSibling;
+            while ((replaceFirst || replaceByNamespaceURI) && node != null) {
+                if (node instanceof CoreNSAwareElement) {
+                    CoreNSAwareElement candidate = (CoreNSAwareElement)node;
+                    if (localName.equals(candidate.coreGetLocalName())) {
+                        if (replaceFirst) {
+                            entry.first = candidate;
+                            replaceFirst = false;
+                        }
+                        if (replaceByNamespaceURI && namespaceURI.equals(candidate.coreGetNamespaceURI())) {
+                            entry.byNamespaceURI.put(namespaceURI, candidate);
+                            replaceByNamespaceURI = false;
+                        }
+                    }
+                }
+                if (node == lastIndexed) {
+                    break;
+                }
+                node = node.nextSibling;
+            }
+        }
+        if (entry.first == null) {
+            entries.remove(localName);
+        }
+    }
+}
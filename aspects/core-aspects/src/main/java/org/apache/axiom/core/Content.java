@@ -21,4 +21,16 @@ package org.apache.axiom.core;
 final class Content {
     CoreChildNode firstChild;
     CoreChildNode lastChild;
+    
+    /**
+     * Index of the child elements, or <code>null</code> if the node has not (yet) enough children
+     * for an index to be useful or if the index has been discarded.
+     */
+    ChildIndex childIndex;
+    
+    /**
+     * The cached serialized form of the node, or <code>null</code> if there is none. The content
+     * of this object is opaque to the core model.
+     */
+    Object serializationCache;
 }
@@ -35,5 +35,20 @@ public interface CoreParentNode extends CoreNode {
     void coreSetState(int state);
     void build();
 
+    /**
+     * Get the first child element with the given name. For parents with many children, this
+     * method maintains an index of the child elements, so that repeated lookups don't need to scan
+     * the list of children. The builder is only triggered if the element is not found among the
+     * children that have already been built.
+     * 
+     * @param namespaceURI
+     *            the namespace URI of the element, or <code>null</code> to match elements with the
+     *            given local name in any namespace
+     * @param localName
+     *            the local name of the element
+     * @return the first matching child element, or <code>null</code> if there is no such element
+     */
+    CoreNSAwareElement coreGetFirstChildByName(String namespaceURI, String localName);
+    
     <T extends CoreElement> NodeIterator<T> coreGetElements(Axis axis, Class<T> type, ElementMatcher<? super T> matcher, String namespaceURI, String name, ExceptionTranslator exceptionTranslator, DetachPolicy detachPolicy);
 }
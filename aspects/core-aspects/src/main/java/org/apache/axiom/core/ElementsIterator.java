@@ -32,6 +32,19 @@ final class ElementsIterator<T extends CoreElement> extends AbstractNodeIterator
         this.name = name;
     }
 
+    @Override
+    CoreChildNode getFirstChild(CoreParentNode startNode) {
+        // Use the child index of the start node to skip the children before the first element with
+        // the requested name
+        if (matcher == ElementMatcher.BY_QNAME) {
+            return startNode.coreGetFirstChildByName(namespaceURI, name);
+        } else if (matcher == ElementMatcher.BY_LOCAL_NAME) {
+            return startNode.coreGetFirstChildByName(null, name);
+        } else {
+            return super.getFirstChild(startNode);
+        }
+    }
+
     @Override
     protected final boolean matches(CoreNode node) throws CoreModelException {
         return type.isInstance(node) && matcher.matches(type.cast(node), namespaceURI, name);
@@ -40,4 +40,23 @@ final class Flags {
      * Used to store the information returned by {@link CoreCharacterDataNode#coreIsIgnorable()}.
      */
     static final int IGNORABLE = 16;
+    
+    /**
+     * Used by {@link CoreNSAwareElement} instances to indicate that the element may be referenced
+     * by the {@link ChildIndex} of its parent.
+     */
+    static final int INDEXED = 32;
+    
+    /**
+     * Used by {@link CoreParentNode} instances to indicate that the serialized form of the node
+     * may be cached. See {@link CoreParentNode#coreSetSerializationCacheEnabled(boolean)}.
+     */
+    static final int SERIALIZATION_CACHE_ENABLED = 64;
+    
+    /**
+     * Indicates that the node may be part of a subtree for which information is cached, such as
+     * the serialized form of the subtree. When a node with this flag is modified, the caches of
+     * its ancestors must be discarded. See {@link CoreNode#internalInvalidateCaches()}.
+     */
+    static final int CACHED_SUBTREE = 128;
 }
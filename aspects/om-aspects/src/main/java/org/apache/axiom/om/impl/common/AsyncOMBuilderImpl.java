@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common;
+
+import java.nio.ByteBuffer;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.om.AsyncOMBuilder;
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.impl.builder.OMFactoryEx;
+
+/**
+ * {@link AsyncOMBuilder} implementation. The events produced by a non blocking parser (see
+ * {@link AsyncParserFactory}) are translated into calls to the {@link PushOMBuilder} methods, so
+ * that the tree is built exactly as it would be by an {@link org.apache.axiom.om.OMDataSource}
+ * writing to a {@link PushOMBuilder}.
+ */
+public class AsyncOMBuilderImpl extends PushOMBuilder implements AsyncOMBuilder {
+    private final AsyncParserFactory parserFactory;
+    private final OMFactoryEx factory;
+    private final OMDocument document;
+    private final XMLStreamReader parser;
+    private int depth;
+    private boolean endOfInput;
+    private boolean completed;
+
+    /**
+     * Constructor.
+     *
+     * @param factory
+     *            the factory to use
+     * @throws UnsupportedOperationException
+     *             if no StAX implementation supporting non blocking parsing is available
+     */
+    public AsyncOMBuilderImpl(OMFactoryEx factory) {
+        this(factory, factory.createOMDocument());
+    }
+
+    private AsyncOMBuilderImpl(OMFactoryEx factory, OMDocument document) {
+        super(factory, document);
+        parserFactory = AsyncParserFactory.getInstance();
+        this.factory = factory;
+        this.document = document;
+        try {
+            parser = parserFactory.createParser();
+            if (parser.getEventType() == XMLStreamReader.START_DOCUMENT) {
+                startDocument();
+            }
+        } catch (XMLStreamException ex) {
+            throw new OMException(ex);
+        }
+    }
+
+    public void feed(ByteBuffer data) throws OMException {
+        if (endOfInput) {
+            throw new IllegalStateException("endOfInput() has already been called");
+        }
+        if (!data.hasRemaining()) {
+            return;
+        }
+        try {
+            parserFactory.feedInput(parser, data);
+            processEvents();
+        } catch (XMLStreamException ex) {
+            throw new OMException(ex);
+        }
+        data.position(data.limit());
+    }
+
+    public void endOfInput() throws OMException {
+        if (endOfInput) {
+            return;
+        }
+        endOfInput = true;
+        try {
+            parserFactory.endOfInput(parser);
+            processEvents();
+            if (!completed) {
+                throw new OMException("Unexpected end of document");
+            }
+            parser.close();
+        } catch (XMLStreamException ex) {
+            throw new OMException(ex);
+        }
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public OMDocument getDocument() {
+        return document;
+    }
+
+    /**
+     * Process the events produced by the parser until it needs more input or until the end of the
+     * document is reached.
+     *
+     * @throws XMLStreamException
+     *             if the parser reports an error
+     */
+    private void processEvents() throws XMLStreamException {
+        while (!completed) {
+            int event = parser.next();
+            switch (event) {
+                case AsyncParserFactory.EVENT_INCOMPLETE:
+                    return;
+                case XMLStreamReader.START_DOCUMENT:
+                    startDocument();
+                    break;
+                case XMLStreamReader.START_ELEMENT:
+                    startElement();
+                    break;
+                case XMLStreamReader.END_ELEMENT:
+                    writeEndElement();
+                    depth--;
+                    break;
+                case XMLStreamReader.CHARACTERS:
+                case XMLStreamReader.SPACE:
+                    // Whitespace in the prolog and epilog is not part of the infoset
+                    if (depth > 0) {
+                        writeCharacters(parser.getText());
+                    }
+                    break;
+                case XMLStreamReader.CDATA:
+                    writeCData(parser.getText());
+                    break;
+                case XMLStreamReader.COMMENT:
+                    writeComment(parser.getText());
+                    break;
+                case XMLStreamReader.PROCESSING_INSTRUCTION:
+                    String data = parser.getPIData();
+                    writeProcessingInstruction(parser.getPITarget(), data == null ? "" : data);
+                    break;
+                case XMLStreamReader.ENTITY_REFERENCE:
+                    writeEntityRef(parser.getLocalName());
+                    break;
+                case XMLStreamReader.DTD:
+                    String internalSubset = parser.getText();
+                    // The parser returns an empty string if there is no internal subset
+                    if (internalSubset != null && internalSubset.length() == 0) {
+                        internalSubset = null;
+                    }
+                    factory.createOMDocType(document, parserFactory.getDTDRootName(parser),
+                            parserFactory.getDTDPublicId(parser), parserFactory.getDTDSystemId(parser),
+                            internalSubset, true);
+                    break;
+                case XMLStreamReader.END_DOCUMENT:
+                    completed = true;
+                    break;
+                default:
+                    throw new OMException("Unexpected event " + event);
+            }
+        }
+    }
+
+    private void startDocument() {
+        document.setXMLVersion(parser.getVersion());
+        document.setXMLEncoding(parser.getCharacterEncodingScheme());
+        if (parser.standaloneSet()) {
+            document.setStandalone(parser.isStandalone() ? "yes" : "no");
+        }
+    }
+
+    private void startElement() throws XMLStreamException {
+        writeStartElement(emptyIfNull(parser.getPrefix()), parser.getLocalName(),
+                emptyIfNull(parser.getNamespaceURI()));
+        depth++;
+        for (int i=0, count=parser.getNamespaceCount(); i<count; i++) {
+            String prefix = parser.getNamespacePrefix(i);
+            String namespaceURI = emptyIfNull(parser.getNamespaceURI(i));
+            if (prefix == null || prefix.length() == 0) {
+                writeDefaultNamespace(namespaceURI);
+            } else {
+                writeNamespace(prefix, namespaceURI);
+            }
+        }
+        for (int i=0, count=parser.getAttributeCount(); i<count; i++) {
+            writeAttribute(emptyIfNull(parser.getAttributePrefix(i)),
+                    emptyIfNull(parser.getAttributeNamespace(i)), parser.getAttributeLocalName(i),
+                    parser.getAttributeValue(i));
+        }
+    }
+
+    private static String emptyIfNull(String s) {
+        return s == null ? "" : s;
+    }
+}
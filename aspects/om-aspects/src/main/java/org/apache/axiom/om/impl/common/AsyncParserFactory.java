@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Creates non blocking {@link XMLStreamReader} instances. This uses the asynchronous API of Aalto
+ * (version 1.0 or higher). Since Aalto is an optional dependency, its API is accessed using
+ * reflection; this is only done when a parser is created and when input is fed to it, but not for
+ * the events produced by the parser, which are read through the standard StAX API.
+ */
+final class AsyncParserFactory {
+    private static final Log log = LogFactory.getLog(AsyncParserFactory.class);
+
+    /**
+     * The event returned by {@link XMLStreamReader#next()} when the parser needs more input. This
+     * is the value of <code>AsyncXMLStreamReader.EVENT_INCOMPLETE</code>.
+     */
+    static final int EVENT_INCOMPLETE = 257;
+
+    private static final AsyncParserFactory INSTANCE;
+
+    static {
+        AsyncParserFactory instance;
+        try {
+            ClassLoader cl = AsyncParserFactory.class.getClassLoader();
+            Class<?> factoryClass = Class.forName("com.fasterxml.aalto.AsyncXMLInputFactory", true, cl);
+            Class<?> readerClass = Class.forName("com.fasterxml.aalto.AsyncXMLStreamReader", true, cl);
+            Class<?> inputFeederClass = Class.forName("com.fasterxml.aalto.AsyncInputFeeder", true, cl);
+            Class<?> byteBufferFeederClass = Class.forName("com.fasterxml.aalto.AsyncByteBufferFeeder", true, cl);
+            Class<?> dtdInfoClass = Class.forName("org.codehaus.stax2.DTDInfo", true, cl);
+            instance = new AsyncParserFactory(
+                    Class.forName("com.fasterxml.aalto.stax.InputFactoryImpl", true, cl).newInstance(),
+                    factoryClass.getMethod("createAsyncForByteBuffer"),
+                    readerClass.getMethod("getInputFeeder"),
+                    byteBufferFeederClass.getMethod("feedInput", ByteBuffer.class),
+                    inputFeederClass.getMethod("endOfInput"),
+                    dtdInfoClass.getMethod("getDTDRootName"),
+                    dtdInfoClass.getMethod("getDTDPublicId"),
+                    dtdInfoClass.getMethod("getDTDSystemId"));
+        } catch (Exception ex) {
+            if (log.isDebugEnabled()) {
+                log.debug("Non blocking parsing is not supported: " + ex);
+            }
+            instance = null;
+        } catch (LinkageError ex) {
+            if (log.isDebugEnabled()) {
+                log.debug("Non blocking parsing is not supported: " + ex);
+            }
+            instance = null;
+        }
+        INSTANCE = instance;
+    }
+
+    private final Object factory;
+    private final Method createReaderMethod;
+    private final Method getInputFeederMethod;
+    private final Method feedInputMethod;
+    private final Method endOfInputMethod;
+    private final Method getDTDRootNameMethod;
+    private final Method getDTDPublicIdMethod;
+    private final Method getDTDSystemIdMethod;
+
+    private AsyncParserFactory(Object factory, Method createReaderMethod,
+            Method getInputFeederMethod, Method feedInputMethod, Method endOfInputMethod,
+            Method getDTDRootNameMethod, Method getDTDPublicIdMethod, Method getDTDSystemIdMethod) {
+        this.factory = factory;
+        this.createReaderMethod = createReaderMethod;
+        this.getInputFeederMethod = getInputFeederMethod;
+        this.feedInputMethod = feedInputMethod;
+        this.endOfInputMethod = endOfInputMethod;
+        this.getDTDRootNameMethod = getDTDRootNameMethod;
+        this.getDTDPublicIdMethod = getDTDPublicIdMethod;
+        this.getDTDSystemIdMethod = getDTDSystemIdMethod;
+    }
+
+    /**
+     * Get the factory instance.
+     *
+     * @return the factory
+     * @throws UnsupportedOperationException
+     *             if no StAX implementation supporting non blocking parsing is available
+     */
+    static AsyncParserFactory getInstance() {
+        if (INSTANCE == null) {
+            throw new UnsupportedOperationException(
+                    "Non blocking parsing requires Aalto 1.0 or higher");
+        }
+        return INSTANCE;
+    }
+
+    XMLStreamReader createParser() throws XMLStreamException {
+        return (XMLStreamReader)invoke(createReaderMethod, factory);
+    }
+
+    /**
+     * Feed input to a parser. The buffer must not be modified until the parser has consumed all
+     * of its content, i.e. until {@link XMLStreamReader#next()} has returned
+     * {@link #EVENT_INCOMPLETE}.
+     *
+     * @param parser
+     *            a parser created by {@link #createParser()}
+     * @param data
+     *            the input
+     * @throws XMLStreamException
+     *             if the parser rejects the input
+     */
+    void feedInput(XMLStreamReader parser, ByteBuffer data) throws XMLStreamException {
+        invoke(feedInputMethod, invoke(getInputFeederMethod, parser), data);
+    }
+
+    void endOfInput(XMLStreamReader parser) throws XMLStreamException {
+        invoke(endOfInputMethod, invoke(getInputFeederMethod, parser));
+    }
+
+    String getDTDRootName(XMLStreamReader parser) throws XMLStreamException {
+        return (String)invoke(getDTDRootNameMethod, parser);
+    }
+
+    String getDTDPublicId(XMLStreamReader parser) throws XMLStreamException {
+        return (String)invoke(getDTDPublicIdMethod, parser);
+    }
+
+    String getDTDSystemId(XMLStreamReader parser) throws XMLStreamException {
+        return (String)invoke(getDTDSystemIdMethod, parser);
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) throws XMLStreamException {
+        try {
+            return method.invoke(target, args);
+        } catch (IllegalAccessException ex) {
+            throw new XMLStreamException(ex);
+        } catch (InvocationTargetException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof XMLStreamException) {
+                throw (XMLStreamException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            } else {
+                throw new XMLStreamException(cause);
+            }
+        }
+    }
+}
@@ -41,7 +41,22 @@ import org.apache.axiom.util.stax.AbstractXMLStreamWriter;
 public class PushOMBuilder extends AbstractXMLStreamWriter implements DataHandlerWriter {
     private final AxiomSourcedElement root;
     private final OMFactoryEx factory;
-    private OMElement parent;
+    private OMContainer parent;
+    
+    /**
+     * Constructor for builders that add nodes to an existing container (typically a document),
+     * instead of expanding an {@link AxiomSourcedElement}.
+     * 
+     * @param factory
+     *            the factory to use
+     * @param parent
+     *            the container to which the nodes are added
+     */
+    protected PushOMBuilder(OMFactoryEx factory, OMContainer parent) {
+        root = null;
+        this.factory = factory;
+        this.parent = parent;
+    }
     
     public PushOMBuilder(AxiomSourcedElement root) throws XMLStreamException {
         this.root = root;
@@ -94,9 +109,9 @@ public class PushOMBuilder extends AbstractXMLStreamWriter implements DataHandle
         if (!isDecl && namespaceURI.length() == 0) {
             return null;
         } else {
-            if (parent != null) {
+            if (parent instanceof OMElement) {
                 // If possible, locate an existing OMNamespace object
-                OMNamespace ns = parent.findNamespaceURI(prefix);
+                OMNamespace ns = ((OMElement)parent).findNamespaceURI(prefix);
                 if (ns != null && ns.getNamespaceURI().equals(namespaceURI)) {
                     return ns;
                 }
@@ -108,17 +123,19 @@ public class PushOMBuilder extends AbstractXMLStreamWriter implements DataHandle
     protected void doWriteStartElement(String prefix, String localName, String namespaceURI) {
         // Get the OMNamespace object before we change the parent
         OMNamespace ns = getOMNamespace(prefix, namespaceURI, false);
+        OMElement element;
         if (parent == null) {
             root.validateName(prefix, localName, namespaceURI);
-            parent = root;
+            element = root;
         } else {
             // We use the createOMElement variant that takes a OMXMLParserWrapper parameter and
             // don't pass the namespace. This avoids creation of a namespace declaration.
-            parent = factory.createOMElement(localName, parent, null);
+            element = factory.createOMElement(localName, parent, null);
         }
         if (ns != null) {
-            parent.setNamespace(ns, false);
+            element.setNamespace(ns, false);
         }
+        parent = element;
     }
 
     protected void doWriteStartElement(String localName) throws XMLStreamException {
@@ -132,7 +149,7 @@ public class PushOMBuilder extends AbstractXMLStreamWriter implements DataHandle
             // Since we use the createOMElement variant that takes a OMXMLParserWrapper parameter,
             // we need to update the completion status.
             ((OMContainerEx)parent).setComplete(true);
-            parent = (OMElement)parent.getParent();
+            parent = ((OMElement)parent).getParent();
         }
     }
 
@@ -32,13 +32,16 @@ import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamSource;
 
 import org.apache.axiom.core.CoreParentNode;
+import org.apache.axiom.om.AsyncOMBuilder;
 import org.apache.axiom.om.OMException;
 import org.apache.axiom.om.OMFactory;
 import org.apache.axiom.om.OMMetaFactory;
 import org.apache.axiom.om.OMXMLParserWrapper;
 import org.apache.axiom.om.impl.builder.Detachable;
+import org.apache.axiom.om.impl.builder.OMFactoryEx;
 import org.apache.axiom.om.impl.builder.StAXOMBuilder;
 import org.apache.axiom.om.impl.builder.XOPAwareStAXOMBuilder;
+import org.apache.axiom.om.impl.common.AsyncOMBuilderImpl;
 import org.apache.axiom.om.util.StAXParserConfiguration;
 import org.apache.axiom.om.util.StAXUtils;
 import org.apache.axiom.soap.SOAPFactory;
@@ -190,7 +193,9 @@ public abstract class AbstractOMMetaFactory implements OMMetaFactoryEx {
                     toInputSource((StreamSource)source));
         } else {
             try {
-                return new StAXOMBuilder(omFactory, StAXUtils.getXMLInputFactory().createXMLStreamReader(source), (Detachable)null, (Closeable)null);
+                StAXOMBuilder builder = new StAXOMBuilder(omFactory, StAXUtils.getXMLInputFactory().createXMLStreamReader(source), (Detachable)null, (Closeable)null);
+                builder.setAutoClose(true);
+                return builder;
             } catch (XMLStreamException ex) {
                 throw new OMException(ex);
             }
@@ -220,6 +225,10 @@ public abstract class AbstractOMMetaFactory implements OMMetaFactoryEx {
         return builder;
     }
 
+    public AsyncOMBuilder createAsyncOMBuilder(OMFactory omFactory) {
+        return new AsyncOMBuilderImpl((OMFactoryEx)omFactory);
+    }
+
     public SOAPModelBuilder createStAXSOAPModelBuilder(XMLStreamReader parser) {
         return new StAXSOAPModelBuilder(this, getXMLStreamReader(parser), null, null);
     }
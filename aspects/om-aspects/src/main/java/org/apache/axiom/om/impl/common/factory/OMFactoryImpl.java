@@ -40,6 +40,7 @@ import org.apache.axiom.om.OMSourcedElement;
 import org.apache.axiom.om.OMText;
 import org.apache.axiom.om.OMXMLParserWrapper;
 import org.apache.axiom.om.impl.OMContainerEx;
+import org.apache.axiom.om.impl.builder.NameTable;
 import org.apache.axiom.om.impl.builder.OMFactoryEx;
 import org.apache.axiom.om.impl.builder.StAXOMBuilder;
 import org.apache.axiom.om.impl.common.OMNamespaceImpl;
@@ -60,8 +61,22 @@ import org.apache.axiom.om.impl.intf.TextContent;
 import org.apache.axiom.om.impl.util.OMSerializerUtil;
 
 public class OMFactoryImpl implements OMFactoryEx {
+    /**
+     * The maximum number of entries in a generation of the name table. Since the table is shared
+     * by all documents created by the factory, this protects against unbounded memory usage when
+     * processing documents with many distinct names; names that are no longer used are evicted
+     * when a new generation is started.
+     */
+    private static final int MAX_NAME_TABLE_SIZE = 4096;
+    
     private final OMMetaFactory metaFactory;
     private final NodeFactory nodeFactory;
+    private final NameTable nameTable = new NameTable(null, true, MAX_NAME_TABLE_SIZE) {
+        @Override
+        protected OMNamespace createNamespace(String namespaceURI, String prefix) {
+            return new OMNamespaceImpl(namespaceURI == null ? null : intern(namespaceURI), intern(prefix));
+        }
+    };
     
     public OMFactoryImpl(OMMetaFactory metaFactory, NodeFactory nodeFactory) {
         this.metaFactory = metaFactory;
@@ -81,8 +96,12 @@ public class OMFactoryImpl implements OMFactoryEx {
         return metaFactory;
     }
 
+    public final NameTable getNameTable() {
+        return nameTable;
+    }
+
     public final OMNamespace createOMNamespace(String uri, String prefix) {
-        return new OMNamespaceImpl(uri, prefix);
+        return nameTable.getNamespace(uri, prefix);
     }
     
     public final OMDocument createOMDocument() {
@@ -256,7 +275,7 @@ public class OMFactoryImpl implements OMFactoryEx {
         if (parent != null) {
             ((AxiomContainer)parent).addChild(element, builder != null);
         }
-        element.initName(localName, ns, generateNSDecl);
+        element.initName(builder == null ? nameTable.intern(localName) : localName, ns, generateNSDecl);
         return element;
     }
 
@@ -274,7 +293,7 @@ public class OMFactoryImpl implements OMFactoryEx {
         if (parent != null) {
             parent.addChild(element);
         }
-        element.internalSetLocalName(qname.getLocalPart());
+        element.internalSetLocalName(nameTable.intern(qname.getLocalPart()));
         String prefix = qname.getPrefix();
         String namespaceURI = qname.getNamespaceURI();
         if (namespaceURI.length() > 0) {
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common.serializer.push.stream;
+
+/**
+ * The serialized form of an element, as produced by {@link StreamSerializer}. The serialized form
+ * depends on the encoding and on the namespace bindings in scope (because of namespace
+ * repairing); it can only be reused if both are the same.
+ */
+final class SerializedFragment {
+    private final String encoding;
+    
+    /**
+     * The namespace bindings in scope when the fragment was serialized, as a sequence of prefix
+     * and namespace URI pairs.
+     */
+    private final String[] namespaceBindings;
+    
+    /**
+     * The mark returned by {@link XMLEncoder#startRecording()}. Only used while the fragment is
+     * being recorded.
+     */
+    private final int mark;
+    
+    private byte[] content;
+    
+    SerializedFragment(String encoding, String[] namespaceBindings, int mark) {
+        this.encoding = encoding;
+        this.namespaceBindings = namespaceBindings;
+        this.mark = mark;
+    }
+
+    int getMark() {
+        return mark;
+    }
+
+    byte[] getContent() {
+        return content;
+    }
+
+    void setContent(byte[] content) {
+        this.content = content;
+    }
+    
+    boolean isCompatible(String encoding, String[] namespaceBindings) {
+        if (!this.encoding.equals(encoding) || this.namespaceBindings.length != namespaceBindings.length) {
+            return false;
+        }
+        for (int i=0; i<namespaceBindings.length; i++) {
+            if (!this.namespaceBindings[i].equals(namespaceBindings[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
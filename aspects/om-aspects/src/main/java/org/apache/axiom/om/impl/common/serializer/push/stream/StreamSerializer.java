@@ -0,0 +1,501 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common.serializer.push.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.activation.DataHandler;
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.axiom.ext.stax.datahandler.DataHandlerProvider;
+import org.apache.axiom.om.DeferredParsingException;
+import org.apache.axiom.om.OMDataSource;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.OMSerializable;
+import org.apache.axiom.om.impl.common.serializer.push.OutputException;
+import org.apache.axiom.om.impl.common.serializer.push.Serializer;
+import org.apache.axiom.util.base64.Base64EncodingOutputStream;
+import org.apache.axiom.util.namespace.ScopedNamespaceContext;
+
+/**
+ * {@link Serializer} implementation that encodes the document directly into an
+ * {@link OutputStream}, without going through an {@link javax.xml.stream.XMLStreamWriter}. Only
+ * UTF-8 and UTF-16 are supported. The encoded forms of namespace prefixes, local names and
+ * namespace URIs are cached, and the buffer and cache are reused by subsequent serializations
+ * (through a bounded pool shared by all threads). Instances are created using
+ * {@link #create(OMSerializable, OutputStream, OMOutputFormat)} and must be released using
+ * {@link #release()}.
+ */
+public class StreamSerializer extends Serializer {
+    private static final String XSI_URI = "http://www.w3.org/2001/XMLSchema-instance";
+    
+    private final XMLEncoder encoder;
+    private final OMOutputFormat format;
+    private final ScopedNamespaceContext nsContext = new ScopedNamespaceContext();
+    
+    /**
+     * The encoded prefixes of the elements that are currently open. The entry is
+     * <code>null</code> for elements without prefix.
+     */
+    private byte[][] prefixStack = new byte[16][];
+    
+    /**
+     * The encoded local names of the elements that are currently open.
+     */
+    private byte[][] localNameStack = new byte[16][];
+    
+    private int depth;
+    
+    /**
+     * Indicates that the start tag of the current element has not been closed yet. The tag is
+     * only closed when content is written, so that empty elements can be written using the short
+     * form.
+     */
+    private boolean inStartTag;
+    
+    /**
+     * The recording position (see {@link XMLEncoder#getRecordingPosition()}) of the last
+     * <tt>xsi:type</tt> attribute. The namespace declarations generated for such an attribute
+     * depend on the context of the root node of the serialization, not only on the namespace
+     * bindings in scope. Fragments containing these attributes are therefore not cached.
+     */
+    private int lastContextDependentPosition = -1;
+    
+    private StreamSerializer(OMSerializable root, XMLEncoder encoder, OMOutputFormat format) {
+        super(root, true, false);
+        this.encoder = encoder;
+        this.format = format;
+    }
+
+    /**
+     * Create a serializer for the given output format.
+     * 
+     * @param root
+     *            the root node of the object model subtree that is being serialized
+     * @param out
+     *            the stream to write the document to
+     * @param format
+     *            the output format
+     * @return the serializer, or <code>null</code> if direct serialization is not enabled or not
+     *         supported for the given output format
+     */
+    public static StreamSerializer create(OMSerializable root, OutputStream out, OMOutputFormat format) {
+        if (!format.isDirectSerialization() || format.isOptimized() || format.isDoingSWA()
+                || format.getXmlStreamWriterFilter() != null) {
+            return null;
+        }
+        String encoding = format.getCharSetEncoding();
+        XMLEncoder encoder = XMLEncoder.acquire(encoding == null ? OMOutputFormat.DEFAULT_CHAR_SET_ENCODING : encoding);
+        if (encoder == null) {
+            return null;
+        }
+        if (encoding == null) {
+            // Do the same as MTOMXMLStreamWriter so that the XML declaration specifies the
+            // encoding actually used, but without modifying the format passed by the caller
+            format = new OMOutputFormat(format);
+            format.setCharSetEncoding(OMOutputFormat.DEFAULT_CHAR_SET_ENCODING);
+        }
+        encoder.setOutputStream(out);
+        return new StreamSerializer(root, encoder, format);
+    }
+
+    /**
+     * Get the output format to use with this serializer. This is the format passed to
+     * {@link #create(OMSerializable, OutputStream, OMOutputFormat)}, or a copy of that format
+     * with the character set encoding set to the encoding actually used if none was specified.
+     * 
+     * @return the output format
+     */
+    public OMOutputFormat getOutputFormat() {
+        return format;
+    }
+
+    /**
+     * Write any buffered data to the underlying stream and flush it.
+     * 
+     * @throws OutputException
+     *             if an error occurs while writing to the stream
+     */
+    public void flush() throws OutputException {
+        try {
+            encoder.flush();
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+    }
+
+    /**
+     * Return the buffer used by this serializer to the pool. Data that has
+     * not been flushed is discarded. The serializer must not be used after calling this method.
+     */
+    public void release() {
+        encoder.release();
+    }
+
+    private String[] getNamespaceBindings() {
+        int count = nsContext.getBindingsCount();
+        String[] bindings = new String[count*2];
+        for (int i=0; i<count; i++) {
+            bindings[2*i] = nsContext.getPrefix(i);
+            bindings[2*i+1] = nsContext.getNamespaceURI(i);
+        }
+        return bindings;
+    }
+    
+    /**
+     * Write the serialized form of an element previously produced by
+     * {@link #startFragment()} and {@link #endFragment(Object)}, if it is compatible with the
+     * current state of the serializer.
+     * 
+     * @param fragment
+     *            the serialized form, or <code>null</code>
+     * @return <code>true</code> if the serialized form has been written, <code>false</code> if
+     *         it is not compatible and the element must be serialized normally
+     * @throws OutputException
+     *             if an error occurs while writing the data
+     */
+    public boolean writeCachedFragment(Object fragment) throws OutputException {
+        if (!(fragment instanceof SerializedFragment)) {
+            return false;
+        }
+        SerializedFragment serializedFragment = (SerializedFragment)fragment;
+        if (!serializedFragment.isCompatible(encoder.getEncoding(), getNamespaceBindings())) {
+            return false;
+        }
+        try {
+            closeStartTag();
+            encoder.writeBytes(serializedFragment.getContent());
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+        return true;
+    }
+    
+    /**
+     * Start recording the serialized form of an element. This must be called before the start tag
+     * of the element is written.
+     * 
+     * @return the object to pass to {@link #endFragment(Object)}
+     * @throws OutputException
+     *             if an error occurs while writing the data
+     */
+    public Object startFragment() throws OutputException {
+        try {
+            // The pending '>' belongs to the parent element
+            closeStartTag();
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+        return new SerializedFragment(encoder.getEncoding(), getNamespaceBindings(), encoder.startRecording());
+    }
+    
+    /**
+     * Stop recording the serialized form of an element. This must be called after the end tag of
+     * the element has been written.
+     * 
+     * @param fragment
+     *            the object returned by {@link #startFragment()}
+     * @return the serialized form of the element, or <code>null</code> if it can't be reused
+     */
+    public Object endFragment(Object fragment) {
+        SerializedFragment serializedFragment = (SerializedFragment)fragment;
+        byte[] content = encoder.stopRecording(serializedFragment.getMark());
+        boolean reusable = lastContextDependentPosition < serializedFragment.getMark();
+        if (encoder.getRecordingPosition() == -1) {
+            // Positions are relative to the outermost recording
+            lastContextDependentPosition = -1;
+        }
+        if (reusable) {
+            serializedFragment.setContent(content);
+            return serializedFragment;
+        } else {
+            return null;
+        }
+    }
+
+    protected boolean isAssociated(String prefix, String namespace) throws OutputException {
+        return nsContext.getNamespaceURI(prefix).equals(namespace);
+    }
+
+    private void writeXMLDeclaration(String encoding, String version) throws OutputException {
+        try {
+            encoder.writeASCII("<?xml version=\"");
+            encoder.write(version);
+            if (encoding != null) {
+                encoder.writeASCII("\" encoding=\"");
+                encoder.write(encoding);
+            }
+            encoder.writeASCII("\"?>");
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+    }
+
+    public void writeStartDocument(String version) throws OutputException {
+        writeXMLDeclaration(null, version);
+    }
+
+    public void writeStartDocument(String encoding, String version) throws OutputException {
+        writeXMLDeclaration(encoding, version);
+    }
+
+    public void writeDTD(String rootName, String publicId, String systemId, String internalSubset) throws OutputException {
+        try {
+            encoder.writeASCII("<!DOCTYPE ");
+            encoder.write(rootName);
+            if (publicId != null) {
+                encoder.writeASCII(" PUBLIC \"");
+                encoder.write(publicId);
+                encoder.writeASCII("\" \"");
+                encoder.write(systemId);
+                encoder.writeASCII('"');
+            } else if (systemId != null) {
+                encoder.writeASCII(" SYSTEM \"");
+                encoder.write(systemId);
+                encoder.writeASCII('"');
+            }
+            if (internalSubset != null) {
+                encoder.writeASCII(" [");
+                encoder.write(internalSubset);
+                encoder.writeASCII(']');
+            }
+            encoder.writeASCII('>');
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+    }
+
+    /**
+     * Write a document type declaration that has already been serialized.
+     * 
+     * @param dtd
+     *            the complete <tt>doctypedecl</tt> production
+     * @throws OutputException
+     *             if an error occurs while writing the data
+     */
+    public void writeDTD(String dtd) throws OutputException {
+        try {
+            encoder.write(dtd);
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+    }
+
+    private void closeStartTag() throws IOException {
+        if (inStartTag) {
+            encoder.writeASCII('>');
+            inStartTag = false;
+        }
+    }
+    
+    protected void beginStartElement(String prefix, String namespaceURI, String localName) throws OutputException {
+        try {
+            closeStartTag();
+            if (depth == prefixStack.length) {
+                byte[][] newPrefixStack = new byte[depth*2][];
+                System.arraycopy(prefixStack, 0, newPrefixStack, 0, depth);
+                prefixStack = newPrefixStack;
+                byte[][] newLocalNameStack = new byte[depth*2][];
+                System.arraycopy(localNameStack, 0, newLocalNameStack, 0, depth);
+                localNameStack = newLocalNameStack;
+            }
+            byte[] encodedPrefix = prefix.length() == 0 ? null : encoder.encodeName(prefix);
+            byte[] encodedLocalName = encoder.encodeName(localName);
+            prefixStack[depth] = encodedPrefix;
+            localNameStack[depth] = encodedLocalName;
+            depth++;
+            encoder.writeASCII('<');
+            if (encodedPrefix != null) {
+                encoder.writeBytes(encodedPrefix);
+                encoder.writeASCII(':');
+            }
+            encoder.writeBytes(encodedLocalName);
+            inStartTag = true;
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+        nsContext.startScope();
+    }
+
+    protected void addNamespace(String prefix, String namespaceURI) throws OutputException {
+        nsContext.setPrefix(prefix, namespaceURI);
+        try {
+            encoder.writeASCII(" xmlns");
+            if (prefix.length() != 0) {
+                encoder.writeASCII(':');
+                encoder.writeName(prefix);
+            }
+            encoder.writeASCII("=\"");
+            encoder.writeCachedAttributeValue(namespaceURI);
+            encoder.writeASCII('"');
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+    }
+
+    protected void addAttribute(String prefix, String namespaceURI, String localName, String type, String value) throws OutputException {
+        if (namespaceURI.equals(XSI_URI) && localName.equals("type")) {
+            lastContextDependentPosition = encoder.getRecordingPosition();
+        }
+        try {
+            encoder.writeASCII(' ');
+            if (prefix.length() != 0) {
+                encoder.writeName(prefix);
+                encoder.writeASCII(':');
+            }
+            encoder.writeName(localName);
+            encoder.writeASCII("=\"");
+            encoder.writeEscaped(value, true);
+            encoder.writeASCII('"');
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+    }
+
+    protected void finishStartElement() throws OutputException {
+        // Nothing to do here; the start tag is closed by closeStartTag
+    }
+
+    public void writeEndElement() throws OutputException {
+        depth--;
+        try {
+            if (inStartTag) {
+                encoder.writeASCII('/');
+                encoder.writeASCII('>');
+                inStartTag = false;
+            } else {
+                encoder.writeASCII('<');
+                encoder.writeASCII('/');
+                byte[] encodedPrefix = prefixStack[depth];
+                if (encodedPrefix != null) {
+                    encoder.writeBytes(encodedPrefix);
+                    encoder.writeASCII(':');
+                }
+                encoder.writeBytes(localNameStack[depth]);
+                encoder.writeASCII('>');
+            }
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+        prefixStack[depth] = null;
+        localNameStack[depth] = null;
+        nsContext.endScope();
+    }
+
+    public void writeText(int type, String data) throws OutputException {
+        try {
+            closeStartTag();
+            if (type == OMNode.CDATA_SECTION_NODE) {
+                encoder.writeASCII("<![CDATA[");
+                // "]]>" can't appear in a CDATA section; split the section if necessary
+                int start = 0;
+                int idx;
+                while ((idx = data.indexOf("]]>", start)) != -1) {
+                    encoder.writeChars(data, start, idx+2);
+                    encoder.writeASCII("]]><![CDATA[");
+                    start = idx+2;
+                }
+                encoder.writeChars(data, start, data.length());
+                encoder.writeASCII("]]>");
+            } else {
+                encoder.writeEscaped(data, false);
+            }
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+    }
+
+    public void writeComment(String data) throws OutputException {
+        try {
+            closeStartTag();
+            encoder.writeASCII("<!--");
+            encoder.write(data);
+            encoder.writeASCII("-->");
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+    }
+
+    public void writeProcessingInstruction(String target, String data) throws OutputException {
+        try {
+            closeStartTag();
+            encoder.writeASCII('<');
+            encoder.writeASCII('?');
+            encoder.write(target);
+            if (data != null && data.length() != 0) {
+                encoder.writeASCII(' ');
+                encoder.write(data);
+            }
+            encoder.writeASCII('?');
+            encoder.writeASCII('>');
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+    }
+
+    public void writeEntityRef(String name) throws OutputException {
+        try {
+            closeStartTag();
+            encoder.writeASCII('&');
+            encoder.write(name);
+            encoder.writeASCII(';');
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+    }
+
+    public void writeDataHandler(DataHandler dataHandler, String contentID, boolean optimize) throws OutputException {
+        try {
+            closeStartTag();
+            Base64EncodingOutputStream out = new Base64EncodingOutputStream(encoder.getASCIIOutputStream());
+            dataHandler.writeTo(out);
+            out.complete();
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+    }
+
+    public void writeDataHandler(DataHandlerProvider dataHandlerProvider, String contentID, boolean optimize) throws OutputException {
+        DataHandler dataHandler;
+        try {
+            dataHandler = dataHandlerProvider.getDataHandler();
+        } catch (IOException ex) {
+            throw new StreamOutputException(ex);
+        }
+        writeDataHandler(dataHandler, contentID, optimize);
+    }
+
+    protected void serializePushOMDataSource(OMDataSource dataSource) throws OutputException {
+        try {
+            dataSource.serialize(new StreamXMLStreamWriter(this, nsContext));
+        } catch (IOExceptionWrapper ex) {
+            throw new StreamOutputException((IOException)ex.getCause());
+        } catch (XMLStreamException ex) {
+            // Since the writer wraps all I/O errors in an IOExceptionWrapper, the exception must
+            // have been thrown by the data source itself
+            throw new DeferredParsingException(ex);
+        }
+    }
+
+    public void writeEndDocument() throws OutputException {
+        // Nothing to do here; the caller is responsible for flushing the output
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common.serializer.push.stream;
+
+import java.io.IOException;
+
+import javax.activation.DataHandler;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.axiom.ext.stax.datahandler.DataHandlerProvider;
+import org.apache.axiom.ext.stax.datahandler.DataHandlerWriter;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.impl.common.serializer.push.OutputException;
+import org.apache.axiom.util.namespace.ScopedNamespaceContext;
+
+/**
+ * {@link XMLStreamWriter} passed to {@link org.apache.axiom.om.OMDataSource#serialize(XMLStreamWriter)}
+ * by {@link StreamSerializer}. All events are forwarded to the serializer.
+ */
+final class StreamXMLStreamWriter implements XMLStreamWriter, DataHandlerWriter {
+    private final StreamSerializer serializer;
+    
+    /**
+     * The namespace context of the {@link XMLStreamWriter}. This namespace context is inherited
+     * from the {@link StreamSerializer}.
+     */
+    private final ScopedNamespaceContext nsContext;
+
+    /**
+     * The root namespace context set using {@link #setNamespaceContext(NamespaceContext)}, or
+     * <code>null</code> if none has been set. It is used to look up namespace bindings not found
+     * in {@link #nsContext}.
+     */
+    private NamespaceContext rootContext;
+
+    StreamXMLStreamWriter(StreamSerializer serializer, ScopedNamespaceContext nsContext) {
+        this.serializer = serializer;
+        this.nsContext = nsContext;
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s;
+    }
+    
+    private static XMLStreamException wrap(OutputException ex) {
+        return new IOExceptionWrapper((IOException)ex.getCause());
+    }
+    
+    private String internalGetPrefix(String namespaceURI) throws XMLStreamException {
+        String prefix = getPrefix(namespaceURI);
+        if (prefix == null) {
+            throw new XMLStreamException("Unbound namespace URI '" + namespaceURI + "'");
+        } else {
+            return prefix;
+        }
+    }
+    
+    public Object getProperty(String name) throws IllegalArgumentException {
+        if (name.equals(DataHandlerWriter.PROPERTY)) {
+            return this;
+        } else {
+            return null;
+        }
+    }
+
+    public NamespaceContext getNamespaceContext() {
+        return nsContext;
+    }
+
+    public void setPrefix(String prefix, String uri) throws XMLStreamException {
+        nsContext.setPrefix(normalize(prefix), normalize(uri));
+    }
+
+    public void setDefaultNamespace(String uri) throws XMLStreamException {
+        nsContext.setPrefix("", normalize(uri));
+    }
+
+    public String getPrefix(String uri) throws XMLStreamException {
+        String prefix = nsContext.getPrefix(uri);
+        if (prefix == null && rootContext != null) {
+            prefix = rootContext.getPrefix(uri);
+        }
+        return prefix;
+    }
+
+    public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        try {
+            serializer.beginStartElement(normalize(prefix), normalize(namespaceURI), localName);
+        } catch (OutputException ex) {
+            throw wrap(ex);
+        }
+    }
+
+    public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+        writeStartElement(internalGetPrefix(namespaceURI), localName, namespaceURI);
+    }
+
+    public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        writeStartElement(prefix, localName, namespaceURI);
+        writeEndElement();
+    }
+
+    public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+        writeEmptyElement(internalGetPrefix(namespaceURI), localName, namespaceURI);
+    }
+
+    public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+        prefix = normalize(prefix);
+        if (prefix.equals("xmlns")) {
+            prefix = "";
+        }
+        try {
+            serializer.addNamespace(prefix, normalize(namespaceURI));
+        } catch (OutputException ex) {
+            throw wrap(ex);
+        }
+    }
+
+    public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+        writeNamespace("", namespaceURI);
+    }
+
+    public void writeAttribute(String prefix, String namespaceURI, String localName, String value) throws XMLStreamException {
+        try {
+            serializer.addAttribute(normalize(prefix), normalize(namespaceURI), localName, "CDATA", value);
+        } catch (OutputException ex) {
+            throw wrap(ex);
+        }
+    }
+
+    public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+        writeAttribute(internalGetPrefix(namespaceURI), namespaceURI, localName, value);
+    }
+
+    public void writeAttribute(String localName, String value) throws XMLStreamException {
+        writeAttribute("", "", localName, value);
+    }
+
+    public void writeEndElement() throws XMLStreamException {
+        try {
+            serializer.writeEndElement();
+        } catch (OutputException ex) {
+            throw wrap(ex);
+        }
+    }
+
+    public void writeCharacters(char[] text, int start, int len) throws XMLStreamException {
+        writeCharacters(new String(text, start, len));
+    }
+
+    public void writeCharacters(String text) throws XMLStreamException {
+        try {
+            serializer.writeText(OMNode.TEXT_NODE, text);
+        } catch (OutputException ex) {
+            throw wrap(ex);
+        }
+    }
+
+    public void writeCData(String data) throws XMLStreamException {
+        try {
+            serializer.writeText(OMNode.CDATA_SECTION_NODE, data);
+        } catch (OutputException ex) {
+            throw wrap(ex);
+        }
+    }
+
+    public void writeDataHandler(DataHandler dataHandler, String contentID, boolean optimize)
+            throws IOException, XMLStreamException {
+        try {
+            serializer.writeDataHandler(dataHandler, contentID, optimize);
+        } catch (OutputException ex) {
+            throw wrap(ex);
+        }
+    }
+
+    public void writeDataHandler(DataHandlerProvider dataHandlerProvider, String contentID,
+            boolean optimize) throws IOException, XMLStreamException {
+        writeDataHandler(dataHandlerProvider.getDataHandler(), contentID, optimize);
+    }
+
+    public void writeComment(String data) throws XMLStreamException {
+        try {
+            serializer.writeComment(data);
+        } catch (OutputException ex) {
+            throw wrap(ex);
+        }
+    }
+
+    public void writeProcessingInstruction(String target) throws XMLStreamException {
+        writeProcessingInstruction(target, "");
+    }
+
+    public void writeProcessingInstruction(String target, String data) throws XMLStreamException {
+        try {
+            serializer.writeProcessingInstruction(target, data);
+        } catch (OutputException ex) {
+            throw wrap(ex);
+        }
+    }
+
+    public void writeEntityRef(String name) throws XMLStreamException {
+        try {
+            serializer.writeEntityRef(name);
+        } catch (OutputException ex) {
+            throw wrap(ex);
+        }
+    }
+
+    public void flush() throws XMLStreamException {
+    }
+
+    public void close() throws XMLStreamException {
+        throw new UnsupportedOperationException("OMDataSource#serialize(XMLStreamWriter) MUST NOT call XMLStreamWriter#close()");
+    }
+
+    public void writeStartDocument() throws XMLStreamException {
+        throw new UnsupportedOperationException("OMDataSource#serialize(XMLStreamWriter) MUST NOT use XMLStreamWriter#writeStartDocument()");
+    }
+
+    public void writeStartDocument(String version) throws XMLStreamException {
+        throw new UnsupportedOperationException("OMDataSource#serialize(XMLStreamWriter) MUST NOT use XMLStreamWriter#writeStartDocument(String)");
+    }
+
+    public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+        throw new UnsupportedOperationException("OMDataSource#serialize(XMLStreamWriter) MUST NOT use XMLStreamWriter#writeStartDocument(String, String)");
+    }
+
+    public void writeEndDocument() throws XMLStreamException {
+        throw new UnsupportedOperationException("OMDataSource#serialize(XMLStreamWriter) MUST NOT use XMLStreamWriter#writeEndDocument()");
+    }
+
+    public void writeStartElement(String localName) throws XMLStreamException {
+        throw new UnsupportedOperationException("OMDataSource#serialize(XMLStreamWriter) MUST NOT use XMLStreamWriter#writeStartElement(String)");
+    }
+
+    public void writeEmptyElement(String localName) throws XMLStreamException {
+        throw new UnsupportedOperationException("OMDataSource#serialize(XMLStreamWriter) MUST NOT use XMLStreamWriter#writeEmptyElement(String)");
+    }
+
+    public void setNamespaceContext(NamespaceContext context) throws XMLStreamException {
+        // As specified by the StAX API, this doesn't cause any namespace declarations to be
+        // written; the bindings are only used to look up prefixes
+        rootContext = context;
+    }
+
+    public void writeDTD(String dtd) throws XMLStreamException {
+        try {
+            serializer.writeDTD(dtd);
+        } catch (OutputException ex) {
+            throw wrap(ex);
+        }
+    }
+}
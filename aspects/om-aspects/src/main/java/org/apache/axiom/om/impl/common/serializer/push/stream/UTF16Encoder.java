@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common.serializer.push.stream;
+
+import java.io.IOException;
+
+final class UTF16Encoder extends XMLEncoder {
+    private final boolean bigEndian;
+    
+    UTF16Encoder(String encoding, boolean bigEndian) {
+        super(encoding, bigEndian ? "UTF-16BE" : "UTF-16LE");
+        this.bigEndian = bigEndian;
+    }
+
+    private void put(int c) {
+        if (bigEndian) {
+            buffer[pos++] = (byte)(c >> 8);
+            buffer[pos++] = (byte)c;
+        } else {
+            buffer[pos++] = (byte)c;
+            buffer[pos++] = (byte)(c >> 8);
+        }
+    }
+    
+    void writeASCII(int c) throws IOException {
+        if (pos > buffer.length-2) {
+            flushBuffer();
+        }
+        put(c);
+    }
+
+    void writeASCII(byte[] b, int off, int len) throws IOException {
+        for (int i=0; i<len; i++) {
+            writeASCII(b[off+i]);
+        }
+    }
+
+    void writeChars(String s, int start, int end) throws IOException {
+        for (int i=start; i<end; i++) {
+            if (pos > buffer.length-4) {
+                flushBuffer();
+            }
+            char c = s.charAt(i);
+            if (Character.isHighSurrogate(c) && i+1 < end && Character.isLowSurrogate(s.charAt(i+1))) {
+                put(c);
+                put(s.charAt(++i));
+            } else if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+                // Unpaired surrogate; use the same replacement character as the JRE's encoder
+                put('?');
+            } else {
+                put(c);
+            }
+        }
+    }
+
+    void putBOM() {
+        put(0xFEFF);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common.serializer.push.stream;
+
+import java.io.IOException;
+
+final class UTF8Encoder extends XMLEncoder {
+    UTF8Encoder() {
+        super("UTF-8", "UTF-8");
+    }
+
+    void writeASCII(int c) throws IOException {
+        if (pos == buffer.length) {
+            flushBuffer();
+        }
+        buffer[pos++] = (byte)c;
+    }
+
+    void writeASCII(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (pos == buffer.length) {
+                flushBuffer();
+            }
+            int c = Math.min(len, buffer.length - pos);
+            System.arraycopy(b, off, buffer, pos, c);
+            pos += c;
+            off += c;
+            len -= c;
+        }
+    }
+
+    void writeChars(String s, int start, int end) throws IOException {
+        byte[] buffer = this.buffer;
+        int pos = this.pos;
+        for (int i=start; i<end; i++) {
+            if (pos > buffer.length-4) {
+                this.pos = pos;
+                flushBuffer();
+                pos = 0;
+            }
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buffer[pos++] = (byte)c;
+            } else if (c < 0x800) {
+                buffer[pos++] = (byte)(0xC0 | (c >> 6));
+                buffer[pos++] = (byte)(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i+1 < end
+                    && Character.isLowSurrogate(s.charAt(i+1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buffer[pos++] = (byte)(0xF0 | (cp >> 18));
+                buffer[pos++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+                buffer[pos++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+                buffer[pos++] = (byte)(0x80 | (cp & 0x3F));
+            } else if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+                // Unpaired surrogate; use the same replacement character as the JRE's encoder
+                buffer[pos++] = '?';
+            } else {
+                buffer[pos++] = (byte)(0xE0 | (c >> 12));
+                buffer[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                buffer[pos++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+        this.pos = pos;
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common.serializer.push.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Encodes characters into a byte buffer that is flushed to an {@link OutputStream} when it is full.
+ * Instances are not thread safe, but they are pooled (see {@link #acquire(String)} and
+ * {@link #release()}) so that the buffer and the cache of encoded names are reused across
+ * serializations. The pool is shared by all threads and has a bounded size, so that it neither
+ * grows with the number of threads nor retains encoders after the threads that used them have
+ * terminated.
+ */
+abstract class XMLEncoder {
+    private static final int BUFFER_SIZE = 4096;
+    
+    /**
+     * The maximum number of entries in the name cache. When that size is reached, the cache is
+     * cleared. This prevents the cache from growing without bounds if the application uses
+     * generated names.
+     */
+    private static final int MAX_CACHED_NAMES = 1024;
+    
+    /**
+     * The maximum number of idle encoders kept in the pool for each encoding. Encoders released
+     * when the pool is full are discarded.
+     */
+    private static final int POOL_SIZE = 16;
+    
+    private static final byte[] AMP = ascii("&amp;");
+    private static final byte[] LT = ascii("&lt;");
+    private static final byte[] GT = ascii("&gt;");
+    private static final byte[] QUOT = ascii("&quot;");
+    private static final byte[] TAB = ascii("&#x9;");
+    private static final byte[] LF = ascii("&#xA;");
+    private static final byte[] CR = ascii("&#xD;");
+    
+    /**
+     * The idle encoders, by encoding. The map is populated once and never modified, so that no
+     * synchronization is required to access it.
+     */
+    private static final Map<String,Queue<XMLEncoder>> pools = new HashMap<String,Queue<XMLEncoder>>();
+    
+    static {
+        for (String encoding : new String[] { "UTF-8", "UTF-16", "UTF-16BE", "UTF-16LE" }) {
+            pools.put(encoding, new ArrayBlockingQueue<XMLEncoder>(POOL_SIZE));
+        }
+    }
+    
+    private final String encoding;
+    private final String charsetName;
+    private final Map<String,byte[]> names = new HashMap<String,byte[]>();
+    protected final byte[] buffer = new byte[BUFFER_SIZE];
+    protected int pos;
+    private OutputStream out;
+    
+    /**
+     * The number of active recordings (see {@link #startRecording()}). Recordings may be nested.
+     */
+    private int recordingDepth;
+    
+    /**
+     * The data recorded so far that is no longer in the buffer.
+     */
+    private byte[] recording;
+    private int recordingLength;
+    
+    /**
+     * The position in the buffer of the first byte that has not been copied to {@link #recording}.
+     */
+    private int recordFrom;
+    
+    XMLEncoder(String encoding, String charsetName) {
+        this.encoding = encoding;
+        this.charsetName = charsetName;
+    }
+    
+    private static byte[] ascii(String s) {
+        try {
+            return s.getBytes("US-ASCII");
+        } catch (UnsupportedEncodingException ex) {
+            // US-ASCII is always supported
+            throw new Error(ex);
+        }
+    }
+    
+    /**
+     * Get an encoder for the given encoding. If the pool contains an unused encoder for that
+     * encoding, it is reused. The encoder should be returned to the pool using {@link #release()}.
+     * 
+     * @param encoding
+     *            the encoding name
+     * @return the encoder, or <code>null</code> if the encoding is not supported
+     */
+    static XMLEncoder acquire(String encoding) {
+        String key = encoding.toUpperCase();
+        if (key.equals("UTF8")) {
+            key = "UTF-8";
+        }
+        Queue<XMLEncoder> pool = pools.get(key);
+        if (pool == null) {
+            return null;
+        }
+        XMLEncoder encoder = pool.poll();
+        if (encoder == null) {
+            if (key.equals("UTF-8")) {
+                encoder = new UTF8Encoder();
+            } else if (key.equals("UTF-16") || key.equals("UTF-16BE")) {
+                encoder = new UTF16Encoder(key, true);
+            } else if (key.equals("UTF-16LE")) {
+                encoder = new UTF16Encoder(key, false);
+            }
+        }
+        return encoder;
+    }
+    
+    /**
+     * Return this encoder to the pool. Any unflushed content is discarded. The encoder must not be
+     * used (or released again) after calling this method.
+     */
+    final void release() {
+        pos = 0;
+        out = null;
+        recordingDepth = 0;
+        recording = null;
+        recordingLength = 0;
+        recordFrom = 0;
+        pools.get(encoding).offer(this);
+    }
+    
+    /**
+     * Prepare the encoder for a new serialization. If the encoding requires a byte order mark, it
+     * is written to the buffer.
+     * 
+     * @param out
+     *            the stream to write the encoded data to
+     */
+    final void setOutputStream(OutputStream out) {
+        this.out = out;
+        if (encoding.equals("UTF-16")) {
+            putBOM();
+        }
+    }
+    
+    final String getEncoding() {
+        return encoding;
+    }
+    
+    final void flushBuffer() throws IOException {
+        if (recordingDepth > 0) {
+            record(buffer, recordFrom, pos-recordFrom);
+            recordFrom = 0;
+        }
+        out.write(buffer, 0, pos);
+        pos = 0;
+    }
+    
+    final void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+    
+    /**
+     * Write a sequence of already encoded bytes.
+     * 
+     * @param b
+     *            the bytes to write
+     * @throws IOException
+     *             if an error occurs while writing to the underlying stream
+     */
+    final void writeBytes(byte[] b) throws IOException {
+        int len = b.length;
+        if (len > buffer.length - pos) {
+            flushBuffer();
+            if (len > buffer.length) {
+                if (recordingDepth > 0) {
+                    record(b, 0, len);
+                }
+                out.write(b);
+                return;
+            }
+        }
+        System.arraycopy(b, 0, buffer, pos, len);
+        pos += len;
+    }
+    
+    private void record(byte[] b, int off, int len) {
+        if (recording == null) {
+            recording = new byte[Math.max(len, BUFFER_SIZE)];
+        } else if (recordingLength + len > recording.length) {
+            byte[] newRecording = new byte[Math.max(recordingLength + len, recording.length*2)];
+            System.arraycopy(recording, 0, newRecording, 0, recordingLength);
+            recording = newRecording;
+        }
+        System.arraycopy(b, off, recording, recordingLength, len);
+        recordingLength += len;
+    }
+    
+    /**
+     * Start recording the data written to this encoder. Recordings may be nested, i.e. this
+     * method may be called again before the recording is stopped.
+     * 
+     * @return the mark to pass to {@link #stopRecording(int)}
+     */
+    final int startRecording() {
+        if (recordingDepth++ == 0) {
+            recordingLength = 0;
+            recordFrom = pos;
+        }
+        return getRecordingPosition();
+    }
+    
+    /**
+     * Get the current position in the recording. This can be used to compare the positions of
+     * events that occurred during the recording.
+     * 
+     * @return the number of bytes written since the outermost recording was started, or -1 if
+     *         there is no active recording
+     */
+    final int getRecordingPosition() {
+        return recordingDepth == 0 ? -1 : recordingLength + pos - recordFrom;
+    }
+    
+    /**
+     * Stop a recording.
+     * 
+     * @param mark
+     *            the value returned by the corresponding call to {@link #startRecording()}
+     * @return the data written since the recording was started
+     */
+    final byte[] stopRecording(int mark) {
+        byte[] result = new byte[getRecordingPosition() - mark];
+        int offset = 0;
+        if (mark < recordingLength) {
+            offset = recordingLength - mark;
+            System.arraycopy(recording, mark, result, 0, offset);
+        }
+        int start = recordFrom + Math.max(0, mark - recordingLength);
+        System.arraycopy(buffer, start, result, offset, pos - start);
+        if (--recordingDepth == 0) {
+            recordingLength = 0;
+        }
+        return result;
+    }
+    
+    /**
+     * Write a name. The encoded form of the name is cached so that subsequent writes of the same
+     * name only require a copy. This must only be used for strings that are reused frequently
+     * and that don't need escaping, i.e. namespace prefixes and local names.
+     * 
+     * @param name
+     *            the name to write
+     * @throws IOException
+     *             if an error occurs while writing to the underlying stream
+     */
+    final void writeName(String name) throws IOException {
+        writeBytes(encodeName(name));
+    }
+    
+    /**
+     * Get the encoded form of a name.
+     * 
+     * @param name
+     *            the name
+     * @return the encoded name; the caller must not modify the returned array
+     */
+    final byte[] encodeName(String name) {
+        byte[] encoded = names.get(name);
+        if (encoded == null) {
+            if (names.size() >= MAX_CACHED_NAMES) {
+                names.clear();
+            }
+            try {
+                encoded = name.getBytes(charsetName);
+            } catch (UnsupportedEncodingException ex) {
+                // UTF-8 and UTF-16 are always supported
+                throw new Error(ex);
+            }
+            names.put(name, encoded);
+        }
+        return encoded;
+    }
+    
+    /**
+     * Write an attribute value that is expected to be reused frequently, such as a namespace URI.
+     * Values that don't need escaping share the cache used by {@link #writeName(String)}; this is
+     * possible because for these values the escaped form is identical to the name form.
+     * 
+     * @param value
+     *            the attribute value to write
+     * @throws IOException
+     *             if an error occurs while writing to the underlying stream
+     */
+    final void writeCachedAttributeValue(String value) throws IOException {
+        byte[] encoded = names.get(value);
+        if (encoded != null) {
+            writeBytes(encoded);
+        } else if (needsEscaping(value)) {
+            writeEscaped(value, true);
+        } else {
+            writeName(value);
+        }
+    }
+    
+    private static boolean needsEscaping(String s) {
+        for (int i=0, len=s.length(); i<len; i++) {
+            switch (s.charAt(i)) {
+                case '&': case '<': case '>': case '"': case '\t': case '\n': case '\r':
+                    return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Get an {@link OutputStream} that writes bytes representing US-ASCII characters (such as
+     * base64 encoded data) to this encoder.
+     * 
+     * @return the output stream
+     */
+    final OutputStream getASCIIOutputStream() {
+        return new OutputStream() {
+            public void write(int b) throws IOException {
+                writeASCII(b);
+            }
+
+            public void write(byte[] b, int off, int len) throws IOException {
+                writeASCII(b, off, len);
+            }
+        };
+    }
+    
+    /**
+     * Write a string without escaping it.
+     * 
+     * @param s
+     *            the string to write
+     * @throws IOException
+     *             if an error occurs while writing to the underlying stream
+     */
+    final void write(String s) throws IOException {
+        writeChars(s, 0, s.length());
+    }
+    
+    /**
+     * Write a string, escaping the characters that have a special meaning in character data or
+     * attribute values. Carriage returns are always escaped so that they are not normalized by the
+     * parser. In attribute values, tabs and line feeds are escaped as well to prevent attribute
+     * value normalization.
+     * 
+     * @param s
+     *            the string to write
+     * @param attribute
+     *            <code>true</code> if the string is an attribute value (that will be enclosed in
+     *            double quotes); <code>false</code> if it is character data
+     * @throws IOException
+     *             if an error occurs while writing to the underlying stream
+     */
+    final void writeEscaped(String s, boolean attribute) throws IOException {
+        int len = s.length();
+        int start = 0;
+        for (int i=0; i<len; i++) {
+            byte[] replacement;
+            switch (s.charAt(i)) {
+                case '&': replacement = AMP; break;
+                case '<': replacement = LT; break;
+                case '>': replacement = GT; break;
+                case '\r': replacement = CR; break;
+                case '"': replacement = attribute ? QUOT : null; break;
+                case '\t': replacement = attribute ? TAB : null; break;
+                case '\n': replacement = attribute ? LF : null; break;
+                default: replacement = null;
+            }
+            if (replacement != null) {
+                writeChars(s, start, i);
+                writeASCII(replacement, 0, replacement.length);
+                start = i+1;
+            }
+        }
+        writeChars(s, start, len);
+    }
+    
+    /**
+     * Write a string of US-ASCII characters.
+     * 
+     * @param s
+     *            the string to write; must only contain US-ASCII characters
+     * @throws IOException
+     *             if an error occurs while writing to the underlying stream
+     */
+    final void writeASCII(String s) throws IOException {
+        for (int i=0, len=s.length(); i<len; i++) {
+            writeASCII(s.charAt(i));
+        }
+    }
+    
+    /**
+     * Write a single US-ASCII character.
+     * 
+     * @param c
+     *            the character to write
+     * @throws IOException
+     *             if an error occurs while writing to the underlying stream
+     */
+    abstract void writeASCII(int c) throws IOException;
+    
+    /**
+     * Write a sequence of bytes representing US-ASCII characters.
+     * 
+     * @param b
+     *            the characters to write
+     * @param off
+     *            the start offset
+     * @param len
+     *            the number of characters to write
+     * @throws IOException
+     *             if an error occurs while writing to the underlying stream
+     */
+    abstract void writeASCII(byte[] b, int off, int len) throws IOException;
+    
+    /**
+     * Write a range of characters from a string without escaping them.
+     * 
+     * @param s
+     *            the string
+     * @param start
+     *            the index of the first character to write
+     * @param end
+     *            the index after the last character to write
+     * @throws IOException
+     *             if an error occurs while writing to the underlying stream
+     */
+    abstract void writeChars(String s, int start, int end) throws IOException;
+    
+    /**
+     * Write the byte order mark. This is only called when the buffer is empty.
+     */
+    void putBOM() {
+    }
+}
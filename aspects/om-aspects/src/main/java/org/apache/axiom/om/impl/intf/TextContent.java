@@ -29,6 +29,7 @@ import org.apache.axiom.ext.stax.datahandler.DataHandlerProvider;
 import org.apache.axiom.om.OMCloneOptions;
 import org.apache.axiom.om.OMException;
 import org.apache.axiom.util.UIDGenerator;
+import org.apache.axiom.util.base64.Base64Codec;
 import org.apache.axiom.util.base64.Base64Utils;
 
 public final class TextContent implements CharacterData {
@@ -130,7 +131,7 @@ public final class TextContent implements CharacterData {
             }
             return (DataHandler)dataHandlerObject;
         } else if (binary) {
-            return new DataHandler(new ByteArrayDataSource(Base64Utils.decode(value), mimeType));
+            return new DataHandler(new ByteArrayDataSource(Base64Codec.decode(value), mimeType));
         } else {
             throw new OMException("No DataHandler available");
         }
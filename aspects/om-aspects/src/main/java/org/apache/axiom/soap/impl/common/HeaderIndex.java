@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.soap.impl.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.soap.RolePlayer;
+import org.apache.axiom.soap.SOAP12Constants;
+import org.apache.axiom.soap.SOAP12Version;
+import org.apache.axiom.soap.SOAPHeaderBlock;
+import org.apache.axiom.soap.SOAPVersion;
+import org.apache.axiom.soap.impl.intf.AxiomSOAPHeader;
+import org.apache.axiom.soap.impl.intf.AxiomSOAPHeaderBlock;
+
+/**
+ * Index of the header blocks of a {@link org.apache.axiom.soap.SOAPHeader}, keyed by role and by
+ * name. The index is created on demand by {@link AxiomSOAPHeaderSupport} and
+ * is discarded when a header block is added, removed, renamed or when one of its attributes
+ * changes. While the index exists, the role and mustUnderstand values of the header blocks are
+ * cached on the header blocks themselves, so that they are not read again from the attributes.
+ * <p>
+ * The iterators returned by this class operate on a snapshot of the header blocks; they are
+ * therefore not affected by modifications of the header. For compatibility with
+ * {@link HeaderIterator}, their {@link Iterator#remove()} method does nothing.
+ */
+public final class HeaderIndex {
+    private static final class BlockIterator implements Iterator {
+        private final List<AxiomSOAPHeaderBlock> blocks;
+        private int index;
+
+        BlockIterator(List<AxiomSOAPHeaderBlock> blocks) {
+            this.blocks = blocks;
+        }
+
+        public boolean hasNext() {
+            return index < blocks.size();
+        }
+
+        public Object next() {
+            if (index == blocks.size()) {
+                throw new NoSuchElementException();
+            }
+            return blocks.get(index++);
+        }
+
+        public void remove() {
+        }
+    }
+
+    /**
+     * The header blocks, in document order.
+     */
+    private final List<AxiomSOAPHeaderBlock> blocks = new ArrayList<AxiomSOAPHeaderBlock>();
+    
+    /**
+     * The header blocks, by role. The key is the value returned by {@link SOAPHeaderBlock#getRole()}
+     * and may be <code>null</code>.
+     */
+    private final Map<String,List<AxiomSOAPHeaderBlock>> blocksByRole = new HashMap<String,List<AxiomSOAPHeaderBlock>>();
+    
+    private final Map<QName,List<AxiomSOAPHeaderBlock>> blocksByName = new HashMap<QName,List<AxiomSOAPHeaderBlock>>();
+    
+    /**
+     * The header blocks with <tt>mustUnderstand</tt> set to true, or <code>null</code> if they
+     * have not been determined yet. This is done lazily because
+     * {@link SOAPHeaderBlock#getMustUnderstand()} throws an exception for invalid values.
+     */
+    private List<AxiomSOAPHeaderBlock> mustUnderstandBlocks;
+
+    HeaderIndex(AxiomSOAPHeader header) {
+        for (OMNode child = header.getFirstOMChild(); child != null; child = child.getNextOMSibling()) {
+            if (child instanceof AxiomSOAPHeaderBlock) {
+                AxiomSOAPHeaderBlock block = (AxiomSOAPHeaderBlock)child;
+                blocks.add(block);
+                add(blocksByRole, block.internalCacheRole(), block);
+                // Don't use getQName because the prefix may not be known without expanding the
+                // header block (if it is an OMSourcedElement)
+                add(blocksByName, new QName(block.getNamespaceURI(), block.getLocalName()), block);
+            }
+        }
+    }
+
+    private static <K> void add(Map<K,List<AxiomSOAPHeaderBlock>> map, K key, AxiomSOAPHeaderBlock block) {
+        List<AxiomSOAPHeaderBlock> list = map.get(key);
+        if (list == null) {
+            list = new ArrayList<AxiomSOAPHeaderBlock>(2);
+            map.put(key, list);
+        }
+        list.add(block);
+    }
+
+    private static Iterator iterator(List<AxiomSOAPHeaderBlock> blocks) {
+        if (blocks == null) {
+            return Collections.EMPTY_LIST.iterator();
+        } else {
+            return new BlockIterator(blocks);
+        }
+    }
+
+    /**
+     * Get the header blocks with a given role.
+     * 
+     * @param role
+     *            the role, or <code>null</code> to return all header blocks
+     * @return an iterator over the matching {@link SOAPHeaderBlock} instances
+     */
+    public Iterator getHeaderBlocks(String role) {
+        return iterator(role == null ? blocks : blocksByRole.get(role));
+    }
+
+    /**
+     * Get the header blocks with a given name.
+     * 
+     * @param name
+     *            the name of the header blocks; the prefix is ignored
+     * @return an iterator over the matching {@link SOAPHeaderBlock} instances
+     */
+    public Iterator getHeaderBlocks(QName name) {
+        return iterator(blocksByName.get(name));
+    }
+
+    /**
+     * Get the header blocks with a given role that have <tt>mustUnderstand</tt> set to true.
+     * 
+     * @param role
+     *            the role, or <code>null</code> to return the header blocks with any role
+     * @return an iterator over the matching {@link SOAPHeaderBlock} instances
+     */
+    public Iterator getMustUnderstandHeaderBlocks(String role) {
+        if (mustUnderstandBlocks == null) {
+            List<AxiomSOAPHeaderBlock> list = new ArrayList<AxiomSOAPHeaderBlock>();
+            for (AxiomSOAPHeaderBlock block : blocks) {
+                if (block.internalCacheMustUnderstand()) {
+                    list.add(block);
+                }
+            }
+            mustUnderstandBlocks = list;
+        }
+        if (role == null) {
+            return iterator(mustUnderstandBlocks);
+        } else {
+            List<AxiomSOAPHeaderBlock> list = new ArrayList<AxiomSOAPHeaderBlock>();
+            for (AxiomSOAPHeaderBlock block : mustUnderstandBlocks) {
+                if (role.equals(block.getRole())) {
+                    list.add(block);
+                }
+            }
+            return iterator(list);
+        }
+    }
+
+    /**
+     * Get the header blocks to be processed by a given {@link RolePlayer}. This has the same
+     * semantics as {@link RolePlayerChecker}, but the decision is made once per distinct role
+     * instead of once per header block.
+     * 
+     * @param rolePlayer
+     *            the role player, or <code>null</code> if we are the ultimate destination
+     * @param namespace
+     *            if not <code>null</code>, only header blocks in this namespace are returned
+     * @return an iterator over the matching {@link SOAPHeaderBlock} instances
+     */
+    public Iterator getHeadersToProcess(RolePlayer rolePlayer, String namespace) {
+        Set<String> roles = null;
+        if (rolePlayer != null) {
+            List playerRoles = rolePlayer.getRoles();
+            if (playerRoles != null) {
+                roles = new HashSet<String>(playerRoles);
+            }
+        }
+        Set<String> matchingRoles = new HashSet<String>();
+        boolean all = true;
+        for (Map.Entry<String,List<AxiomSOAPHeaderBlock>> entry : blocksByRole.entrySet()) {
+            String role = entry.getKey();
+            if (isTargeted(role, entry.getValue().get(0).getVersion(), rolePlayer, roles)) {
+                matchingRoles.add(role);
+            } else {
+                all = false;
+            }
+        }
+        if (all && namespace == null) {
+            return iterator(blocks);
+        }
+        List<AxiomSOAPHeaderBlock> list = new ArrayList<AxiomSOAPHeaderBlock>();
+        for (AxiomSOAPHeaderBlock block : blocks) {
+            if (matchingRoles.contains(block.getRole())
+                    && (namespace == null || namespace.equals(block.getNamespaceURI()))) {
+                list.add(block);
+            }
+        }
+        return iterator(list);
+    }
+
+    private static boolean isTargeted(String role, SOAPVersion version, RolePlayer rolePlayer, Set<String> roles) {
+        if (role == null || role.length() == 0 ||
+                (version instanceof SOAP12Version &&
+                        role.equals(SOAP12Constants.SOAP_ROLE_ULTIMATE_RECEIVER))) {
+            return rolePlayer == null || rolePlayer.isUltimateDestination();
+        } else if (role.equals(version.getNextRoleURI())) {
+            return true;
+        } else if (version instanceof SOAP12Version && role.equals(SOAP12Constants.SOAP_ROLE_NONE)) {
+            return false;
+        } else {
+            return roles != null && roles.contains(role);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common.serializer.push.stream;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class XMLEncoderTest extends TestCase {
+    public void testReleasedEncoderIsReusedByOtherThread() throws Exception {
+        final XMLEncoder encoder = XMLEncoder.acquire("UTF-8");
+        encoder.release();
+        final XMLEncoder[] acquired = new XMLEncoder[1];
+        Thread thread = new Thread() {
+            public void run() {
+                acquired[0] = XMLEncoder.acquire("utf-8");
+                acquired[0].release();
+            }
+        };
+        thread.start();
+        thread.join();
+        assertSame(encoder, acquired[0]);
+    }
+    
+    public void testPoolIsBounded() {
+        List<XMLEncoder> encoders = new ArrayList<XMLEncoder>();
+        for (int i=0; i<100; i++) {
+            encoders.add(XMLEncoder.acquire("UTF-16LE"));
+        }
+        Map<XMLEncoder,Boolean> released = new IdentityHashMap<XMLEncoder,Boolean>();
+        for (XMLEncoder encoder : encoders) {
+            encoder.release();
+            released.put(encoder, Boolean.TRUE);
+        }
+        int reused = 0;
+        for (int i=0; i<100; i++) {
+            if (released.containsKey(XMLEncoder.acquire("UTF-16LE"))) {
+                reused++;
+            }
+        }
+        assertTrue(reused > 0);
+        assertTrue(reused < 100);
+    }
+    
+    public void testUnsupportedEncoding() {
+        assertNull(XMLEncoder.acquire("ISO-8859-1"));
+    }
+}
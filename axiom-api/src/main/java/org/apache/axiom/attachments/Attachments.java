@@ -21,7 +21,7 @@ package org.apache.axiom.attachments;
 
 import org.apache.axiom.attachments.lifecycle.DataHandlerExt;
 import org.apache.axiom.attachments.lifecycle.LifecycleManager;
-import org.apache.axiom.attachments.lifecycle.impl.LifecycleManagerImpl;
+import org.apache.axiom.attachments.lifecycle.impl.ConcurrentLifecycleManager;
 import org.apache.axiom.blob.Blobs;
 import org.apache.axiom.blob.WritableBlob;
 import org.apache.axiom.blob.WritableBlobFactory;
@@ -40,6 +40,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public class Attachments implements OMAttachmentAccessor {
     private final AttachmentsDelegate delegate;
@@ -54,7 +55,7 @@ public class Attachments implements OMAttachmentAccessor {
     
     public LifecycleManager getLifecycleManager() {
         if (manager == null) {
-            manager = new LifecycleManagerImpl();
+            manager = ConcurrentLifecycleManager.getInstance();
         }
         return manager;
     }
@@ -169,6 +170,51 @@ public class Attachments implements OMAttachmentAccessor {
         this(null, inStream, contentTypeString, false, null, null);
     }
 
+    /**
+     * Moves the pointer to the beginning of the first MIME part. Reads till first MIME boundary is
+     * found or end of stream is reached. The content of the attachments is buffered in blobs
+     * created by the given factory.
+     * 
+     * @param inStream
+     * @param contentTypeString
+     * @param attachmentBlobFactory
+     *            the factory used to create the blobs that buffer the content of the attachments
+     *            (but not the root part); e.g. a factory creating blobs that overflow from
+     *            off-heap memory to temporary files
+     * @throws OMException
+     */
+    public Attachments(InputStream inStream, String contentTypeString,
+            WritableBlobFactory attachmentBlobFactory) throws OMException {
+        delegate = new MIMEMessage(inStream, contentTypeString, attachmentBlobFactory, 0);
+    }
+
+    /**
+     * Moves the pointer to the beginning of the first MIME part and reads the root part. The
+     * remaining MIME parts are read in the background by a task submitted to the given executor,
+     * so that the attachments can be buffered while the root part is being processed. Lookups for
+     * attachments that have not been read yet block until the prefetch task has reached them.
+     * <p>
+     * Note that this implies that the root part is always buffered and that the input stream is
+     * accessed by a thread different from the one that invokes this constructor. The caller must
+     * make sure that the stream remains usable until all parts have been read. Attachments
+     * created using this constructor don't support {@link #getIncomingAttachmentStreams()}.
+     * 
+     * @param inStream
+     * @param contentTypeString
+     * @param attachmentBlobFactory
+     *            the factory used to create the blobs that buffer the content of the attachments
+     *            (but not the root part)
+     * @param prefetchExecutor
+     *            the executor used to read the attachments in the background
+     * @throws OMException
+     */
+    public Attachments(InputStream inStream, String contentTypeString,
+            WritableBlobFactory attachmentBlobFactory, Executor prefetchExecutor)
+            throws OMException {
+        delegate = new MIMEMessage(inStream, contentTypeString, attachmentBlobFactory, 0,
+                prefetchExecutor);
+    }
+
     /**
      * Use this constructor when instantiating this to store the attachments set programatically
      * through the SwA API.
@@ -24,9 +24,11 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import javax.activation.DataHandler;
 
@@ -72,7 +74,9 @@ class MIMEMessage extends AttachmentsDelegate {
     
     /**
      * Stores the Data Handlers of the already parsed Mime Body Parts in the order that the attachments
-     * occur in the message. This map is keyed using the content-ID's.
+     * occur in the message. This map is keyed using the content-ID's. If prefetching is enabled, all
+     * accesses to the map must be synchronized on the map itself, and the monitor is also used to
+     * signal the availability of new parts.
      */
     private final Map attachmentsMap = new LinkedHashMap();
 
@@ -97,8 +101,47 @@ class MIMEMessage extends AttachmentsDelegate {
 
     private final WritableBlobFactory attachmentBlobFactory;
     
+    /**
+     * The executor used to prefetch the attachments, or <code>null</code> if prefetching is
+     * disabled. This is only set after the root part has been read.
+     */
+    private Executor prefetchExecutor;
+    
+    /**
+     * Indicates whether the prefetch task has terminated (normally or abruptly). Only used if
+     * prefetching is enabled.
+     */
+    private boolean prefetchComplete;
+    
+    /**
+     * The exception that caused the prefetch task to terminate abruptly, if any.
+     */
+    private Throwable prefetchException;
+    
     MIMEMessage(InputStream inStream, String contentTypeString,
             WritableBlobFactory attachmentBlobFactory, int contentLength) throws OMException {
+        this(inStream, contentTypeString, attachmentBlobFactory, contentLength, null);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param inStream
+     *            the stream from which the MIME message is read
+     * @param contentTypeString
+     *            the content type of the MIME message
+     * @param attachmentBlobFactory
+     *            the factory used to create the blobs that buffer the attachments
+     * @param contentLength
+     *            the length of the message, or a value less than or equal to zero if unknown
+     * @param prefetchExecutor
+     *            if not <code>null</code>, the root part is buffered immediately and the executor
+     *            is used to read the remaining parts in the background
+     * @throws OMException
+     */
+    MIMEMessage(InputStream inStream, String contentTypeString,
+            WritableBlobFactory attachmentBlobFactory, int contentLength,
+            Executor prefetchExecutor) throws OMException {
         this.contentLength = contentLength;
         this.attachmentBlobFactory = attachmentBlobFactory;
         if (log.isDebugEnabled()) {
@@ -145,6 +188,73 @@ class MIMEMessage extends AttachmentsDelegate {
         // Now reset partsRequested. The root part is a special case which is always 
         // read beforehand, regardless of request.
         partsRequested = false;
+        
+        if (prefetchExecutor != null) {
+            // The parser is handed over to the prefetch task; the root part must therefore be
+            // buffered because it can no longer be streamed.
+            if (currentPart != null) {
+                currentPart.fetch();
+                currentPart = null;
+            }
+            this.prefetchExecutor = prefetchExecutor;
+            prefetchExecutor.execute(new Runnable() {
+                public void run() {
+                    prefetch();
+                }
+            });
+        }
+    }
+    
+    /**
+     * Read all remaining parts from the parser. This method is executed by the prefetch executor.
+     */
+    void prefetch() {
+        Throwable exception = null;
+        try {
+            while (getNextPartDataHandler() != null) {
+                // Just loop until getNextPartDataHandler returns null
+            }
+        } catch (Throwable ex) {
+            // Errors (e.g. OutOfMemoryError) must be recorded as well; otherwise threads waiting
+            // for a part would never be notified.
+            log.debug("Prefetching of MIME parts failed", ex);
+            exception = ex;
+            if (ex instanceof Error) {
+                throw (Error)ex;
+            }
+        } finally {
+            synchronized (attachmentsMap) {
+                prefetchException = exception;
+                prefetchComplete = true;
+                attachmentsMap.notifyAll();
+            }
+        }
+    }
+    
+    /**
+     * Make sure that another part is added to {@link #attachmentsMap} (if there is one). If
+     * prefetching is enabled, this method must be called while holding the lock on
+     * {@link #attachmentsMap} and waits until the prefetch task has made progress.
+     * 
+     * @return <code>false</code> if there are no more parts to read, <code>true</code> otherwise
+     */
+    private boolean readNextPart() {
+        if (prefetchExecutor == null) {
+            return getNextPartDataHandler() != null;
+        } else if (prefetchComplete) {
+            if (prefetchException != null) {
+                throw new OMException("Failed to prefetch the MIME parts", prefetchException);
+            }
+            return false;
+        } else {
+            try {
+                attachmentsMap.wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new OMException("Interrupted while waiting for the MIME part", ex);
+            }
+            return true;
+        }
     }
 
     ContentType getContentType() {
@@ -152,25 +262,31 @@ class MIMEMessage extends AttachmentsDelegate {
     }
 
     DataHandler getDataHandler(String contentID) {
-        do {
-            DataHandler dataHandler = (DataHandler)attachmentsMap.get(contentID);
-            if (dataHandler != null) {
-                return dataHandler;
-            }
-        } while (getNextPartDataHandler() != null);
-        return null;
+        synchronized (attachmentsMap) {
+            do {
+                DataHandler dataHandler = (DataHandler)attachmentsMap.get(contentID);
+                if (dataHandler != null) {
+                    return dataHandler;
+                }
+            } while (readNextPart());
+            return null;
+        }
     }
 
     void addDataHandler(String contentID, DataHandler dataHandler) {
-        attachmentsMap.put(contentID, dataHandler);
+        synchronized (attachmentsMap) {
+            attachmentsMap.put(contentID, dataHandler);
+        }
     }
     
     void removeDataHandler(String blobContentID) {
-        do {
-            if (attachmentsMap.remove(blobContentID) != null) {
-                return;
-            }
-        } while (getNextPartDataHandler() != null);
+        synchronized (attachmentsMap) {
+            do {
+                if (attachmentsMap.remove(blobContentID) != null) {
+                    return;
+                }
+            } while (readNextPart());
+        }
     }
 
     InputStream getRootPartInputStream(boolean preserve) throws OMException {
@@ -234,6 +350,10 @@ class MIMEMessage extends AttachmentsDelegate {
     }
     
     IncomingAttachmentStreams getIncomingAttachmentStreams() {
+        if (prefetchExecutor != null) {
+            throw new IllegalStateException("The attachments stream can't be accessed if " +
+                    "attachments are prefetched");
+        }
         if (partsRequested) {
             throw new IllegalStateException(
                     "The attachments stream can only be accessed once; either by using the IncomingAttachmentStreams class or by getting a " +
@@ -253,14 +373,21 @@ class MIMEMessage extends AttachmentsDelegate {
      * Force reading of all attachments.
      */
     private void fetchAllParts() {
-        while (getNextPartDataHandler() != null) {
-            // Just loop until getNextPartDataHandler returns null
+        synchronized (attachmentsMap) {
+            while (readNextPart()) {
+                // Just loop until readNextPart returns false
+            }
         }
     }
 
     Set getContentIDs(boolean fetchAll) {
         if (fetchAll) {
             fetchAllParts();
+        } else if (prefetchExecutor != null) {
+            // The prefetch task may still be adding parts; return a snapshot
+            synchronized (attachmentsMap) {
+                return new LinkedHashSet(attachmentsMap.keySet());
+            }
         }
         return attachmentsMap.keySet();
     }
@@ -295,34 +422,45 @@ class MIMEMessage extends AttachmentsDelegate {
             return null;
         } else {
             Part nextPart = getPart();
+            if (prefetchExecutor != null) {
+                // Only publish parts that have been buffered completely; this ensures that
+                // the parser is never accessed by other threads.
+                currentPart.fetch();
+                currentPart = null;
+            }
             String partContentID = nextPart.getContentID();
-            if (partContentID == null & partIndex == 1) {
-                String id = "firstPart_" + UIDGenerator.generateContentId();
-                firstPartId = id;
+            synchronized (attachmentsMap) {
+                if (partContentID == null & partIndex == 1) {
+                    String id = "firstPart_" + UIDGenerator.generateContentId();
+                    firstPartId = id;
+                    DataHandler dataHandler = nextPart.getDataHandler();
+                    addDataHandler(id, dataHandler);
+                    return dataHandler;
+                }
+                if (partContentID == null) {
+                    throw new OMException(
+                            "Part content ID cannot be blank for non root MIME parts");
+                }
+                if ((partContentID.indexOf("<") > -1)
+                        & (partContentID.indexOf(">") > -1)) {
+                    partContentID = partContentID.substring(1, (partContentID
+                            .length() - 1));
+    
+                }
+                if (partIndex == 1) {
+                    firstPartId = partContentID;
+                }
+                if (attachmentsMap.containsKey(partContentID)) {
+                    throw new OMException(
+                            "Two MIME parts with the same Content-ID not allowed.");
+                }
                 DataHandler dataHandler = nextPart.getDataHandler();
-                addDataHandler(id, dataHandler);
+                addDataHandler(partContentID, dataHandler);
+                if (prefetchExecutor != null) {
+                    attachmentsMap.notifyAll();
+                }
                 return dataHandler;
             }
-            if (partContentID == null) {
-                throw new OMException(
-                        "Part content ID cannot be blank for non root MIME parts");
-            }
-            if ((partContentID.indexOf("<") > -1)
-                    & (partContentID.indexOf(">") > -1)) {
-                partContentID = partContentID.substring(1, (partContentID
-                        .length() - 1));
-
-            }
-            if (partIndex == 1) {
-                firstPartId = partContentID;
-            }
-            if (attachmentsMap.containsKey(partContentID)) {
-                throw new OMException(
-                        "Two MIME parts with the same Content-ID not allowed.");
-            }
-            DataHandler dataHandler = nextPart.getDataHandler();
-            addDataHandler(partContentID, dataHandler);
-            return dataHandler;
         }
     }
 
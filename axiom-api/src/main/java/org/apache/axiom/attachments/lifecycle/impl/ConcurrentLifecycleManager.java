@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.attachments.lifecycle.impl;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.axiom.attachments.lifecycle.LifecycleManager;
+import org.apache.axiom.util.UIDGenerator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link LifecycleManager} implementation designed for highly concurrent use. In contrast to
+ * {@link LifecycleManagerImpl}, this implementation
+ * <ul>
+ * <li>keeps track of the files in a {@link ConcurrentHashMap} instead of synchronized
+ * collections;
+ * <li>uses a single shutdown hook per instance that deletes all files that are still registered
+ * when the JVM exits;
+ * <li>uses a single reaper thread and a timing wheel to execute
+ * {@link #deleteOnTimeInterval(int, File)} requests instead of starting one thread per file;
+ * <li>maintains statistics about the number of files it manages and the number of bytes written
+ * to these files (see {@link #getLiveFileCount()} and {@link #getLiveBytes()}).
+ * </ul>
+ * <p>
+ * Since each instance has its own shutdown hook and reaper thread (both of which are only created
+ * when necessary), instances are meant to be shared. Applications should normally use the
+ * instance returned by {@link #getInstance()}.
+ */
+public final class ConcurrentLifecycleManager implements LifecycleManager {
+    private static final Log log = LogFactory.getLog(ConcurrentLifecycleManager.class);
+    
+    private static final ConcurrentLifecycleManager instance = new ConcurrentLifecycleManager();
+    
+    /**
+     * Tracks a file managed by this instance.
+     */
+    private static final class Registration {
+        final File file;
+        final FileAccessor accessor;
+        
+        /**
+         * The number of bytes written to the file, or -1 if the file is no longer managed.
+         */
+        final AtomicLong size = new AtomicLong();
+        
+        volatile boolean deleteOnExit;
+        
+        Registration(File file, FileAccessor accessor) {
+            this.file = file;
+            this.accessor = accessor;
+        }
+    }
+    
+    /**
+     * {@link FileAccessor} that updates the statistics of the lifecycle manager when data is
+     * written to the file.
+     */
+    private final class TrackedFileAccessor extends FileAccessor {
+        private Registration registration;
+        
+        TrackedFileAccessor(File file) {
+            super(ConcurrentLifecycleManager.this, file);
+        }
+
+        public OutputStream getOutputStream() throws FileNotFoundException {
+            final Registration registration = this.registration;
+            return new FilterOutputStream(super.getOutputStream()) {
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    written(registration, 1);
+                }
+
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    written(registration, len);
+                }
+            };
+        }
+    }
+    
+    private final ConcurrentMap<File,Registration> files = new ConcurrentHashMap<File,Registration>();
+    private final ConcurrentMap<String,FileAccessor> accessors
+            = new ConcurrentHashMap<String,FileAccessor>();
+    private final AtomicLong liveBytes = new AtomicLong();
+    private final TimingWheel wheel = new TimingWheel(1000, 512);
+    private final AtomicBoolean shutdownHookRegistered = new AtomicBoolean();
+    private final AtomicBoolean reaperStarted = new AtomicBoolean();
+
+    /**
+     * Get the shared instance.
+     * 
+     * @return the shared instance
+     */
+    public static ConcurrentLifecycleManager getInstance() {
+        return instance;
+    }
+    
+    public FileAccessor create(String attachmentDir) throws IOException {
+        if (attachmentDir == null) {
+            throw new IllegalArgumentException("No attachment file cache location specified");
+        }
+        File dir = new File(attachmentDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        if (!dir.isDirectory()) {
+            throw new IllegalArgumentException("Given Attachment File Cache Location "
+                + dir + " should be a directory.");
+        }
+        String fileName = "axiom" + UIDGenerator.generateUID() + ".att";
+        File file = new File(dir, fileName);
+        TrackedFileAccessor accessor = new TrackedFileAccessor(file);
+        Registration registration = new Registration(file, accessor);
+        accessor.registration = registration;
+        files.put(file, registration);
+        accessors.put(fileName, accessor);
+        //Default behaviour
+        markDeleteOnExit(registration);
+        if (log.isDebugEnabled()) {
+            log.debug("Created " + file);
+        }
+        return accessor;
+    }
+
+    public void delete(File file) throws IOException {
+        if (file == null) {
+            return;
+        }
+        Registration registration = files.remove(file);
+        if (registration != null) {
+            unregistered(registration);
+        }
+        if (file.exists()) {
+            if (file.delete()) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Deleted " + file);
+                }
+            } else {
+                if (log.isDebugEnabled()) {
+                    log.debug("Cannot delete " + file + "; set to delete on VM shutdown");
+                }
+                deleteOnExit(file);
+            }
+        }
+    }
+
+    public void deleteOnExit(File file) throws IOException {
+        if (file != null) {
+            markDeleteOnExit(getRegistration(file));
+        }
+    }
+
+    public void deleteOnTimeInterval(int interval, final File file) throws IOException {
+        if (file == null) {
+            return;
+        }
+        getRegistration(file);
+        startReaper();
+        wheel.schedule(new Runnable() {
+            public void run() {
+                try {
+                    delete(file);
+                } catch (IOException ex) {
+                    log.warn("Failed to delete " + file, ex);
+                }
+            }
+        }, interval*1000L);
+    }
+
+    public FileAccessor getFileAccessor(String fileName) throws IOException {
+        return accessors.get(fileName);
+    }
+    
+    /**
+     * Get the number of files currently managed by this instance, i.e. the number of files that
+     * have been created or registered for deletion and that have not been deleted yet.
+     * 
+     * @return the number of live files
+     */
+    public int getLiveFileCount() {
+        return files.size();
+    }
+    
+    /**
+     * Get the total size of the files currently managed by this instance. For files created by
+     * {@link #create(String)}, this is the number of bytes written through the
+     * {@link FileAccessor}. For other files, the size is determined when they are registered.
+     * 
+     * @return the number of bytes in live files
+     */
+    public long getLiveBytes() {
+        return liveBytes.get();
+    }
+    
+    private Registration getRegistration(File file) {
+        Registration registration = files.get(file);
+        if (registration == null) {
+            Registration newRegistration = new Registration(file, null);
+            registration = files.putIfAbsent(file, newRegistration);
+            if (registration == null) {
+                registration = newRegistration;
+                written(registration, file.length());
+            }
+        }
+        return registration;
+    }
+    
+    private void markDeleteOnExit(Registration registration) {
+        registration.deleteOnExit = true;
+        if (shutdownHookRegistered.compareAndSet(false, true)) {
+            AccessController.doPrivileged(new PrivilegedAction<Object>() {
+                public Object run() {
+                    Runtime.getRuntime().addShutdownHook(new Thread() {
+                        public void run() {
+                            deleteAllOnExit();
+                        }
+                    });
+                    return null;
+                }
+            });
+        }
+    }
+    
+    void deleteAllOnExit() {
+        for (Iterator<Registration> it = files.values().iterator(); it.hasNext(); ) {
+            Registration registration = it.next();
+            if (registration.deleteOnExit) {
+                registration.file.delete();
+            }
+        }
+    }
+    
+    private void startReaper() {
+        if (reaperStarted.compareAndSet(false, true)) {
+            ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Axiom attachment file reaper");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            reaper.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    wheel.advance();
+                }
+            }, 1, 1, TimeUnit.SECONDS);
+        }
+    }
+    
+    void written(Registration registration, long count) {
+        AtomicLong size = registration.size;
+        while (true) {
+            long current = size.get();
+            if (current == -1) {
+                // The file has already been unregistered
+                return;
+            }
+            if (size.compareAndSet(current, current + count)) {
+                liveBytes.addAndGet(count);
+                return;
+            }
+        }
+    }
+    
+    private void unregistered(Registration registration) {
+        long size = registration.size.getAndSet(-1);
+        if (size > 0) {
+            liveBytes.addAndGet(-size);
+        }
+        FileAccessor accessor = registration.accessor;
+        if (accessor != null) {
+            accessors.remove(registration.file.getName(), accessor);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.attachments.lifecycle.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Hashed timing wheel used to schedule delayed tasks. Instead of maintaining a priority queue
+ * (which would require locking), tasks are assigned to one of a fixed number of buckets based on
+ * their deadline. The wheel is driven by a single thread that periodically calls
+ * {@link #advance(long)}; each call expires the tasks in the buckets corresponding to the elapsed
+ * ticks.
+ * <p>
+ * {@link #schedule(Runnable, long)} may be called concurrently by any number of threads. Newly
+ * scheduled tasks are added to a lock-free queue and only transferred to the buckets by the
+ * thread that advances the wheel. This means that the buckets themselves are never accessed
+ * concurrently.
+ * <p>
+ * Tasks are executed no earlier than their deadline, but may be delayed by up to one tick.
+ */
+final class TimingWheel {
+    private static final Log log = LogFactory.getLog(TimingWheel.class);
+    
+    private static final class Timeout {
+        final Runnable task;
+        final long deadline;
+        
+        Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+    
+    private final long tickNanos;
+    private final List<Timeout>[] buckets;
+    private final int mask;
+    private final long startTime;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<Timeout>();
+    
+    /**
+     * The last tick that has been processed. Only accessed by the thread advancing the wheel.
+     */
+    private long tick;
+    
+    /**
+     * Constructor.
+     * 
+     * @param tickMillis
+     *            the duration of a tick in milliseconds
+     * @param wheelSize
+     *            the number of buckets; will be rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int wheelSize) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        tickNanos = tickMillis * 1000000L;
+        buckets = new List[size];
+        for (int i=0; i<size; i++) {
+            buckets[i] = new LinkedList<Timeout>();
+        }
+        mask = size-1;
+        startTime = System.nanoTime();
+    }
+    
+    /**
+     * Schedule a task for execution.
+     * 
+     * @param task
+     *            the task to execute
+     * @param delayMillis
+     *            the delay in milliseconds
+     */
+    void schedule(Runnable task, long delayMillis) {
+        long deadline = System.nanoTime() - startTime + Math.max(0, delayMillis) * 1000000L;
+        pending.add(new Timeout(task, deadline));
+    }
+    
+    /**
+     * Advance the wheel to the current time and execute all expired tasks. This method must only
+     * be called by a single thread at a time.
+     */
+    void advance() {
+        advance(System.nanoTime());
+    }
+    
+    void advance(long now) {
+        long targetTick = (now - startTime) / tickNanos;
+        transferPending(targetTick);
+        List<Timeout> expired = new ArrayList<Timeout>();
+        while (tick < targetTick) {
+            tick++;
+            for (Iterator<Timeout> it = buckets[(int)(tick & mask)].iterator(); it.hasNext(); ) {
+                Timeout timeout = it.next();
+                if (timeout.deadline <= tick * tickNanos) {
+                    it.remove();
+                    expired.add(timeout);
+                }
+            }
+            // Don't iterate over the whole wheel more than once
+            if (targetTick - tick > mask) {
+                tick = targetTick - mask - 1;
+            }
+        }
+        for (Timeout timeout : expired) {
+            try {
+                timeout.task.run();
+            } catch (Throwable ex) {
+                log.warn("Exception executing scheduled task", ex);
+            }
+        }
+    }
+    
+    private void transferPending(long targetTick) {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            // Compute the first tick at which the deadline has expired
+            long expiryTick = (timeout.deadline + tickNanos - 1) / tickNanos;
+            if (expiryTick <= tick) {
+                // Already expired; make sure the task is executed during this call
+                expiryTick = tick + 1;
+            }
+            buckets[(int)(expiryTick & mask)].add(timeout);
+        }
+    }
+}
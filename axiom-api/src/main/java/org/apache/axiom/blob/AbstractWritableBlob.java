@@ -21,13 +21,20 @@ package org.apache.axiom.blob;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.axiom.ext.io.StreamCopyException;
 
 /**
  * Partial implementation of the {@link WritableBlob} interface that implements
  * {@link WritableBlob#readFrom(InputStream)} using {@link WritableBlob#getOutputStream()} and
- * {@link WritableBlob#writeTo(OutputStream)} using {@link WritableBlob#getInputStream()}.
+ * {@link WritableBlob#writeTo(OutputStream)} using {@link WritableBlob#getInputStream()}. It also
+ * defines channel based variants of these methods that are used by
+ * {@link Blobs#readFrom(WritableBlob, ReadableByteChannel)} and
+ * {@link Blobs#writeTo(Blob, WritableByteChannel)}. By default they wrap the channel in a stream;
+ * subclasses that store their data in buffers override them to avoid that copy.
  */
 public abstract class AbstractWritableBlob implements WritableBlob {
     public long readFrom(InputStream in) throws StreamCopyException {
@@ -65,4 +72,28 @@ public abstract class AbstractWritableBlob implements WritableBlob {
             }
         }
     }
+
+    /**
+     * Read data from the given channel and write it to the blob. See
+     * {@link Blobs#readFrom(WritableBlob, ReadableByteChannel)}.
+     * 
+     * @param channel
+     *            the channel to read data from
+     * @return the number of bytes transferred
+     * @throws StreamCopyException
+     */
+    public long readFrom(ReadableByteChannel channel) throws StreamCopyException {
+        return readFrom(Channels.newInputStream(channel));
+    }
+
+    /**
+     * Write the data to a given channel. See {@link Blobs#writeTo(Blob, WritableByteChannel)}.
+     * 
+     * @param channel
+     *            the channel to write the data to
+     * @throws StreamCopyException
+     */
+    public void writeTo(WritableByteChannel channel) throws StreamCopyException {
+        writeTo(Channels.newOutputStream(channel));
+    }
 }
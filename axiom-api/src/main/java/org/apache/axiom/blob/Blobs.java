@@ -19,9 +19,16 @@
 package org.apache.axiom.blob;
 
 import java.io.File;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.axiom.ext.io.StreamCopyException;
 
 /**
- * Contains factory methods to create various types of blobs.
+ * Contains factory methods to create various types of blobs, as well as helper methods to
+ * transfer their content using NIO channels.
  */
 public final class Blobs {
     private Blobs() {}
@@ -32,7 +39,39 @@ public final class Blobs {
      * @return the blob
      */
     public static MemoryBlob createMemoryBlob() {
-        return new MemoryBlobImpl();
+        return createMemoryBlob(UnpooledBufferPool.INSTANCE);
+    }
+    
+    /**
+     * Create a {@link MemoryBlob} instance that allocates its buffers from a given pool. The
+     * buffers are returned to the pool when {@link MemoryBlob#release()} is called; in that case
+     * input streams and buffers previously obtained from the blob must no longer be used. Note that
+     * the buffers are not returned to the pool if the blob is not released or if it is consumed
+     * using {@link MemoryBlob#readOnce()}.
+     * 
+     * @param pool
+     *            the buffer pool
+     * @return the blob
+     */
+    public static MemoryBlob createMemoryBlob(BufferPool pool) {
+        return new MemoryBlobImpl(pool);
+    }
+    
+    /**
+     * Create a {@link MemoryBlob} instance that stores its data in direct (off-heap) buffers. The
+     * memory is freed when {@link MemoryBlob#release()} is called (or when the input stream
+     * returned by {@link MemoryBlob#readOnce()} is closed), provided that the JRE allows to free
+     * direct buffers explicitly; otherwise it is freed when the buffers are garbage collected.
+     * <p>
+     * Input streams obtained from the blob throw an {@link java.io.IOException} if they are used
+     * after the blob has been released. Buffers obtained using {@link MemoryBlob#getByteBuffers()}
+     * remain usable: once they have been requested, the memory is no longer freed explicitly, but
+     * only when the buffers are garbage collected.
+     * 
+     * @return the blob
+     */
+    public static MemoryBlob createDirectMemoryBlob() {
+        return new DirectMemoryBlobImpl();
     }
     
     /**
@@ -45,9 +84,61 @@ public final class Blobs {
      * @return the blob
      */
     public static OverflowableBlob createOverflowableBlob(int threshold, WritableBlobFactory overflowBlobFactory) {
+        return createOverflowableBlob(threshold, overflowBlobFactory, UnpooledBufferPool.INSTANCE);
+    }
+    
+    /**
+     * Create an {@link OverflowableBlob} that allocates its in-memory buffers from a given pool.
+     * The buffers are returned to the pool when the blob overflows or when it is released.
+     * 
+     * @param threshold
+     *            the threshold above which data is transferred to the overflow blob
+     * @param overflowBlobFactory
+     *            the factory that will be used to create the overflow blob
+     * @param pool
+     *            the buffer pool
+     * @return the blob
+     */
+    public static OverflowableBlob createOverflowableBlob(int threshold,
+            WritableBlobFactory overflowBlobFactory, BufferPool pool) {
         int numberOfChunks = Math.max(16, Math.min(1, threshold/4096));
         int chunkSize = threshold/numberOfChunks;
-        return new OverflowableBlobImpl(numberOfChunks, chunkSize, overflowBlobFactory);
+        return new OverflowableBlobImpl(numberOfChunks, chunkSize, overflowBlobFactory, pool);
+    }
+    
+    /**
+     * Create an {@link OverflowableBlob} that uses blobs created by a given factory as in-memory
+     * tier. When the size exceeds the threshold, the data is transferred to the overflow blob and
+     * the in-memory blob is released. This can be used to combine
+     * {@link #createDirectMemoryBlob()} with temporary files.
+     * 
+     * @param threshold
+     *            the threshold above which data is transferred to the overflow blob
+     * @param memoryBlobFactory
+     *            the factory that will be used to create the in-memory blob
+     * @param overflowBlobFactory
+     *            the factory that will be used to create the overflow blob
+     * @return the blob
+     */
+    public static OverflowableBlob createOverflowableBlob(int threshold,
+            WritableBlobFactory memoryBlobFactory, WritableBlobFactory overflowBlobFactory) {
+        return new TieredOverflowableBlobImpl(threshold, memoryBlobFactory, overflowBlobFactory);
+    }
+    
+    /**
+     * Create a {@link BufferPool} that recycles buffers. The pool uses size classes (powers of two
+     * between 1KB and 1MB; larger buffers are not pooled). Released buffers are first kept in a
+     * per-thread cache and then in a global pool. The amount of memory retained by the global pool
+     * is bounded.
+     * 
+     * @param maxBuffersPerThread
+     *            the maximum number of buffers per size class retained in the cache of each thread
+     * @param maxRetainedBytes
+     *            the maximum number of bytes retained by the global pool
+     * @return the pool
+     */
+    public static BufferPool createBufferPool(int maxBuffersPerThread, long maxRetainedBytes) {
+        return new SizeClassBufferPool(maxBuffersPerThread, maxRetainedBytes);
     }
     
     /**
@@ -67,7 +158,89 @@ public final class Blobs {
      */
     public static OverflowableBlob createOverflowableBlob(int threshold, String tempPrefix,
             String tempSuffix, File tempDirectory) {
+        return createOverflowableBlob(threshold, tempPrefix, tempSuffix, tempDirectory, false);
+    }
+    
+    /**
+     * Create an {@link OverflowableBlob} that overflows to a temporary file, optionally reading
+     * the content of the temporary file through a memory mapping. Temporary files are created
+     * using {@link File#createTempFile(String, String, File)}. The overflow blob implements
+     * {@link TempFileBlob}.
+     * <p>
+     * If <code>memoryMapped</code> is <code>true</code>, the input streams returned by
+     * {@link Blob#getInputStream()} read directly from a memory mapping of the temporary file
+     * (provided that its size doesn't exceed 2GB) instead of using a {@link java.io.FileInputStream}.
+     * Independently of that setting, {@link #writeTo(Blob, WritableByteChannel)}
+     * transfers the content of the temporary file using
+     * {@link java.nio.channels.FileChannel#transferTo(long, long, WritableByteChannel)},
+     * which allows the operating system to send the data without copying it through the Java
+     * heap.
+     * 
+     * @param threshold
+     *            the overflow threshold
+     * @param tempPrefix
+     *            the prefix to be used in generating the name of the temporary file
+     * @param tempSuffix
+     *            the suffix to be used in generating the name of the temporary file
+     * @param tempDirectory
+     *            the directory in which the temporary file is to be created, or <code>null</code>
+     *            if the default temporary directory is to be used
+     * @param memoryMapped
+     *            <code>true</code> if the temporary file should be read through a memory mapping
+     * @return the blob
+     */
+    public static OverflowableBlob createOverflowableBlob(int threshold, String tempPrefix,
+            String tempSuffix, File tempDirectory, boolean memoryMapped) {
         return createOverflowableBlob(threshold,
-                new TempFileBlobFactory(tempPrefix, tempSuffix, tempDirectory));
+                new TempFileBlobFactory(tempPrefix, tempSuffix, tempDirectory, memoryMapped));
+    }
+    
+    /**
+     * Write the content of a blob to a given channel. This method can be called multiple times,
+     * i.e. it doesn't consume the content. Blobs created by this class that store their data in
+     * memory write the buffers holding the data directly to the channel, using a single gathering
+     * write if the channel is a {@link GatheringByteChannel}. For other blobs, the content is
+     * copied using {@link Blob#writeTo(java.io.OutputStream)}.
+     * 
+     * @param blob
+     *            the blob
+     * @param channel
+     *            The channel to write the data to. The channel must be in blocking mode. This
+     *            method will not close the channel.
+     * @throws StreamCopyException
+     *             Thrown if there is an I/O when reading the data from the blob or when writing it
+     *             to the channel. {@link StreamCopyException#getOperation()} can be used to
+     *             determine whether the failed operation was a read or a write.
+     */
+    public static void writeTo(Blob blob, WritableByteChannel channel) throws StreamCopyException {
+        if (blob instanceof AbstractWritableBlob) {
+            ((AbstractWritableBlob)blob).writeTo(channel);
+        } else {
+            blob.writeTo(Channels.newOutputStream(channel));
+        }
+    }
+    
+    /**
+     * Read data from the given channel and write it to a blob. This method has the same semantics
+     * as {@link WritableBlob#readFrom(java.io.InputStream)}, but blobs created by this class that
+     * store their data in memory read the data directly into the buffers they manage.
+     * 
+     * @param blob
+     *            the blob
+     * @param channel
+     *            The channel to read data from. The channel must be in blocking mode. This method
+     *            will not close the channel.
+     * @return the number of bytes transferred
+     * @throws StreamCopyException
+     * @throws IllegalStateException
+     *             if the blob is not in state NEW
+     */
+    public static long readFrom(WritableBlob blob, ReadableByteChannel channel)
+            throws StreamCopyException {
+        if (blob instanceof AbstractWritableBlob) {
+            return ((AbstractWritableBlob)blob).readFrom(channel);
+        } else {
+            return blob.readFrom(Channels.newInputStream(channel));
+        }
     }
 }
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+/**
+ * Allocates the byte arrays used by in-memory blobs to store their data. Blobs request buffers
+ * from the pool as data is written to them and return the buffers when they are released, so
+ * that a pool implementation can recycle buffers instead of leaving them to the garbage collector.
+ * <p>
+ * Implementations must be thread safe. Note that buffers returned by {@link #allocate(int)} may
+ * contain data left over from a previous use.
+ * <p>
+ * A pooling implementation can be created with {@link Blobs#createBufferPool(int, long)}. It can
+ * then be used with {@link Blobs#createMemoryBlob(BufferPool)} and
+ * {@link Blobs#createOverflowableBlob(int, WritableBlobFactory, BufferPool)}.
+ */
+public interface BufferPool {
+    /**
+     * Allocate a buffer.
+     * 
+     * @param size
+     *            the minimum size of the buffer
+     * @return a buffer with a length greater than or equal to <code>size</code>
+     */
+    byte[] allocate(int size);
+    
+    /**
+     * Return a buffer to the pool. The caller must not use the buffer after calling this method.
+     * 
+     * @param buffer
+     *            a buffer previously returned by {@link #allocate(int)}
+     */
+    void release(byte[] buffer);
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Input stream that reads sequentially from a sequence of {@link ByteBuffer} instances. The stream
+ * uses the positions of the buffers as read pointers and expects them to be initially 0; the
+ * caller should therefore pass duplicates of any shared buffers. Subclasses may override
+ * {@link #checkAccess()} to prevent access to buffers that are no longer valid.
+ */
+class ByteBufferInputStream extends InputStream {
+    private ByteBuffer[] buffers;
+    private int index;
+    private int markIndex;
+    private int markPosition;
+    
+    ByteBufferInputStream(ByteBuffer[] buffers) {
+        this.buffers = buffers;
+    }
+
+    /**
+     * Check that the buffers may still be accessed. This method is called before any operation
+     * that accesses the buffers. The default implementation does nothing.
+     * 
+     * @throws IOException
+     *             if the buffers are no longer valid
+     */
+    protected void checkAccess() throws IOException {
+    }
+    
+    /**
+     * Get the buffer to read from next.
+     * 
+     * @return the current buffer, or <code>null</code> if the end of the stream has been reached
+     */
+    private ByteBuffer getCurrentBuffer() {
+        while (index < buffers.length) {
+            ByteBuffer buffer = buffers[index];
+            if (buffer.hasRemaining()) {
+                return buffer;
+            }
+            index++;
+        }
+        return null;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkAccess();
+        if (len == 0) {
+            return 0;
+        }
+        int read = 0;
+        while (len > 0) {
+            ByteBuffer buffer = getCurrentBuffer();
+            if (buffer == null) {
+                break;
+            }
+            int c = Math.min(len, buffer.remaining());
+            buffer.get(b, off, c);
+            off += c;
+            len -= c;
+            read += c;
+        }
+        return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkAccess();
+        ByteBuffer buffer = getCurrentBuffer();
+        return buffer == null ? -1 : buffer.get() & 0xFF;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        checkAccess();
+        long skipped = 0;
+        while (n > 0) {
+            ByteBuffer buffer = getCurrentBuffer();
+            if (buffer == null) {
+                break;
+            }
+            int c = (int)Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + c);
+            n -= c;
+            skipped += c;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        checkAccess();
+        long available = 0;
+        for (int i=index; i<buffers.length; i++) {
+            available += buffers[i].remaining();
+        }
+        return (int)Math.min(available, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+        markIndex = index;
+        markPosition = index < buffers.length ? buffers[index].position() : 0;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        checkAccess();
+        if (markIndex < buffers.length) {
+            buffers[markIndex].position(markPosition);
+        }
+        // Buffers after the mark are read again from the start
+        for (int i=markIndex+1; i<buffers.length && i<=index; i++) {
+            buffers[i].position(0);
+        }
+        index = markIndex;
+    }
+
+    @Override
+    public void close() {
+        // Make the content unreachable so that it can be released
+        buffers = new ByteBuffer[0];
+        index = 0;
+        markIndex = 0;
+    }
+}
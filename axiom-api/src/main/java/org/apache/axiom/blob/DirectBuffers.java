@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Allocates and frees direct {@link ByteBuffer} instances. The Java API doesn't provide a way to
+ * free the memory of a direct buffer explicitly; this class uses the JRE internals to do so if
+ * they are accessible (<code>sun.misc.Unsafe#invokeCleaner</code> on Java 9 and higher, the
+ * buffer's cleaner on older versions). Otherwise the memory is freed when the buffer is garbage
+ * collected.
+ */
+final class DirectBuffers {
+    private static final Log log = LogFactory.getLog(DirectBuffers.class);
+    
+    private static final Object unsafe;
+    private static final Method invokeCleanerMethod;
+    private static final Method cleanerMethod;
+    private static final Method cleanMethod;
+    
+    static {
+        Object unsafeInstance = null;
+        Method invokeCleaner = null;
+        Method cleaner = null;
+        Method clean = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafeInstance = field.get(null);
+        } catch (Throwable ex) {
+            invokeCleaner = null;
+            unsafeInstance = null;
+        }
+        if (invokeCleaner == null) {
+            try {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(1);
+                cleaner = buffer.getClass().getMethod("cleaner");
+                cleaner.setAccessible(true);
+                Object cleanerInstance = cleaner.invoke(buffer);
+                clean = cleanerInstance.getClass().getMethod("clean");
+                clean.setAccessible(true);
+                clean.invoke(cleanerInstance);
+            } catch (Throwable ex) {
+                cleaner = null;
+                clean = null;
+            }
+        }
+        unsafe = unsafeInstance;
+        invokeCleanerMethod = invokeCleaner;
+        cleanerMethod = cleaner;
+        cleanMethod = clean;
+        if (invokeCleanerMethod == null && cleanerMethod == null && log.isDebugEnabled()) {
+            log.debug("Unable to free direct buffers explicitly; memory will be reclaimed by the garbage collector");
+        }
+    }
+    
+    private DirectBuffers() {}
+    
+    static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity);
+    }
+    
+    /**
+     * Free the memory of a direct buffer allocated by {@link #allocate(int)}. The buffer and any
+     * buffers derived from it (duplicates, slices, etc.) must not be accessed after this method
+     * has been called.
+     * 
+     * @param buffer
+     *            the buffer to free
+     */
+    static void free(ByteBuffer buffer) {
+        try {
+            if (invokeCleanerMethod != null) {
+                invokeCleanerMethod.invoke(unsafe, buffer);
+            } else if (cleanerMethod != null) {
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleanMethod.invoke(cleaner);
+                }
+            }
+        } catch (Exception ex) {
+            // Leave the buffer to the garbage collector
+            if (log.isDebugEnabled()) {
+                log.debug("Failed to free direct buffer", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.axiom.ext.io.StreamCopyException;
+
+final class DirectMemoryBlobImpl extends AbstractWritableBlob implements MemoryBlob {
+    class OutputStreamImpl extends OutputStream {
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkNotReleased();
+            if (state != State.UNCOMMITTED) {
+                throw new IllegalStateException();
+            }
+            while (len > 0) {
+                ByteBuffer chunk = getCurrentChunk();
+                int c = Math.min(len, chunk.remaining());
+                chunk.put(b, off, c);
+                off += c;
+                len -= c;
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkNotReleased();
+            if (state != State.UNCOMMITTED) {
+                throw new IllegalStateException();
+            }
+            getCurrentChunk().put((byte)b);
+        }
+
+        @Override
+        public void close() {
+            if (state == State.UNCOMMITTED) {
+                state = State.COMMITTED;
+            }
+        }
+    }
+    
+    private static final int INITIAL_CHUNK_SIZE = 8192;
+    private static final int MAX_CHUNK_SIZE = 1024*1024;
+    
+    /**
+     * The chunks holding the data. Each chunk is in write mode, i.e. its position is the number of
+     * bytes it contains. Only the last chunk may have remaining space.
+     */
+    private ByteBuffer[] chunks = new ByteBuffer[8];
+    private int chunkCount;
+    private State state = State.NEW;
+    
+    /**
+     * Indicates if views of the chunks have been handed out by {@link #getByteBuffers()}. Since
+     * these views can't be invalidated, the chunks must not be freed explicitly in that case;
+     * they are left to the garbage collector, which frees them when the views are no longer
+     * reachable.
+     */
+    private boolean chunksExposed;
+    
+    /**
+     * Check that the blob has not been released. Since the chunks are freed explicitly, streams
+     * must call this method before accessing them; otherwise they would access memory that may
+     * already have been reused.
+     * 
+     * @throws IOException
+     *             if the blob has been released
+     */
+    void checkNotReleased() throws IOException {
+        if (state == State.RELEASED) {
+            throw new IOException("The blob has been released");
+        }
+    }
+    
+    /**
+     * Get the chunk to write to, allocating a new one if the current chunk is full.
+     * 
+     * @return a chunk with remaining space
+     */
+    ByteBuffer getCurrentChunk() {
+        if (chunkCount > 0) {
+            ByteBuffer chunk = chunks[chunkCount-1];
+            if (chunk.hasRemaining()) {
+                return chunk;
+            }
+        }
+        if (chunkCount == chunks.length) {
+            ByteBuffer[] newChunks = new ByteBuffer[chunks.length*2];
+            System.arraycopy(chunks, 0, newChunks, 0, chunkCount);
+            chunks = newChunks;
+        }
+        int size = chunkCount == 0 ? INITIAL_CHUNK_SIZE
+                : Math.min(chunks[chunkCount-1].capacity()*2, MAX_CHUNK_SIZE);
+        ByteBuffer chunk = DirectBuffers.allocate(size);
+        chunks[chunkCount++] = chunk;
+        return chunk;
+    }
+
+    public OutputStream getOutputStream() {
+        if (state != State.NEW) {
+            throw new IllegalStateException();
+        }
+        state = State.UNCOMMITTED;
+        return new OutputStreamImpl();
+    }
+
+    @Override
+    public long readFrom(ReadableByteChannel channel) throws StreamCopyException {
+        if (state != State.NEW) {
+            throw new IllegalStateException();
+        }
+        state = State.UNCOMMITTED;
+        long read = 0;
+        try {
+            while (true) {
+                int c;
+                try {
+                    c = channel.read(getCurrentChunk());
+                } catch (IOException ex) {
+                    throw new StreamCopyException(StreamCopyException.READ, ex);
+                }
+                if (c == -1) {
+                    break;
+                }
+                read += c;
+            }
+        } finally {
+            state = State.COMMITTED;
+        }
+        return read;
+    }
+    
+    /**
+     * Create read-only views of the chunks, positioned at the beginning of the data.
+     * 
+     * @return the views
+     */
+    private ByteBuffer[] createViews() {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        ByteBuffer[] views = new ByteBuffer[chunkCount];
+        for (int i=0; i<chunkCount; i++) {
+            ByteBuffer view = chunks[i].asReadOnlyBuffer();
+            view.flip();
+            views[i] = view;
+        }
+        return views;
+    }
+
+    public InputStream getInputStream() {
+        return new ByteBufferInputStream(createViews()) {
+            @Override
+            protected void checkAccess() throws IOException {
+                checkNotReleased();
+            }
+        };
+    }
+
+    public InputStream readOnce() {
+        ByteBuffer[] views = createViews();
+        // The stream takes ownership of the chunks and frees them when it is closed
+        final ByteBuffer[] chunks = this.chunks;
+        final int chunkCount = chunksExposed ? 0 : this.chunkCount;
+        this.chunks = null;
+        this.chunkCount = 0;
+        state = State.RELEASED;
+        return new ByteBufferInputStream(views) {
+            private boolean closed;
+            
+            @Override
+            public void close() {
+                if (!closed) {
+                    super.close();
+                    for (int i=0; i<chunkCount; i++) {
+                        DirectBuffers.free(chunks[i]);
+                    }
+                    closed = true;
+                }
+            }
+        };
+    }
+
+    public ByteBuffer[] getByteBuffers() {
+        ByteBuffer[] views = createViews();
+        chunksExposed = true;
+        return views;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws StreamCopyException {
+        ByteBuffer[] views = createViews();
+        byte[] buffer = new byte[(int)Math.min(4096, getSize())];
+        try {
+            for (int i=0; i<views.length; i++) {
+                ByteBuffer view = views[i];
+                while (view.hasRemaining()) {
+                    int c = Math.min(buffer.length, view.remaining());
+                    view.get(buffer, 0, c);
+                    out.write(buffer, 0, c);
+                }
+            }
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+    }
+
+    @Override
+    public void writeTo(WritableByteChannel channel) throws StreamCopyException {
+        IOUtil.write(channel, createViews());
+    }
+
+    public long getSize() {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        long size = 0;
+        for (int i=0; i<chunkCount; i++) {
+            size += chunks[i].position();
+        }
+        return size;
+    }
+
+    public void release() {
+        // Note that the output stream checks the state before accessing the chunks. It is
+        // therefore safe to free them even if the blob has not been committed yet.
+        if (!chunksExposed) {
+            for (int i=0; i<chunkCount; i++) {
+                DirectBuffers.free(chunks[i]);
+            }
+        }
+        chunks = null;
+        chunkCount = 0;
+        state = State.RELEASED;
+    }
+}
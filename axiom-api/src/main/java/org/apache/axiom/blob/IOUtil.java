@@ -21,6 +21,9 @@ package org.apache.axiom.blob;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.axiom.ext.io.ReadFromSupport;
 import org.apache.axiom.ext.io.StreamCopyException;
@@ -56,4 +59,42 @@ final class IOUtil {
             return read;
         }
     }
+    
+    /**
+     * Write the remaining content of a sequence of buffers to a channel. If the channel is a
+     * {@link GatheringByteChannel}, the buffers are written using gathering writes.
+     * 
+     * @param channel
+     *            the channel to write to; must be in blocking mode
+     * @param buffers
+     *            the buffers to write
+     * @throws StreamCopyException
+     *             if an I/O error occurs
+     */
+    static void write(WritableByteChannel channel, ByteBuffer[] buffers) throws StreamCopyException {
+        try {
+            if (channel instanceof GatheringByteChannel) {
+                GatheringByteChannel gatheringChannel = (GatheringByteChannel)channel;
+                int offset = 0;
+                while (true) {
+                    while (offset < buffers.length && !buffers[offset].hasRemaining()) {
+                        offset++;
+                    }
+                    if (offset == buffers.length) {
+                        break;
+                    }
+                    gatheringChannel.write(buffers, offset, buffers.length-offset);
+                }
+            } else {
+                for (int i=0; i<buffers.length; i++) {
+                    ByteBuffer buffer = buffers[i];
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+    }
 }
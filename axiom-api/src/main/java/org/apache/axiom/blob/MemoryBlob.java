@@ -21,6 +21,7 @@ package org.apache.axiom.blob;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Blob that stores data in memory.
@@ -44,4 +45,16 @@ public interface MemoryBlob extends WritableBlob {
      * @return the input stream to read the data from
      */
     InputStream readOnce();
+
+    /**
+     * Get read-only views of the buffers that hold the content of this blob. The returned buffers
+     * share their content with the blob, i.e. no data is copied, and can e.g. be passed to a
+     * gathering write. Each invocation of this method returns new buffer instances with
+     * independent positions and limits.
+     * 
+     * @return the buffers, in the order in which the data has been written to the blob
+     * @throws IllegalStateException
+     *             if the blob is not in state COMMITTED
+     */
+    ByteBuffer[] getByteBuffers();
 }
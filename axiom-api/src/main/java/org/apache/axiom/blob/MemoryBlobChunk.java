@@ -23,11 +23,11 @@ final class MemoryBlobChunk {
     int size;
     MemoryBlobChunk nextChunk;
     
-    MemoryBlobChunk(int capacity) {
-        buffer = new byte[capacity];
+    MemoryBlobChunk(byte[] buffer) {
+        this.buffer = buffer;
     }
     
-    MemoryBlobChunk allocateNextChunk() {
-        return nextChunk = new MemoryBlobChunk(buffer.length * 2);
+    MemoryBlobChunk allocateNextChunk(BufferPool pool) {
+        return nextChunk = new MemoryBlobChunk(pool.allocate(buffer.length * 2));
     }
 }
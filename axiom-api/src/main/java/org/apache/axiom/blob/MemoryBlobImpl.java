@@ -21,13 +21,21 @@ package org.apache.axiom.blob;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.axiom.ext.io.StreamCopyException;
 
-final class MemoryBlobImpl implements MemoryBlob {
+final class MemoryBlobImpl extends AbstractWritableBlob implements MemoryBlob {
+    final BufferPool pool;
     private MemoryBlobChunk firstChunk;
     private boolean committed;
     
+    MemoryBlobImpl(BufferPool pool) {
+        this.pool = pool;
+    }
+    
     public long getSize() {
         if (firstChunk == null || !committed) {
             throw new IllegalStateException();
@@ -50,7 +58,7 @@ final class MemoryBlobImpl implements MemoryBlob {
         if (firstChunk != null || committed) {
             throw new IllegalStateException();
         } else {
-            return new MemoryBlobOutputStream(this, firstChunk = new MemoryBlobChunk(4096));
+            return new MemoryBlobOutputStream(this, firstChunk = new MemoryBlobChunk(pool.allocate(4096)));
         }
     }
 
@@ -67,6 +75,15 @@ final class MemoryBlobImpl implements MemoryBlob {
         }
     }
 
+    public long readFrom(ReadableByteChannel channel) throws StreamCopyException {
+        MemoryBlobOutputStream out = internalGetOutputStream();
+        try {
+            return out.readFrom(channel);
+        } finally {
+            out.close();
+        }
+    }
+
     public InputStream getInputStream() {
         return getInputStream(true);
     }
@@ -103,7 +120,40 @@ final class MemoryBlobImpl implements MemoryBlob {
         }
     }
 
+    public ByteBuffer[] getByteBuffers() {
+        if (firstChunk == null || !committed) {
+            throw new IllegalStateException();
+        }
+        int count = 0;
+        for (MemoryBlobChunk chunk = firstChunk; chunk != null; chunk = chunk.nextChunk) {
+            if (chunk.size > 0) {
+                count++;
+            }
+        }
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        int i = 0;
+        for (MemoryBlobChunk chunk = firstChunk; chunk != null; chunk = chunk.nextChunk) {
+            if (chunk.size > 0) {
+                buffers[i++] = ByteBuffer.wrap(chunk.buffer, 0, chunk.size).asReadOnlyBuffer();
+            }
+        }
+        return buffers;
+    }
+
+    public void writeTo(WritableByteChannel channel) throws StreamCopyException {
+        IOUtil.write(channel, getByteBuffers());
+    }
+
     public void release() {
+        // If the blob has not been committed, the output stream may still write to the chunks;
+        // in that case we can't return them to the pool.
+        if (committed) {
+            MemoryBlobChunk chunk = firstChunk;
+            while (chunk != null) {
+                pool.release(chunk.buffer);
+                chunk = chunk.nextChunk;
+            }
+        }
         firstChunk = null;
     }
 }
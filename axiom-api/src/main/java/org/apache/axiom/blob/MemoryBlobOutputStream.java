@@ -21,6 +21,8 @@ package org.apache.axiom.blob;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 
 import org.apache.axiom.ext.io.ReadFromSupport;
 import org.apache.axiom.ext.io.StreamCopyException;
@@ -36,7 +38,7 @@ final class MemoryBlobOutputStream extends OutputStream implements ReadFromSuppo
     
     private void updateChunk() {
         if (chunk.size == chunk.buffer.length) {
-            chunk = chunk.allocateNextChunk();
+            chunk = chunk.allocateNextChunk(blob.pool);
         }
     }
     
@@ -90,6 +92,29 @@ final class MemoryBlobOutputStream extends OutputStream implements ReadFromSuppo
         return read;
     }
     
+    long readFrom(ReadableByteChannel channel) throws StreamCopyException {
+        if (chunk == null) {
+            throw new IllegalStateException();
+        }
+        long read = 0;
+        while (true) {
+            updateChunk();
+            int c;
+            try {
+                c = channel.read(ByteBuffer.wrap(chunk.buffer, chunk.size,
+                        chunk.buffer.length-chunk.size));
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.READ, ex);
+            }
+            if (c == -1) {
+                break;
+            }
+            chunk.size += c;
+            read += c;
+        }
+        return read;
+    }
+    
     @Override
     public void close() {
         blob.commit();
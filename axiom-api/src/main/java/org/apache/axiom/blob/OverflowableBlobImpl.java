@@ -22,11 +22,15 @@ package org.apache.axiom.blob;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.axiom.ext.io.ReadFromSupport;
 import org.apache.axiom.ext.io.StreamCopyException;
 
-final class OverflowableBlobImpl implements OverflowableBlob {
+final class OverflowableBlobImpl extends AbstractWritableBlob implements OverflowableBlob {
     class OutputStreamImpl extends OutputStream implements ReadFromSupport {
         
         private OutputStream overflowOutputStream;
@@ -105,6 +109,10 @@ final class OverflowableBlobImpl implements OverflowableBlob {
             if (len == 0) {
                 return 0;
             }
+            
+            if (chunks == null) {
+                throw new IOException("Blob has been released");
+            }
 
             int read = 0;
             while (len > 0 && !(currentChunkIndex == chunkIndex
@@ -185,6 +193,12 @@ final class OverflowableBlobImpl implements OverflowableBlob {
     
     final WritableBlobFactory overflowBlobFactory;
     
+    /**
+     * The pool from which chunks are allocated and to which they are returned when the buffer
+     * overflows or when the blob is released.
+     */
+    final BufferPool pool;
+    
     /**
      * Array of <code>byte[]</code> representing the chunks of the buffer.
      * A chunk is only allocated when the first byte is written to it.
@@ -214,9 +228,11 @@ final class OverflowableBlobImpl implements OverflowableBlob {
      */
     State state = State.NEW;
     
-    OverflowableBlobImpl(int numberOfChunks, int chunkSize, WritableBlobFactory overflowBlobFactory) {
+    OverflowableBlobImpl(int numberOfChunks, int chunkSize, WritableBlobFactory overflowBlobFactory,
+            BufferPool pool) {
         this.chunkSize = chunkSize;
         this.overflowBlobFactory = overflowBlobFactory;
+        this.pool = pool;
         chunks = new byte[numberOfChunks][];
     }
     
@@ -227,8 +243,9 @@ final class OverflowableBlobImpl implements OverflowableBlob {
      */
     byte[] getCurrentChunk() {
         if (chunkOffset == 0) {
-            // We will write the first byte to the current chunk. Allocate it.
-            byte[] chunk = new byte[chunkSize];
+            // We will write the first byte to the current chunk. Allocate it. Note that the
+            // pool may return a larger array than requested.
+            byte[] chunk = pool.allocate(chunkSize);
             chunks[chunkIndex] = chunk;
             return chunk;
         } else {
@@ -249,19 +266,31 @@ final class OverflowableBlobImpl implements OverflowableBlob {
         OutputStream outputStream = overflowBlob.getOutputStream();
         // Write the buffer to the temporary file.
         for (int i=0; i<chunkIndex; i++) {
-            outputStream.write(chunks[i]);
+            outputStream.write(chunks[i], 0, chunkSize);
         }
 
         if (chunkOffset > 0) {
             outputStream.write(chunks[chunkIndex], 0, chunkOffset);
         }
 
-        // Release references to the buffer so that it can be garbage collected.
-        chunks = null;
+        // Release the buffer.
+        releaseChunks();
         
         return outputStream;
     }
     
+    private void releaseChunks() {
+        if (chunks != null) {
+            for (int i=0; i<chunks.length; i++) {
+                byte[] chunk = chunks[i];
+                if (chunk != null) {
+                    pool.release(chunk);
+                }
+            }
+            chunks = null;
+        }
+    }
+    
     public OutputStream getOutputStream() {
         if (state != State.NEW) {
             throw new IllegalStateException();
@@ -326,6 +355,15 @@ final class OverflowableBlobImpl implements OverflowableBlob {
         return readFrom(in, -1, true);
     }
 
+    public long readFrom(ReadableByteChannel channel) throws StreamCopyException {
+        if (state != State.NEW) {
+            throw new IllegalStateException();
+        }
+        // The stream returned by Channels#newInputStream wraps the byte arrays passed to it, so
+        // that the data is read directly into the chunks.
+        return readFrom(Channels.newInputStream(channel), -1, true);
+    }
+
     public InputStream getInputStream() throws IOException {
         if (state != State.COMMITTED) {
             throw new IllegalStateException();
@@ -345,7 +383,7 @@ final class OverflowableBlobImpl implements OverflowableBlob {
         } else {
             try {
                 for (int i=0; i<chunkIndex; i++) {
-                    out.write(chunks[i]);
+                    out.write(chunks[i], 0, chunkSize);
                 }
                 if (chunkOffset > 0) {
                     out.write(chunks[chunkIndex], 0, chunkOffset);
@@ -356,6 +394,24 @@ final class OverflowableBlobImpl implements OverflowableBlob {
         }
     }
     
+    public void writeTo(WritableByteChannel channel) throws StreamCopyException {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        if (overflowBlob != null) {
+            Blobs.writeTo(overflowBlob, channel);
+        } else {
+            ByteBuffer[] buffers = new ByteBuffer[chunkOffset > 0 ? chunkIndex+1 : chunkIndex];
+            for (int i=0; i<chunkIndex; i++) {
+                buffers[i] = ByteBuffer.wrap(chunks[i], 0, chunkSize);
+            }
+            if (chunkOffset > 0) {
+                buffers[chunkIndex] = ByteBuffer.wrap(chunks[chunkIndex], 0, chunkOffset);
+            }
+            IOUtil.write(channel, buffers);
+        }
+    }
+    
     public long getSize() {
         if (state != State.COMMITTED) {
             throw new IllegalStateException();
@@ -372,6 +428,7 @@ final class OverflowableBlobImpl implements OverflowableBlob {
             overflowBlob.release();
             overflowBlob = null;
         }
+        releaseChunks();
         state = State.RELEASED;
     }
 
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link BufferPool} implementation that groups buffers into size classes (powers of two between
+ * {@link #MIN_SIZE} and {@link #MAX_SIZE}) and that retains released buffers in a small per-thread
+ * cache backed by a bounded global pool. Requests for buffers larger than {@link #MAX_SIZE} are
+ * not pooled.
+ */
+final class SizeClassBufferPool implements BufferPool {
+    private static final int MIN_SHIFT = 10;
+    private static final int MAX_SHIFT = 20;
+    static final int MIN_SIZE = 1 << MIN_SHIFT;
+    static final int MAX_SIZE = 1 << MAX_SHIFT;
+    private static final int SIZE_CLASSES = MAX_SHIFT - MIN_SHIFT + 1;
+    
+    private final int maxBuffersPerThread;
+    private final long maxRetainedBytes;
+    
+    /**
+     * Per-thread cache, indexed by size class. Unused slots are <code>null</code>. Note that the
+     * value is intentionally of type <code>byte[][][]</code>: a value of a type loaded by Axiom's
+     * class loader would prevent that class loader from being garbage collected in a container
+     * as long as the thread is alive.
+     */
+    private final ThreadLocal<byte[][][]> threadCache = new ThreadLocal<byte[][][]>();
+    
+    private final Queue<byte[]>[] globalPools;
+    private final AtomicLong retainedBytes = new AtomicLong();
+    
+    @SuppressWarnings("unchecked")
+    SizeClassBufferPool(int maxBuffersPerThread, long maxRetainedBytes) {
+        this.maxBuffersPerThread = maxBuffersPerThread;
+        this.maxRetainedBytes = maxRetainedBytes;
+        globalPools = new Queue[SIZE_CLASSES];
+        for (int i=0; i<SIZE_CLASSES; i++) {
+            globalPools[i] = new ConcurrentLinkedQueue<byte[]>();
+        }
+    }
+    
+    /**
+     * Get the size class for a requested buffer size.
+     * 
+     * @param size
+     *            the requested size
+     * @return the size class, or -1 if buffers of that size are not pooled
+     */
+    private static int getSizeClass(int size) {
+        if (size > MAX_SIZE) {
+            return -1;
+        } else if (size <= MIN_SIZE) {
+            return 0;
+        } else {
+            return 32 - Integer.numberOfLeadingZeros(size-1) - MIN_SHIFT;
+        }
+    }
+    
+    private byte[][] getThreadCache(int sizeClass, boolean create) {
+        if (maxBuffersPerThread == 0) {
+            return null;
+        }
+        byte[][][] cache = threadCache.get();
+        if (cache == null) {
+            if (!create) {
+                return null;
+            }
+            cache = new byte[SIZE_CLASSES][][];
+            threadCache.set(cache);
+        }
+        byte[][] buffers = cache[sizeClass];
+        if (buffers == null && create) {
+            buffers = new byte[maxBuffersPerThread][];
+            cache[sizeClass] = buffers;
+        }
+        return buffers;
+    }
+    
+    public byte[] allocate(int size) {
+        int sizeClass = getSizeClass(size);
+        if (sizeClass == -1) {
+            return new byte[size];
+        }
+        byte[][] buffers = getThreadCache(sizeClass, false);
+        if (buffers != null) {
+            for (int i=buffers.length-1; i>=0; i--) {
+                byte[] buffer = buffers[i];
+                if (buffer != null) {
+                    buffers[i] = null;
+                    return buffer;
+                }
+            }
+        }
+        byte[] buffer = globalPools[sizeClass].poll();
+        if (buffer != null) {
+            retainedBytes.addAndGet(-buffer.length);
+            return buffer;
+        }
+        return new byte[MIN_SIZE << sizeClass];
+    }
+
+    public void release(byte[] buffer) {
+        int length = buffer.length;
+        int sizeClass = getSizeClass(length);
+        // Only accept buffers we could have allocated ourselves
+        if (sizeClass == -1 || length != MIN_SIZE << sizeClass) {
+            return;
+        }
+        byte[][] buffers = getThreadCache(sizeClass, true);
+        if (buffers != null) {
+            for (int i=0; i<buffers.length; i++) {
+                if (buffers[i] == null) {
+                    buffers[i] = buffer;
+                    return;
+                }
+            }
+        }
+        while (true) {
+            long current = retainedBytes.get();
+            if (current + length > maxRetainedBytes) {
+                // Leave the buffer to the garbage collector
+                return;
+            }
+            if (retainedBytes.compareAndSet(current, current + length)) {
+                break;
+            }
+        }
+        globalPools[sizeClass].offer(buffer);
+    }
+}
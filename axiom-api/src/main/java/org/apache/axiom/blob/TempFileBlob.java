@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Blob that stores its data in a temporary file. In addition to the methods defined by
+ * {@link WritableBlob}, this interface gives access to the content of the file using NIO, so that
+ * the data can be transferred without copying it through the Java heap. Note that
+ * {@link Blobs#writeTo(Blob, java.nio.channels.WritableByteChannel)} uses
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+ * <p>
+ * Instances are created with
+ * {@link Blobs#createOverflowableBlob(int, String, String, File, boolean)} (or one of the other
+ * methods that create a blob overflowing to a temporary file) and can be retrieved using
+ * {@link OverflowableBlob#getOverflowBlob()}.
+ */
+public interface TempFileBlob extends WritableBlob {
+    /**
+     * Open a read-only channel to the temporary file. The blob must be in state COMMITTED.
+     * 
+     * @return a new channel; the caller is responsible for closing it
+     * @throws IOException
+     *             if the file could not be opened
+     * @throws IllegalStateException
+     *             if the blob is not in state COMMITTED
+     */
+    FileChannel openChannel() throws IOException;
+    
+    /**
+     * Get a read-only, memory mapped view of the temporary file. The blob must be in state
+     * COMMITTED. The file is mapped only once; each invocation of this method returns a new buffer
+     * sharing the same content, but with independent position and limit.
+     * <p>
+     * Note that on some platforms (in particular Windows) a file can't be deleted as long as it is
+     * mapped. On these platforms, {@link WritableBlob#release()} may fail if the mapping has not
+     * been garbage collected yet.
+     * 
+     * @return the buffer
+     * @throws IOException
+     *             if the file could not be mapped, in particular if it is larger than 2GB
+     * @throws IllegalStateException
+     *             if the blob is not in state COMMITTED
+     */
+    ByteBuffer map() throws IOException;
+}
@@ -25,17 +25,34 @@ final class TempFileBlobFactory implements WritableBlobFactory {
     private final String tempPrefix;
     private final String tempSuffix;
     private final File tempDirectory;
+    private final boolean memoryMapped;
 
-    TempFileBlobFactory(String tempPrefix, String tempSuffix, File tempDirectory) {
+    TempFileBlobFactory(String tempPrefix, String tempSuffix, File tempDirectory,
+            boolean memoryMapped) {
         this.tempPrefix = tempPrefix;
         this.tempSuffix = tempSuffix;
         this.tempDirectory = tempDirectory;
+        this.memoryMapped = memoryMapped;
+    }
+
+    TempFileBlobFactory(String tempPrefix, String tempSuffix, File tempDirectory) {
+        this(tempPrefix, tempSuffix, tempDirectory, false);
     }
 
     public WritableBlob createBlob() {
         return new TempFileBlobImpl(this);
     }
     
+    /**
+     * Determine whether the blobs created by this factory read their content through a memory
+     * mapping of the temporary file.
+     * 
+     * @return <code>true</code> if the temporary files should be memory mapped
+     */
+    boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+    
     File createTempFile() throws IOException {
         return File.createTempFile(tempPrefix, tempSuffix, tempDirectory);
     }
@@ -19,21 +19,28 @@
 package org.apache.axiom.blob;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
+import org.apache.axiom.ext.io.StreamCopyException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-final class TempFileBlobImpl extends AbstractWritableBlob {
+final class TempFileBlobImpl extends AbstractWritableBlob implements TempFileBlob {
     private static final Log log = LogFactory.getLog(TempFileBlobImpl.class);
     
     private final TempFileBlobFactory factory;
     private final Throwable trace;
     private File file;
     private State state = State.NEW;
+    private ByteBuffer mappedBuffer;
 
     TempFileBlobImpl(TempFileBlobFactory factory) {
         this.factory = factory;
@@ -41,6 +48,10 @@ final class TempFileBlobImpl extends AbstractWritableBlob {
     }
 
     public OutputStream getOutputStream() throws IOException {
+        return internalGetOutputStream();
+    }
+
+    private FileOutputStream internalGetOutputStream() throws IOException {
         if (state != State.NEW) {
             throw new IllegalStateException();
         }
@@ -49,7 +60,7 @@ final class TempFileBlobImpl extends AbstractWritableBlob {
             log.debug("Using temporary file " + file);
         }
         file.deleteOnExit();
-        OutputStream out = new FileOutputStream(file) {
+        FileOutputStream out = new FileOutputStream(file) {
             @Override
             public void close() throws IOException {
                 super.close();
@@ -60,14 +71,111 @@ final class TempFileBlobImpl extends AbstractWritableBlob {
         return out;
     }
 
+    @Override
+    public long readFrom(ReadableByteChannel channel) throws StreamCopyException {
+        FileOutputStream out;
+        try {
+            out = internalGetOutputStream();
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.WRITE, ex);
+        }
+        try {
+            FileChannel fileChannel = out.getChannel();
+            long position = 0;
+            while (true) {
+                // transferFrom doesn't distinguish between read and write errors
+                long c;
+                try {
+                    c = fileChannel.transferFrom(channel, position, 1024*1024);
+                } catch (IOException ex) {
+                    throw new StreamCopyException(StreamCopyException.READ, ex);
+                }
+                if (c == 0) {
+                    break;
+                }
+                position += c;
+            }
+            return position;
+        } finally {
+            try {
+                out.close();
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.WRITE, ex);
+            }
+        }
+    }
+
     public InputStream getInputStream() throws IOException {
         if (state != State.COMMITTED) {
             throw new IllegalStateException();
         }
-        // We know that we are accessing a regular file and since we don't leak the
-        // location of the file, nobody else should be modifying it. Therefore we can
-        // return an input stream that supports mark/reset.
-        return new TempFileInputStream(file);
+        if (factory.isMemoryMapped() && file.length() <= Integer.MAX_VALUE) {
+            return new ByteBufferInputStream(new ByteBuffer[] { map() });
+        } else {
+            // We know that we are accessing a regular file and since we don't leak the
+            // location of the file, nobody else should be modifying it. Therefore we can
+            // return an input stream that supports mark/reset.
+            return new TempFileInputStream(file);
+        }
+    }
+
+    @Override
+    public void writeTo(WritableByteChannel channel) throws StreamCopyException {
+        FileChannel fileChannel;
+        try {
+            fileChannel = openChannel();
+        } catch (IOException ex) {
+            throw new StreamCopyException(StreamCopyException.READ, ex);
+        }
+        try {
+            long size;
+            try {
+                size = fileChannel.size();
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.READ, ex);
+            }
+            long position = 0;
+            while (position < size) {
+                // transferTo doesn't distinguish between read and write errors; we assume that
+                // errors are caused by the target channel
+                try {
+                    position += fileChannel.transferTo(position, size-position, channel);
+                } catch (IOException ex) {
+                    throw new StreamCopyException(StreamCopyException.WRITE, ex);
+                }
+            }
+        } finally {
+            try {
+                fileChannel.close();
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.READ, ex);
+            }
+        }
+    }
+
+    public FileChannel openChannel() throws IOException {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        return new FileInputStream(file).getChannel();
+    }
+
+    public ByteBuffer map() throws IOException {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        synchronized (this) {
+            if (mappedBuffer == null) {
+                FileChannel channel = openChannel();
+                try {
+                    // The mapping remains valid after the channel is closed
+                    mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                } finally {
+                    channel.close();
+                }
+            }
+            return mappedBuffer.duplicate();
+        }
     }
 
     public long getSize() {
@@ -82,6 +190,9 @@ final class TempFileBlobImpl extends AbstractWritableBlob {
             if (log.isDebugEnabled()) {
                 log.debug("Deleting temporary file " + file);
             }
+            synchronized (this) {
+                mappedBuffer = null;
+            }
             if (!file.delete()) {
                 throw new IOException("Failed to delete " + file);
             }
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.axiom.ext.io.StreamCopyException;
+
+/**
+ * {@link OverflowableBlob} implementation that uses an arbitrary blob as in-memory tier. In
+ * contrast to {@link OverflowableBlobImpl}, which manages its own buffer, this class delegates to
+ * a blob created by a {@link WritableBlobFactory}, which allows to use e.g. off-heap memory.
+ */
+final class TieredOverflowableBlobImpl extends AbstractWritableBlob implements OverflowableBlob {
+    class OutputStreamImpl extends OutputStream {
+        private OutputStream out;
+        private long size;
+        
+        OutputStreamImpl(OutputStream out) {
+            this.out = out;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (state != State.UNCOMMITTED) {
+                throw new IllegalStateException();
+            }
+            if (overflowBlob == null && size + len > threshold) {
+                out = switchToOverflowBlob(out);
+            }
+            out.write(b, off, len);
+            size += len;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (state != State.UNCOMMITTED) {
+                throw new IllegalStateException();
+            }
+            if (overflowBlob == null && size == threshold) {
+                out = switchToOverflowBlob(out);
+            }
+            out.write(b);
+            size++;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (state == State.UNCOMMITTED) {
+                out.close();
+                state = State.COMMITTED;
+            }
+        }
+    }
+    
+    private final long threshold;
+    private final WritableBlobFactory overflowBlobFactory;
+    
+    /**
+     * The in-memory blob. This is set to <code>null</code> when the blob overflows.
+     */
+    private WritableBlob memoryBlob;
+    
+    private WritableBlob overflowBlob;
+    private State state = State.NEW;
+
+    TieredOverflowableBlobImpl(long threshold, WritableBlobFactory memoryBlobFactory,
+            WritableBlobFactory overflowBlobFactory) {
+        this.threshold = threshold;
+        this.overflowBlobFactory = overflowBlobFactory;
+        memoryBlob = memoryBlobFactory.createBlob();
+    }
+    
+    /**
+     * Transfer the data accumulated in the in-memory blob to the overflow blob and release the
+     * in-memory blob.
+     * 
+     * @param memoryOut
+     *            the output stream of the in-memory blob
+     * @return the output stream to write the remaining data to
+     * @throws IOException
+     */
+    OutputStream switchToOverflowBlob(OutputStream memoryOut) throws IOException {
+        memoryOut.close();
+        overflowBlob = overflowBlobFactory.createBlob();
+        OutputStream out = overflowBlob.getOutputStream();
+        memoryBlob.writeTo(out);
+        memoryBlob.release();
+        memoryBlob = null;
+        return out;
+    }
+    
+    private WritableBlob getCurrentBlob() {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        return overflowBlob != null ? overflowBlob : memoryBlob;
+    }
+
+    public OutputStream getOutputStream() throws IOException {
+        if (state != State.NEW) {
+            throw new IllegalStateException();
+        }
+        OutputStream out = memoryBlob.getOutputStream();
+        state = State.UNCOMMITTED;
+        return new OutputStreamImpl(out);
+    }
+
+    public InputStream getInputStream() throws IOException {
+        return getCurrentBlob().getInputStream();
+    }
+
+    public void writeTo(OutputStream out) throws StreamCopyException {
+        getCurrentBlob().writeTo(out);
+    }
+
+    public void writeTo(WritableByteChannel channel) throws StreamCopyException {
+        Blobs.writeTo(getCurrentBlob(), channel);
+    }
+
+    public long getSize() {
+        return getCurrentBlob().getSize();
+    }
+
+    public void release() throws IOException {
+        if (memoryBlob != null) {
+            memoryBlob.release();
+            memoryBlob = null;
+        }
+        if (overflowBlob != null) {
+            overflowBlob.release();
+            overflowBlob = null;
+        }
+        state = State.RELEASED;
+    }
+
+    public WritableBlob getOverflowBlob() {
+        return overflowBlob;
+    }
+}
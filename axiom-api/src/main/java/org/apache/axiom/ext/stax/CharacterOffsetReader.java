@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.ext.stax;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Optional interface implemented by {@link XMLStreamReader} implementations that are able to
+ * report the exact position of the current event in the character stream they read.
+ * <p>
+ * Offsets are counted in characters (in the sense of {@link Character}, i.e. UTF-16 code units)
+ * from the beginning of the input. If the reader was created from a byte stream, this is the
+ * character stream obtained after decoding the input.
+ * <p>
+ * All the requirements outlined in {@link org.apache.axiom.ext.stax} apply to this extension
+ * interface. In particular, to get a reference to the extension, the consumer MUST call
+ * {@link XMLStreamReader#getProperty(String)} with {@link #PROPERTY} as the property name.
+ */
+public interface CharacterOffsetReader {
+    /**
+     * The name of the property used to look up this extension interface from a
+     * {@link XMLStreamReader} implementation.
+     */
+    String PROPERTY = CharacterOffsetReader.class.getName();
+    
+    /**
+     * Get the offset of the first character of the current event.
+     * 
+     * @return the offset, or -1 if the offset is not known
+     */
+    long getStartingCharOffset();
+    
+    /**
+     * Get the offset of the character immediately following the current event. Note that
+     * depending on the implementation, calling this method may force the reader to parse the
+     * remaining part of the current event.
+     * 
+     * @return the offset, or -1 if the offset is not known
+     * @throws XMLStreamException
+     *             if the underlying XML source is not well-formed
+     */
+    long getEndingCharOffset() throws XMLStreamException;
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Object model builder that is fed with the bytes of an XML document as they become available,
+ * instead of reading them from an {@link java.io.InputStream}. The builder never blocks: each call to
+ * {@link #feed(ByteBuffer)} parses as much of the document as possible and adds the corresponding
+ * nodes to the tree. This allows to build documents received by non blocking I/O without
+ * dedicating a thread to each document.
+ * <p>
+ * Nodes are added to the tree as soon as they have been parsed. Until {@link #isCompleted()}
+ * returns <code>true</code>, the application should therefore not assume that an element has all
+ * its children. Note that the tree is not linked to the builder; in particular navigating the tree
+ * never triggers parsing.
+ * <p>
+ * Instances of this interface are created using
+ * {@link OMXMLBuilderFactory#createAsyncOMBuilder(OMFactory)}. They are not thread safe.
+ */
+public interface AsyncOMBuilder {
+    /**
+     * Feed a chunk of the document to the builder. The method consumes all remaining bytes of the
+     * buffer before returning, so that the caller may reuse the buffer afterwards.
+     * 
+     * @param data
+     *            the buffer containing the next chunk of the document
+     * @throws OMException
+     *             if the document is not well formed
+     * @throws IllegalStateException
+     *             if {@link #endOfInput()} has already been called
+     */
+    void feed(ByteBuffer data) throws OMException;
+    
+    /**
+     * Notify the builder that the entire document has been fed.
+     * 
+     * @throws OMException
+     *             if the document is truncated or not well formed
+     */
+    void endOfInput() throws OMException;
+    
+    /**
+     * Check if the document has been built completely.
+     * 
+     * @return <code>true</code> if the end of the document has been reached
+     */
+    boolean isCompleted();
+    
+    /**
+     * Get the document being built.
+     * 
+     * @return the document; never <code>null</code>
+     */
+    OMDocument getDocument();
+}
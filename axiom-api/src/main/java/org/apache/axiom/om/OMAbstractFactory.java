@@ -35,6 +35,8 @@ import org.apache.axiom.soap.SOAPFactory;
  * to provide a full implementation of the Axiom API.
  * <dt>{@link #FEATURE_DOM}
  * <dd>Used by Axiom implementations that implement DOM in addition to the Axiom API.
+ * <dt>{@link #FEATURE_COMPACT}
+ * <dd>Used by read-only Axiom implementations optimized for memory footprint.
  * </dl>
  * Implementations may define other custom features.
  * <p>
@@ -80,6 +82,16 @@ public class OMAbstractFactory {
      */
     public static final String FEATURE_DOM = "dom";
     
+    /**
+     * Feature for Axiom implementations that store parsed documents in a compact, read-only
+     * representation. The {@link OMMetaFactory} for such an implementation only guarantees that
+     * object models created by its builders are navigable and serializable; attempts to modify
+     * them will result in an {@link UnsupportedOperationException}. Object models created
+     * programmatically using {@link OMMetaFactory#getOMFactory()} are not subject to that
+     * restriction.
+     */
+    public static final String FEATURE_COMPACT = "compact";
+    
     private static final String DEFAULT_LOCATOR_CLASS_NAME =
             "org.apache.axiom.locator.DefaultOMMetaFactoryLocator";
 
@@ -168,6 +180,8 @@ public class OMAbstractFactory {
                 jarHint = "axiom-impl.jar";
             } else if (feature.equals(FEATURE_DOM)) {
                 jarHint = "axiom-dom.jar";
+            } else if (feature.equals(FEATURE_COMPACT)) {
+                jarHint = "axiom-compact.jar";
             } else {
                 jarHint = null;
             }
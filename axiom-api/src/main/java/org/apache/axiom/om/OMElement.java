@@ -705,4 +705,31 @@ public interface OMElement extends OMNode, OMContainer, OMNamedInformationItem {
     //       warning when using the method on an OMElement.
     void serializeAndConsume(Writer writer, OMOutputFormat format)
             throws XMLStreamException;
+
+    /**
+     * Enable or disable caching of the serialized form of this element. If caching is enabled,
+     * the encoded bytes produced when the element is serialized are kept and reused by subsequent
+     * serializations, provided that the element and its descendants have not been modified in the
+     * meantime and that the output is compatible (same encoding and same namespace context).
+     * This is useful for elements that are serialized repeatedly, such as SOAP headers that are
+     * added to many messages.
+     * <p>
+     * The cache is only used if {@link OMOutputFormat#isDirectSerialization() direct
+     * serialization} is enabled, and only for subtrees that are complete and that don't contain
+     * unexpanded {@link OMSourcedElement}s. Implementations that don't support this feature
+     * ignore the setting.
+     * 
+     * @param enabled
+     *            <code>true</code> to enable caching; <code>false</code> to disable caching and
+     *            discard any cached serialized form
+     */
+    void setSerializationCacheEnabled(boolean enabled);
+
+    /**
+     * Determine if caching of the serialized form is enabled for this element.
+     * 
+     * @return <code>true</code> if caching is enabled, <code>false</code> otherwise
+     * @see #setSerializationCacheEnabled(boolean)
+     */
+    boolean isSerializationCacheEnabled();
 }
@@ -68,6 +68,7 @@ public class OMOutputFormat {
     
     private boolean ignoreXMLDeclaration;
     private boolean autoCloseWriter;
+    private boolean directSerialization;
 
     public static final String ACTION_PROPERTY = "action";
     
@@ -131,6 +132,7 @@ public class OMOutputFormat {
         }
         ignoreXMLDeclaration = format.ignoreXMLDeclaration;
         autoCloseWriter = format.autoCloseWriter;
+        directSerialization = format.directSerialization;
         xmlStreamWriterFilter = format.xmlStreamWriterFilter;
         writerConfiguration = format.writerConfiguration;
         multipartWriterFactory = format.multipartWriterFactory;
@@ -395,6 +397,32 @@ public class OMOutputFormat {
         this.autoCloseWriter = autoCloseWriter;
     }
 
+    /**
+     * Determine whether direct serialization is enabled. See {@link #setDirectSerialization(boolean)}.
+     * 
+     * @return <code>true</code> if direct serialization is enabled; <code>false</code> otherwise
+     */
+    public boolean isDirectSerialization() {
+        return directSerialization;
+    }
+
+    /**
+     * Specifies whether the object model should be serialized directly to the output stream, i.e.
+     * without going through an {@link javax.xml.stream.XMLStreamWriter}. This significantly
+     * reduces the serialization overhead, but the output is not produced by the StAX
+     * implementation, which means that StAX specific settings (such as the
+     * {@link StAXWriterConfiguration}) have no effect. Direct serialization is only used when
+     * serializing to an {@link java.io.OutputStream} using UTF-8 or UTF-16 encoding, and when
+     * neither MTOM nor SwA is enabled and no {@link XMLStreamWriterFilter} has been set. In all other
+     * cases, this setting is ignored. It is disabled by default.
+     * 
+     * @param directSerialization
+     *            <code>true</code> to enable direct serialization; <code>false</code> otherwise
+     */
+    public void setDirectSerialization(boolean directSerialization) {
+        this.directSerialization = directSerialization;
+    }
+
     public void setMimeBoundary(String mimeBoundary) {
         this.mimeBoundary = mimeBoundary;
     }
@@ -440,6 +468,9 @@ public class OMOutputFormat {
         sb.append(" autoCloseWriter=");
         sb.append(autoCloseWriter);
         
+        sb.append(" directSerialization=");
+        sb.append(directSerialization);
+        
         // TODO Print all properties
         sb.append(" actionProperty=");
         sb.append(getProperty(ACTION_PROPERTY));
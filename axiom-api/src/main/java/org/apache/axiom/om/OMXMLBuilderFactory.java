@@ -34,6 +34,7 @@ import org.apache.axiom.om.impl.builder.AttachmentsMimePartProvider;
 import org.apache.axiom.om.util.StAXParserConfiguration;
 import org.apache.axiom.soap.SOAPFactory;
 import org.apache.axiom.soap.SOAPModelBuilder;
+import org.apache.axiom.soap.impl.builder.OMMetaFactoryEx;
 import org.apache.axiom.util.stax.XMLStreamReaderUtils;
 import org.w3c.dom.EntityReference;
 import org.w3c.dom.Node;
@@ -463,6 +464,41 @@ public class OMXMLBuilderFactory {
                 rootPart, new AttachmentsMimePartProvider(attachments));
     }
     
+    /**
+     * Create an object model builder for plain XML that is fed with the content of the document
+     * incrementally (see {@link AsyncOMBuilder}) and that uses the default object model factory.
+     * This requires a StAX implementation that supports non blocking parsing (currently Aalto).
+     * 
+     * @return the builder
+     * @throws UnsupportedOperationException
+     *             if no StAX implementation supporting non blocking parsing is available
+     */
+    public static AsyncOMBuilder createAsyncOMBuilder() {
+        return createAsyncOMBuilder(OMAbstractFactory.getMetaFactory().getOMFactory());
+    }
+    
+    /**
+     * Create an object model builder for plain XML that is fed with the content of the document
+     * incrementally (see {@link AsyncOMBuilder}) and that uses a specified object model factory.
+     * This requires a StAX implementation that supports non blocking parsing (currently Aalto).
+     * 
+     * @param omFactory
+     *            the object model factory to use
+     * @return the builder
+     * @throws UnsupportedOperationException
+     *             if the Axiom implementation doesn't support asynchronous building or if no StAX
+     *             implementation supporting non blocking parsing is available
+     */
+    public static AsyncOMBuilder createAsyncOMBuilder(OMFactory omFactory) {
+        OMMetaFactory metaFactory = omFactory.getMetaFactory();
+        if (metaFactory instanceof OMMetaFactoryEx) {
+            return ((OMMetaFactoryEx)metaFactory).createAsyncOMBuilder(omFactory);
+        } else {
+            throw new UnsupportedOperationException(
+                    "The Axiom implementation doesn't support asynchronous building");
+        }
+    }
+    
     /**
      * Create an object model builder for SOAP that pulls events from a StAX stream reader and that
      * uses a particular Axiom implementation. The method will select the appropriate
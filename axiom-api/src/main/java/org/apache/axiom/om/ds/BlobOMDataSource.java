@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.om.ds;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.blob.Blob;
+import org.apache.axiom.om.OMDataSourceExt;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.util.StAXUtils;
+
+/**
+ * {@link OMDataSourceExt} implementation that reads the XML data from a {@link Blob}. If the
+ * requested encoding matches the encoding of the blob, the data is written directly to the output,
+ * i.e. without parsing or copying it into an intermediate byte array.
+ */
+public class BlobOMDataSource extends OMDataSourceExtBase {
+    private final Blob blob;
+    private final String encoding;
+
+    /**
+     * Constructor.
+     * 
+     * @param blob
+     *            the blob containing the serialized element
+     * @param encoding
+     *            the encoding of the data in the blob
+     */
+    public BlobOMDataSource(Blob blob, String encoding) {
+        this.blob = blob;
+        this.encoding = encoding;
+    }
+
+    public XMLStreamReader getReader() throws XMLStreamException {
+        try {
+            return StAXUtils.createXMLStreamReader(blob.getInputStream(), encoding);
+        } catch (IOException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    public Object getObject() {
+        return blob;
+    }
+
+    /**
+     * Get the encoding of the data in the blob.
+     * 
+     * @return the encoding
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public boolean isDestructiveRead() {
+        return false;
+    }
+
+    public boolean isDestructiveWrite() {
+        return false;
+    }
+
+    public InputStream getXMLInputStream(String encoding) throws UnsupportedEncodingException {
+        if (encoding == null || this.encoding.equalsIgnoreCase(encoding)) {
+            try {
+                return blob.getInputStream();
+            } catch (IOException ex) {
+                throw new OMException(ex);
+            }
+        } else {
+            return super.getXMLInputStream(encoding);
+        }
+    }
+
+    public void serialize(OutputStream output, OMOutputFormat format) throws XMLStreamException {
+        String outputEncoding = format.getCharSetEncoding();
+        if (outputEncoding == null) {
+            outputEncoding = OMOutputFormat.DEFAULT_CHAR_SET_ENCODING;
+        }
+        if (encoding.equalsIgnoreCase(outputEncoding)) {
+            try {
+                blob.writeTo(output);
+            } catch (IOException ex) {
+                throw new XMLStreamException(ex);
+            }
+        } else {
+            super.serialize(output, format);
+        }
+    }
+
+    public byte[] getXMLBytes(String encoding) throws UnsupportedEncodingException {
+        if (encoding == null) {
+            encoding = OMOutputFormat.DEFAULT_CHAR_SET_ENCODING;
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream((int)blob.getSize());
+        try {
+            blob.writeTo(baos);
+        } catch (IOException ex) {
+            throw new OMException(ex);
+        }
+        byte[] bytes = baos.toByteArray();
+        if (this.encoding.equalsIgnoreCase(encoding)) {
+            return bytes;
+        } else {
+            return new String(bytes, this.encoding).getBytes(encoding);
+        }
+    }
+
+    public void close() {
+    }
+
+    public OMDataSourceExt copy() {
+        // The blob is not modified, so a shallow copy is sufficient
+        return new BlobOMDataSource(blob, encoding);
+    }
+}
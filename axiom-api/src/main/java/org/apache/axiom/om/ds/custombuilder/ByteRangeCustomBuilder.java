@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.om.ds.custombuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.blob.Blobs;
+import org.apache.axiom.blob.MemoryBlob;
+import org.apache.axiom.ext.stax.CharacterOffsetReader;
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.ds.BlobOMDataSource;
+import org.apache.axiom.om.impl.builder.CustomBuilder;
+import org.apache.axiom.soap.SOAPFactory;
+import org.apache.axiom.soap.SOAPHeader;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * CustomBuilder that creates an OMSourcedElement backed by a {@link BlobOMDataSource} containing
+ * the original bytes of the element. In contrast to {@link ByteArrayCustomBuilder}, the element is
+ * not re-serialized: the builder determines the location of the element in the input using the
+ * {@link CharacterOffsetReader} extension and copies the corresponding byte range from a
+ * {@link RecordingInputStream}. Namespace declarations inherited from ancestors are added to the
+ * start tag so that the captured element is self-contained.
+ * <p>
+ * To use this builder, the document must be parsed from a {@link RecordingInputStream} and the
+ * same instance must be passed to the constructor. If the document is not encoded in UTF-8 or the
+ * parser doesn't support the {@link CharacterOffsetReader} extension, the builder returns
+ * <code>null</code>, i.e. the element is built in the normal way.
+ */
+public class ByteRangeCustomBuilder implements CustomBuilder {
+    private static final Log log = LogFactory.getLog(ByteRangeCustomBuilder.class);
+    
+    private static final String ENCODING = "utf-8";
+    
+    private final RecordingInputStream input;
+
+    /**
+     * Constructor.
+     * 
+     * @param input
+     *            the stream from which the document is parsed
+     */
+    public ByteRangeCustomBuilder(RecordingInputStream input) {
+        this.input = input;
+    }
+
+    public OMElement create(String namespace, 
+                            String localPart, 
+                            OMContainer parent, 
+                            XMLStreamReader reader,
+                            OMFactory factory) throws OMException {
+        try {
+            CharacterOffsetReader offsetReader = getCharacterOffsetReader(reader);
+            if (offsetReader == null) {
+                return null;
+            }
+            String encoding = getInputEncoding(parent);
+            if (encoding == null || !encoding.equalsIgnoreCase(ENCODING)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Unsupported encoding " + encoding
+                            + "; falling back to the default builder");
+                }
+                return null;
+            }
+            String prefix = reader.getPrefix();
+            if (prefix == null) {
+                prefix = "";
+            }
+            
+            // Locate the start tag and check that the location information is consistent
+            // with the recorded data. This must be done before consuming the events of the
+            // element, because after that we can no longer fall back to the default builder.
+            long start = input.utf8CharToByteOffset(offsetReader.getStartingCharOffset());
+            long nameEnd = start == -1 ? -1 : matchStartTag(start,
+                    prefix.length() == 0 ? localPart : prefix + ":" + localPart);
+            if (nameEnd == -1) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Unable to locate the start tag of {" + namespace + "}" + localPart
+                            + " in the input; falling back to the default builder");
+                }
+                return null;
+            }
+            String extraDeclarations = getInheritedNamespaceDeclarations(parent, reader);
+            
+            // Skip to the corresponding end tag
+            int depth = 1;
+            while (depth > 0) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        depth--;
+                }
+            }
+            
+            // The parser has now read (and recorded) the entire element and checked that it is
+            // well formed. Therefore we can determine the end of the element by scanning the
+            // recorded data and don't need to rely on the location of the end tag.
+            long end = findElementEnd(start);
+            
+            // Copy the byte range, inserting the inherited namespace declarations
+            MemoryBlob blob = Blobs.createMemoryBlob();
+            OutputStream out = blob.getOutputStream();
+            input.writeTo(out, start, nameEnd);
+            if (extraDeclarations != null) {
+                out.write(extraDeclarations.getBytes(ENCODING));
+            }
+            input.writeTo(out, nameEnd, end);
+            out.close();
+            BlobOMDataSource ds = new BlobOMDataSource(blob, ENCODING);
+            
+            // Elements captured later start after the end of this one; the recorded data up to
+            // this point is therefore no longer needed
+            input.discard(end);
+            
+            // Create an OMSourcedElement backed by the BlobOMDataSource
+            OMNamespace ns = factory.createOMNamespace(namespace, prefix);
+            
+            OMElement om = null;
+            if (parent instanceof SOAPHeader && factory instanceof SOAPFactory) {
+                om = ((SOAPFactory)factory).createSOAPHeaderBlock(localPart, ns, ds);
+            } else {
+                om = factory.createOMElement(ds, localPart, ns);
+            }
+            
+            // Add the new OMSourcedElement ot the parent
+            parent.addChild(om);
+            return om;
+        } catch (XMLStreamException e) {
+            throw new OMException(e);
+        } catch (OMException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new OMException(t);
+        }
+    }
+    
+    /**
+     * Get the encoding of the document being built. This information is only available from the
+     * parser at the start of the document, but the builder stores it in the {@link OMDocument}.
+     * 
+     * @return the input encoding, or <code>null</code> if it is unknown
+     */
+    private static String getInputEncoding(OMContainer parent) {
+        OMContainer container = parent;
+        while (container instanceof OMNode) {
+            container = ((OMNode)container).getParent();
+        }
+        return container instanceof OMDocument ? ((OMDocument)container).getCharsetEncoding() : null;
+    }
+    
+    private static CharacterOffsetReader getCharacterOffsetReader(XMLStreamReader reader) {
+        try {
+            return (CharacterOffsetReader)reader.getProperty(CharacterOffsetReader.PROPERTY);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Check that the start tag with the given name starts at the given position.
+     * 
+     * @return the position immediately following the element name, or -1 if the data at the
+     *         given position is not the expected start tag
+     */
+    private long matchStartTag(long start, String name) throws UnsupportedEncodingException {
+        byte[] nameBytes = name.getBytes(ENCODING);
+        long size = input.getSize();
+        if (start + nameBytes.length + 1 >= size || input.byteAt(start) != '<') {
+            return -1;
+        }
+        for (int i=0; i<nameBytes.length; i++) {
+            if (input.byteAt(start+1+i) != (nameBytes[i] & 0xFF)) {
+                return -1;
+            }
+        }
+        long nameEnd = start + 1 + nameBytes.length;
+        switch (input.byteAt(nameEnd)) {
+            case ' ': case '\t': case '\r': case '\n': case '/': case '>':
+                return nameEnd;
+            default:
+                return -1;
+        }
+    }
+    
+    /**
+     * Find the end of the element whose start tag begins at the given position. The element must
+     * have been read entirely by the parser, so that it is well formed and completely recorded.
+     * 
+     * @return the position following the last byte of the element
+     */
+    private long findElementEnd(long pos) {
+        int depth = 0;
+        while (true) {
+            if (input.byteAt(pos) != '<') {
+                pos++;
+            } else if (matches(pos, "<!--")) {
+                pos = skipPast(pos+4, "-->");
+            } else if (matches(pos, "<![CDATA[")) {
+                pos = skipPast(pos+9, "]]>");
+            } else if (matches(pos, "<?")) {
+                pos = skipPast(pos+2, "?>");
+            } else if (matches(pos, "</")) {
+                pos = skipPast(pos+2, ">");
+                if (--depth == 0) {
+                    return pos;
+                }
+            } else {
+                // Start tag; attribute values may contain '>'
+                int quote = 0;
+                int b;
+                do {
+                    b = input.byteAt(++pos);
+                    if (quote == 0 && (b == '"' || b == '\'')) {
+                        quote = b;
+                    } else if (b == quote) {
+                        quote = 0;
+                    }
+                } while (quote != 0 || b != '>');
+                pos++;
+                if (input.byteAt(pos-2) != '/') {
+                    depth++;
+                } else if (depth == 0) {
+                    return pos;
+                }
+            }
+        }
+    }
+    
+    private boolean matches(long pos, String s) {
+        if (pos + s.length() > input.getSize()) {
+            return false;
+        }
+        for (int i=0; i<s.length(); i++) {
+            if (input.byteAt(pos+i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private long skipPast(long pos, String s) {
+        while (!matches(pos, s)) {
+            pos++;
+        }
+        return pos + s.length();
+    }
+    
+    /**
+     * Build the namespace declarations that need to be added to the start tag of the element so
+     * that all namespaces in scope in the original document are also in scope in the extracted
+     * fragment.
+     * 
+     * @return the namespace declarations (with a leading space), or <code>null</code> if no
+     *         declarations need to be added
+     */
+    private static String getInheritedNamespaceDeclarations(OMContainer parent,
+            XMLStreamReader reader) {
+        if (!(parent instanceof OMElement)) {
+            return null;
+        }
+        Set<String> declaredPrefixes = new HashSet<String>();
+        for (int i=0; i<reader.getNamespaceCount(); i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            declaredPrefixes.add(prefix == null ? "" : prefix);
+        }
+        StringBuilder buffer = null;
+        for (Iterator it = ((OMElement)parent).getNamespacesInScope(); it.hasNext(); ) {
+            OMNamespace ns = (OMNamespace)it.next();
+            String prefix = ns.getPrefix();
+            if (declaredPrefixes.contains(prefix)) {
+                continue;
+            }
+            if (buffer == null) {
+                buffer = new StringBuilder();
+            }
+            buffer.append(prefix.length() == 0 ? " xmlns" : " xmlns:");
+            buffer.append(prefix);
+            buffer.append("=\"");
+            String uri = ns.getNamespaceURI();
+            for (int i=0; i<uri.length(); i++) {
+                char c = uri.charAt(i);
+                switch (c) {
+                    case '&': buffer.append("&amp;"); break;
+                    case '<': buffer.append("&lt;"); break;
+                    case '"': buffer.append("&quot;"); break;
+                    default: buffer.append(c);
+                }
+            }
+            buffer.append('"');
+        }
+        return buffer == null ? null : buffer.toString();
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.om.ds.custombuilder;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Input stream that keeps a copy of the data read from the underlying stream. It is used
+ * together with {@link ByteRangeCustomBuilder} to give the custom builder access to the raw bytes
+ * of the document being parsed. To use it, wrap the original input stream and pass the
+ * {@link RecordingInputStream} instance to the parser or builder.
+ * <p>
+ * Note that the data read from the stream is kept in memory until it is released using
+ * {@link #discard(long)}. {@link ByteRangeCustomBuilder} does this after each element it captures.
+ */
+public final class RecordingInputStream extends FilterInputStream {
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    
+    private final List<byte[]> chunks = new ArrayList<byte[]>();
+    private long size;
+    
+    /**
+     * The position before which the data has been discarded. This is always a multiple of the
+     * chunk size.
+     */
+    private long discarded;
+    
+    // Cursor used by utf8CharToByteOffset; character offsets are usually requested in
+    // increasing order, so that we don't need to decode the data more than once
+    private long cursorChar = -1;
+    private long cursorByte;
+
+    public RecordingInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Get the number of bytes read so far.
+     * 
+     * @return the number of bytes read (and recorded) so far
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Get the byte at the given position.
+     * 
+     * @param pos
+     *            the position; must be less than {@link #getSize()}
+     * @return the byte value, between 0 and 255
+     */
+    public int byteAt(long pos) {
+        if (pos < discarded || pos >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return chunks.get((int)(pos >> CHUNK_SHIFT))[(int)(pos & CHUNK_MASK)] & 0xFF;
+    }
+
+    /**
+     * Write a range of the recorded data to the given output stream.
+     * 
+     * @param out
+     *            the output stream to write to
+     * @param start
+     *            the position of the first byte to write
+     * @param end
+     *            the position following the last byte to write
+     * @throws IOException
+     *             if an I/O error occurs when writing to the output stream
+     */
+    public void writeTo(OutputStream out, long start, long end) throws IOException {
+        if (start < discarded || end > size || start > end) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (start < end) {
+            int offset = (int)(start & CHUNK_MASK);
+            int len = (int)Math.min(CHUNK_SIZE - offset, end - start);
+            out.write(chunks.get((int)(start >> CHUNK_SHIFT)), offset, len);
+            start += len;
+        }
+    }
+
+    /**
+     * Convert a character offset into a byte offset, assuming that the recorded data is encoded
+     * in UTF-8. As usual for XML parsers, a byte order mark at the beginning of the data is not
+     * counted as a character.
+     * 
+     * @param charOffset
+     *            the character offset (in UTF-16 code units)
+     * @return the corresponding byte offset, or -1 if the offset is beyond the recorded data,
+     *         doesn't correspond to a character boundary or refers to discarded data
+     */
+    public long utf8CharToByteOffset(long charOffset) {
+        if (charOffset < cursorChar || cursorChar == -1) {
+            if (discarded > 0) {
+                return -1;
+            }
+            resetCursor();
+        }
+        while (cursorChar < charOffset) {
+            if (cursorByte >= size) {
+                return -1;
+            }
+            advanceCursor();
+        }
+        return cursorChar == charOffset && cursorByte <= size ? cursorByte : -1;
+    }
+
+    /**
+     * Discard the recorded data before the given position. The data in the discarded range can no
+     * longer be accessed, but character offsets following that range can still be converted.
+     * 
+     * @param pos
+     *            the position before which the data is no longer needed
+     */
+    public void discard(long pos) {
+        if (pos < 0 || pos > size) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (pos <= discarded) {
+            return;
+        }
+        // Move the cursor past the discarded data; once the data is gone, the character offsets
+        // can no longer be computed from the beginning of the stream
+        if (cursorChar == -1) {
+            resetCursor();
+        }
+        while (cursorByte < pos) {
+            advanceCursor();
+        }
+        int first = (int)(discarded >> CHUNK_SHIFT);
+        int last = (int)(pos >> CHUNK_SHIFT);
+        for (int i=first; i<last; i++) {
+            chunks.set(i, null);
+        }
+        discarded = (long)last << CHUNK_SHIFT;
+    }
+    
+    private void resetCursor() {
+        cursorChar = 0;
+        cursorByte = size >= 3 && byteAt(0) == 0xEF && byteAt(1) == 0xBB && byteAt(2) == 0xBF
+                ? 3 : 0;
+    }
+    
+    /**
+     * Move the cursor to the next character, based on the leading byte of the current one.
+     */
+    private void advanceCursor() {
+        int b = byteAt(cursorByte);
+        if (b < 0x80) {
+            cursorByte++;
+            cursorChar++;
+        } else if ((b & 0xE0) == 0xC0) {
+            cursorByte += 2;
+            cursorChar++;
+        } else if ((b & 0xF0) == 0xE0) {
+            cursorByte += 3;
+            cursorChar++;
+        } else {
+            // Supplementary character; represented by a surrogate pair
+            cursorByte += 4;
+            cursorChar += 2;
+        }
+    }
+
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            int offset = (int)(size & CHUNK_MASK);
+            if (offset == 0) {
+                chunks.add(new byte[CHUNK_SIZE]);
+            }
+            chunks.get(chunks.size()-1)[offset] = (byte)b;
+            size++;
+        }
+        return b;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        int c = super.read(b, off, len);
+        if (c > 0) {
+            record(b, off, c);
+        }
+        return c;
+    }
+
+    public long skip(long n) throws IOException {
+        // Skipped data must be recorded as well
+        byte[] buffer = new byte[(int)Math.min(n, CHUNK_SIZE)];
+        int c = read(buffer, 0, buffer.length);
+        return c == -1 ? 0 : c;
+    }
+
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void record(byte[] b, int off, int len) {
+        while (len > 0) {
+            int offset = (int)(size & CHUNK_MASK);
+            if (offset == 0) {
+                chunks.add(new byte[CHUNK_SIZE]);
+            }
+            int c = Math.min(CHUNK_SIZE - offset, len);
+            System.arraycopy(b, off, chunks.get(chunks.size()-1), offset, c);
+            off += c;
+            len -= c;
+            size += c;
+        }
+    }
+}
@@ -42,5 +42,16 @@ public interface OMElementEx extends OMElement, OMNodeEx, OMContainerEx {
      */
     OMNamespace addNamespaceDeclaration(String uri, String prefix);
     
+    /**
+     * Adds a namespace declaration for an existing {@link OMNamespace} instance without doing any
+     * additional checks. This is the same as {@link #addNamespaceDeclaration(String, String)}, but
+     * allows the builder to share {@link OMNamespace} instances between elements.
+     * 
+     * @param ns
+     *            the namespace to declare; must not be <code>null</code> and must have a non
+     *            <code>null</code> prefix
+     */
+    void appendNamespaceDeclaration(OMNamespace ns);
+    
     void detachAndDiscardParent();
 }
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.builder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+
+/**
+ * Symbol table for local names, prefixes and {@link OMNamespace} instances. Documents typically
+ * use a small set of names over and over again (this is particularly true for SOAP messages). By
+ * looking up these names in a name table, all occurrences of a given name share the same
+ * {@link String} and {@link OMNamespace} instances, which reduces memory usage and allows most
+ * equality checks to succeed on the identity comparison.
+ * <p>
+ * A name table is either concurrent (appropriate for a table shared by all builders and nodes
+ * created by a given {@link OMFactory}; see {@link OMFactoryEx#getNameTable()}) or unsynchronized
+ * (appropriate for a table owned by a single builder). An unsynchronized table usually has a parent
+ * table to which lookups are delegated on a miss, so that a builder can use a fast local table
+ * while still sharing instances with other documents created by the same factory. To protect
+ * against documents with an unbounded number of distinct names, a table may be given a maximum
+ * size. Entries are stored in two generations: new entries are added to the current generation,
+ * and once it has reached the maximum size, it becomes the old generation and the previous old
+ * generation is discarded. Entries found in the old generation are copied to the current one, so
+ * that names that are in use survive, while names that are no longer used are eventually evicted.
+ * Evicting an entry only means that new occurrences of the name no longer share the same instance
+ * as existing ones.
+ * <p>
+ * This class is used internally by Axiom and should not be considered being part of the public
+ * API.
+ */
+public class NameTable {
+    /**
+     * A generation of entries in the table.
+     */
+    private static final class Generation {
+        final Map<String,String> strings;
+        final Map<String,Map<String,OMNamespace>> namespaces;
+        final AtomicInteger size = new AtomicInteger();
+        
+        Generation(boolean concurrent) {
+            if (concurrent) {
+                strings = new ConcurrentHashMap<String,String>();
+                namespaces = new ConcurrentHashMap<String,Map<String,OMNamespace>>();
+            } else {
+                strings = new HashMap<String,String>();
+                namespaces = new HashMap<String,Map<String,OMNamespace>>();
+            }
+        }
+    }
+    
+    private final NameTable parent;
+    private final OMFactory factory;
+    private final boolean concurrent;
+    private final int maxSize;
+    private volatile Generation current;
+    private volatile Generation old;
+
+    /**
+     * Create an unsynchronized name table without size limit that delegates to the given table.
+     *
+     * @param parent
+     *            the table to look up names that are not found in this table
+     */
+    public NameTable(NameTable parent) {
+        this(parent, null, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create a root name table.
+     *
+     * @param factory
+     *            the factory used to create new {@link OMNamespace} instances; may be
+     *            <code>null</code> if the subclass overrides {@link #createNamespace(String, String)}
+     * @param concurrent
+     *            <code>true</code> if the table may be accessed concurrently by multiple threads
+     * @param maxSize
+     *            the maximum number of entries (strings and namespaces) in a generation of the
+     *            table
+     */
+    public NameTable(OMFactory factory, boolean concurrent, int maxSize) {
+        this(null, factory, concurrent, maxSize);
+    }
+
+    private NameTable(NameTable parent, OMFactory factory, boolean concurrent, int maxSize) {
+        this.parent = parent;
+        this.factory = factory;
+        this.concurrent = concurrent;
+        this.maxSize = maxSize;
+        current = new Generation(concurrent);
+    }
+
+    /**
+     * Get the canonical instance of a local name or prefix.
+     *
+     * @param s
+     *            the string to look up; may be <code>null</code>
+     * @return the canonical instance equal to the given string
+     */
+    public final String intern(String s) {
+        if (s == null || s.length() == 0) {
+            // Empty strings are interned by the compiler anyway
+            return s == null ? null : "";
+        }
+        String result = current.strings.get(s);
+        if (result != null) {
+            return result;
+        }
+        Generation old = this.old;
+        if (old != null) {
+            result = old.strings.get(s);
+        }
+        if (result == null) {
+            result = parent != null ? parent.intern(s) : s;
+        }
+        while (true) {
+            Generation gen = current;
+            if (reserve(gen)) {
+                if (concurrent) {
+                    String existing = ((ConcurrentMap<String,String>)gen.strings).putIfAbsent(result, result);
+                    return existing == null ? result : existing;
+                } else {
+                    gen.strings.put(result, result);
+                    return result;
+                }
+            }
+            rotate(gen);
+        }
+    }
+
+    /**
+     * Get the canonical {@link OMNamespace} instance for the given namespace URI and prefix.
+     *
+     * @param namespaceURI
+     *            the namespace URI; must not be <code>null</code>
+     * @param prefix
+     *            the prefix; if <code>null</code>, a new (unshared) instance is returned, because
+     *            the prefix will be generated later
+     * @return the {@link OMNamespace} instance
+     */
+    public final OMNamespace getNamespace(String namespaceURI, String prefix) {
+        if (namespaceURI == null || prefix == null) {
+            return createNamespace(namespaceURI, prefix);
+        }
+        OMNamespace ns = lookupNamespace(current, namespaceURI, prefix);
+        if (ns != null) {
+            return ns;
+        }
+        Generation old = this.old;
+        if (old != null) {
+            ns = lookupNamespace(old, namespaceURI, prefix);
+        }
+        if (ns == null) {
+            ns = createNamespace(namespaceURI, prefix);
+        }
+        while (true) {
+            Generation gen = current;
+            if (reserve(gen)) {
+                return addNamespace(gen, ns);
+            }
+            rotate(gen);
+        }
+    }
+    
+    private static OMNamespace lookupNamespace(Generation gen, String namespaceURI, String prefix) {
+        Map<String,OMNamespace> prefixMap = gen.namespaces.get(namespaceURI);
+        return prefixMap == null ? null : prefixMap.get(prefix);
+    }
+    
+    private OMNamespace addNamespace(Generation gen, OMNamespace ns) {
+        Map<String,OMNamespace> prefixMap = gen.namespaces.get(ns.getNamespaceURI());
+        if (concurrent) {
+            if (prefixMap == null) {
+                prefixMap = new ConcurrentHashMap<String,OMNamespace>();
+                Map<String,OMNamespace> existing = ((ConcurrentMap<String,Map<String,OMNamespace>>)gen.namespaces).putIfAbsent(ns.getNamespaceURI(), prefixMap);
+                if (existing != null) {
+                    prefixMap = existing;
+                }
+            }
+            OMNamespace existing = ((ConcurrentMap<String,OMNamespace>)prefixMap).putIfAbsent(ns.getPrefix(), ns);
+            return existing == null ? ns : existing;
+        } else {
+            if (prefixMap == null) {
+                prefixMap = new HashMap<String,OMNamespace>();
+                gen.namespaces.put(ns.getNamespaceURI(), prefixMap);
+            }
+            prefixMap.put(ns.getPrefix(), ns);
+            return ns;
+        }
+    }
+
+    /**
+     * Create a new {@link OMNamespace} instance. This method is called when a namespace is not
+     * found in the table. The default implementation delegates to the parent table or (for a root
+     * table) to {@link OMFactory#createOMNamespace(String, String)}.
+     *
+     * @param namespaceURI
+     *            the namespace URI
+     * @param prefix
+     *            the prefix
+     * @return the new instance
+     */
+    protected OMNamespace createNamespace(String namespaceURI, String prefix) {
+        return parent != null ? parent.getNamespace(namespaceURI, prefix)
+                : factory.createOMNamespace(namespaceURI, prefix);
+    }
+
+    /**
+     * Get the number of entries in the current generation of the table.
+     *
+     * @return the number of entries
+     */
+    public final int size() {
+        return current.size.get();
+    }
+
+    /**
+     * Reserve an entry in the given generation. In the concurrent case, the count may slightly
+     * overestimate the actual number of entries if two threads add the same name at the same time.
+     */
+    private boolean reserve(Generation gen) {
+        AtomicInteger size = gen.size;
+        if (concurrent) {
+            while (true) {
+                int current = size.get();
+                if (current >= maxSize) {
+                    return false;
+                }
+                if (size.compareAndSet(current, current+1)) {
+                    return true;
+                }
+            }
+        } else {
+            int current = size.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            size.set(current+1);
+            return true;
+        }
+    }
+    
+    /**
+     * Start a new generation if the given generation is still the current one.
+     */
+    private void rotate(Generation gen) {
+        if (concurrent) {
+            synchronized (this) {
+                if (current == gen) {
+                    old = gen;
+                    current = new Generation(true);
+                }
+            }
+        } else {
+            old = gen;
+            current = new Generation(false);
+        }
+    }
+}
@@ -67,4 +67,13 @@ public interface OMFactoryEx extends OMFactory {
      * @param child
      */
     OMNode importNode(OMNode child);
+    
+    /**
+     * Get the name table shared by all builders and nodes created by this factory. The returned
+     * table is safe for concurrent use and has a bounded size; entries that are no longer used are
+     * eventually evicted.
+     * 
+     * @return the name table
+     */
+    NameTable getNameTable();
 }
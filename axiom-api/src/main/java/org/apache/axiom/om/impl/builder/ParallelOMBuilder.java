@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.builder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.blob.Blob;
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.om.OMXMLParserWrapper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Builds documents that are fully available in memory, using multiple threads to build the
+ * children of a given element. This is useful for large documents that contain many independent
+ * records, such as bulk import requests.
+ * <p>
+ * The builder first performs a fast structural scan of the document to locate the container
+ * element and the boundaries of its child elements. The content of the container element is then
+ * split into batches of approximately {@link #setBatchSize(int) a given size} at child element
+ * boundaries, and each batch is parsed by a separate task submitted to the {@link ExecutorService}.
+ * Each batch is parsed with the namespace context of the container element, so that child elements
+ * can use namespace prefixes declared by their ancestors. In the meantime, the calling thread builds
+ * the rest of the document. Finally, the nodes built by the tasks are added to the container
+ * element, in document order.
+ * <p>
+ * If the document can't be split (e.g. because it uses an encoding not supported by the structural
+ * scan, because it has a document type declaration or because it doesn't contain the container
+ * element), then it is built sequentially. In all cases, the returned document is complete and is
+ * no longer connected to a parser.
+ * <p>
+ * The {@link OMFactory} must support concurrent creation of nodes by multiple threads. This is the
+ * case for the factories of the object model implementations that are part of Axiom.
+ */
+public class ParallelOMBuilder {
+    private static final Log log = LogFactory.getLog(ParallelOMBuilder.class);
+
+    /**
+     * The default batch size, in bytes.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256*1024;
+
+    private final OMFactory omFactory;
+    private final ExecutorService executor;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Constructor.
+     *
+     * @param omFactory
+     *            the object model factory to use
+     * @param executor
+     *            the executor used to build the children of the container element
+     */
+    public ParallelOMBuilder(OMFactory omFactory, ExecutorService executor) {
+        this.omFactory = omFactory;
+        this.executor = executor;
+    }
+
+    /**
+     * Set the approximate number of bytes of content parsed by each task. Smaller batches allow
+     * to distribute the work more evenly, but increase the overhead.
+     *
+     * @param batchSize
+     *            the batch size in bytes
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Build a document stored in a {@link Blob}.
+     *
+     * @param blob
+     *            the blob containing the document
+     * @param containerName
+     *            the name of the element whose children are built in parallel, or
+     *            <code>null</code> to build the children of the document element in parallel
+     * @return the complete document
+     * @throws IOException
+     *             if an I/O error occurs while reading the blob
+     * @throws OMException
+     *             if the document can't be parsed
+     */
+    public OMDocument build(Blob blob, QName containerName) throws IOException, OMException {
+        long size = blob.getSize();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Blob is too large");
+        }
+        byte[] content = new byte[(int)size];
+        InputStream in = blob.getInputStream();
+        try {
+            int offset = 0;
+            while (offset < content.length) {
+                int c = in.read(content, offset, content.length-offset);
+                if (c == -1) {
+                    throw new IOException("Unexpected end of stream");
+                }
+                offset += c;
+            }
+        } finally {
+            in.close();
+        }
+        return build(content, containerName);
+    }
+
+    /**
+     * Build a document stored in a byte array.
+     *
+     * @param content
+     *            the document
+     * @param containerName
+     *            the name of the element whose children are built in parallel, or
+     *            <code>null</code> to build the children of the document element in parallel
+     * @return the complete document
+     * @throws OMException
+     *             if the document can't be parsed
+     */
+    public OMDocument build(byte[] content, QName containerName) throws OMException {
+        StructureScanner structure = StructureScanner.scan(content, containerName);
+        if (structure == null || structure.getBoundaryCount() == 0) {
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to split the document; building it sequentially");
+            }
+            return buildDocument(new ByteArrayInputStream(content));
+        }
+
+        // Submit the tasks first so that they are executed while we build the rest of the document
+        byte[] prolog;
+        byte[] epilog;
+        try {
+            prolog = ("<?xml version='1.0' encoding='" + structure.getEncoding() + "'?><wrapper").getBytes("US-ASCII");
+            epilog = "</wrapper>".getBytes("US-ASCII");
+        } catch (UnsupportedEncodingException ex) {
+            // US-ASCII is always supported
+            throw new Error(ex);
+        }
+        byte[] namespaceDeclarations = structure.getNamespaceDeclarations();
+        byte[] startTag = new byte[prolog.length + namespaceDeclarations.length + 1];
+        System.arraycopy(prolog, 0, startTag, 0, prolog.length);
+        System.arraycopy(namespaceDeclarations, 0, startTag, prolog.length, namespaceDeclarations.length);
+        startTag[startTag.length-1] = '>';
+        List<Future<OMElement>> batches = new ArrayList<Future<OMElement>>();
+        try {
+            int start = structure.getContentStart();
+            for (int i=0; i<structure.getBoundaryCount(); i++) {
+                int boundary = structure.getBoundary(i);
+                if (boundary - start >= batchSize) {
+                    batches.add(executor.submit(new Batch(content, start, boundary, startTag, epilog)));
+                    start = boundary;
+                }
+            }
+            batches.add(executor.submit(new Batch(content, start, structure.getContentEnd(), startTag, epilog)));
+
+            // Build the document without the content of the container element
+            OMDocument document = buildDocument(new SequenceInputStream(
+                    new ByteArrayInputStream(content, 0, structure.getContentStart()),
+                    new ByteArrayInputStream(content, structure.getContentEnd(), content.length-structure.getContentEnd())));
+            OMElement container = document.getOMDocumentElement();
+            int[] path = structure.getPath();
+            for (int i=1; i<path.length; i++) {
+                Iterator it = container.getChildElements();
+                for (int j=0; j<path[i]; j++) {
+                    it.next();
+                }
+                container = (OMElement)it.next();
+            }
+
+            for (Future<OMElement> batch : batches) {
+                OMElement wrapper = getResult(batch);
+                OMNode child;
+                while ((child = wrapper.getFirstOMChild()) != null) {
+                    container.addChild(child);
+                }
+            }
+            return document;
+        } finally {
+            // In case of error, don't waste resources on the remaining tasks
+            for (Future<OMElement> batch : batches) {
+                batch.cancel(true);
+            }
+        }
+    }
+
+    private static OMElement getResult(Future<OMElement> batch) {
+        try {
+            return batch.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OMException(ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            } else {
+                throw new OMException(cause);
+            }
+        }
+    }
+
+    private OMDocument buildDocument(InputStream in) {
+        OMXMLParserWrapper builder = OMXMLBuilderFactory.createOMBuilder(omFactory, in);
+        OMDocument document = builder.getDocument();
+        document.build();
+        builder.close();
+        return document;
+    }
+
+    private final class Batch implements Callable<OMElement> {
+        private final byte[] content;
+        private final int start;
+        private final int end;
+        private final byte[] startTag;
+        private final byte[] endTag;
+
+        Batch(byte[] content, int start, int end, byte[] startTag, byte[] endTag) {
+            this.content = content;
+            this.start = start;
+            this.end = end;
+            this.startTag = startTag;
+            this.endTag = endTag;
+        }
+
+        public OMElement call() throws Exception {
+            List<InputStream> streams = new ArrayList<InputStream>(3);
+            streams.add(new ByteArrayInputStream(startTag));
+            streams.add(new ByteArrayInputStream(content, start, end-start));
+            streams.add(new ByteArrayInputStream(endTag));
+            return buildDocument(new SequenceInputStream(Collections.enumeration(streams))).getOMDocumentElement();
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.axiom.om.OMException;
 import org.apache.axiom.om.OMFactory;
 import org.apache.axiom.om.OMNamespace;
 import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMSourcedElement;
 import org.apache.axiom.om.OMText;
 import org.apache.axiom.om.OMXMLParserWrapper;
 import org.apache.axiom.om.impl.OMAttributeEx;
@@ -102,6 +103,12 @@ public abstract class StAXBuilder implements OMXMLParserWrapper, CustomBuilderSu
     protected Map customBuilders = null;
     protected int maxDepthForCustomBuilders = -1;
     
+    /**
+     * The level at which subtrees are captured instead of being built, or -1 if deferred building
+     * is disabled. See {@link #setDeferredBuildingLevel(int)}.
+     */
+    protected int deferredBuildingLevel = -1;
+    
     /**
      * Reference to the {@link DataHandlerReader} extension of the parser, or <code>null</code> if
      * the parser doesn't support this extension.
@@ -127,6 +134,12 @@ public abstract class StAXBuilder implements OMXMLParserWrapper, CustomBuilderSu
      */
     private final Map/*<OMContainer,Throwable>*/ discardTracker = log.isDebugEnabled() ? new LinkedHashMap() : null;
     
+    /**
+     * The name table used to share local names and {@link OMNamespace} instances between the
+     * nodes created by this builder. Created on demand; see {@link #getNameTable()}.
+     */
+    private NameTable nameTable;
+    
     /**
      * For internal use only.
      */
@@ -248,7 +261,7 @@ public abstract class StAXBuilder implements OMXMLParserWrapper, CustomBuilderSu
             // todo if the attributes are supposed to namespace qualified all the time
             // todo then this should throw an exception here
 
-            OMAttribute attr = node.addAttribute(parser.getAttributeLocalName(i),
+            OMAttribute attr = node.addAttribute(getNameTable().intern(parser.getAttributeLocalName(i)),
                               parser.getAttributeValue(i), namespace);
             attr.setAttributeType(parser.getAttributeType(i));
             if (attr instanceof OMAttributeEx) {
@@ -676,6 +689,54 @@ public abstract class StAXBuilder implements OMXMLParserWrapper, CustomBuilderSu
         return old;
     }
     
+    /**
+     * Enable deferred building of subtrees. If this is enabled, then the builder doesn't create
+     * nodes for the elements encountered at the given level and their descendants. Instead it
+     * captures each of these subtrees into a buffer and adds an {@link OMSourcedElement} backed by
+     * that buffer to the tree. The sourced element is only expanded if the application accesses
+     * its content; otherwise it is serialized directly from the buffer. This reduces the number of
+     * objects created for large documents of which only small parts are accessed.
+     * <p>
+     * Note that if the content of a deferred element is accessed, the captured data is parsed a
+     * second time. This mode is therefore only useful if most of the deferred subtrees are not
+     * accessed. It requires an object model implementation that supports {@link OMSourcedElement}.
+     * 
+     * @param level
+     *            the level of the elements to defer (the level of the root element is 1), or -1
+     *            to disable deferred building
+     */
+    public void setDeferredBuildingLevel(int level) {
+        deferredBuildingLevel = level;
+    }
+    
+    /**
+     * Get the name table used by this builder. Unless a table has been set explicitly using
+     * {@link #setNameTable(NameTable)}, each builder has its own (unsynchronized) table. Names
+     * not found in that table are looked up in the table of the factory (see
+     * {@link OMFactoryEx#getNameTable()}), so that instances are also shared across documents.
+     * 
+     * @return the name table
+     */
+    public final NameTable getNameTable() {
+        if (nameTable == null) {
+            nameTable = new NameTable(omfactory.getNameTable());
+        }
+        return nameTable;
+    }
+    
+    /**
+     * Set the name table to be used by this builder. This allows to share a table between several
+     * builders; in that case the table must be created in concurrent mode if the builders are used
+     * by different threads. This method must be called before the builder creates the first
+     * element.
+     * 
+     * @param nameTable
+     *            the name table
+     */
+    public final void setNameTable(NameTable nameTable) {
+        this.nameTable = nameTable;
+    }
+    
     /**
      * Return CustomBuilder associated with the namespace/localPart
      * @param namespace
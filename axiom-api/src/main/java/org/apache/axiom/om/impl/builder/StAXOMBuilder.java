@@ -28,6 +28,7 @@ import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMException;
 import org.apache.axiom.om.OMFactory;
 import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMSourcedElement;
 import org.apache.axiom.om.OMXMLBuilderFactory;
 import org.apache.axiom.om.impl.OMContainerEx;
 import org.apache.axiom.om.impl.OMElementEx;
@@ -138,6 +139,9 @@ public class StAXOMBuilder extends StAXBuilder {
      */
     public StAXOMBuilder(String filePath) throws XMLStreamException, FileNotFoundException {
         this(StAXUtils.createXMLStreamReader(new FileInputStream(filePath)));
+        // The builder owns the parser; close it (and return it to the pool if instances are
+        // reused) as soon as the document is complete
+        autoClose = true;
     }
 
     /**
@@ -152,6 +156,7 @@ public class StAXOMBuilder extends StAXBuilder {
      */
     public StAXOMBuilder(InputStream inStream) throws XMLStreamException {
         this(StAXUtils.createXMLStreamReader(inStream));
+        autoClose = true;
     }
 
     /**
@@ -294,6 +299,9 @@ public class StAXOMBuilder extends StAXBuilder {
                 newElement = createWithCustomBuilder(customBuilder, omfactory);
             }
         }
+        if (newElement == null && elementLevel == deferredBuildingLevel) {
+            newElement = createDeferredOMElement(omfactory);
+        }
         if (newElement == null) {
             newElement = createOMElement();
         } else {
@@ -302,6 +310,19 @@ public class StAXOMBuilder extends StAXBuilder {
         return newElement;
     }
     
+    /**
+     * Capture the subtree rooted at the current element and add it as an {@link OMSourcedElement}
+     * to the current target. Used to implement deferred building.
+     * 
+     * @param factory
+     *            the factory to use to create the sourced element
+     * @return the sourced element
+     * @see #setDeferredBuildingLevel(int)
+     */
+    protected final OMNode createDeferredOMElement(OMFactory factory) {
+        return createWithCustomBuilder(SubtreeCapturingCustomBuilder.INSTANCE, factory);
+    }
+    
     protected OMNode createWithCustomBuilder(CustomBuilder customBuilder, OMFactory factory) {
         
         String namespace = parser.getNamespaceURI();
@@ -430,7 +451,7 @@ public class StAXOMBuilder extends StAXBuilder {
      */
     // This method is not meant to be overridden. Override constructNode to create model specific OMElement instances.
     protected final OMNode createOMElement() throws OMException {
-        OMElement node = constructNode(target, parser.getLocalName());
+        OMElement node = constructNode(target, getNameTable().intern(parser.getLocalName()));
         populateOMElement(node);
         return node;
     }
@@ -450,7 +471,7 @@ public class StAXOMBuilder extends StAXBuilder {
      * @return the newly created {@link OMElement}; must not be <code>null</code>
      */
     protected OMElement constructNode(OMContainer parent, String elementName) {
-        return omfactory.createOMElement(parser.getLocalName(), target, this);
+        return omfactory.createOMElement(elementName, parent, this);
     }
     
     /**
@@ -592,7 +613,9 @@ public class StAXOMBuilder extends StAXBuilder {
                 prefix = "";
             }
             
-            ((OMElementEx)node).addNamespaceDeclaration(namespaceURI, prefix);
+            // Use the name table so that elements declaring the same namespace share the same
+            // OMNamespace instance
+            ((OMElementEx)node).appendNamespaceDeclaration(getNameTable().getNamespace(namespaceURI, prefix));
         }
 
         // set the own namespace
@@ -0,0 +1,477 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.builder;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+
+/**
+ * Performs a fast structural scan of a buffered XML document to locate a given element and the
+ * boundaries of its child elements. The scanner only recognizes markup (tags, comments, processing
+ * instructions and CDATA sections); it doesn't check well-formedness, decode character data or
+ * expand entities. It is used by {@link ParallelOMBuilder} to split the content of an element into
+ * fragments that can be parsed independently.
+ * <p>
+ * Only ASCII compatible single byte encodings and UTF-8 are supported, because in these encodings
+ * markup characters can be identified by looking at individual bytes. Documents with a document
+ * type declaration are not supported either, because they may declare entities that are needed to
+ * parse the fragments.
+ */
+final class StructureScanner {
+    private static final byte[] CDATA_START = { '<', '!', '[', 'C', 'D', 'A', 'T', 'A', '[' };
+
+    private static final class NamespaceDeclaration {
+        final String prefix;
+        final String namespaceURI;
+        final int start;
+        final int end;
+
+        NamespaceDeclaration(String prefix, String namespaceURI, int start, int end) {
+            this.prefix = prefix;
+            this.namespaceURI = namespaceURI;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private final byte[] content;
+    private final QName containerName;
+    private String encoding = "UTF-8";
+    private int pos;
+    private final List<List<NamespaceDeclaration>> scopes = new ArrayList<List<NamespaceDeclaration>>();
+    private int[] path = new int[8];
+    private int[] childCounts = new int[8];
+    private int depth;
+    private boolean containerFound;
+    private int contentStart;
+    private int contentEnd = -1;
+    private int[] boundaries = new int[64];
+    private int boundaryCount;
+
+    private StructureScanner(byte[] content, QName containerName) {
+        this.content = content;
+        this.containerName = containerName;
+    }
+
+    /**
+     * Scan the given document.
+     *
+     * @param content
+     *            the document
+     * @param containerName
+     *            the name of the element to locate, or <code>null</code> to locate the document
+     *            element; the first element with the given name (in document order) is used
+     * @return the result of the scan, or <code>null</code> if the document is not supported by the
+     *         scanner, if it doesn't contain an element with the given name or if the element has no
+     *         content
+     */
+    static StructureScanner scan(byte[] content, QName containerName) {
+        StructureScanner scanner = new StructureScanner(content, containerName);
+        try {
+            return scanner.scan() ? scanner : null;
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            // The document is truncated; let the parser report the error
+            return null;
+        }
+    }
+
+    /**
+     * Get the encoding of the document.
+     *
+     * @return the name of the encoding
+     */
+    String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Get the location of the container element.
+     *
+     * @return the position of the container element and of each of its ancestors among the
+     *         child elements of their respective parent, starting with the document element
+     *         (whose position is always 0)
+     */
+    int[] getPath() {
+        int[] result = new int[depth];
+        System.arraycopy(path, 0, result, 0, depth);
+        return result;
+    }
+
+    /**
+     * Get the offset of the content of the container element, i.e. the offset of the first byte
+     * after its start tag.
+     */
+    int getContentStart() {
+        return contentStart;
+    }
+
+    /**
+     * Get the offset of the end tag of the container element.
+     */
+    int getContentEnd() {
+        return contentEnd;
+    }
+
+    /**
+     * Get the number of child elements of the container element.
+     */
+    int getBoundaryCount() {
+        return boundaryCount;
+    }
+
+    /**
+     * Get the offset of the start tag of a child element of the container element.
+     *
+     * @param index
+     *            the index of the child element
+     * @return the offset
+     */
+    int getBoundary(int index) {
+        return boundaries[index];
+    }
+
+    /**
+     * Get the namespace declarations in scope for the container element, as they appear in the
+     * document (<code>xmlns:p="..."</code>), separated by spaces. This can be used to build a
+     * start tag that sets up the same namespace context as the container element.
+     *
+     * @return the namespace declarations
+     */
+    byte[] getNamespaceDeclarations() {
+        Map<String,NamespaceDeclaration> decls = new LinkedHashMap<String,NamespaceDeclaration>();
+        for (List<NamespaceDeclaration> scope : scopes) {
+            for (NamespaceDeclaration decl : scope) {
+                decls.put(decl.prefix, decl);
+            }
+        }
+        int length = 0;
+        for (NamespaceDeclaration decl : decls.values()) {
+            length += decl.end - decl.start + 1;
+        }
+        byte[] result = new byte[length];
+        int i = 0;
+        for (NamespaceDeclaration decl : decls.values()) {
+            result[i++] = ' ';
+            int len = decl.end - decl.start;
+            System.arraycopy(content, decl.start, result, i, len);
+            i += len;
+        }
+        return result;
+    }
+
+    private boolean scan() {
+        if (content.length >= 3 && (content[0] & 0xFF) == 0xEF && (content[1] & 0xFF) == 0xBB && (content[2] & 0xFF) == 0xBF) {
+            pos = 3;
+        } else if (content.length >= 2 && (content[0] == 0 || content[1] == 0
+                || (content[0] & 0xFF) == 0xFE || (content[0] & 0xFF) == 0xFF)) {
+            // UTF-16 or UTF-32
+            return false;
+        }
+        if (startsWith("<?xml") && isWhitespace(content[pos+5])) {
+            int end = indexOf('?', '>', pos);
+            if (!parseXMLDeclaration(pos+5, end)) {
+                return false;
+            }
+            pos = end+2;
+        }
+        int length = content.length;
+        while (contentEnd == -1) {
+            while (pos < length && content[pos] != '<') {
+                pos++;
+            }
+            if (pos == length) {
+                return false;
+            }
+            byte next = content[pos+1];
+            if (next == '?') {
+                pos = indexOf('?', '>', pos+2) + 2;
+            } else if (next == '!') {
+                if (startsWith("<!--")) {
+                    pos = indexOf("-->", pos+4) + 3;
+                } else if (startsWith(CDATA_START)) {
+                    pos = indexOf("]]>", pos+9) + 3;
+                } else {
+                    // Document type declaration
+                    return false;
+                }
+            } else if (next == '/') {
+                if (!endElement()) {
+                    return false;
+                }
+            } else if (!startElement()) {
+                return false;
+            }
+        }
+        return contentEnd > contentStart;
+    }
+
+    private boolean parseXMLDeclaration(int start, int end) {
+        String decl;
+        try {
+            decl = new String(content, start, end-start, "US-ASCII");
+        } catch (UnsupportedEncodingException ex) {
+            // US-ASCII is always supported
+            throw new Error(ex);
+        }
+        int idx = decl.indexOf("encoding");
+        if (idx != -1) {
+            int quoteStart = idx+8;
+            while (quoteStart < decl.length() && decl.charAt(quoteStart) != '"' && decl.charAt(quoteStart) != '\'') {
+                quoteStart++;
+            }
+            int quoteEnd = quoteStart+1 < decl.length() ? decl.indexOf(decl.charAt(quoteStart), quoteStart+1) : -1;
+            if (quoteEnd == -1) {
+                return false;
+            }
+            encoding = decl.substring(quoteStart+1, quoteEnd);
+            return encoding.equalsIgnoreCase("UTF-8") || encoding.equalsIgnoreCase("US-ASCII")
+                    || encoding.equalsIgnoreCase("ISO-8859-1");
+        }
+        return true;
+    }
+
+    private boolean startElement() {
+        int tagStart = pos;
+        int nameStart = pos+1;
+        int nameEnd = nameStart;
+        while (!isNameDelimiter(content[nameEnd])) {
+            nameEnd++;
+        }
+        List<NamespaceDeclaration> scope = containerFound ? null : new ArrayList<NamespaceDeclaration>(2);
+        int i = nameEnd;
+        boolean empty;
+        while (true) {
+            while (isWhitespace(content[i])) {
+                i++;
+            }
+            byte b = content[i];
+            if (b == '>') {
+                empty = false;
+                i++;
+                break;
+            } else if (b == '/') {
+                empty = true;
+                i += 2;
+                break;
+            }
+            int attrStart = i;
+            while (!isNameDelimiter(content[i])) {
+                i++;
+            }
+            int attrNameEnd = i;
+            while (isWhitespace(content[i])) {
+                i++;
+            }
+            if (content[i] != '=') {
+                return false;
+            }
+            i++;
+            while (isWhitespace(content[i])) {
+                i++;
+            }
+            byte quote = content[i];
+            if (quote != '"' && quote != '\'') {
+                return false;
+            }
+            int valueStart = i+1;
+            i = valueStart;
+            while (content[i] != quote) {
+                i++;
+            }
+            int valueEnd = i;
+            i++;
+            if (scope != null) {
+                String attrName = decode(attrStart, attrNameEnd);
+                String prefix;
+                if (attrName.equals(XMLConstants.XMLNS_ATTRIBUTE)) {
+                    prefix = "";
+                } else if (attrName.startsWith("xmlns:")) {
+                    prefix = attrName.substring(6);
+                } else {
+                    prefix = null;
+                }
+                if (prefix != null) {
+                    scope.add(new NamespaceDeclaration(prefix, decode(valueStart, valueEnd), attrStart, i));
+                }
+            }
+        }
+        pos = i;
+        if (containerFound) {
+            if (depth == 0) {
+                if (boundaryCount == boundaries.length) {
+                    int[] newBoundaries = new int[boundaries.length*2];
+                    System.arraycopy(boundaries, 0, newBoundaries, 0, boundaryCount);
+                    boundaries = newBoundaries;
+                }
+                boundaries[boundaryCount++] = tagStart;
+            }
+            if (!empty) {
+                depth++;
+            }
+        } else {
+            if (depth == path.length) {
+                int[] newPath = new int[depth*2];
+                System.arraycopy(path, 0, newPath, 0, depth);
+                path = newPath;
+                int[] newChildCounts = new int[depth*2];
+                System.arraycopy(childCounts, 0, newChildCounts, 0, depth);
+                childCounts = newChildCounts;
+            }
+            path[depth] = childCounts[depth]++;
+            scopes.add(scope);
+            if (matches(decode(nameStart, nameEnd))) {
+                if (empty) {
+                    return false;
+                }
+                containerFound = true;
+                contentStart = pos;
+                // From now on, depth is relative to the container element
+                depth++;
+                int[] newPath = new int[depth];
+                System.arraycopy(path, 0, newPath, 0, depth);
+                path = newPath;
+                depth = 0;
+            } else if (empty) {
+                scopes.remove(scopes.size()-1);
+            } else {
+                depth++;
+                if (depth < childCounts.length) {
+                    childCounts[depth] = 0;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean endElement() {
+        int tagStart = pos;
+        pos = indexOf('>', pos+2) + 1;
+        if (containerFound) {
+            if (depth == 0) {
+                contentEnd = tagStart;
+                // Restore the length of the path
+                depth = path.length;
+            } else {
+                depth--;
+            }
+        } else {
+            if (depth == 0) {
+                return false;
+            }
+            depth--;
+            scopes.remove(scopes.size()-1);
+        }
+        return true;
+    }
+
+    private boolean matches(String name) {
+        if (containerName == null) {
+            return true;
+        }
+        int idx = name.indexOf(':');
+        String prefix = idx == -1 ? "" : name.substring(0, idx);
+        String localName = idx == -1 ? name : name.substring(idx+1);
+        if (!localName.equals(containerName.getLocalPart())) {
+            return false;
+        }
+        String namespaceURI = "";
+        outer: for (int i=scopes.size()-1; i>=0; i--) {
+            for (NamespaceDeclaration decl : scopes.get(i)) {
+                if (decl.prefix.equals(prefix)) {
+                    namespaceURI = decl.namespaceURI;
+                    break outer;
+                }
+            }
+        }
+        return namespaceURI.equals(containerName.getNamespaceURI());
+    }
+
+    private String decode(int start, int end) {
+        try {
+            return new String(content, start, end-start, encoding);
+        } catch (UnsupportedEncodingException ex) {
+            // We only accept encodings that are always supported
+            throw new Error(ex);
+        }
+    }
+
+    private boolean startsWith(String s) {
+        if (pos + s.length() > content.length) {
+            return false;
+        }
+        for (int i=0; i<s.length(); i++) {
+            if (content[pos+i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(byte[] b) {
+        if (pos + b.length > content.length) {
+            return false;
+        }
+        for (int i=0; i<b.length; i++) {
+            if (content[pos+i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(char c, int from) {
+        while (content[from] != c) {
+            from++;
+        }
+        return from;
+    }
+
+    private int indexOf(char c1, char c2, int from) {
+        while (content[from] != c1 || content[from+1] != c2) {
+            from++;
+        }
+        return from;
+    }
+
+    private int indexOf(String s, int from) {
+        outer: while (true) {
+            for (int i=0; i<s.length(); i++) {
+                if (content[from+i] != s.charAt(i)) {
+                    from++;
+                    continue outer;
+                }
+            }
+            return from;
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean isNameDelimiter(byte b) {
+        return isWhitespace(b) || b == '>' || b == '/' || b == '=';
+    }
+}
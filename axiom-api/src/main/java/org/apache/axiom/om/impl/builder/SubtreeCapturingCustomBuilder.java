@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.om.impl.builder;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.axiom.blob.Blobs;
+import org.apache.axiom.blob.MemoryBlob;
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.ds.BlobOMDataSource;
+import org.apache.axiom.om.impl.serialize.StreamingOMSerializer;
+import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.util.stax.wrapper.XMLStreamReaderWrapper;
+
+/**
+ * {@link CustomBuilder} used to implement deferred building (see
+ * {@link StAXBuilder#setDeferredBuildingLevel(int)}). It streams the events of the subtree into a
+ * {@link MemoryBlob} and creates an {@link org.apache.axiom.om.OMSourcedElement} backed by a
+ * {@link BlobOMDataSource}. All namespace declarations in scope at the parent are added to the
+ * start tag of the captured element, so that the captured data is self-contained. Note that this
+ * includes namespaces that are only used in content (e.g. in <tt>xsi:type</tt> attributes or
+ * QName valued text), which the serializer can't detect.
+ */
+final class SubtreeCapturingCustomBuilder implements CustomBuilder {
+    static final SubtreeCapturingCustomBuilder INSTANCE = new SubtreeCapturingCustomBuilder();
+    
+    private static final String ENCODING = "utf-8";
+    
+    /**
+     * {@link XMLStreamReader} wrapper that adds the namespace declarations in scope at the parent
+     * to the start tag of the element at which the reader is initially positioned.
+     */
+    private static final class InScopeNamespacesReader extends XMLStreamReaderWrapper {
+        /**
+         * The prefixes and namespace URIs of the inherited namespace declarations, or
+         * <code>null</code> once the reader has moved past the start tag.
+         */
+        private String[] namespaces;
+        private final int originalCount;
+        
+        InScopeNamespacesReader(XMLStreamReader parent, OMContainer container) {
+            super(parent);
+            originalCount = parent.getNamespaceCount();
+            if (container instanceof OMElement) {
+                Set<String> declaredPrefixes = new HashSet<String>();
+                for (int i=0; i<originalCount; i++) {
+                    String prefix = parent.getNamespacePrefix(i);
+                    declaredPrefixes.add(prefix == null ? "" : prefix);
+                }
+                List<String> inherited = new ArrayList<String>();
+                for (Iterator it = ((OMElement)container).getNamespacesInScope(); it.hasNext(); ) {
+                    OMNamespace ns = (OMNamespace)it.next();
+                    if (!declaredPrefixes.contains(ns.getPrefix())) {
+                        inherited.add(ns.getPrefix());
+                        inherited.add(ns.getNamespaceURI());
+                    }
+                }
+                if (!inherited.isEmpty()) {
+                    namespaces = inherited.toArray(new String[inherited.size()]);
+                }
+            }
+        }
+
+        public int next() throws XMLStreamException {
+            namespaces = null;
+            return super.next();
+        }
+
+        public int getNamespaceCount() {
+            return namespaces == null ? super.getNamespaceCount()
+                    : originalCount + namespaces.length/2;
+        }
+
+        public String getNamespacePrefix(int index) {
+            return namespaces == null || index < originalCount ? super.getNamespacePrefix(index)
+                    : namespaces[(index-originalCount)*2];
+        }
+
+        public String getNamespaceURI(int index) {
+            return namespaces == null || index < originalCount ? super.getNamespaceURI(index)
+                    : namespaces[(index-originalCount)*2+1];
+        }
+    }
+    
+    private SubtreeCapturingCustomBuilder() {}
+    
+    public OMElement create(String namespace, String localPart, OMContainer parent,
+            XMLStreamReader reader, OMFactory factory) throws OMException {
+        try {
+            String prefix = reader.getPrefix();
+            if (prefix == null) {
+                prefix = "";
+            }
+            MemoryBlob blob = Blobs.createMemoryBlob();
+            OutputStream out = blob.getOutputStream();
+            XMLStreamWriter writer = StAXUtils.createXMLStreamWriter(out, ENCODING);
+            new StreamingOMSerializer().serialize(
+                    new InScopeNamespacesReader(reader, parent), writer, false);
+            writer.close();
+            out.close();
+            OMElement element = factory.createOMElement(new BlobOMDataSource(blob, ENCODING),
+                    localPart, factory.createOMNamespace(namespace, prefix));
+            parent.addChild(element);
+            return element;
+        } catch (XMLStreamException ex) {
+            throw new OMException(ex);
+        } catch (OMException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new OMException(ex);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.om.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache for StAX factories keyed by configuration and class loader. Lookups are lock-free. The
+ * cache only holds weak references to the configuration and class loader, and entries are removed
+ * once one of them has been garbage collected. Configurations are compared using
+ * {@link Object#equals(Object)}, while class loaders are compared by identity.
+ * <p>
+ * This class is used by {@link StAXUtils} and is not meant to be used elsewhere.
+ * 
+ * @param <T>
+ *            the factory type
+ */
+final class FactoryCache<T> {
+    /**
+     * Base class for keys. Lookups use {@link LookupKey} instances that hold strong references and
+     * that are never stored in the map, while entries are stored with {@link WeakKey} instances.
+     */
+    private static abstract class Key {
+        final int hash;
+        
+        Key(Object configuration, ClassLoader classLoader) {
+            hash = configuration.hashCode() * 31 + System.identityHashCode(classLoader);
+        }
+        
+        abstract Object getConfiguration();
+        abstract ClassLoader getClassLoader();
+        
+        public final int hashCode() {
+            return hash;
+        }
+
+        public final boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)obj;
+            if (hash != other.hash) {
+                return false;
+            }
+            Object configuration = getConfiguration();
+            // A cleared weak key is only equal to itself
+            return configuration != null
+                    && configuration.equals(other.getConfiguration())
+                    && getClassLoader() == other.getClassLoader();
+        }
+    }
+    
+    private static final class LookupKey extends Key {
+        private final Object configuration;
+        private final ClassLoader classLoader;
+        
+        LookupKey(Object configuration, ClassLoader classLoader) {
+            super(configuration, classLoader);
+            this.configuration = configuration;
+            this.classLoader = classLoader;
+        }
+
+        Object getConfiguration() {
+            return configuration;
+        }
+
+        ClassLoader getClassLoader() {
+            return classLoader;
+        }
+    }
+    
+    private static final class WeakKey extends Key {
+        private final KeyReference configurationRef;
+        private final KeyReference classLoaderRef;
+        
+        WeakKey(Object configuration, ClassLoader classLoader, ReferenceQueue<Object> queue) {
+            super(configuration, classLoader);
+            configurationRef = new KeyReference(configuration, queue, this);
+            classLoaderRef = classLoader == null ? null : new KeyReference(classLoader, queue, this);
+        }
+
+        Object getConfiguration() {
+            return configurationRef.get();
+        }
+
+        ClassLoader getClassLoader() {
+            return classLoaderRef == null ? null : (ClassLoader)classLoaderRef.get();
+        }
+    }
+    
+    private static final class KeyReference extends WeakReference<Object> {
+        final WeakKey key;
+        
+        KeyReference(Object referent, ReferenceQueue<Object> queue, WeakKey key) {
+            super(referent, queue);
+            this.key = key;
+        }
+    }
+    
+    private final ConcurrentHashMap<Key,T> map = new ConcurrentHashMap<Key,T>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+    
+    /**
+     * Look up a factory.
+     * 
+     * @param configuration
+     *            the configuration; must not be <code>null</code>
+     * @param classLoader
+     *            the class loader, or <code>null</code> if the factory doesn't depend on the class
+     *            loader
+     * @return the cached factory, or <code>null</code> if there is no factory for the given
+     *         configuration and class loader
+     */
+    T get(Object configuration, ClassLoader classLoader) {
+        return map.get(new LookupKey(configuration, classLoader));
+    }
+    
+    /**
+     * Add a factory to the cache unless another thread has already done so.
+     * 
+     * @param configuration
+     *            the configuration; must not be <code>null</code>
+     * @param classLoader
+     *            the class loader, or <code>null</code> if the factory doesn't depend on the class
+     *            loader
+     * @param factory
+     *            the factory to add
+     * @return the factory that is now in the cache, i.e. either <code>factory</code> or the
+     *         factory added concurrently by another thread
+     */
+    T putIfAbsent(Object configuration, ClassLoader classLoader, T factory) {
+        expungeStaleEntries();
+        T existing = map.putIfAbsent(new WeakKey(configuration, classLoader, queue), factory);
+        return existing == null ? factory : existing;
+    }
+    
+    /**
+     * Get the number of entries in the cache.
+     * 
+     * @return the number of entries
+     */
+    int size() {
+        return map.size();
+    }
+    
+    private void expungeStaleEntries() {
+        Reference<?> ref;
+        while ((ref = queue.poll()) != null) {
+            map.remove(((KeyReference)ref).key);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.om.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of StAX factories that are not thread safe, typically because they have been configured to
+ * recycle reader or writer instances. A factory is borrowed for the creation of a reader or writer
+ * and is only released when that reader or writer is closed. This ensures that a recycled instance
+ * is never used by more than one thread.
+ * <p>
+ * The number of factories created by the pool is limited. If all factories are in use,
+ * {@link #borrow()} returns <code>null</code> and the caller is expected to fall back to a
+ * shared thread safe factory. If a reader or writer is garbage collected without having been
+ * closed, the factory it was created from is discarded and no longer counts towards that limit.
+ * 
+ * @param <T>
+ *            the factory type
+ */
+abstract class FactoryPool<T> {
+    /**
+     * Tracks a borrowed factory. The lease refers weakly to the reader or writer created from the
+     * factory so that the pool can detect instances that are never closed.
+     */
+    static final class Lease<T> extends WeakReference<Object> {
+        final T factory;
+        
+        Lease(Object owner, T factory, ReferenceQueue<Object> queue) {
+            super(owner, queue);
+            this.factory = factory;
+        }
+    }
+    
+    private static final int MAX_SIZE = Runtime.getRuntime().availableProcessors() * 4;
+    
+    private final ConcurrentLinkedQueue<T> pool = new ConcurrentLinkedQueue<T>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final Map<Lease<T>,Boolean> leases = new ConcurrentHashMap<Lease<T>,Boolean>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+    private volatile boolean unsupported;
+    
+    /**
+     * Create a new factory.
+     * 
+     * @return the factory, or <code>null</code> if the StAX implementation doesn't support
+     *         instance reuse; in that case the pool will no longer attempt to create factories
+     */
+    abstract T create();
+    
+    /**
+     * Borrow a factory from the pool.
+     * 
+     * @return a factory that must be passed to {@link #lease(Object, Object)} or
+     *         {@link #release(Object)}, or <code>null</code> if no factory is available
+     */
+    final T borrow() {
+        expungeStaleLeases();
+        T factory = pool.poll();
+        if (factory != null || unsupported) {
+            return factory;
+        }
+        if (created.incrementAndGet() > MAX_SIZE) {
+            created.decrementAndGet();
+            return null;
+        }
+        factory = create();
+        if (factory == null) {
+            created.decrementAndGet();
+            unsupported = true;
+        }
+        return factory;
+    }
+    
+    /**
+     * Associate a borrowed factory with the reader or writer created from it.
+     * 
+     * @param owner
+     *            the reader or writer
+     * @param factory
+     *            the factory previously obtained from {@link #borrow()}
+     * @return the lease that must be passed to {@link #release(Lease)} when the owner is closed
+     */
+    final Lease<T> lease(Object owner, T factory) {
+        Lease<T> lease = new Lease<T>(owner, factory, queue);
+        leases.put(lease, Boolean.TRUE);
+        return lease;
+    }
+    
+    /**
+     * Return a factory to the pool.
+     * 
+     * @param factory
+     *            the factory previously obtained from {@link #borrow()}
+     */
+    final void release(T factory) {
+        pool.offer(factory);
+    }
+    
+    /**
+     * Return a leased factory to the pool. Calling this method more than once for the same lease
+     * has no effect.
+     * 
+     * @param lease
+     *            the lease previously obtained from {@link #lease(Object, Object)}
+     */
+    final void release(Lease<T> lease) {
+        if (leases.remove(lease) != null) {
+            lease.clear();
+            pool.offer(lease.factory);
+        }
+    }
+    
+    private void expungeStaleLeases() {
+        Reference<?> ref;
+        while ((ref = queue.poll()) != null) {
+            // The reader or writer has been garbage collected without being closed. Discard the
+            // factory (it may still hold a reference to the instance) so that a new one can be
+            // created in its place.
+            if (leases.remove(ref) != null) {
+                created.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.om.util;
+
+import java.io.InputStream;
+import java.io.Reader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+
+import org.apache.axiom.util.stax.wrapper.XMLInputFactoryWrapper;
+import org.apache.axiom.util.stax.wrapper.XMLStreamReaderWrapper;
+
+/**
+ * {@link XMLInputFactory} that creates stream readers using factories borrowed from a
+ * {@link FactoryPool}. The borrowed factory is returned to the pool when the reader is closed, so
+ * that the reader instance can be recycled. If no pooled factory is available, the request is
+ * delegated to the parent factory, which must be thread safe. All other methods are delegated to
+ * the parent factory as well.
+ */
+final class PooledXMLInputFactory extends XMLInputFactoryWrapper {
+    private static final class PooledXMLStreamReader extends XMLStreamReaderWrapper {
+        private final FactoryPool<XMLInputFactory> pool;
+        private FactoryPool.Lease<XMLInputFactory> lease;
+        
+        PooledXMLStreamReader(XMLStreamReader parent, FactoryPool<XMLInputFactory> pool,
+                XMLInputFactory factory) {
+            super(parent);
+            this.pool = pool;
+            lease = pool.lease(this, factory);
+        }
+
+        public void close() throws XMLStreamException {
+            if (lease != null) {
+                try {
+                    super.close();
+                } finally {
+                    // Only return the factory once; otherwise it may end up being used
+                    // concurrently by two threads.
+                    pool.release(lease);
+                    lease = null;
+                }
+            }
+        }
+    }
+    
+    private final FactoryPool<XMLInputFactory> pool;
+    
+    PooledXMLInputFactory(XMLInputFactory parent, FactoryPool<XMLInputFactory> pool) {
+        super(parent);
+        this.pool = pool;
+    }
+    
+    private XMLStreamReader wrap(XMLStreamReader reader, XMLInputFactory factory) {
+        return new PooledXMLStreamReader(reader, pool, factory);
+    }
+    
+    public XMLStreamReader createXMLStreamReader(InputStream stream, String encoding)
+            throws XMLStreamException {
+        XMLInputFactory factory = pool.borrow();
+        if (factory == null) {
+            return super.createXMLStreamReader(stream, encoding);
+        }
+        boolean success = false;
+        try {
+            XMLStreamReader reader = wrap(factory.createXMLStreamReader(stream, encoding), factory);
+            success = true;
+            return reader;
+        } finally {
+            if (!success) {
+                pool.release(factory);
+            }
+        }
+    }
+
+    public XMLStreamReader createXMLStreamReader(InputStream stream) throws XMLStreamException {
+        XMLInputFactory factory = pool.borrow();
+        if (factory == null) {
+            return super.createXMLStreamReader(stream);
+        }
+        boolean success = false;
+        try {
+            XMLStreamReader reader = wrap(factory.createXMLStreamReader(stream), factory);
+            success = true;
+            return reader;
+        } finally {
+            if (!success) {
+                pool.release(factory);
+            }
+        }
+    }
+
+    public XMLStreamReader createXMLStreamReader(Reader reader) throws XMLStreamException {
+        XMLInputFactory factory = pool.borrow();
+        if (factory == null) {
+            return super.createXMLStreamReader(reader);
+        }
+        boolean success = false;
+        try {
+            XMLStreamReader result = wrap(factory.createXMLStreamReader(reader), factory);
+            success = true;
+            return result;
+        } finally {
+            if (!success) {
+                pool.release(factory);
+            }
+        }
+    }
+
+    public XMLStreamReader createXMLStreamReader(Source source) throws XMLStreamException {
+        XMLInputFactory factory = pool.borrow();
+        if (factory == null) {
+            return super.createXMLStreamReader(source);
+        }
+        boolean success = false;
+        try {
+            XMLStreamReader reader = wrap(factory.createXMLStreamReader(source), factory);
+            success = true;
+            return reader;
+        } finally {
+            if (!success) {
+                pool.release(factory);
+            }
+        }
+    }
+
+    public XMLStreamReader createXMLStreamReader(String systemId, InputStream stream)
+            throws XMLStreamException {
+        XMLInputFactory factory = pool.borrow();
+        if (factory == null) {
+            return super.createXMLStreamReader(systemId, stream);
+        }
+        boolean success = false;
+        try {
+            XMLStreamReader reader = wrap(factory.createXMLStreamReader(systemId, stream), factory);
+            success = true;
+            return reader;
+        } finally {
+            if (!success) {
+                pool.release(factory);
+            }
+        }
+    }
+
+    public XMLStreamReader createXMLStreamReader(String systemId, Reader reader)
+            throws XMLStreamException {
+        XMLInputFactory factory = pool.borrow();
+        if (factory == null) {
+            return super.createXMLStreamReader(systemId, reader);
+        }
+        boolean success = false;
+        try {
+            XMLStreamReader result = wrap(factory.createXMLStreamReader(systemId, reader), factory);
+            success = true;
+            return result;
+        } finally {
+            if (!success) {
+                pool.release(factory);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.om.util;
+
+import java.io.OutputStream;
+import java.io.Writer;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Result;
+
+import org.apache.axiom.util.stax.wrapper.XMLOutputFactoryWrapper;
+import org.apache.axiom.util.stax.wrapper.XMLStreamWriterWrapper;
+
+/**
+ * {@link XMLOutputFactory} that creates stream writers using factories borrowed from a
+ * {@link FactoryPool}. See {@link PooledXMLInputFactory} for more information.
+ */
+final class PooledXMLOutputFactory extends XMLOutputFactoryWrapper {
+    private static final class PooledXMLStreamWriter extends XMLStreamWriterWrapper {
+        private final FactoryPool<XMLOutputFactory> pool;
+        private FactoryPool.Lease<XMLOutputFactory> lease;
+        
+        PooledXMLStreamWriter(XMLStreamWriter parent, FactoryPool<XMLOutputFactory> pool,
+                XMLOutputFactory factory) {
+            super(parent);
+            this.pool = pool;
+            lease = pool.lease(this, factory);
+        }
+
+        public void close() throws XMLStreamException {
+            if (lease != null) {
+                try {
+                    super.close();
+                } finally {
+                    pool.release(lease);
+                    lease = null;
+                }
+            }
+        }
+    }
+    
+    private final FactoryPool<XMLOutputFactory> pool;
+    
+    PooledXMLOutputFactory(XMLOutputFactory parent, FactoryPool<XMLOutputFactory> pool) {
+        super(parent);
+        this.pool = pool;
+    }
+    
+    private XMLStreamWriter wrap(XMLStreamWriter writer, XMLOutputFactory factory) {
+        return new PooledXMLStreamWriter(writer, pool, factory);
+    }
+
+    public XMLStreamWriter createXMLStreamWriter(OutputStream stream, String encoding)
+            throws XMLStreamException {
+        XMLOutputFactory factory = pool.borrow();
+        if (factory == null) {
+            return super.createXMLStreamWriter(stream, encoding);
+        }
+        boolean success = false;
+        try {
+            XMLStreamWriter writer = wrap(factory.createXMLStreamWriter(stream, encoding), factory);
+            success = true;
+            return writer;
+        } finally {
+            if (!success) {
+                pool.release(factory);
+            }
+        }
+    }
+
+    public XMLStreamWriter createXMLStreamWriter(OutputStream stream) throws XMLStreamException {
+        XMLOutputFactory factory = pool.borrow();
+        if (factory == null) {
+            return super.createXMLStreamWriter(stream);
+        }
+        boolean success = false;
+        try {
+            XMLStreamWriter writer = wrap(factory.createXMLStreamWriter(stream), factory);
+            success = true;
+            return writer;
+        } finally {
+            if (!success) {
+                pool.release(factory);
+            }
+        }
+    }
+
+    public XMLStreamWriter createXMLStreamWriter(Result result) throws XMLStreamException {
+        XMLOutputFactory factory = pool.borrow();
+        if (factory == null) {
+            return super.createXMLStreamWriter(result);
+        }
+        boolean success = false;
+        try {
+            XMLStreamWriter writer = wrap(factory.createXMLStreamWriter(result), factory);
+            success = true;
+            return writer;
+        } finally {
+            if (!success) {
+                pool.release(factory);
+            }
+        }
+    }
+
+    public XMLStreamWriter createXMLStreamWriter(Writer stream) throws XMLStreamException {
+        XMLOutputFactory factory = pool.borrow();
+        if (factory == null) {
+            return super.createXMLStreamWriter(stream);
+        }
+        boolean success = false;
+        try {
+            XMLStreamWriter writer = wrap(factory.createXMLStreamWriter(stream), factory);
+            success = true;
+            return writer;
+        } finally {
+            if (!success) {
+                pool.release(factory);
+            }
+        }
+    }
+}
@@ -41,12 +41,10 @@ import java.io.Reader;
 import java.io.Writer;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
-import java.util.WeakHashMap;
 
 /**
  * Utility class containing StAX related methods.
@@ -98,19 +96,32 @@ public class StAXUtils {
     // the classloader that loaded StAXUtils. 
     private static boolean isFactoryPerClassLoader = true;
     
+    // If isReuseInstances is true, then the factories returned by getXMLInputFactory
+    // and getXMLOutputFactory create readers and writers using pooled factories that
+    // recycle closed instances (provided that the StAX dialect supports this).
+    private static boolean isReuseInstances = false;
+    
     // These static singletons are used when the XML*Factory is created with
-    // the StAXUtils classloader.
-    private static final Map/*<StAXParserConfiguration,XMLInputFactory>*/ inputFactoryMap
-            = Collections.synchronizedMap(new WeakHashMap());
-    private static final Map/*<StAXWriterConfiguration,XMLOutputFactory>*/ outputFactoryMap
-            = Collections.synchronizedMap(new WeakHashMap());
+    // the StAXUtils classloader. They are keyed by configuration only.
+    private static final FactoryCache<XMLInputFactory> inputFactoryMap
+            = new FactoryCache<XMLInputFactory>();
+    private static final FactoryCache<XMLOutputFactory> outputFactoryMap
+            = new FactoryCache<XMLOutputFactory>();
+    
+    // These caches are used for the isFactoryPerClassLoader==true case
+    // and are keyed by configuration and classloader. Lookups are lock-free
+    // and the keys are weak.
+    private static final FactoryCache<XMLInputFactory> inputFactoryPerCLMap
+            = new FactoryCache<XMLInputFactory>();
+    private static final FactoryCache<XMLOutputFactory> outputFactoryPerCLMap
+            = new FactoryCache<XMLOutputFactory>();
     
-    // These maps are used for the isFactoryPerClassLoader==true case
-    // The maps are synchronized and weak.
-    private static final Map/*<StAXParserConfiguration,Map<ClassLoader,XMLInputFactory>>*/ inputFactoryPerCLMap
-            = Collections.synchronizedMap(new WeakHashMap());
-    private static final Map/*<StAXWriterConfiguration,Map<ClassLoader,XMLInputFactory>>*/ outputFactoryPerCLMap
-            = Collections.synchronizedMap(new WeakHashMap());
+    // These caches are used if isReuseInstances==true and contain the pooling
+    // factories. They are keyed by the corresponding shared (thread safe) factory.
+    private static final FactoryCache<XMLInputFactory> pooledInputFactoryMap
+            = new FactoryCache<XMLInputFactory>();
+    private static final FactoryCache<XMLOutputFactory> pooledOutputFactoryMap
+            = new FactoryCache<XMLOutputFactory>();
     
     /**
      * Get a cached {@link XMLInputFactory} instance using the default
@@ -165,11 +176,17 @@ public class StAXUtils {
     public static XMLInputFactory getXMLInputFactory(StAXParserConfiguration configuration,
             boolean factoryPerClassLoaderPolicy) {
         
+        XMLInputFactory factory;
         if (factoryPerClassLoaderPolicy) {
-            return getXMLInputFactory_perClassLoader(configuration);
+            factory = getXMLInputFactory_perClassLoader(configuration);
         } else {
-            return getXMLInputFactory_singleton(configuration);
+            factory = getXMLInputFactory_singleton(configuration);
+        }
+        if (isReuseInstances) {
+            factory = getPooledXMLInputFactory(factory, configuration,
+                    getFactoryClassLoader(factoryPerClassLoaderPolicy));
         }
+        return factory;
     }
 
     /**
@@ -292,11 +309,17 @@ public class StAXUtils {
     public static XMLOutputFactory getXMLOutputFactory(StAXWriterConfiguration configuration,
             boolean factoryPerClassLoaderPolicy) {
         
+        XMLOutputFactory factory;
         if (factoryPerClassLoaderPolicy) {
-            return getXMLOutputFactory_perClassLoader(configuration);
+            factory = getXMLOutputFactory_perClassLoader(configuration);
         } else {
-            return getXMLOutputFactory_singleton(configuration);
+            factory = getXMLOutputFactory_singleton(configuration);
+        }
+        if (isReuseInstances) {
+            factory = getPooledXMLOutputFactory(factory, configuration,
+                    getFactoryClassLoader(factoryPerClassLoaderPolicy));
         }
+        return factory;
     }
 
     /**
@@ -308,6 +331,25 @@ public class StAXUtils {
         isFactoryPerClassLoader = value;
     }
 
+    /**
+     * Specify whether {@link XMLStreamReader} and {@link XMLStreamWriter} instances should be
+     * recycled. If this is enabled, then readers and writers are created using a pool of
+     * factories configured (using {@link StAXDialect#enableInstanceReuse(XMLInputFactory)} and
+     * {@link StAXDialect#enableInstanceReuse(XMLOutputFactory)}) to reuse closed instances. A
+     * factory is returned to the pool when the reader or writer created from it is closed, e.g.
+     * when the builder that uses the reader is closed. If the StAX implementation doesn't support
+     * instance reuse, this setting has no effect.
+     * <p>
+     * Note that when this is enabled, application code must not use a reader or writer after it
+     * has been closed (which in any case is not allowed by the StAX specifications).
+     * 
+     * @param value
+     *            <code>true</code> to enable instance reuse; the default is <code>false</code>
+     */
+    public static void setReuseInstances(boolean value) {
+        isReuseInstances = value;
+    }
+
     /**
      * @deprecated
      * Returns an XMLOutputFactory instance for reuse.
@@ -422,7 +464,7 @@ public class StAXUtils {
     }
     
     private static XMLInputFactory newXMLInputFactory(final ClassLoader classLoader,
-            final StAXParserConfiguration configuration) {
+            final StAXParserConfiguration configuration, final boolean reuseInstances) {
         
         return (XMLInputFactory)AccessController.doPrivileged(new PrivilegedAction() {
             public Object run() {
@@ -451,6 +493,12 @@ public class StAXUtils {
                     if (configuration != null) {
                         factory = configuration.configure(factory, dialect);
                     }
+                    if (reuseInstances) {
+                        // The factory is only used by one thread at a time and need not be
+                        // thread safe
+                        factory = dialect.enableInstanceReuse(factory);
+                        return factory == null ? null : dialect.normalize(factory);
+                    }
                     return new ImmutableXMLInputFactory(dialect.normalize(
                             dialect.makeThreadSafe(factory)));
                 } finally {
@@ -476,14 +524,7 @@ public class StAXUtils {
             if (configuration == null) {
                 configuration = StAXParserConfiguration.DEFAULT;
             }
-            Map map = (Map)inputFactoryPerCLMap.get(configuration);
-            if (map == null) {
-                map = Collections.synchronizedMap(new WeakHashMap());
-                inputFactoryPerCLMap.put(configuration, map);
-                factory = null;
-            } else {
-                factory = (XMLInputFactory)map.get(cl);
-            }
+            factory = inputFactoryPerCLMap.get(configuration, cl);
             
             // If not found in the cache map, crate a new factory
             if (factory == null) {
@@ -495,7 +536,7 @@ public class StAXUtils {
                               + XMLInputFactory.class.getClassLoader());
                 }
                 try {
-                    factory = newXMLInputFactory(null, configuration);
+                    factory = newXMLInputFactory(null, configuration, false);
                 } catch (ClassCastException cce) {
                     if (log.isDebugEnabled()) {
                         log.debug("Failed creation of XMLInputFactory implementation with " +
@@ -505,20 +546,19 @@ public class StAXUtils {
                                   XMLInputFactory.class.getClassLoader());
                     }
                     factory = newXMLInputFactory(XMLInputFactory.class.getClassLoader(),
-                            configuration);
+                            configuration, false);
                 }
                     
                 if (factory != null) {
                     // Cache the new factory
-                    map.put(cl, factory);
+                    factory = inputFactoryPerCLMap.putIfAbsent(configuration, cl, factory);
                     
                     if (log.isDebugEnabled()) {
                         log.debug("Created XMLInputFactory = " + factory.getClass() + 
                                   " with classloader=" + cl);
                         log.debug("Configuration = " + configuration);
-                        log.debug("Size of XMLInputFactory map for this configuration = " + map.size());
-                        log.debug("Configurations for which factories have been cached = " +
-                                inputFactoryPerCLMap.keySet());
+                        log.debug("Number of cached XMLInputFactory instances = " +
+                                inputFactoryPerCLMap.size());
                     }
                 } else {
                     factory = getXMLInputFactory_singleton(configuration);
@@ -536,12 +576,12 @@ public class StAXUtils {
         if (configuration == null) {
             configuration = StAXParserConfiguration.DEFAULT;
         }
-        XMLInputFactory f = (XMLInputFactory)inputFactoryMap.get(configuration);
+        XMLInputFactory f = inputFactoryMap.get(configuration, null);
         if (f == null) {
-            f = newXMLInputFactory(StAXUtils.class.getClassLoader(), configuration);
-            inputFactoryMap.put(configuration, f);
-            if (log.isDebugEnabled()) {
-                if (f != null) {
+            f = newXMLInputFactory(StAXUtils.class.getClassLoader(), configuration, false);
+            if (f != null) {
+                f = inputFactoryMap.putIfAbsent(configuration, null, f);
+                if (log.isDebugEnabled()) {
                     log.debug("Created singleton XMLInputFactory " + f.getClass() + " with configuration " + configuration);
                 }
             }
@@ -551,7 +591,7 @@ public class StAXUtils {
     }
     
     private static XMLOutputFactory newXMLOutputFactory(final ClassLoader classLoader,
-            final StAXWriterConfiguration configuration) {
+            final StAXWriterConfiguration configuration, final boolean reuseInstances) {
         return (XMLOutputFactory)AccessController.doPrivileged(new PrivilegedAction() {
             public Object run() {
                 ClassLoader savedClassLoader;
@@ -576,6 +616,10 @@ public class StAXUtils {
                     if (configuration != null) {
                         factory = configuration.configure(factory, dialect);
                     }
+                    if (reuseInstances) {
+                        factory = dialect.enableInstanceReuse(factory);
+                        return factory == null ? null : dialect.normalize(factory);
+                    }
                     return new ImmutableXMLOutputFactory(dialect.normalize(
                             dialect.makeThreadSafe(factory)));
                 } finally {
@@ -599,14 +643,7 @@ public class StAXUtils {
             if (configuration == null) {
                 configuration = StAXWriterConfiguration.DEFAULT;
             }
-            Map map = (Map)outputFactoryPerCLMap.get(configuration);
-            if (map == null) {
-                map = Collections.synchronizedMap(new WeakHashMap());
-                outputFactoryPerCLMap.put(configuration, map);
-                factory = null;
-            } else {
-                factory = (XMLOutputFactory)map.get(cl);
-            }
+            factory = outputFactoryPerCLMap.get(configuration, cl);
             
             if (factory == null) {
                 if (log.isDebugEnabled()) {
@@ -616,7 +653,7 @@ public class StAXUtils {
                               XMLOutputFactory.class.getClassLoader());
                 }
                 try {
-                    factory = newXMLOutputFactory(null, configuration);
+                    factory = newXMLOutputFactory(null, configuration, false);
                 } catch (ClassCastException cce) {
                     if (log.isDebugEnabled()) {
                         log.debug("Failed creation of XMLOutputFactory implementation with " +
@@ -626,17 +663,16 @@ public class StAXUtils {
                                   XMLOutputFactory.class.getClassLoader());
                     }
                     factory = newXMLOutputFactory(XMLOutputFactory.class.getClassLoader(),
-                            configuration);
+                            configuration, false);
                 }
                 if (factory != null) {
-                    map.put(cl, factory);
+                    factory = outputFactoryPerCLMap.putIfAbsent(configuration, cl, factory);
                     if (log.isDebugEnabled()) {
                         log.debug("Created XMLOutputFactory = " + factory.getClass() 
                                   + " for classloader=" + cl);
                         log.debug("Configuration = " + configuration);
-                        log.debug("Size of XMLOutFactory map for this configuration = " + map.size());
-                        log.debug("Configurations for which factories have been cached = " +
-                                outputFactoryPerCLMap.keySet());
+                        log.debug("Number of cached XMLOutputFactory instances = " +
+                                outputFactoryPerCLMap.size());
                     }
                 } else {
                     factory = getXMLOutputFactory_singleton(configuration);
@@ -654,12 +690,12 @@ public class StAXUtils {
         if (configuration == null) {
             configuration = StAXWriterConfiguration.DEFAULT;
         }
-        XMLOutputFactory f = (XMLOutputFactory)outputFactoryMap.get(configuration);
+        XMLOutputFactory f = outputFactoryMap.get(configuration, null);
         if (f == null) {
-            f = newXMLOutputFactory(StAXUtils.class.getClassLoader(), configuration);
-            outputFactoryMap.put(configuration, f);
-            if (log.isDebugEnabled()) {
-                if (f != null) {
+            f = newXMLOutputFactory(StAXUtils.class.getClassLoader(), configuration, false);
+            if (f != null) {
+                f = outputFactoryMap.putIfAbsent(configuration, null, f);
+                if (log.isDebugEnabled()) {
                     log.debug("Created singleton XMLOutputFactory " + f.getClass() + " with configuration " + configuration);
                 }
             }
@@ -667,6 +703,57 @@ public class StAXUtils {
         return f;
     }
     
+    /**
+     * Determine the class loader to use when creating pooled factories.
+     * 
+     * @param factoryPerClassLoaderPolicy
+     *            the cache policy
+     * @return the class loader; this is the thread context class loader of the caller if the
+     *         factory per class loader policy is used (so that factories created later by the pool
+     *         don't depend on the thread that happens to create them), and the class loader of
+     *         {@link StAXUtils} otherwise
+     */
+    private static ClassLoader getFactoryClassLoader(boolean factoryPerClassLoaderPolicy) {
+        ClassLoader cl = factoryPerClassLoaderPolicy ? getContextClassLoader() : null;
+        return cl == null ? StAXUtils.class.getClassLoader() : cl;
+    }
+    
+    private static XMLInputFactory getPooledXMLInputFactory(XMLInputFactory factory,
+            final StAXParserConfiguration configuration, final ClassLoader classLoader) {
+        XMLInputFactory pooledFactory = pooledInputFactoryMap.get(factory, null);
+        if (pooledFactory == null) {
+            pooledFactory = pooledInputFactoryMap.putIfAbsent(factory, null,
+                    new PooledXMLInputFactory(factory, new FactoryPool<XMLInputFactory>() {
+                        XMLInputFactory create() {
+                            try {
+                                return newXMLInputFactory(classLoader, configuration, true);
+                            } catch (ClassCastException ex) {
+                                return null;
+                            }
+                        }
+                    }));
+        }
+        return pooledFactory;
+    }
+    
+    private static XMLOutputFactory getPooledXMLOutputFactory(XMLOutputFactory factory,
+            final StAXWriterConfiguration configuration, final ClassLoader classLoader) {
+        XMLOutputFactory pooledFactory = pooledOutputFactoryMap.get(factory, null);
+        if (pooledFactory == null) {
+            pooledFactory = pooledOutputFactoryMap.putIfAbsent(factory, null,
+                    new PooledXMLOutputFactory(factory, new FactoryPool<XMLOutputFactory>() {
+                        XMLOutputFactory create() {
+                            try {
+                                return newXMLOutputFactory(classLoader, configuration, true);
+                            } catch (ClassCastException ex) {
+                                return null;
+                            }
+                        }
+                    }));
+        }
+        return pooledFactory;
+    }
+    
     /**
      * @return Trhead Context ClassLoader
      */
@@ -20,19 +20,24 @@
 package org.apache.axiom.om.util;
 
 import org.apache.axiom.om.xpath.AXIOMXPath;
-import org.jaxen.SimpleNamespaceContext;
+import org.apache.axiom.om.xpath.AXIOMXPathCache;
 
+import java.util.Collections;
 import java.util.List;
 
 public class XPathEvaluator {
+    /**
+     * Compiled expressions, shared by all instances.
+     */
+    private static final AXIOMXPathCache cache = new AXIOMXPathCache();
 
     public List evaluateXpath(String xpathExpression, Object element, String nsURI)
             throws Exception {
-        AXIOMXPath xpath = new AXIOMXPath(xpathExpression);
-        if (nsURI != null) {
-            SimpleNamespaceContext nsContext = new SimpleNamespaceContext();
-            nsContext.addNamespace(null, nsURI);
-            xpath.setNamespaceContext(nsContext);
+        AXIOMXPath xpath;
+        if (nsURI == null) {
+            xpath = cache.getXPath(xpathExpression);
+        } else {
+            xpath = cache.getXPath(xpathExpression, Collections.singletonMap((String)null, nsURI));
         }
         return xpath.selectNodes(element);
     }
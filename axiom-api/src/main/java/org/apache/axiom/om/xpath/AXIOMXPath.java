@@ -33,6 +33,12 @@ public class AXIOMXPath extends BaseXPath {
 
     private static final long serialVersionUID = -5839161412925154639L;
 
+    /**
+     * The navigator used by all expressions. {@link DocumentNavigator} is stateless, so there is
+     * no need to create a new instance for every expression.
+     */
+    private static final DocumentNavigator navigator = new DocumentNavigator();
+
     private Map namespaces = new HashMap();
 
     /**
@@ -42,7 +48,7 @@ public class AXIOMXPath extends BaseXPath {
      * @throws JaxenException if there is a syntax error while parsing the expression
      */
     public AXIOMXPath(String xpathExpr) throws JaxenException {
-        super(xpathExpr, new DocumentNavigator());
+        super(xpathExpr, navigator);
     }
 
     /**
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.xpath;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jaxen.FunctionContext;
+import org.jaxen.JaxenException;
+import org.jaxen.NamespaceContext;
+import org.jaxen.VariableContext;
+
+/**
+ * Cache of compiled {@link AXIOMXPath} expressions. Parsing an XPath expression is expensive
+ * compared to evaluating it on a small document; applications that evaluate the same expressions
+ * repeatedly should therefore use this class instead of creating a new {@link AXIOMXPath} instance
+ * every time.
+ * <p>
+ * Expressions are keyed by the expression string and the namespace bindings. When the cache is
+ * full, the least recently used expression is evicted.
+ * <p>
+ * This class is thread safe. The {@link AXIOMXPath} instances it returns are shared and may be
+ * evaluated concurrently by multiple threads; for that reason they are immutable, i.e. their
+ * namespace, function and variable contexts can't be changed and attempts to do so will result in
+ * an {@link UnsupportedOperationException}.
+ */
+public final class AXIOMXPathCache {
+    /**
+     * The default maximum number of expressions in the cache.
+     */
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private static final class Key {
+        private final String expression;
+        private final Map<String,String> namespaces;
+        private final int hashCode;
+
+        Key(String expression, Map<String,String> namespaces) {
+            this.expression = expression;
+            this.namespaces = namespaces;
+            hashCode = 31*expression.hashCode() + namespaces.hashCode();
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)obj;
+            return expression.equals(other.expression) && namespaces.equals(other.namespaces);
+        }
+    }
+
+    private static final class ImmutableAXIOMXPath extends AXIOMXPath {
+        private static final long serialVersionUID = 6236419536093614917L;
+
+        private final boolean immutable;
+
+        ImmutableAXIOMXPath(String expression, Map<String,String> namespaces) throws JaxenException {
+            super(expression);
+            for (Iterator<Map.Entry<String,String>> it = namespaces.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String,String> entry = it.next();
+                addNamespace(entry.getKey(), entry.getValue());
+            }
+            // Force the creation of the context support now, so that it is safely published
+            getNamespaceContext();
+            immutable = true;
+        }
+
+        public void addNamespace(String prefix, String uri) throws JaxenException {
+            checkMutable();
+            super.addNamespace(prefix, uri);
+        }
+
+        public void setNamespaceContext(NamespaceContext namespaceContext) {
+            checkMutable();
+            super.setNamespaceContext(namespaceContext);
+        }
+
+        public void setFunctionContext(FunctionContext functionContext) {
+            checkMutable();
+            super.setFunctionContext(functionContext);
+        }
+
+        public void setVariableContext(VariableContext variableContext) {
+            checkMutable();
+            super.setVariableContext(variableContext);
+        }
+
+        public Map getNamespaces() {
+            return Collections.unmodifiableMap(super.getNamespaces());
+        }
+
+        private void checkMutable() {
+            if (immutable) {
+                throw new UnsupportedOperationException("Expressions obtained from AXIOMXPathCache are immutable");
+            }
+        }
+    }
+
+    private final Map<Key,AXIOMXPath> cache;
+
+    /**
+     * Create a cache with the default maximum size.
+     */
+    public AXIOMXPathCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create a cache with a given maximum size.
+     *
+     * @param maxSize
+     *            the maximum number of expressions in the cache
+     */
+    public AXIOMXPathCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        cache = new LinkedHashMap<Key,AXIOMXPath>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry<Key,AXIOMXPath> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get the compiled form of an expression that doesn't use namespace prefixes.
+     *
+     * @param expression
+     *            the XPath expression
+     * @return the compiled expression
+     * @throws JaxenException
+     *             if there is a syntax error in the expression
+     */
+    public AXIOMXPath getXPath(String expression) throws JaxenException {
+        return getXPath(expression, Collections.<String,String>emptyMap());
+    }
+
+    /**
+     * Get the compiled form of an expression.
+     *
+     * @param expression
+     *            the XPath expression
+     * @param namespaces
+     *            the namespace bindings (prefix to namespace URI) used by the expression
+     * @return the compiled expression
+     * @throws JaxenException
+     *             if there is a syntax error in the expression
+     */
+    public AXIOMXPath getXPath(String expression, Map<String,String> namespaces) throws JaxenException {
+        Key key = new Key(expression, new HashMap<String,String>(namespaces));
+        AXIOMXPath xpath;
+        synchronized (cache) {
+            xpath = cache.get(key);
+        }
+        if (xpath == null) {
+            // Parse the expression outside of the synchronized block. If another thread does the
+            // same concurrently, the last one wins, which is harmless.
+            xpath = new ImmutableAXIOMXPath(expression, key.namespaces);
+            synchronized (cache) {
+                cache.put(key, xpath);
+            }
+        }
+        return xpath;
+    }
+
+    /**
+     * Get the number of expressions in the cache.
+     *
+     * @return the number of expressions
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Remove all expressions from the cache.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
@@ -46,6 +46,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 public class DocumentNavigator extends DefaultNavigator {
 
@@ -312,9 +313,21 @@ public class DocumentNavigator extends DefaultNavigator {
         return JaxenConstants.EMPTY_ITERATOR;
     }
 
-    public Iterator getDescendantAxisIterator(Object object) throws UnsupportedAxisException {
-        //TODO: Fix this better?
-        return super.getDescendantAxisIterator(object);
+    /**
+     * Retrieves an <code>Iterator</code> matching the <code>descendant</code> XPath axis. For
+     * containers, this uses {@link OMContainer#getDescendants(boolean)}, which walks the tree
+     * without creating an iterator for every level.
+     *
+     * @param contextNode the original context node
+     * @return Returns an Iterator capable of traversing the axis, not null.
+     * @throws UnsupportedAxisException if the semantics of the descendant axis are not supported
+     *                                  by this object model
+     */
+    public Iterator getDescendantAxisIterator(Object contextNode) throws UnsupportedAxisException {
+        if (contextNode instanceof OMContainer) {
+            return ((OMContainer) contextNode).getDescendants(false);
+        }
+        return JaxenConstants.EMPTY_ITERATOR;
     }
 
     /**
@@ -353,30 +366,12 @@ public class DocumentNavigator extends DefaultNavigator {
              context != null && !(context instanceof OMDocument);
              context = ((OMElement) context).getParent()) {
             OMElement element = (OMElement) context;
-            ArrayList declaredNS = new ArrayList();
-            Iterator i = element.getAllDeclaredNamespaces();
-            while (i != null && i.hasNext()) {
-                declaredNS.add(i.next());
-            }
-            declaredNS.add(element.getNamespace());
-            for (Iterator iter = element.getAllAttributes();
-                 iter != null && iter.hasNext();) {
-                OMAttribute attr = (OMAttribute) iter.next();
-                OMNamespace namespace = attr.getNamespace();
-                if (namespace != null) {
-                    declaredNS.add(namespace);
-                }
+            for (Iterator iter = element.getAllDeclaredNamespaces(); iter.hasNext();) {
+                addNamespace(nsList, prefixes, (OMNamespace) iter.next(), context);
             }
-            for (Iterator iter = declaredNS.iterator();
-                 iter != null && iter.hasNext();) {
-                OMNamespace namespace = (OMNamespace) iter.next();
-                if (namespace != null) {
-                    String prefix = namespace.getPrefix();
-                    if (prefix != null && !prefixes.contains(prefix)) {
-                        prefixes.add(prefix);
-                        nsList.add(new OMNamespaceEx(namespace, context));
-                    }
-                }
+            addNamespace(nsList, prefixes, element.getNamespace(), context);
+            for (Iterator iter = element.getAllAttributes(); iter.hasNext();) {
+                addNamespace(nsList, prefixes, ((OMAttribute) iter.next()).getNamespace(), context);
             }
         }
         nsList.add(
@@ -388,6 +383,16 @@ public class DocumentNavigator extends DefaultNavigator {
         return nsList.iterator();
     }
 
+    private static void addNamespace(List nsList, HashSet prefixes, OMNamespace namespace,
+            OMContainer context) {
+        if (namespace != null) {
+            String prefix = namespace.getPrefix();
+            if (prefix != null && prefixes.add(prefix)) {
+                nsList.add(new OMNamespaceEx(namespace, context));
+            }
+        }
+    }
+
     /**
      * Retrieves an <code>Iterator</code> matching the <code>self</code> xpath axis.
      *
@@ -411,8 +416,10 @@ public class DocumentNavigator extends DefaultNavigator {
      */
     public Iterator getDescendantOrSelfAxisIterator(Object contextNode)
             throws UnsupportedAxisException {
-        //TODO: Fix this better?
-        return super.getDescendantOrSelfAxisIterator(contextNode);
+        if (contextNode instanceof OMContainer) {
+            return ((OMContainer) contextNode).getDescendants(true);
+        }
+        return new SingleObjectIterator(contextNode);
     }
 
     /**
@@ -473,15 +480,10 @@ public class DocumentNavigator extends DefaultNavigator {
      */
     public Iterator getFollowingSiblingAxisIterator(Object contextNode)
             throws UnsupportedAxisException {
-        ArrayList list = new ArrayList();
-        if (contextNode != null && contextNode instanceof OMNode) {
-            while (contextNode != null && contextNode instanceof OMNode) {
-                contextNode = ((OMNode) contextNode).getNextOMSibling();
-                if (contextNode != null)
-                    list.add(contextNode);
-            }
+        if (contextNode instanceof OMNode) {
+            return new SiblingIterator((OMNode) contextNode, true);
         }
-        return list.iterator();
+        return JaxenConstants.EMPTY_ITERATOR;
     }
 
     /**
@@ -494,15 +496,10 @@ public class DocumentNavigator extends DefaultNavigator {
      */
     public Iterator getPrecedingSiblingAxisIterator(Object contextNode)
             throws UnsupportedAxisException {
-        ArrayList list = new ArrayList();
-        if (contextNode != null && contextNode instanceof OMNode) {
-            while (contextNode != null && contextNode instanceof OMNode) {
-                contextNode = ((OMNode) contextNode).getPreviousOMSibling();
-                if (contextNode != null)
-                    list.add(contextNode);
-            }
+        if (contextNode instanceof OMNode) {
+            return new SiblingIterator((OMNode) contextNode, false);
         }
-        return list.iterator();
+        return JaxenConstants.EMPTY_ITERATOR;
     }
 
     /**
@@ -667,7 +664,39 @@ public class DocumentNavigator extends DefaultNavigator {
         return ((OMNode) contextNode).getParent();
     }
 
-    class OMNamespaceEx implements OMNamespace {
+    /**
+     * Iterator for the <code>following-sibling</code> and <code>preceding-sibling</code> axes.
+     * Siblings are looked up lazily, so that an expression that only needs the first sibling
+     * (such as <code>following-sibling::*[1]</code>) doesn't visit (or build) the remaining ones.
+     */
+    private static final class SiblingIterator implements Iterator {
+        private final boolean following;
+        private OMNode next;
+
+        SiblingIterator(OMNode node, boolean following) {
+            this.following = following;
+            next = following ? node.getNextOMSibling() : node.getPreviousOMSibling();
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Object next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            OMNode node = next;
+            next = following ? node.getNextOMSibling() : node.getPreviousOMSibling();
+            return node;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    static class OMNamespaceEx implements OMNamespace {
         final OMNamespace originalNsp;
         final OMContainer parent;
 
@@ -0,0 +1,644 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.xpath;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMException;
+
+/**
+ * Evaluates a subset of XPath on a stream of StAX events, without building an object model. This is
+ * useful to extract information from large documents when that information is typically located
+ * near the beginning of the document (e.g. for content based routing): evaluation stops as soon as
+ * the result is known, and when it is applied to an {@link OMContainer}, only the part of the
+ * document that has been read is built.
+ * <p>
+ * The supported subset consists of absolute location paths with the following features:
+ * <ul>
+ * <li>Element steps using the child axis (<code>/</code>) or the descendant-or-self axis
+ * (<code>//</code>), with a name test of the form <code>name</code>, <code>prefix:name</code>,
+ * <code>prefix:*</code> or <code>*</code>.
+ * <li>An optional final attribute step of the form <code>@name</code>.
+ * <li>Predicates of the form <code>[@name]</code>, <code>[@name='value']</code> and
+ * <code>[n]</code> (at most one positional predicate per step).
+ * </ul>
+ * Examples of supported expressions are <code>/soapenv:Envelope/soapenv:Header/wsa:Action</code>,
+ * <code>//order[@status='pending'][1]/@id</code> and <code>/a/b[2]//c</code>. As in XPath 1.0, a
+ * name test without prefix only matches elements and attributes that have no namespace.
+ * <p>
+ * When evaluating all matches of an expression, the evaluation stops once no further match is
+ * possible. Since this can only be determined for elements selected by positional predicates
+ * (or when the document element ends), expressions should use positional predicates where
+ * possible (e.g. <code>/soapenv:Envelope/soapenv:Header[1]/wsa:Action</code>).
+ * <p>
+ * Instances of this class are thread safe once all namespace bindings have been added.
+ */
+public class StreamingXPath {
+    private static final int MODE_BOOLEAN = 1;
+    private static final int MODE_FIRST = 2;
+    private static final int MODE_ALL = 3;
+
+    private static class NameTest {
+        /**
+         * The prefix, or <code>null</code> if the name test has no prefix.
+         */
+        final String prefix;
+
+        /**
+         * The local name, or <code>null</code> if the name test is a wildcard.
+         */
+        final String localName;
+
+        NameTest(String prefix, String localName) {
+            this.prefix = prefix;
+            this.localName = localName;
+        }
+
+        /**
+         * Check if a node matches the name test.
+         *
+         * @param namespaceURI
+         *            the resolved namespace URI of the name test, or <code>null</code> if the name
+         *            test is <code>*</code>
+         * @param nodeNamespaceURI
+         *            the namespace URI of the node, or <code>null</code> if the node has no
+         *            namespace
+         * @param nodeLocalName
+         *            the local name of the node
+         * @return <code>true</code> if the node matches
+         */
+        boolean matches(String namespaceURI, String nodeNamespaceURI, String nodeLocalName) {
+            if (localName != null && !localName.equals(nodeLocalName)) {
+                return false;
+            }
+            if (namespaceURI == null) {
+                return true;
+            }
+            return namespaceURI.equals(nodeNamespaceURI == null ? "" : nodeNamespaceURI);
+        }
+    }
+
+    private static final class AttributePredicate extends NameTest {
+        /**
+         * The expected value, or <code>null</code> if the predicate only tests the presence of the
+         * attribute.
+         */
+        final String value;
+
+        AttributePredicate(String prefix, String localName, String value) {
+            super(prefix, localName);
+            this.value = value;
+        }
+    }
+
+    private static final class Step {
+        final boolean descendant;
+        final NameTest nameTest;
+        final List<AttributePredicate> predicates = new ArrayList<AttributePredicate>();
+
+        /**
+         * The position required by the positional predicate, or 0 if the step has no positional
+         * predicate.
+         */
+        int position;
+
+        /**
+         * The number of attribute predicates that are evaluated before the positional predicate.
+         */
+        int predicatesBeforePosition;
+
+        Step(boolean descendant, NameTest nameTest) {
+            this.descendant = descendant;
+            this.nameTest = nameTest;
+        }
+    }
+
+    /**
+     * The state of the evaluation for an open element (or the document).
+     */
+    private static final class Frame {
+        /**
+         * The set of steps (as bit mask) that the children of this element are tested against.
+         */
+        long childStates;
+
+        /**
+         * The set of steps (as bit mask) that all descendants of this element are tested against.
+         */
+        long descendantStates;
+
+        /**
+         * Number of children of this element that matched the part of a step that precedes its
+         * positional predicate, indexed by step. Created lazily.
+         */
+        int[] counts;
+
+        boolean isLive() {
+            return (childStates | descendantStates) != 0;
+        }
+    }
+
+    /**
+     * An element match for which the string value is being collected.
+     */
+    private static final class PendingResult {
+        final int depth;
+        final int index;
+        final StringBuilder buffer = new StringBuilder();
+
+        PendingResult(int depth, int index) {
+            this.depth = depth;
+            this.index = index;
+        }
+    }
+
+    private final String expression;
+    private final Step[] steps;
+    private final NameTest attribute;
+    private final Map<String,String> namespaces = new HashMap<String,String>();
+
+    /**
+     * Construct an XPath expression from a given string.
+     *
+     * @param expression
+     *            the string representation of the XPath expression
+     * @throws IllegalArgumentException
+     *             if the expression is not valid or is not in the supported subset
+     */
+    public StreamingXPath(String expression) {
+        this.expression = expression;
+        List<Step> steps = new ArrayList<Step>();
+        NameTest attribute = null;
+        Parser parser = new Parser(expression);
+        if (parser.atEnd()) {
+            throw parser.error("Empty expression");
+        }
+        while (!parser.atEnd()) {
+            boolean descendant;
+            if (parser.consume("//")) {
+                descendant = true;
+            } else if (parser.consume("/")) {
+                descendant = false;
+            } else {
+                throw parser.error("Expected '/' or '//'");
+            }
+            if (parser.consume("@")) {
+                if (descendant) {
+                    throw parser.error("Attribute steps must use the child axis");
+                }
+                attribute = parser.parseNameTest();
+                if (!parser.atEnd()) {
+                    throw parser.error("The attribute step must be the last step");
+                }
+                break;
+            }
+            Step step = new Step(descendant, parser.parseNameTest());
+            while (parser.consume("[")) {
+                parser.skipWhitespace();
+                if (parser.consume("@")) {
+                    NameTest name = parser.parseNameTest();
+                    parser.skipWhitespace();
+                    String value = null;
+                    if (parser.consume("=")) {
+                        parser.skipWhitespace();
+                        value = parser.parseLiteral();
+                    }
+                    step.predicates.add(new AttributePredicate(name.prefix, name.localName, value));
+                } else {
+                    if (step.position != 0) {
+                        throw parser.error("Only one positional predicate is supported per step");
+                    }
+                    step.position = parser.parsePosition();
+                    step.predicatesBeforePosition = step.predicates.size();
+                }
+                parser.skipWhitespace();
+                if (!parser.consume("]")) {
+                    throw parser.error("Expected ']'");
+                }
+            }
+            steps.add(step);
+        }
+        if (steps.isEmpty()) {
+            throw parser.error("The expression must contain at least one element step");
+        }
+        if (steps.size() > 64) {
+            throw parser.error("Too many steps");
+        }
+        this.steps = steps.toArray(new Step[steps.size()]);
+        this.attribute = attribute;
+    }
+
+    /**
+     * Add a namespace binding to the context of this expression.
+     *
+     * @param prefix
+     *            the namespace prefix
+     * @param namespaceURI
+     *            the namespace URI
+     */
+    public void addNamespace(String prefix, String namespaceURI) {
+        namespaces.put(prefix, namespaceURI);
+    }
+
+    /**
+     * Determine if the expression selects at least one node. The evaluation stops as soon as the
+     * first match has been encountered.
+     *
+     * @param reader
+     *            the reader, positioned on the {@link XMLStreamReader#START_DOCUMENT} event or on
+     *            the {@link XMLStreamReader#START_ELEMENT} event of the element that is to be
+     *            considered as the document element
+     * @return <code>true</code> if the expression selects at least one node
+     * @throws XMLStreamException
+     *             if an error occurs while reading from the reader
+     */
+    public boolean booleanValueOf(XMLStreamReader reader) throws XMLStreamException {
+        return !evaluate(reader, MODE_BOOLEAN).isEmpty();
+    }
+
+    /**
+     * Get the string value of the first node selected by the expression. The evaluation stops as
+     * soon as that string value is known.
+     *
+     * @param reader
+     *            the reader; see {@link #booleanValueOf(XMLStreamReader)}
+     * @return the string value of the first selected node, or an empty string if the expression
+     *         doesn't select any node
+     * @throws XMLStreamException
+     *             if an error occurs while reading from the reader
+     */
+    public String stringValueOf(XMLStreamReader reader) throws XMLStreamException {
+        List<String> result = evaluate(reader, MODE_FIRST);
+        return result.isEmpty() ? "" : result.get(0);
+    }
+
+    /**
+     * Get the string values of all nodes selected by the expression, in document order. The
+     * evaluation stops as soon as no further matches are possible.
+     *
+     * @param reader
+     *            the reader; see {@link #booleanValueOf(XMLStreamReader)}
+     * @return the string values of the selected nodes
+     * @throws XMLStreamException
+     *             if an error occurs while reading from the reader
+     */
+    public List<String> stringValuesOf(XMLStreamReader reader) throws XMLStreamException {
+        return evaluate(reader, MODE_ALL);
+    }
+
+    /**
+     * Determine if the expression selects at least one node in a given container. The container is
+     * read using {@link OMContainer#getXMLStreamReader(boolean)} with caching enabled, so that
+     * only the part of the document that is required to evaluate the expression is built.
+     *
+     * @param container
+     *            the container; if it is an element, that element is considered as the document
+     *            element
+     * @return <code>true</code> if the expression selects at least one node
+     * @throws OMException
+     *             if an error occurs while building the container
+     */
+    public boolean booleanValueOf(OMContainer container) throws OMException {
+        return !evaluate(container, MODE_BOOLEAN).isEmpty();
+    }
+
+    /**
+     * Get the string value of the first node selected by the expression in a given container. See
+     * {@link #booleanValueOf(OMContainer)} for more information about how the container is read.
+     *
+     * @param container
+     *            the container
+     * @return the string value of the first selected node, or an empty string if the expression
+     *         doesn't select any node
+     * @throws OMException
+     *             if an error occurs while building the container
+     */
+    public String stringValueOf(OMContainer container) throws OMException {
+        List<String> result = evaluate(container, MODE_FIRST);
+        return result.isEmpty() ? "" : result.get(0);
+    }
+
+    /**
+     * Get the string values of all nodes selected by the expression in a given container. See
+     * {@link #booleanValueOf(OMContainer)} for more information about how the container is read.
+     *
+     * @param container
+     *            the container
+     * @return the string values of the selected nodes
+     * @throws OMException
+     *             if an error occurs while building the container
+     */
+    public List<String> stringValuesOf(OMContainer container) throws OMException {
+        return evaluate(container, MODE_ALL);
+    }
+
+    private List<String> evaluate(OMContainer container, int mode) throws OMException {
+        XMLStreamReader reader = container.getXMLStreamReader(true);
+        try {
+            try {
+                return evaluate(reader, mode);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException ex) {
+            throw new OMException(ex);
+        }
+    }
+
+    private String resolve(NameTest nameTest) {
+        if (nameTest.prefix == null) {
+            return nameTest.localName == null ? null : "";
+        } else {
+            String namespaceURI = namespaces.get(nameTest.prefix);
+            if (namespaceURI == null) {
+                throw new OMException("Unbound namespace prefix '" + nameTest.prefix
+                        + "' in XPath expression " + expression);
+            }
+            return namespaceURI;
+        }
+    }
+
+    private List<String> evaluate(XMLStreamReader reader, int mode) throws XMLStreamException {
+        // Resolve the namespace prefixes
+        String[] stepNamespaceURIs = new String[steps.length];
+        String[][] predicateNamespaceURIs = new String[steps.length][];
+        for (int i=0; i<steps.length; i++) {
+            Step step = steps[i];
+            stepNamespaceURIs[i] = resolve(step.nameTest);
+            predicateNamespaceURIs[i] = new String[step.predicates.size()];
+            for (int j=0; j<step.predicates.size(); j++) {
+                predicateNamespaceURIs[i][j] = resolve(step.predicates.get(j));
+            }
+        }
+        String attributeNamespaceURI = attribute == null ? null : resolve(attribute);
+
+        List<String> results = new ArrayList<String>();
+        List<PendingResult> pendingResults = new ArrayList<PendingResult>();
+        List<Frame> stack = new ArrayList<Frame>();
+        Frame documentFrame = new Frame();
+        if (steps[0].descendant) {
+            documentFrame.descendantStates = 1;
+        } else {
+            documentFrame.childStates = 1;
+        }
+        stack.add(documentFrame);
+        int liveFrames = 1;
+        int event = reader.getEventType();
+        while (true) {
+            switch (event) {
+                case XMLStreamReader.START_ELEMENT: {
+                    Frame parent = stack.get(stack.size()-1);
+                    Frame frame = new Frame();
+                    frame.descendantStates = parent.descendantStates;
+                    boolean matched = false;
+                    long candidates = parent.childStates | parent.descendantStates;
+                    boolean parentWasLive = parent.isLive();
+                    String namespaceURI = reader.getNamespaceURI();
+                    String localName = reader.getLocalName();
+                    for (int k=0; k<steps.length; k++) {
+                        if ((candidates & (1L << k)) == 0) {
+                            continue;
+                        }
+                        Step step = steps[k];
+                        if (!step.nameTest.matches(stepNamespaceURIs[k], namespaceURI, localName)
+                                || !matchesPredicates(reader, step, predicateNamespaceURIs[k], 0, step.predicatesBeforePosition)) {
+                            continue;
+                        }
+                        if (step.position != 0) {
+                            if (parent.counts == null) {
+                                parent.counts = new int[steps.length];
+                            }
+                            int count = ++parent.counts[k];
+                            if (count >= step.position && !step.descendant) {
+                                // No further sibling can match this step
+                                parent.childStates &= ~(1L << k);
+                            }
+                            if (count != step.position) {
+                                continue;
+                            }
+                        }
+                        if (!matchesPredicates(reader, step, predicateNamespaceURIs[k], step.predicatesBeforePosition, step.predicates.size())) {
+                            continue;
+                        }
+                        if (k == steps.length-1) {
+                            matched = true;
+                        } else if (steps[k+1].descendant) {
+                            frame.descendantStates |= 1L << (k+1);
+                        } else {
+                            frame.childStates |= 1L << (k+1);
+                        }
+                    }
+                    if (parent == documentFrame) {
+                        // There is only one document element
+                        documentFrame.childStates = 0;
+                        documentFrame.descendantStates = 0;
+                    }
+                    if (parentWasLive && !parent.isLive()) {
+                        liveFrames--;
+                    }
+                    stack.add(frame);
+                    if (frame.isLive()) {
+                        liveFrames++;
+                    }
+                    if (matched) {
+                        if (attribute == null) {
+                            if (mode == MODE_BOOLEAN) {
+                                results.add(null);
+                                return results;
+                            }
+                            pendingResults.add(new PendingResult(stack.size(), results.size()));
+                            results.add(null);
+                        } else {
+                            for (int i=0, count=reader.getAttributeCount(); i<count; i++) {
+                                if (attribute.matches(attributeNamespaceURI,
+                                        reader.getAttributeNamespace(i), reader.getAttributeLocalName(i))) {
+                                    results.add(reader.getAttributeValue(i));
+                                    if (mode != MODE_ALL) {
+                                        return results;
+                                    }
+                                }
+                            }
+                        }
+                    }
+                    break;
+                }
+                case XMLStreamReader.END_ELEMENT: {
+                    int depth = stack.size();
+                    if (!pendingResults.isEmpty()) {
+                        PendingResult pendingResult = pendingResults.get(pendingResults.size()-1);
+                        if (pendingResult.depth == depth) {
+                            pendingResults.remove(pendingResults.size()-1);
+                            results.set(pendingResult.index, pendingResult.buffer.toString());
+                            if (mode == MODE_FIRST && pendingResult.index == 0) {
+                                results.subList(1, results.size()).clear();
+                                return results;
+                            }
+                        }
+                    }
+                    if (stack.remove(depth-1).isLive()) {
+                        liveFrames--;
+                    }
+                    break;
+                }
+                case XMLStreamReader.CHARACTERS:
+                case XMLStreamReader.CDATA:
+                case XMLStreamReader.SPACE:
+                case XMLStreamReader.ENTITY_REFERENCE:
+                    if (!pendingResults.isEmpty()) {
+                        String text = reader.getText();
+                        for (int i=0; i<pendingResults.size(); i++) {
+                            pendingResults.get(i).buffer.append(text);
+                        }
+                    }
+                    break;
+                case XMLStreamReader.END_DOCUMENT:
+                    return results;
+            }
+            if (liveFrames == 0 && pendingResults.isEmpty()) {
+                // No further match is possible
+                return results;
+            }
+            if (!reader.hasNext()) {
+                return results;
+            }
+            event = reader.next();
+        }
+    }
+
+    private static boolean matchesPredicates(XMLStreamReader reader, Step step,
+            String[] namespaceURIs, int start, int end) {
+        outer: for (int i=start; i<end; i++) {
+            AttributePredicate predicate = step.predicates.get(i);
+            for (int j=0, count=reader.getAttributeCount(); j<count; j++) {
+                if (predicate.matches(namespaceURIs[i], reader.getAttributeNamespace(j),
+                        reader.getAttributeLocalName(j))
+                        && (predicate.value == null || predicate.value.equals(reader.getAttributeValue(j)))) {
+                    continue outer;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    public String toString() {
+        return expression;
+    }
+
+    private static final class Parser {
+        private final String expression;
+        private int pos;
+
+        Parser(String expression) {
+            this.expression = expression;
+        }
+
+        boolean atEnd() {
+            return pos == expression.length();
+        }
+
+        boolean consume(String token) {
+            if (expression.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            } else {
+                return false;
+            }
+        }
+
+        void skipWhitespace() {
+            while (pos < expression.length() && Character.isWhitespace(expression.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private String parseNCName() {
+            int start = pos;
+            while (pos < expression.length()) {
+                char c = expression.charAt(pos);
+                if (Character.isLetter(c) || c == '_'
+                        || (pos > start && (Character.isDigit(c) || c == '-' || c == '.'))) {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            if (pos == start) {
+                throw error("Expected a name");
+            }
+            return expression.substring(start, pos);
+        }
+
+        NameTest parseNameTest() {
+            if (consume("*")) {
+                return new NameTest(null, null);
+            }
+            String name = parseNCName();
+            if (consume(":")) {
+                return new NameTest(name, consume("*") ? null : parseNCName());
+            } else {
+                return new NameTest(null, name);
+            }
+        }
+
+        String parseLiteral() {
+            if (pos == expression.length()) {
+                throw error("Expected a literal");
+            }
+            char quote = expression.charAt(pos);
+            if (quote != '\'' && quote != '"') {
+                throw error("Expected a literal");
+            }
+            int end = expression.indexOf(quote, pos+1);
+            if (end == -1) {
+                throw error("Unterminated literal");
+            }
+            String literal = expression.substring(pos+1, end);
+            pos = end+1;
+            return literal;
+        }
+
+        int parsePosition() {
+            int start = pos;
+            while (pos < expression.length() && Character.isDigit(expression.charAt(pos))) {
+                pos++;
+            }
+            if (pos == start) {
+                throw error("Unsupported predicate");
+            }
+            int position = Integer.parseInt(expression.substring(start, pos));
+            if (position == 0) {
+                throw error("Positions start at 1");
+            }
+            return position;
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos
+                    + " in XPath expression " + expression);
+        }
+    }
+}
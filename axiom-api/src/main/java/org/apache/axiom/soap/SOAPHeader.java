@@ -144,6 +144,16 @@ public interface SOAPHeader extends OMElement {
      */
     ArrayList getHeaderBlocksWithNSURI(String nsURI);
 
+    /**
+     * Get the header blocks with a given name.
+     * 
+     * @param name
+     *            the name of the header blocks; the prefix is ignored
+     * @return an iterator over all the {@link SOAPHeaderBlock} objects with the given name, in
+     *         document order
+     */
+    Iterator getHeaderBlocksWithName(QName name);
+
     /**
      * Get the appropriate set of headers for a RolePlayer and a particular namespace.
      * <p>
@@ -18,6 +18,8 @@
  */
 package org.apache.axiom.soap.impl.builder;
 
+import org.apache.axiom.om.AsyncOMBuilder;
+import org.apache.axiom.om.OMFactory;
 import org.apache.axiom.om.OMMetaFactory;
 import org.apache.axiom.om.OMXMLParserWrapper;
 import org.apache.axiom.soap.SOAPFactory;
@@ -38,4 +40,18 @@ public interface OMMetaFactoryEx extends OMMetaFactory {
      * @return the newly created {@link SOAPMessage} instance
      */
     SOAPMessage createSOAPMessage(OMXMLParserWrapper builder);
+    
+    /**
+     * Create an object model builder for plain XML that is fed with the content of the document
+     * as it becomes available. This is used by
+     * {@link org.apache.axiom.om.OMXMLBuilderFactory#createAsyncOMBuilder(OMFactory)}.
+     * 
+     * @param omFactory
+     *            the object model factory to use; must be obtained from the same meta factory
+     * @return the builder
+     * @throws UnsupportedOperationException
+     *             if the implementation doesn't support asynchronous building or if no suitable
+     *             parser is available
+     */
+    AsyncOMBuilder createAsyncOMBuilder(OMFactory omFactory);
 }
@@ -0,0 +1,508 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.soap.impl.builder;
+
+import javax.activation.DataHandler;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.ext.stax.datahandler.DataHandlerProvider;
+import org.apache.axiom.ext.stax.datahandler.DataHandlerReader;
+import org.apache.axiom.util.namespace.ScopedNamespaceContext;
+import org.apache.axiom.util.stax.AbstractXMLStreamReader;
+import org.apache.axiom.util.stax.XMLStreamReaderUtils;
+
+/**
+ * {@link XMLStreamReader} that first replays a list of previously recorded events and then
+ * continues with the events from the reader the events were recorded from. The last recorded event
+ * must be the one immediately preceding the current event of that reader. This is used by
+ * {@link SOAPMessageSniffer} to let a builder resume at the position where the sniffer stopped.
+ */
+final class ReplayingXMLStreamReader extends AbstractXMLStreamReader {
+    /**
+     * Records events from a {@link XMLStreamReader}. To keep the cost of recording low, events are
+     * not stored as individual objects; instead the event types and the values returned by the
+     * reader are appended to arrays that grow as needed.
+     */
+    static final class EventBuffer {
+        private int[] types = new int[32];
+        /**
+         * The index in {@link #data} of the first value of each event. For elements, the number
+         * of namespace declarations and attributes is stored in {@link #namespaceCounts} and
+         * {@link #attributeCounts}.
+         */
+        private int[] offsets = new int[32];
+        private int[] namespaceCounts = new int[32];
+        private int[] attributeCounts = new int[32];
+        private Object[] data = new Object[128];
+        private int eventCount;
+        private int dataSize;
+
+        /**
+         * Record the current event of a reader.
+         *
+         * @param reader
+         *            the reader
+         */
+        void record(XMLStreamReader reader) {
+            if (eventCount == types.length) {
+                types = grow(types);
+                offsets = grow(offsets);
+                namespaceCounts = grow(namespaceCounts);
+                attributeCounts = grow(attributeCounts);
+            }
+            int type = reader.getEventType();
+            types[eventCount] = type;
+            offsets[eventCount] = dataSize;
+            switch (type) {
+                case START_DOCUMENT:
+                    add(reader.getVersion());
+                    add(reader.getEncoding());
+                    add(reader.getCharacterEncodingScheme());
+                    add(Boolean.valueOf(reader.isStandalone()));
+                    add(Boolean.valueOf(reader.standaloneSet()));
+                    break;
+                case START_ELEMENT:
+                case END_ELEMENT:
+                    add(reader.getPrefix());
+                    add(reader.getNamespaceURI());
+                    add(reader.getLocalName());
+                    int namespaceCount = reader.getNamespaceCount();
+                    for (int i=0; i<namespaceCount; i++) {
+                        add(reader.getNamespacePrefix(i));
+                        add(reader.getNamespaceURI(i));
+                    }
+                    int attributeCount = type == START_ELEMENT ? reader.getAttributeCount() : 0;
+                    for (int i=0; i<attributeCount; i++) {
+                        add(reader.getAttributePrefix(i));
+                        add(reader.getAttributeNamespace(i));
+                        add(reader.getAttributeLocalName(i));
+                        add(reader.getAttributeValue(i));
+                        add(reader.getAttributeType(i));
+                        add(Boolean.valueOf(reader.isAttributeSpecified(i)));
+                    }
+                    namespaceCounts[eventCount] = namespaceCount;
+                    attributeCounts[eventCount] = attributeCount;
+                    break;
+                case PROCESSING_INSTRUCTION:
+                    add(reader.getPITarget());
+                    add(reader.getPIData());
+                    break;
+                case ENTITY_REFERENCE:
+                    add(reader.getLocalName());
+                    add(reader.getText());
+                    break;
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                case COMMENT:
+                case DTD:
+                    add(reader.getText());
+                    break;
+            }
+            eventCount++;
+        }
+
+        private void add(Object value) {
+            if (dataSize == data.length) {
+                Object[] newData = new Object[data.length*2];
+                System.arraycopy(data, 0, newData, 0, dataSize);
+                data = newData;
+            }
+            data[dataSize++] = value;
+        }
+
+        private static int[] grow(int[] array) {
+            int[] newArray = new int[array.length*2];
+            System.arraycopy(array, 0, newArray, 0, array.length);
+            return newArray;
+        }
+
+        boolean isEmpty() {
+            return eventCount == 0;
+        }
+    }
+
+    private final class DataHandlerReaderAdapter implements DataHandlerReader {
+        private final DataHandlerReader parent;
+
+        DataHandlerReaderAdapter(DataHandlerReader parent) {
+            this.parent = parent;
+        }
+
+        public boolean isBinary() {
+            // Recorded events contain the base64 encoded form of binary content
+            return !isReplaying() && parent.isBinary();
+        }
+
+        public boolean isOptimized() {
+            return parent.isOptimized();
+        }
+
+        public boolean isDeferred() {
+            return parent.isDeferred();
+        }
+
+        public String getContentID() {
+            return parent.getContentID();
+        }
+
+        public DataHandler getDataHandler() throws XMLStreamException {
+            return parent.getDataHandler();
+        }
+
+        public DataHandlerProvider getDataHandlerProvider() {
+            return parent.getDataHandlerProvider();
+        }
+    }
+
+    private final XMLStreamReader parent;
+    private final EventBuffer buffer;
+    private final DataHandlerReader dataHandlerReader;
+    private final ScopedNamespaceContext namespaceContext = new ScopedNamespaceContext();
+
+    /**
+     * The index of the event being replayed, or -1 if all recorded events have been consumed.
+     */
+    private int index;
+
+    /**
+     * The type of the event being replayed.
+     */
+    private int type;
+
+    /**
+     * The index in {@link EventBuffer#data} of the first value of the event being replayed.
+     */
+    private int offset;
+
+    private int namespaceCount;
+    private int attributeCount;
+
+    /**
+     * Constructor.
+     *
+     * @param parent
+     *            the reader from which the events were recorded
+     * @param buffer
+     *            the recorded events; must not be empty
+     */
+    ReplayingXMLStreamReader(XMLStreamReader parent, EventBuffer buffer) {
+        this.parent = parent;
+        this.buffer = buffer;
+        DataHandlerReader dhr = XMLStreamReaderUtils.getDataHandlerReader(parent);
+        dataHandlerReader = dhr == null ? null : new DataHandlerReaderAdapter(dhr);
+        setEvent(0);
+    }
+
+    private void setEvent(int index) {
+        if (index == buffer.eventCount) {
+            this.index = -1;
+            return;
+        }
+        this.index = index;
+        type = buffer.types[index];
+        offset = buffer.offsets[index];
+        namespaceCount = buffer.namespaceCounts[index];
+        attributeCount = buffer.attributeCounts[index];
+        if (type == START_ELEMENT) {
+            namespaceContext.startScope();
+            for (int i=0; i<namespaceCount; i++) {
+                namespaceContext.setPrefix(emptyIfNull(getNamespacePrefix(i)),
+                        emptyIfNull(getNamespaceURI(i)));
+            }
+        }
+    }
+
+    private static String emptyIfNull(String s) {
+        return s == null ? "" : s;
+    }
+
+    private boolean isReplaying() {
+        return index != -1;
+    }
+
+    private String getString(int i) {
+        return (String)buffer.data[offset+i];
+    }
+
+    public int next() throws XMLStreamException {
+        if (!isReplaying()) {
+            return parent.next();
+        } else {
+            if (type == END_ELEMENT) {
+                namespaceContext.endScope();
+            }
+            setEvent(index+1);
+            return isReplaying() ? type : parent.getEventType();
+        }
+    }
+
+    public boolean hasNext() throws XMLStreamException {
+        return isReplaying() || parent.hasNext();
+    }
+
+    public void close() throws XMLStreamException {
+        parent.close();
+    }
+
+    public Object getProperty(String name) throws IllegalArgumentException {
+        if (DataHandlerReader.PROPERTY.equals(name)) {
+            return dataHandlerReader;
+        } else {
+            return parent.getProperty(name);
+        }
+    }
+
+    public Location getLocation() {
+        return isReplaying() ? super.getLocation() : parent.getLocation();
+    }
+
+    public int getEventType() {
+        return isReplaying() ? type : parent.getEventType();
+    }
+
+    private void checkElementEvent() {
+        if (type != START_ELEMENT && type != END_ELEMENT) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private void checkStartElementEvent() {
+        if (type != START_ELEMENT) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private String getElementValue(int i) {
+        checkElementEvent();
+        return getString(i);
+    }
+
+    private String getNamespaceValue(int index, int i) {
+        checkElementEvent();
+        return getString(3 + index*2 + i);
+    }
+
+    private Object getAttributeData(int index, int i) {
+        checkStartElementEvent();
+        return buffer.data[offset + 3 + namespaceCount*2 + index*6 + i];
+    }
+
+    public String getPrefix() {
+        return isReplaying() ? getElementValue(0) : parent.getPrefix();
+    }
+
+    public String getNamespaceURI() {
+        return isReplaying() ? getElementValue(1) : parent.getNamespaceURI();
+    }
+
+    public String getLocalName() {
+        if (!isReplaying()) {
+            return parent.getLocalName();
+        } else if (type == ENTITY_REFERENCE) {
+            return getString(0);
+        } else {
+            return getElementValue(2);
+        }
+    }
+
+    public QName getName() {
+        if (!isReplaying()) {
+            return parent.getName();
+        } else {
+            return new QName(emptyIfNull(getElementValue(1)), getElementValue(2),
+                    emptyIfNull(getElementValue(0)));
+        }
+    }
+
+    public int getNamespaceCount() {
+        if (!isReplaying()) {
+            return parent.getNamespaceCount();
+        } else {
+            checkElementEvent();
+            return namespaceCount;
+        }
+    }
+
+    public String getNamespacePrefix(int index) {
+        return isReplaying() ? getNamespaceValue(index, 0) : parent.getNamespacePrefix(index);
+    }
+
+    public String getNamespaceURI(int index) {
+        return isReplaying() ? getNamespaceValue(index, 1) : parent.getNamespaceURI(index);
+    }
+
+    public String getNamespaceURI(String prefix) {
+        if (!isReplaying()) {
+            return parent.getNamespaceURI(prefix);
+        } else {
+            String namespaceURI = namespaceContext.getNamespaceURI(prefix);
+            return namespaceURI.length() == 0 ? null : namespaceURI;
+        }
+    }
+
+    public NamespaceContext getNamespaceContext() {
+        return isReplaying() ? namespaceContext : parent.getNamespaceContext();
+    }
+
+    public int getAttributeCount() {
+        if (!isReplaying()) {
+            return parent.getAttributeCount();
+        } else {
+            checkStartElementEvent();
+            return attributeCount;
+        }
+    }
+
+    public String getAttributePrefix(int index) {
+        return isReplaying() ? (String)getAttributeData(index, 0) : parent.getAttributePrefix(index);
+    }
+
+    public String getAttributeNamespace(int index) {
+        return isReplaying() ? (String)getAttributeData(index, 1) : parent.getAttributeNamespace(index);
+    }
+
+    public String getAttributeLocalName(int index) {
+        return isReplaying() ? (String)getAttributeData(index, 2) : parent.getAttributeLocalName(index);
+    }
+
+    public QName getAttributeName(int index) {
+        if (!isReplaying()) {
+            return parent.getAttributeName(index);
+        } else {
+            return new QName(emptyIfNull((String)getAttributeData(index, 1)),
+                    (String)getAttributeData(index, 2),
+                    emptyIfNull((String)getAttributeData(index, 0)));
+        }
+    }
+
+    public String getAttributeValue(int index) {
+        return isReplaying() ? (String)getAttributeData(index, 3) : parent.getAttributeValue(index);
+    }
+
+    public String getAttributeType(int index) {
+        return isReplaying() ? (String)getAttributeData(index, 4) : parent.getAttributeType(index);
+    }
+
+    public boolean isAttributeSpecified(int index) {
+        return isReplaying() ? ((Boolean)getAttributeData(index, 5)).booleanValue()
+                : parent.isAttributeSpecified(index);
+    }
+
+    public String getAttributeValue(String namespaceURI, String localName) {
+        if (!isReplaying()) {
+            return parent.getAttributeValue(namespaceURI, localName);
+        } else {
+            checkStartElementEvent();
+            for (int i=0; i<attributeCount; i++) {
+                if (getAttributeData(i, 2).equals(localName) && (namespaceURI == null
+                        || namespaceURI.equals(emptyIfNull((String)getAttributeData(i, 1))))) {
+                    return (String)getAttributeData(i, 3);
+                }
+            }
+            return null;
+        }
+    }
+
+    private String getEventText() {
+        switch (type) {
+            case CHARACTERS:
+            case CDATA:
+            case SPACE:
+            case COMMENT:
+            case DTD:
+                return getString(0);
+            case ENTITY_REFERENCE:
+                return getString(1);
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    public String getText() {
+        return isReplaying() ? getEventText() : parent.getText();
+    }
+
+    public char[] getTextCharacters() {
+        return isReplaying() ? getEventText().toCharArray() : parent.getTextCharacters();
+    }
+
+    public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length)
+            throws XMLStreamException {
+        if (!isReplaying()) {
+            return parent.getTextCharacters(sourceStart, target, targetStart, length);
+        } else {
+            String text = getEventText();
+            int count = Math.min(text.length() - sourceStart, length);
+            text.getChars(sourceStart, sourceStart + count, target, targetStart);
+            return count;
+        }
+    }
+
+    public int getTextStart() {
+        return isReplaying() ? 0 : parent.getTextStart();
+    }
+
+    public int getTextLength() {
+        return isReplaying() ? getEventText().length() : parent.getTextLength();
+    }
+
+    public String getPITarget() {
+        return isReplaying() ? (type == PROCESSING_INSTRUCTION ? getString(0) : null)
+                : parent.getPITarget();
+    }
+
+    public String getPIData() {
+        return isReplaying() ? (type == PROCESSING_INSTRUCTION ? getString(1) : null)
+                : parent.getPIData();
+    }
+
+    // The document level properties are recorded in the START_DOCUMENT event, which is always the
+    // first event (if it has been recorded at all)
+
+    private boolean hasStartDocumentEvent() {
+        return buffer.types[0] == START_DOCUMENT;
+    }
+
+    public String getVersion() {
+        return hasStartDocumentEvent() ? (String)buffer.data[0] : parent.getVersion();
+    }
+
+    public String getEncoding() {
+        return hasStartDocumentEvent() ? (String)buffer.data[1] : parent.getEncoding();
+    }
+
+    public String getCharacterEncodingScheme() {
+        return hasStartDocumentEvent() ? (String)buffer.data[2] : parent.getCharacterEncodingScheme();
+    }
+
+    public boolean isStandalone() {
+        return hasStartDocumentEvent() ? ((Boolean)buffer.data[3]).booleanValue()
+                : parent.isStandalone();
+    }
+
+    public boolean standaloneSet() {
+        return hasStartDocumentEvent() ? ((Boolean)buffer.data[4]).booleanValue()
+                : parent.standaloneSet();
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.soap.impl.builder;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.soap.SOAP11Constants;
+import org.apache.axiom.soap.SOAP11Version;
+import org.apache.axiom.soap.SOAP12Constants;
+import org.apache.axiom.soap.SOAP12Version;
+import org.apache.axiom.soap.SOAPConstants;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPModelBuilder;
+import org.apache.axiom.soap.SOAPProcessingException;
+import org.apache.axiom.soap.SOAPVersion;
+
+/**
+ * Extracts the information typically needed to route or dispatch a SOAP message, without building
+ * an object model for it. This information consists of the SOAP version, the name of the first
+ * child element of the SOAP body (see {@link SOAPEnvelope#getSOAPBodyFirstElementNS()} and
+ * {@link SOAPEnvelope#getSOAPBodyFirstElementLocalName()}), the values of the WS-Addressing
+ * <tt>Action</tt> and <tt>To</tt> headers and whether the message is a fault.
+ * <p>
+ * The constructor reads events from the parser in a single forward pass and stops at the start
+ * tag of the first child element of the SOAP body, or at the end of the SOAP body if it is empty.
+ * The events consumed up to that point are recorded (in a compact form that doesn't require an
+ * object per event). If the message needs to be processed further,
+ * {@link #createSOAPModelBuilder(OMMetaFactory)} returns a builder that first replays these events
+ * and then continues with the parser, so that the message is built exactly as if the sniffer had
+ * not been used. Header blocks are only built if the object model is navigated.
+ * <p>
+ * Both the W3C and the submission version of WS-Addressing are recognized. If a header appears
+ * multiple times (e.g. because it is targeted at different roles), the first occurrence is used.
+ * <p>
+ * Instances of this class are not thread safe.
+ */
+public final class SOAPMessageSniffer {
+    /**
+     * The namespace URI of the W3C Recommendation version of WS-Addressing.
+     */
+    private static final String WSA_NAMESPACE_URI = "http://www.w3.org/2005/08/addressing";
+
+    /**
+     * The namespace URI of the member submission version of WS-Addressing.
+     */
+    private static final String WSA_SUBMISSION_NAMESPACE_URI =
+            "http://schemas.xmlsoap.org/ws/2004/08/addressing";
+
+    private static final String WSA_ACTION_LOCAL_NAME = "Action";
+    private static final String WSA_TO_LOCAL_NAME = "To";
+
+    private final XMLStreamReader parser;
+    private ReplayingXMLStreamReader.EventBuffer events = new ReplayingXMLStreamReader.EventBuffer();
+    private SOAPVersion soapVersion;
+    private String bodyFirstElementNS;
+    private String bodyFirstElementLocalName;
+    private boolean fault;
+    private String action;
+    private String to;
+
+    /**
+     * Constructor. This reads the parser up to the first child element of the SOAP body.
+     *
+     * @param parser
+     *            the parser for the SOAP message; it should be positioned at the start of the
+     *            document and should be configured as specified by
+     *            {@link org.apache.axiom.om.util.StAXParserConfiguration#SOAP}
+     * @throws XMLStreamException
+     *             if the parser reports an error
+     * @throws SOAPProcessingException
+     *             if the document is not a SOAP 1.1 or SOAP 1.2 message
+     */
+    public SOAPMessageSniffer(XMLStreamReader parser) throws XMLStreamException {
+        this.parser = parser;
+        int depth = 0;
+        boolean inHeader = false;
+        boolean inBody = false;
+        // The local name of the WS-Addressing header whose content is being collected
+        String addressingHeader = null;
+        StringBuilder addressingValue = null;
+        loop: while (true) {
+            switch (parser.getEventType()) {
+                case XMLStreamReader.START_ELEMENT:
+                    depth++;
+                    String namespaceURI = parser.getNamespaceURI();
+                    String localName = parser.getLocalName();
+                    if (depth == 1) {
+                        identifySOAPVersion(namespaceURI, localName);
+                    } else if (depth == 2) {
+                        if (soapVersion.getEnvelopeURI().equals(namespaceURI)) {
+                            inHeader = localName.equals(SOAPConstants.HEADER_LOCAL_NAME);
+                            inBody = localName.equals(SOAPConstants.BODY_LOCAL_NAME);
+                        }
+                    } else if (depth == 3) {
+                        if (inBody) {
+                            bodyFirstElementNS = namespaceURI;
+                            bodyFirstElementLocalName = localName;
+                            fault = localName.equals(SOAPConstants.BODY_FAULT_LOCAL_NAME)
+                                    && soapVersion.getEnvelopeURI().equals(namespaceURI);
+                            break loop;
+                        } else if (inHeader && (WSA_NAMESPACE_URI.equals(namespaceURI)
+                                || WSA_SUBMISSION_NAMESPACE_URI.equals(namespaceURI))) {
+                            if ((localName.equals(WSA_ACTION_LOCAL_NAME) && action == null)
+                                    || (localName.equals(WSA_TO_LOCAL_NAME) && to == null)) {
+                                addressingHeader = localName;
+                                addressingValue = new StringBuilder();
+                            }
+                        }
+                    }
+                    break;
+                case XMLStreamReader.END_ELEMENT:
+                    if (depth == 3 && addressingHeader != null) {
+                        String value = addressingValue.toString().trim();
+                        if (addressingHeader.equals(WSA_ACTION_LOCAL_NAME)) {
+                            action = value;
+                        } else {
+                            to = value;
+                        }
+                        addressingHeader = null;
+                        addressingValue = null;
+                    } else if (depth == 2) {
+                        if (inBody) {
+                            // The body is empty
+                            break loop;
+                        }
+                        inHeader = false;
+                    }
+                    depth--;
+                    break;
+                case XMLStreamReader.CHARACTERS:
+                case XMLStreamReader.CDATA:
+                case XMLStreamReader.SPACE:
+                    if (depth == 3 && addressingHeader != null) {
+                        addressingValue.append(parser.getText());
+                    }
+                    break;
+                case XMLStreamReader.DTD:
+                    throw new SOAPProcessingException(
+                            "SOAP message MUST NOT contain a Document Type Declaration(DTD)");
+                case XMLStreamReader.END_DOCUMENT:
+                    break loop;
+            }
+            events.record(parser);
+            parser.next();
+        }
+        if (soapVersion == null) {
+            throw new SOAPProcessingException("SOAP Message does not contain an Envelope",
+                    SOAPConstants.FAULT_CODE_VERSION_MISMATCH);
+        }
+    }
+
+    private void identifySOAPVersion(String namespaceURI, String localName) {
+        if (!localName.equals(SOAPConstants.SOAPENVELOPE_LOCAL_NAME)) {
+            throw new SOAPProcessingException("First Element must contain the local name, "
+                    + SOAPConstants.SOAPENVELOPE_LOCAL_NAME + " , but found " + localName,
+                    SOAPConstants.FAULT_CODE_SENDER);
+        }
+        if (SOAP12Constants.SOAP_ENVELOPE_NAMESPACE_URI.equals(namespaceURI)) {
+            soapVersion = SOAP12Version.getSingleton();
+        } else if (SOAP11Constants.SOAP_ENVELOPE_NAMESPACE_URI.equals(namespaceURI)) {
+            soapVersion = SOAP11Version.getSingleton();
+        } else {
+            throw new SOAPProcessingException(
+                    "Only SOAP 1.1 or SOAP 1.2 messages are supported in the" +
+                            " system", SOAPConstants.FAULT_CODE_VERSION_MISMATCH);
+        }
+    }
+
+    /**
+     * Get the SOAP version of the message.
+     *
+     * @return the SOAP version
+     */
+    public SOAPVersion getSOAPVersion() {
+        return soapVersion;
+    }
+
+    /**
+     * Get the namespace URI of the first child element of the SOAP body.
+     *
+     * @return the namespace URI (which may be the empty string), or <code>null</code> if the SOAP
+     *         body is empty or there is no SOAP body
+     * @see SOAPEnvelope#getSOAPBodyFirstElementNS()
+     */
+    public String getSOAPBodyFirstElementNS() {
+        return bodyFirstElementNS;
+    }
+
+    /**
+     * Get the local name of the first child element of the SOAP body.
+     *
+     * @return the local name, or <code>null</code> if the SOAP body is empty or there is no SOAP
+     *         body
+     * @see SOAPEnvelope#getSOAPBodyFirstElementLocalName()
+     */
+    public String getSOAPBodyFirstElementLocalName() {
+        return bodyFirstElementLocalName;
+    }
+
+    /**
+     * Determine whether the message is a fault, i.e. whether the first child element of the SOAP
+     * body is a SOAP fault.
+     *
+     * @return <code>true</code> if the message is a fault, <code>false</code> otherwise
+     */
+    public boolean hasFault() {
+        return fault;
+    }
+
+    /**
+     * Get the value of the WS-Addressing <tt>Action</tt> header.
+     *
+     * @return the value, with leading and trailing whitespace removed, or <code>null</code> if
+     *         the message has no such header
+     */
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * Get the value of the WS-Addressing <tt>To</tt> header.
+     *
+     * @return the value, with leading and trailing whitespace removed, or <code>null</code> if
+     *         the message has no such header
+     */
+    public String getTo() {
+        return to;
+    }
+
+    /**
+     * Create a builder for the message using the default Axiom implementation. See
+     * {@link #createSOAPModelBuilder(OMMetaFactory)} for more information.
+     *
+     * @return the builder
+     */
+    public SOAPModelBuilder createSOAPModelBuilder() {
+        return createSOAPModelBuilder(OMAbstractFactory.getMetaFactory());
+    }
+
+    /**
+     * Create a builder for the message using a particular Axiom implementation. The builder
+     * resumes parsing where the sniffer stopped; the events already consumed by the sniffer are
+     * replayed to it, so that it builds the complete message. This method can only be called once.
+     * Closing the builder closes the parser, but not the underlying input stream.
+     *
+     * @param metaFactory
+     *            the meta factory for the Axiom implementation to use
+     * @return the builder
+     * @throws IllegalStateException
+     *             if a builder has already been created
+     */
+    public SOAPModelBuilder createSOAPModelBuilder(OMMetaFactory metaFactory) {
+        if (events == null) {
+            throw new IllegalStateException("A builder has already been created");
+        }
+        XMLStreamReader reader = events.isEmpty() ? parser
+                : new ReplayingXMLStreamReader(parser, events);
+        events = null;
+        return OMXMLBuilderFactory.createStAXSOAPModelBuilder(metaFactory, reader);
+    }
+}
@@ -179,6 +179,12 @@ public class StAXSOAPModelBuilder extends StAXOMBuilder implements SOAPModelBuil
                 newElement = createWithCustomBuilder(customBuilder, soapFactory);
             }
         }
+        // The envelope, header and body elements, header blocks (which are processed by the
+        // SOAP stack anyway) and faults are never deferred
+        if (newElement == null && elementLevel == deferredBuildingLevel && elementLevel > 2
+                && !processingFault && !(target instanceof SOAPHeader) && !isFault()) {
+            newElement = createDeferredOMElement(soapFactory);
+        }
         if (newElement == null) {
             newElement = createOMElement();
         } else {
@@ -187,6 +193,12 @@ public class StAXSOAPModelBuilder extends StAXOMBuilder implements SOAPModelBuil
         return newElement;
     }
     
+    private boolean isFault() {
+        return target instanceof SOAPBody
+                && parser.getLocalName().equals(SOAPConstants.BODY_FAULT_LOCAL_NAME)
+                && soapFactory.getSoapVersionURI().equals(parser.getNamespaceURI());
+    }
+    
     protected OMElement constructNode(OMContainer parent, String elementName) {
         OMElement element;
         if (elementLevel == 1) {
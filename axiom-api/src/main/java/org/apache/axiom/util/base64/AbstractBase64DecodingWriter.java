@@ -26,16 +26,61 @@ import java.io.Writer;
  * Base class for {@link Writer} implementations that decode data in base64.
  */
 public abstract class AbstractBase64DecodingWriter extends Writer {
+    /**
+     * The maximum number of bytes passed to {@link #doWrite(byte[], int)} in a single call if
+     * block writes are enabled.
+     */
+    private static final int MAX_CHUNK_SIZE = 768;
+    
+    private final boolean blockWrites;
     private final char[] in = new char[4];
     private final byte[] out = new byte[3];
+    private byte[] blockBuffer;
     private int rest; // Number of characters remaining in the in buffer
 
+    /**
+     * Constructor. {@link #doWrite(byte[], int)} will be called with at most 3 bytes at a time.
+     */
+    protected AbstractBase64DecodingWriter() {
+        this(false);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param blockWrites
+     *            <code>true</code> if runs of complete groups of 4 characters should be decoded
+     *            in bulk, in which case {@link #doWrite(byte[], int)} may be called with up to
+     *            768 bytes; <code>false</code> to pass at most 3 bytes per call
+     */
+    protected AbstractBase64DecodingWriter(boolean blockWrites) {
+        this.blockWrites = blockWrites;
+    }
+    
     private static boolean isWhitespace(int c) {
         return c <= 32 && (c == ' ' || c == '\n' || c == '\r' || c == '\t'); 
     }
     
+    private byte[] getBlockBuffer() {
+        if (blockBuffer == null) {
+            blockBuffer = new byte[MAX_CHUNK_SIZE];
+        }
+        return blockBuffer;
+    }
+    
     public final void write(char[] cbuf, int off, int len) throws IOException {
         while (len > 0) {
+            if (blockWrites && rest == 0 && len >= 4) {
+                // Fast path: decode as many complete groups as possible in a single step
+                byte[] buffer = getBlockBuffer();
+                int consumed = Base64Codec.decodeBlocks(cbuf, off, Math.min(len, buffer.length / 3 * 4), buffer, 0);
+                if (consumed > 0) {
+                    doWrite(buffer, consumed / 4 * 3);
+                    off += consumed;
+                    len -= consumed;
+                    continue;
+                }
+            }
             write(cbuf[off]);
             off++;
             len--;
@@ -44,6 +89,16 @@ public abstract class AbstractBase64DecodingWriter extends Writer {
 
     public final void write(String str, int off, int len) throws IOException {
         while (len > 0) {
+            if (blockWrites && rest == 0 && len >= 4) {
+                byte[] buffer = getBlockBuffer();
+                int consumed = Base64Codec.decodeBlocks(str, off, Math.min(len, buffer.length / 3 * 4), buffer, 0);
+                if (consumed > 0) {
+                    doWrite(buffer, consumed / 4 * 3);
+                    off += consumed;
+                    len -= consumed;
+                    continue;
+                }
+            }
             write(str.charAt(off));
             off++;
             len--;
@@ -104,7 +159,10 @@ public abstract class AbstractBase64DecodingWriter extends Writer {
      * Write base64 decoded data. If necessary, the implementation should
      * accumulate the data in a buffer before writing it to the underlying
      * stream. The maximum number of bytes passed to this method in a single
-     * call is 3.
+     * call is 3, unless block writes have been enabled using
+     * {@link #AbstractBase64DecodingWriter(boolean)}; in that case, runs of
+     * complete groups written in bulk are passed in a single call of up to 768
+     * bytes. Note that the byte array may be reused after this method returns.
      * 
      * @param b
      *            the byte array containing the data to write, starting at
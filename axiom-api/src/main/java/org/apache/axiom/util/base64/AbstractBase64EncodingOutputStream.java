@@ -31,6 +31,7 @@ public abstract class AbstractBase64EncodingOutputStream extends OutputStream {
     private final boolean ignoreFlush;
     private final byte[] in = new byte[3];
     private final byte[] out = new byte[4];
+    private byte[] blockBuffer;
     private int rest; // Number of bytes remaining in the inBuffer
     private boolean completed;
 
@@ -73,10 +74,16 @@ public abstract class AbstractBase64EncodingOutputStream extends OutputStream {
                 rest = 0;
             }
         }
-        while (len >= 3) {
-            encode(b, off, 3);
-            off += 3;
-            len -= 3;
+        if (len >= 3) {
+            if (blockBuffer == null) {
+                blockBuffer = new byte[1024];
+            }
+            do {
+                int blockLen = Math.min(len - len % 3, blockBuffer.length / 4 * 3);
+                doWrite(blockBuffer, 0, Base64Codec.encode(b, off, blockLen, blockBuffer, 0));
+                off += blockLen;
+                len -= blockLen;
+            } while (len >= 3);
         }
         while (len > 0) {
             in[rest++] = b[off++];
@@ -108,27 +115,7 @@ public abstract class AbstractBase64EncodingOutputStream extends OutputStream {
     }
     
     private void encode(byte[] data, int off, int len) throws IOException {
-        if (len == 1) {
-            int i = data[off] & 0xff;
-            out[0] = Base64Constants.S_BASE64CHAR[i >> 2];
-            out[1] = Base64Constants.S_BASE64CHAR[(i << 4) & 0x3f];
-            out[2] = Base64Constants.S_BASE64PAD;
-            out[3] = Base64Constants.S_BASE64PAD;
-        } else if (len == 2) {
-            int i = ((data[off] & 0xff) << 8) + (data[off + 1] & 0xff);
-            out[0] = Base64Constants.S_BASE64CHAR[i >> 10];
-            out[1] = Base64Constants.S_BASE64CHAR[(i >> 4) & 0x3f];
-            out[2] = Base64Constants.S_BASE64CHAR[(i << 2) & 0x3f];
-            out[3] = Base64Constants.S_BASE64PAD;
-        } else {
-            int i = ((data[off] & 0xff) << 16)
-                    + ((data[off + 1] & 0xff) << 8)
-                    + (data[off + 2] & 0xff);
-            out[0] = Base64Constants.S_BASE64CHAR[i >> 18];
-            out[1] = Base64Constants.S_BASE64CHAR[(i >> 12) & 0x3f];
-            out[2] = Base64Constants.S_BASE64CHAR[(i >> 6) & 0x3f];
-            out[3] = Base64Constants.S_BASE64CHAR[i & 0x3f];
-        }
+        Base64Codec.encode(data, off, len, out, 0);
         doWrite(out);
     }
 
@@ -153,6 +140,28 @@ public abstract class AbstractBase64EncodingOutputStream extends OutputStream {
      */
     protected abstract void doWrite(byte[] b) throws IOException;
     
+    /**
+     * Write a chunk of base64 encoded data. This method is used when data is written in bulk. The
+     * default implementation splits the chunk into groups of 4 bytes and passes them to
+     * {@link #doWrite(byte[])}. Subclasses should override this method if they can process larger
+     * chunks more efficiently.
+     * 
+     * @param b
+     *            the byte array containing the data to write
+     * @param off
+     *            the offset of the data in the array
+     * @param len
+     *            the number of bytes to write; this is always a multiple of 4
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    protected void doWrite(byte[] b, int off, int len) throws IOException {
+        for (int end = off + len; off < end; off += 4) {
+            System.arraycopy(b, off, out, 0, 4);
+            doWrite(out);
+        }
+    }
+    
     /**
      * Write any pending data to the underlying stream, if applicable.
      * Note that implementations should not flush the underlying stream.
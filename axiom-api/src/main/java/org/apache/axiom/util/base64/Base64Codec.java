@@ -0,0 +1,380 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.util.base64;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Block oriented base64 encoder and decoder. In contrast to the stream based classes in this
+ * package, the methods in this class process data in bulk, i.e. they operate on arrays and buffers
+ * instead of individual groups of 3 bytes or 4 characters. The inner loops only consist of table
+ * lookups and shifts, so that they can be unrolled by the JIT compiler.
+ * <p>
+ * The encoding methods never insert line breaks. The decoding methods conform to the
+ * <a href="http://www.w3.org/TR/2004/REC-xmlschema-2-20041028/#base64Binary">XML Schema</a>
+ * specification with respect to white space.
+ */
+public final class Base64Codec {
+    private Base64Codec() {}
+
+    /**
+     * Get the number of characters produced when encoding a given number of bytes.
+     * 
+     * @param len
+     *            the number of bytes to encode
+     * @return the length of the base64 representation, including padding
+     */
+    public static int getEncodedLength(int len) {
+        return (len+2) / 3 * 4;
+    }
+
+    /**
+     * Encode data to base64 and write the result to a byte array using ASCII encoding. The
+     * encoded data is padded if <code>len</code> is not a multiple of 3.
+     * 
+     * @param src
+     *            the data to encode
+     * @param off
+     *            the offset of the first byte to encode
+     * @param len
+     *            the number of bytes to encode
+     * @param dst
+     *            the array to write the encoded data to; it must have space for at least
+     *            {@link #getEncodedLength(int)} bytes starting at <code>dstOff</code>
+     * @param dstOff
+     *            the offset in <code>dst</code> at which to start writing
+     * @return the number of bytes written
+     */
+    public static int encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        byte[] table = Base64Constants.S_BASE64CHAR;
+        int end = off + len;
+        int blockEnd = end - 2;
+        int rindex = off;
+        int windex = dstOff;
+        while (rindex < blockEnd) {
+            int i = (src[rindex] & 0xff) << 16
+                    | (src[rindex + 1] & 0xff) << 8
+                    | (src[rindex + 2] & 0xff);
+            dst[windex] = table[i >> 18];
+            dst[windex + 1] = table[(i >> 12) & 0x3f];
+            dst[windex + 2] = table[(i >> 6) & 0x3f];
+            dst[windex + 3] = table[i & 0x3f];
+            rindex += 3;
+            windex += 4;
+        }
+        int rest = end - rindex;
+        if (rest == 1) {
+            int i = src[rindex] & 0xff;
+            dst[windex++] = table[i >> 2];
+            dst[windex++] = table[(i << 4) & 0x3f];
+            dst[windex++] = Base64Constants.S_BASE64PAD;
+            dst[windex++] = Base64Constants.S_BASE64PAD;
+        } else if (rest == 2) {
+            int i = ((src[rindex] & 0xff) << 8) | (src[rindex + 1] & 0xff);
+            dst[windex++] = table[i >> 10];
+            dst[windex++] = table[(i >> 4) & 0x3f];
+            dst[windex++] = table[(i << 2) & 0x3f];
+            dst[windex++] = Base64Constants.S_BASE64PAD;
+        }
+        return windex - dstOff;
+    }
+
+    /**
+     * Encode data to base64 and write the result to a char array. The encoded data is padded if
+     * <code>len</code> is not a multiple of 3.
+     * 
+     * @param src
+     *            the data to encode
+     * @param off
+     *            the offset of the first byte to encode
+     * @param len
+     *            the number of bytes to encode
+     * @param dst
+     *            the array to write the encoded data to; it must have space for at least
+     *            {@link #getEncodedLength(int)} characters starting at <code>dstOff</code>
+     * @param dstOff
+     *            the offset in <code>dst</code> at which to start writing
+     * @return the number of characters written
+     */
+    public static int encode(byte[] src, int off, int len, char[] dst, int dstOff) {
+        byte[] table = Base64Constants.S_BASE64CHAR;
+        int end = off + len;
+        int blockEnd = end - 2;
+        int rindex = off;
+        int windex = dstOff;
+        while (rindex < blockEnd) {
+            int i = (src[rindex] & 0xff) << 16
+                    | (src[rindex + 1] & 0xff) << 8
+                    | (src[rindex + 2] & 0xff);
+            dst[windex] = (char)table[i >> 18];
+            dst[windex + 1] = (char)table[(i >> 12) & 0x3f];
+            dst[windex + 2] = (char)table[(i >> 6) & 0x3f];
+            dst[windex + 3] = (char)table[i & 0x3f];
+            rindex += 3;
+            windex += 4;
+        }
+        int rest = end - rindex;
+        if (rest == 1) {
+            int i = src[rindex] & 0xff;
+            dst[windex++] = (char)table[i >> 2];
+            dst[windex++] = (char)table[(i << 4) & 0x3f];
+            dst[windex++] = Base64Constants.S_BASE64PAD;
+            dst[windex++] = Base64Constants.S_BASE64PAD;
+        } else if (rest == 2) {
+            int i = ((src[rindex] & 0xff) << 8) | (src[rindex + 1] & 0xff);
+            dst[windex++] = (char)table[i >> 10];
+            dst[windex++] = (char)table[(i >> 4) & 0x3f];
+            dst[windex++] = (char)table[(i << 2) & 0x3f];
+            dst[windex++] = Base64Constants.S_BASE64PAD;
+        }
+        return windex - dstOff;
+    }
+
+    /**
+     * Encode the content of a {@link ByteBuffer} and write the result to another
+     * {@link ByteBuffer} using ASCII encoding. The method encodes as many complete groups of 3
+     * bytes as the space remaining in the destination buffer allows. If <code>endOfInput</code> is
+     * <code>true</code>, then the last 1 or 2 bytes of the source buffer are encoded with padding
+     * (provided that there is enough space in the destination buffer). The positions of both
+     * buffers are updated to reflect the data that has been processed.
+     * 
+     * @param src
+     *            the data to encode
+     * @param dst
+     *            the buffer to write the encoded data to
+     * @param endOfInput
+     *            <code>true</code> if the source buffer contains the last chunk of data to encode
+     */
+    public static void encode(ByteBuffer src, ByteBuffer dst, boolean endOfInput) {
+        int blocks = Math.min(src.remaining() / 3, dst.remaining() / 4);
+        int len = blocks*3;
+        if (endOfInput && len + 3 > src.remaining() && src.remaining() > len && dst.remaining() >= blocks*4 + 4) {
+            len = src.remaining();
+        }
+        if (len == 0) {
+            return;
+        }
+        if (src.hasArray() && dst.hasArray()) {
+            int written = encode(src.array(), src.arrayOffset() + src.position(), len,
+                    dst.array(), dst.arrayOffset() + dst.position());
+            src.position(src.position() + len);
+            dst.position(dst.position() + written);
+        } else {
+            byte[] in = new byte[Math.min(len, 3072)];
+            byte[] out = new byte[getEncodedLength(in.length)];
+            while (len > 0) {
+                int chunk = Math.min(len, in.length);
+                src.get(in, 0, chunk);
+                dst.put(out, 0, encode(in, 0, chunk, out, 0));
+                len -= chunk;
+            }
+        }
+    }
+
+    /**
+     * Decode consecutive groups of 4 base64 characters. The method stops at the first group that
+     * contains white space, padding or invalid characters, or if less than 4 characters remain.
+     * These groups need to be processed by the caller. This method is intended to be used as a
+     * fast path by stream oriented decoders.
+     * 
+     * @param src
+     *            the base64 encoded data
+     * @param off
+     *            the offset of the first character to decode
+     * @param len
+     *            the number of characters available
+     * @param dst
+     *            the array to write the decoded data to; it must have space for at least
+     *            <code>len/4*3</code> bytes starting at <code>dstOff</code>
+     * @param dstOff
+     *            the offset in <code>dst</code> at which to start writing
+     * @return the number of characters consumed; this is always a multiple of 4 and the number of
+     *         bytes written is the returned value divided by 4 and multiplied by 3
+     */
+    public static int decodeBlocks(char[] src, int off, int len, byte[] dst, int dstOff) {
+        byte[] table = Base64Constants.S_DECODETABLE;
+        int rindex = off;
+        int end = off + len - 3;
+        int windex = dstOff;
+        while (rindex < end) {
+            char c0 = src[rindex];
+            char c1 = src[rindex + 1];
+            char c2 = src[rindex + 2];
+            char c3 = src[rindex + 3];
+            if ((c0 | c1 | c2 | c3) >= 128) {
+                break;
+            }
+            int b0 = table[c0];
+            int b1 = table[c1];
+            int b2 = table[c2];
+            int b3 = table[c3];
+            if ((b0 | b1 | b2 | b3) < 0) {
+                break;
+            }
+            int i = b0 << 18 | b1 << 12 | b2 << 6 | b3;
+            dst[windex] = (byte)(i >> 16);
+            dst[windex + 1] = (byte)(i >> 8);
+            dst[windex + 2] = (byte)i;
+            rindex += 4;
+            windex += 3;
+        }
+        return rindex - off;
+    }
+
+    /**
+     * Decode consecutive groups of 4 base64 characters. This method has the same semantics as
+     * {@link #decodeBlocks(char[], int, int, byte[], int)}, but reads from a {@link CharSequence}.
+     * 
+     * @param src
+     *            the base64 encoded data
+     * @param off
+     *            the offset of the first character to decode
+     * @param len
+     *            the number of characters available
+     * @param dst
+     *            the array to write the decoded data to
+     * @param dstOff
+     *            the offset in <code>dst</code> at which to start writing
+     * @return the number of characters consumed
+     */
+    public static int decodeBlocks(CharSequence src, int off, int len, byte[] dst, int dstOff) {
+        byte[] table = Base64Constants.S_DECODETABLE;
+        int rindex = off;
+        int end = off + len - 3;
+        int windex = dstOff;
+        while (rindex < end) {
+            char c0 = src.charAt(rindex);
+            char c1 = src.charAt(rindex + 1);
+            char c2 = src.charAt(rindex + 2);
+            char c3 = src.charAt(rindex + 3);
+            if ((c0 | c1 | c2 | c3) >= 128) {
+                break;
+            }
+            int b0 = table[c0];
+            int b1 = table[c1];
+            int b2 = table[c2];
+            int b3 = table[c3];
+            if ((b0 | b1 | b2 | b3) < 0) {
+                break;
+            }
+            int i = b0 << 18 | b1 << 12 | b2 << 6 | b3;
+            dst[windex] = (byte)(i >> 16);
+            dst[windex + 1] = (byte)(i >> 8);
+            dst[windex + 2] = (byte)i;
+            rindex += 4;
+            windex += 3;
+        }
+        return rindex - off;
+    }
+
+    /**
+     * Decode base64 encoded data into a byte array. This method is designed to conform to the
+     * <a href="http://www.w3.org/TR/2004/REC-xmlschema-2-20041028/#base64Binary">XML Schema</a>
+     * specification: white space is allowed anywhere in the data, but the data must be correctly
+     * padded and the unused bits in the last group must be zero.
+     * 
+     * @param data
+     *            the base64 encoded data
+     * @return the decoded data
+     * @throws IllegalArgumentException
+     *             if the data is not valid base64
+     */
+    public static byte[] decode(CharSequence data) {
+        int len = data.length();
+        // Compute the exact length of the result under the assumption that there is no white
+        // space. If there is white space, the result will be shorter and this is still a safe
+        // upper bound.
+        int maxLen = len / 4 * 3;
+        if (len > 0 && len % 4 == 0) {
+            if (data.charAt(len-1) == Base64Constants.S_BASE64PAD) {
+                maxLen--;
+                if (data.charAt(len-2) == Base64Constants.S_BASE64PAD) {
+                    maxLen--;
+                }
+            }
+        }
+        byte[] result = new byte[maxLen];
+        int pos = 0;
+        int resultPos = 0;
+        int group = 0;
+        int symbols = 0;
+        int padding = 0;
+        while (true) {
+            if (symbols == 0 && padding == 0) {
+                // The last group of 4 characters may contain padding; it is not handled by
+                // decodeBlocks, so that we never write beyond the end of the result array.
+                int consumed = decodeBlocks(data, pos, len - pos, result, resultPos);
+                pos += consumed;
+                resultPos += consumed / 4 * 3;
+            }
+            if (pos == len) {
+                break;
+            }
+            char c = data.charAt(pos++);
+            int b = c < 128 ? Base64Constants.S_DECODETABLE[c] : Base64Constants.INVALID;
+            switch (b) {
+                case Base64Constants.WHITE_SPACE:
+                    continue;
+                case Base64Constants.INVALID:
+                    throw new IllegalArgumentException("Invalid character encountered");
+                case Base64Constants.PADDING:
+                    if (padding == 2) {
+                        throw new IllegalArgumentException("Too much padding");
+                    }
+                    padding++;
+                    b = 0;
+                    break;
+                default:
+                    // Padding can only occur at the end
+                    if (padding > 0) {
+                        throw new IllegalArgumentException("Unexpected padding character");
+                    }
+            }
+            group = group << 6 | b;
+            if (++symbols == 4) {
+                if (padding == 0) {
+                    result[resultPos++] = (byte)(group >> 16);
+                    result[resultPos++] = (byte)(group >> 8);
+                    result[resultPos++] = (byte)group;
+                } else {
+                    if ((group & (padding == 1 ? 0xff : 0xffff)) != 0) {
+                        throw new IllegalArgumentException("Invalid base64 value");
+                    }
+                    result[resultPos++] = (byte)(group >> 16);
+                    if (padding == 1) {
+                        result[resultPos++] = (byte)(group >> 8);
+                    }
+                }
+                group = 0;
+                symbols = 0;
+            }
+        }
+        if (symbols != 0) {
+            throw new IllegalArgumentException("Missing padding");
+        }
+        if (resultPos == result.length) {
+            return result;
+        } else {
+            byte[] trimmed = new byte[resultPos];
+            System.arraycopy(result, 0, trimmed, 0, resultPos);
+            return trimmed;
+        }
+    }
+}
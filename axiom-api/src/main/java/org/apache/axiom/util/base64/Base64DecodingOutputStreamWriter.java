@@ -30,6 +30,8 @@ public class Base64DecodingOutputStreamWriter extends AbstractBase64DecodingWrit
     private final OutputStream stream;
 
     public Base64DecodingOutputStreamWriter(OutputStream stream) {
+        // OutputStream#write(byte[], int, int) accepts any number of bytes
+        super(true);
         this.stream = stream;
     }
 
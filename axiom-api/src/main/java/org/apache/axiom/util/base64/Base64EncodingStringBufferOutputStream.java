@@ -53,6 +53,12 @@ public class Base64EncodingStringBufferOutputStream extends AbstractBase64Encodi
         }
     }
 
+    protected void doWrite(byte[] b, int off, int len) throws IOException {
+        for (int end = off + len; off < end; off++) {
+            buffer.append((char)(b[off] & 0xFF));
+        }
+    }
+
     protected void flushBuffer() throws IOException {
         // Nothing to do
     }
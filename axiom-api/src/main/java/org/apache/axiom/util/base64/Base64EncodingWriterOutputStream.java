@@ -78,6 +78,19 @@ public class Base64EncodingWriterOutputStream extends AbstractBase64EncodingOutp
         }
     }
     
+    protected void doWrite(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (buffer.length == this.len) {
+                flushBuffer();
+            }
+            int chunk = Math.min(len, buffer.length - this.len);
+            for (int i = 0; i < chunk; i++) {
+                buffer[this.len++] = (char)(b[off++] & 0xFF);
+            }
+            len -= chunk;
+        }
+    }
+    
     protected void flushBuffer() throws IOException {
         writer.write(buffer, 0, len);
         len = 0;
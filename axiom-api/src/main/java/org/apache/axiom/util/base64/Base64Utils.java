@@ -31,10 +31,6 @@ import org.apache.axiom.util.activation.DataSourceUtils;
  * Contains utility methods to work with base64 encoded data.
  */
 public class Base64Utils {
-    private static int getEncodedSize(int unencodedSize) {
-        return (unencodedSize+2) / 3 * 4;
-    }
-    
     private static int getBufferSize(DataHandler dh) {
         long size = DataSourceUtils.getSize(dh.getDataSource());
         if (size == -1) {
@@ -43,7 +39,7 @@ public class Base64Utils {
         } else if (size > Integer.MAX_VALUE) {
             throw new IllegalArgumentException("DataHandler is too large to encode to string");
         } else {
-            return getEncodedSize((int)size);
+            return Base64Codec.getEncodedLength((int)size);
         }
     }
     
@@ -56,13 +52,7 @@ public class Base64Utils {
      * @throws IOException if an I/O error occurs when reading the content of the data handler
      */
     public static String encode(DataHandler dh) throws IOException {
-        StringBuilder buffer = new StringBuilder(getBufferSize(dh));
-        Base64EncodingStringBufferOutputStream out = new Base64EncodingStringBufferOutputStream(buffer);
-        // Always prefer writeTo, because getInputStream will create a thread and a pipe if
-        // the DataHandler was constructed using an object instead of a DataSource
-        dh.writeTo(out);
-        out.complete();
-        return buffer.toString();
+        return new String(encodeToCharArray(dh));
     }
 
     /**
@@ -76,6 +66,8 @@ public class Base64Utils {
     public static char[] encodeToCharArray(DataHandler dh) throws IOException {
         NoCopyCharArrayWriter buffer = new NoCopyCharArrayWriter(getBufferSize(dh));
         Base64EncodingWriterOutputStream out = new Base64EncodingWriterOutputStream(buffer);
+        // Always prefer writeTo, because getInputStream will create a thread and a pipe if
+        // the DataHandler was constructed using an object instead of a DataSource
         dh.writeTo(out);
         out.complete();
         return buffer.toCharArray();
@@ -146,59 +138,7 @@ public class Base64Utils {
      * @return the decoded data
      */
     public static byte[] decode(String data) {
-        int symbols = 0;
-        int padding = 0;
-        for (int i = 0; i < data.length(); i++) {
-            switch (Base64Constants.S_DECODETABLE[data.charAt(i)]) {
-                case Base64Constants.PADDING:
-                    if (padding == 2) {
-                        throw new IllegalArgumentException("Too much padding");
-                    }
-                    padding++;
-                    break;
-                case Base64Constants.WHITE_SPACE:
-                    break;
-                case Base64Constants.INVALID:
-                    throw new IllegalArgumentException("Invalid character encountered");
-                default:
-                    // Padding can only occur at the end
-                    if (padding > 0) {
-                        throw new IllegalArgumentException("Unexpected padding character");
-                    }
-                    symbols++;
-            }
-        }
-        if ((symbols + padding) % 4 != 0) {
-            throw new IllegalArgumentException("Missing padding");
-        }
-        byte[] result = new byte[(symbols + padding) / 4 * 3 - padding];
-        int pos = 0;
-        int resultPos = 0;
-        byte accumulator = 0;
-        int bits = 0;
-        while (symbols > 0) {
-            byte b = Base64Constants.S_DECODETABLE[data.charAt(pos++)];
-            if (b == Base64Constants.WHITE_SPACE) {
-                continue;
-            }
-            if (bits == 0) {
-                accumulator = (byte)(b << 2);
-                bits = 6;
-            } else {
-                accumulator |= b >> (bits - 2);
-                result[resultPos++] = accumulator;
-                accumulator = (byte)(b << (10 - bits));
-                bits -= 2;
-            }
-            symbols--;
-        }
-        if (accumulator != 0) {
-            throw new IllegalArgumentException("Invalid base64 value");
-        }
-        if (resultPos != result.length) {
-            throw new Error("Oops. This is a bug.");
-        }
-        return result;
+        return Base64Codec.decode(data);
     }
 
     /**
@@ -19,10 +19,20 @@
 
 package org.apache.axiom.util.stax.dialect;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
 abstract class AbstractStAXDialect implements StAXDialect {
+    public XMLInputFactory enableInstanceReuse(XMLInputFactory factory) {
+        return null;
+    }
+
+    public XMLOutputFactory enableInstanceReuse(XMLOutputFactory factory) {
+        return null;
+    }
+
     public abstract XMLStreamReader normalize(XMLStreamReader reader);
     public abstract XMLStreamWriter normalize(XMLStreamWriter writer);
 }
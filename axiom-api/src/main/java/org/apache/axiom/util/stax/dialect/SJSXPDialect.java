@@ -74,6 +74,18 @@ class SJSXPDialect extends AbstractStAXDialect {
         return factory;
     }
 
+    public XMLInputFactory enableInstanceReuse(XMLInputFactory factory) {
+        // With this property set, the factory reuses the last reader it created if that reader
+        // has been closed
+        factory.setProperty("reuse-instance", Boolean.TRUE);
+        return factory;
+    }
+
+    public XMLOutputFactory enableInstanceReuse(XMLOutputFactory factory) {
+        factory.setProperty("reuse-instance", Boolean.TRUE);
+        return factory;
+    }
+
     public XMLStreamReader normalize(XMLStreamReader reader) {
         return new SJSXPStreamReaderWrapper(reader);
     }
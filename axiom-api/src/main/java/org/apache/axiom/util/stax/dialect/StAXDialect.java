@@ -22,6 +22,7 @@ package org.apache.axiom.util.stax.dialect;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
 /**
@@ -253,6 +254,33 @@ public interface StAXDialect {
      */
     XMLOutputFactory makeThreadSafe(XMLOutputFactory factory);
     
+    /**
+     * Configure an {@link XMLInputFactory} so that it recycles {@link XMLStreamReader} instances.
+     * If the dialect supports this, then a reader created by the factory may be reused by a
+     * subsequent invocation of one of the <code>createXMLStreamReader</code> methods once it has
+     * been closed. This saves the cost of allocating the internal buffers and symbol tables of the
+     * parser. Note that the returned factory is in general not thread safe, i.e. the caller must
+     * make sure that it is only used by one thread at a time.
+     * 
+     * @param factory
+     *            the factory to configure; this must be a "raw" factory object, i.e. it must not
+     *            have been normalized or made thread safe
+     * @return the configured factory, or <code>null</code> if the dialect doesn't support reuse of
+     *         stream readers
+     */
+    XMLInputFactory enableInstanceReuse(XMLInputFactory factory);
+    
+    /**
+     * Configure an {@link XMLOutputFactory} so that it recycles {@link XMLStreamWriter} instances.
+     * This method has the same semantics as {@link #enableInstanceReuse(XMLInputFactory)}.
+     * 
+     * @param factory
+     *            the factory to configure
+     * @return the configured factory, or <code>null</code> if the dialect doesn't support reuse of
+     *         stream writers
+     */
+    XMLOutputFactory enableInstanceReuse(XMLOutputFactory factory);
+    
     /**
      * Normalize an {@link XMLInputFactory}. This will make sure that the readers created from the
      * factory conform to the StAX specifications.
@@ -49,6 +49,14 @@ class UnknownStAXDialect implements StAXDialect {
         return factory;
     }
 
+    public XMLInputFactory enableInstanceReuse(XMLInputFactory factory) {
+        return null;
+    }
+
+    public XMLOutputFactory enableInstanceReuse(XMLOutputFactory factory) {
+        return null;
+    }
+
     public XMLInputFactory normalize(XMLInputFactory factory) {
         return factory;
     }
@@ -59,6 +59,21 @@ class Woodstox4Dialect extends AbstractStAXDialect {
         return factory;
     }
 
+    public XMLInputFactory enableInstanceReuse(XMLInputFactory factory) {
+        // Woodstox doesn't recycle reader instances, but it recycles their buffers (per thread)
+        // when they are closed. What remains is the symbol table owned by the factory: readers
+        // merge their symbols back into it under a lock. A factory that is not shared between
+        // threads avoids contention on that lock and keeps a symbol table warmed up by the
+        // documents previously parsed by the same pool member.
+        return factory;
+    }
+
+    public XMLOutputFactory enableInstanceReuse(XMLOutputFactory factory) {
+        // Writers don't share any state with the factory; their buffers are already recycled
+        // when they are closed. Pooling wouldn't gain anything.
+        return null;
+    }
+
     public XMLStreamReader normalize(XMLStreamReader reader) {
         return new Woodstox4StreamReaderWrapper(reader);
     }
@@ -26,11 +26,12 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
 import org.apache.axiom.ext.stax.CharacterDataReader;
+import org.apache.axiom.ext.stax.CharacterOffsetReader;
 import org.apache.axiom.ext.stax.DelegatingXMLStreamReader;
 import org.apache.axiom.util.stax.XMLStreamReaderUtils;
 import org.codehaus.stax2.XMLStreamReader2;
 
-class Woodstox4StreamReaderWrapper extends StAX2StreamReaderWrapper implements DelegatingXMLStreamReader, CharacterDataReader {
+class Woodstox4StreamReaderWrapper extends StAX2StreamReaderWrapper implements DelegatingXMLStreamReader, CharacterDataReader, CharacterOffsetReader {
     public Woodstox4StreamReaderWrapper(XMLStreamReader reader) {
         super(reader);
     }
@@ -122,7 +123,8 @@ class Woodstox4StreamReaderWrapper extends StAX2StreamReaderWrapper implements D
     }
 
     public Object getProperty(String name) throws IllegalArgumentException {
-        if (CharacterDataReader.PROPERTY.equals(name)) {
+        if (CharacterDataReader.PROPERTY.equals(name)
+                || CharacterOffsetReader.PROPERTY.equals(name)) {
             return this;
         } else {
             return super.getProperty(name);
@@ -133,4 +135,14 @@ class Woodstox4StreamReaderWrapper extends StAX2StreamReaderWrapper implements D
         // Allow efficient access to character data, even if coalescing is enabled
         ((XMLStreamReader2)XMLStreamReaderUtils.getOriginalXMLStreamReader(this)).getText(writer, false);
     }
+
+    public long getStartingCharOffset() {
+        return ((XMLStreamReader2)XMLStreamReaderUtils.getOriginalXMLStreamReader(this))
+                .getLocationInfo().getStartingCharOffset();
+    }
+
+    public long getEndingCharOffset() throws XMLStreamException {
+        return ((XMLStreamReader2)XMLStreamReaderUtils.getOriginalXMLStreamReader(this))
+                .getLocationInfo().getEndingCharOffset();
+    }
 }
@@ -33,6 +33,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.activation.DataHandler;
 import javax.activation.DataSource;
@@ -43,6 +45,9 @@ import javax.mail.internet.MimeMultipart;
 import javax.mail.util.ByteArrayDataSource;
 
 import org.apache.axiom.attachments.lifecycle.DataHandlerExt;
+import org.apache.axiom.blob.Blobs;
+import org.apache.axiom.blob.WritableBlob;
+import org.apache.axiom.blob.WritableBlobFactory;
 import org.apache.axiom.ext.activation.SizeAwareDataSource;
 import org.apache.axiom.om.AbstractTestCase;
 import org.apache.axiom.om.OMException;
@@ -767,4 +772,94 @@ public class AttachmentsTest extends AbstractTestCase {
                 MTOMSample.QUOTED_PRINTABLE.getPart(1),
                 dh.getInputStream());
     }
+
+    private static final WritableBlobFactory memoryBlobFactory = new WritableBlobFactory() {
+        public WritableBlob createBlob() {
+            return Blobs.createMemoryBlob();
+        }
+    };
+    
+    public void testPrefetch() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Attachments attachments = new Attachments(MTOMSample.SAMPLE1.getInputStream(),
+                    MTOMSample.SAMPLE1.getContentType(), memoryBlobFactory, executor);
+            IOTestUtils.compareStreams(MTOMSample.SAMPLE1.getPart(0),
+                    attachments.getRootPartInputStream());
+            DataHandler dh = attachments.getDataHandler("2.urn:uuid:A3ADBAEE51A1A87B2A11443668160994@apache.org");
+            assertNotNull(dh);
+            IOTestUtils.compareStreams(MTOMSample.SAMPLE1.getPart(2), dh.getInputStream());
+            assertNull(attachments.getDataHandler("ThisShouldReturnNull"));
+            String[] contentIDs = attachments.getAllContentIDs();
+            assertEquals(3, contentIDs.length);
+            assertEquals("1.urn:uuid:A3ADBAEE51A1A87B2A11443668160943@apache.org", contentIDs[1]);
+            assertEquals(IOUtils.toByteArray(MTOMSample.SAMPLE1.getInputStream()).length,
+                    attachments.getContentLength());
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    public void testPrefetchWithIOException() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        InputStream in = MTOMSample.SAMPLE1.getInputStream();
+        try {
+            Attachments attachments = new Attachments(new ExceptionInputStream(in, 1500),
+                    MTOMSample.SAMPLE1.getContentType(), memoryBlobFactory, executor);
+            try {
+                attachments.getDataHandler("1.urn:uuid:A3ADBAEE51A1A87B2A11443668160943@apache.org");
+                fail("Expected exception");
+            } catch (OMException ex) {
+                // Expected
+            }
+        } finally {
+            in.close();
+            executor.shutdown();
+        }
+    }
+    
+    public void testPrefetchWithError() throws Exception {
+        final OutOfMemoryError error = new OutOfMemoryError();
+        // Fail when the blob for the first attachment part is created, i.e. in the prefetch task
+        // (the root part uses a different blob factory)
+        WritableBlobFactory blobFactory = new WritableBlobFactory() {
+            private int count;
+            
+            public WritableBlob createBlob() {
+                if (count++ == 0) {
+                    throw error;
+                }
+                return Blobs.createMemoryBlob();
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Attachments attachments = new Attachments(MTOMSample.SAMPLE1.getInputStream(),
+                    MTOMSample.SAMPLE1.getContentType(), blobFactory, executor);
+            try {
+                attachments.getDataHandler("1.urn:uuid:A3ADBAEE51A1A87B2A11443668160943@apache.org");
+                fail("Expected exception");
+            } catch (OMException ex) {
+                assertSame(error, ex.getCause());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    public void testPrefetchGetIncomingAttachmentStreams() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Attachments attachments = new Attachments(MTOMSample.SAMPLE1.getInputStream(),
+                    MTOMSample.SAMPLE1.getContentType(), memoryBlobFactory, executor);
+            try {
+                attachments.getIncomingAttachmentStreams();
+                fail("Expected IllegalStateException");
+            } catch (IllegalStateException ex) {
+                // Expected
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.attachments.lifecycle.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.OutputStream;
+
+import junit.framework.TestCase;
+
+public class ConcurrentLifecycleManagerTest extends TestCase {
+    private static String getAttachmentsDir() {
+        File attachmentsDir = new File(System.getProperty("basedir", ".") + "/target/attachments");
+        attachmentsDir.mkdirs();
+        return attachmentsDir.getAbsolutePath();
+    }
+    
+    public void testCreateAndDelete() throws Exception {
+        ConcurrentLifecycleManager manager = new ConcurrentLifecycleManager();
+        FileAccessor accessor = manager.create(getAttachmentsDir());
+        File file = accessor.getFile();
+        assertThat(manager.getFileAccessor(file.getName())).isSameAs(accessor);
+        OutputStream out = accessor.getOutputStream();
+        out.write(new byte[1000]);
+        out.write(1);
+        out.close();
+        assertThat(file.exists()).isTrue();
+        assertThat(manager.getLiveFileCount()).isEqualTo(1);
+        assertThat(manager.getLiveBytes()).isEqualTo(1001L);
+        manager.delete(file);
+        assertThat(file.exists()).isFalse();
+        assertThat(manager.getFileAccessor(file.getName())).isNull();
+        assertThat(manager.getLiveFileCount()).isEqualTo(0);
+        assertThat(manager.getLiveBytes()).isEqualTo(0L);
+    }
+    
+    public void testDeleteOnTimeInterval() throws Exception {
+        ConcurrentLifecycleManager manager = new ConcurrentLifecycleManager();
+        FileAccessor accessor = manager.create(getAttachmentsDir());
+        OutputStream out = accessor.getOutputStream();
+        out.write(new byte[100]);
+        out.close();
+        File file = accessor.getFile();
+        manager.deleteOnTimeInterval(1, file);
+        long timeout = System.currentTimeMillis() + 10000;
+        while (file.exists() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(100);
+        }
+        assertThat(file.exists()).isFalse();
+        assertThat(manager.getLiveFileCount()).isEqualTo(0);
+        assertThat(manager.getLiveBytes()).isEqualTo(0L);
+    }
+}
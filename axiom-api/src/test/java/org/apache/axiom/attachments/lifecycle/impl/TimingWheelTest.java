@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.attachments.lifecycle.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TimingWheelTest extends TestCase {
+    private static Runnable task(final List<Integer> executed, final int id) {
+        return new Runnable() {
+            public void run() {
+                executed.add(id);
+            }
+        };
+    }
+    
+    public void testExpiry() {
+        TimingWheel wheel = new TimingWheel(10, 8);
+        long start = System.nanoTime();
+        List<Integer> executed = new ArrayList<Integer>();
+        wheel.schedule(task(executed, 1), 25);
+        // Exceeds the size of the wheel
+        wheel.schedule(task(executed, 2), 1000);
+        wheel.schedule(task(executed, 3), 0);
+        wheel.advance(start);
+        assertThat(executed).isEmpty();
+        wheel.advance(start + 20000000L);
+        assertThat(executed).containsExactly(3);
+        wheel.advance(start + 100000000L);
+        assertThat(executed).containsExactly(3, 1).inOrder();
+        wheel.advance(start + 990000000L);
+        assertThat(executed).containsExactly(3, 1).inOrder();
+        wheel.advance(start + 1100000000L);
+        assertThat(executed).containsExactly(3, 1, 2).inOrder();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+
+public class DirectMemoryBlobImplTest extends TestCase {
+    public void testReadAfterRelease() throws Exception {
+        MemoryBlob blob = Blobs.createDirectMemoryBlob();
+        OutputStream out = blob.getOutputStream();
+        out.write(new byte[100]);
+        out.close();
+        InputStream in = blob.getInputStream();
+        assertEquals(0, in.read());
+        blob.release();
+        try {
+            in.read();
+            fail("Expected IOException");
+        } catch (IOException ex) {
+            // Expected
+        }
+        try {
+            in.read(new byte[10]);
+            fail("Expected IOException");
+        } catch (IOException ex) {
+            // Expected
+        }
+    }
+    
+    public void testByteBuffersAfterRelease() throws Exception {
+        MemoryBlob blob = Blobs.createDirectMemoryBlob();
+        OutputStream out = blob.getOutputStream();
+        for (int i=0; i<20000; i++) {
+            out.write(i);
+        }
+        out.close();
+        ByteBuffer[] buffers = blob.getByteBuffers();
+        blob.release();
+        int i = 0;
+        for (ByteBuffer buffer : buffers) {
+            while (buffer.hasRemaining()) {
+                assertEquals((byte)i++, buffer.get());
+            }
+        }
+        assertEquals(20000, i);
+    }
+    
+    public void testWriteAfterRelease() throws Exception {
+        MemoryBlob blob = Blobs.createDirectMemoryBlob();
+        OutputStream out = blob.getOutputStream();
+        out.write(1);
+        blob.release();
+        try {
+            out.write(2);
+            fail("Expected IOException");
+        } catch (IOException ex) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import junit.framework.TestCase;
+
+public class SizeClassBufferPoolTest extends TestCase {
+    public void testSizeClasses() {
+        BufferPool pool = new SizeClassBufferPool(4, 1024*1024);
+        assertThat(pool.allocate(1).length).isEqualTo(SizeClassBufferPool.MIN_SIZE);
+        assertThat(pool.allocate(4096).length).isEqualTo(4096);
+        assertThat(pool.allocate(4097).length).isEqualTo(8192);
+        assertThat(pool.allocate(SizeClassBufferPool.MAX_SIZE+1).length).isEqualTo(SizeClassBufferPool.MAX_SIZE+1);
+    }
+    
+    public void testReuse() {
+        BufferPool pool = new SizeClassBufferPool(4, 1024*1024);
+        byte[] buffer = pool.allocate(5000);
+        pool.release(buffer);
+        assertThat(pool.allocate(8000)).isSameAs(buffer);
+        assertThat(pool.allocate(8000)).isNotSameAs(buffer);
+    }
+    
+    public void testReuseFromGlobalPool() throws Exception {
+        final BufferPool pool = new SizeClassBufferPool(0, 1024*1024);
+        final byte[] buffer = pool.allocate(4096);
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                pool.release(buffer);
+            }
+        };
+        thread.start();
+        thread.join();
+        assertThat(pool.allocate(4096)).isSameAs(buffer);
+    }
+    
+    public void testForeignBufferNotPooled() {
+        BufferPool pool = new SizeClassBufferPool(4, 1024*1024);
+        byte[] buffer = new byte[5000];
+        pool.release(buffer);
+        assertThat(pool.allocate(5000)).isNotSameAs(buffer);
+    }
+    
+    public void testMaxRetainedBytes() {
+        BufferPool pool = new SizeClassBufferPool(0, 4096);
+        byte[] buffer1 = pool.allocate(4096);
+        byte[] buffer2 = pool.allocate(4096);
+        pool.release(buffer1);
+        pool.release(buffer2);
+        assertThat(pool.allocate(4096)).isSameAs(buffer1);
+        assertThat(pool.allocate(4096)).isNotSameAs(buffer2);
+    }
+}
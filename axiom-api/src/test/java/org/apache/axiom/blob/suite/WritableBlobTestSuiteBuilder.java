@@ -70,8 +70,11 @@ public class WritableBlobTestSuiteBuilder extends MatrixTestSuiteBuilder {
     private void addTests(int size) {
         addTest(new TestMarkReset(factory, size));
         addTest(new TestReadFrom(factory, size));
+        addTest(new TestReadFromChannel(factory, size));
         addTest(new TestRandomReadWrite(factory, size));
         addTest(new TestWriteTo(factory, size, writeToUsesReadFromSupport));
+        addTest(new TestWriteToChannel(factory, size, false));
+        addTest(new TestWriteToChannel(factory, size, true));
         addTest(new TestWriteToWithError(factory, size));
     }
 }
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.ds.custombuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.IOUtils;
+
+public class RecordingInputStreamTest extends TestCase {
+    public void testDiscard() throws Exception {
+        StringBuilder buffer = new StringBuilder();
+        for (int i=0; i<5000; i++) {
+            buffer.append("éa");
+        }
+        buffer.append("<end/>");
+        String s = buffer.toString();
+        RecordingInputStream in = new RecordingInputStream(
+                new ByteArrayInputStream(s.getBytes("utf-8")));
+        IOUtils.toByteArray(in);
+        long pos = in.utf8CharToByteOffset(s.indexOf("<end/>"));
+        assertEquals(15000, pos);
+        in.discard(10000);
+        try {
+            in.byteAt(0);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException ex) {
+            // Expected
+        }
+        // Offsets before the cursor would require the discarded data
+        assertEquals(-1, in.utf8CharToByteOffset(100));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        in.writeTo(out, pos, in.getSize());
+        assertEquals("<end/>", new String(out.toByteArray(), "utf-8"));
+    }
+    
+    public void testDiscardBeforeConversion() throws Exception {
+        StringBuilder buffer = new StringBuilder();
+        for (int i=0; i<5000; i++) {
+            buffer.append("éa");
+        }
+        buffer.append("<end/>");
+        String s = buffer.toString();
+        RecordingInputStream in = new RecordingInputStream(
+                new ByteArrayInputStream(s.getBytes("utf-8")));
+        IOUtils.toByteArray(in);
+        in.discard(9000);
+        assertEquals(15000, in.utf8CharToByteOffset(s.indexOf("<end/>")));
+    }
+}
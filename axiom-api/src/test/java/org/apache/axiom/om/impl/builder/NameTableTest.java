@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.builder;
+
+import org.apache.axiom.om.OMNamespace;
+
+import junit.framework.TestCase;
+
+public class NameTableTest extends TestCase {
+    private static class TestNamespace implements OMNamespace {
+        private final String uri;
+        private final String prefix;
+        
+        TestNamespace(String uri, String prefix) {
+            this.uri = uri;
+            this.prefix = prefix;
+        }
+
+        public boolean equals(String uri, String prefix) {
+            return this.uri.equals(uri) && this.prefix.equals(prefix);
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public String getName() {
+            return uri;
+        }
+
+        public String getNamespaceURI() {
+            return uri;
+        }
+    }
+    
+    private static NameTable createRootTable(boolean concurrent, int maxSize) {
+        return new NameTable(null, concurrent, maxSize) {
+            protected OMNamespace createNamespace(String namespaceURI, String prefix) {
+                return new TestNamespace(namespaceURI, prefix);
+            }
+        };
+    }
+    
+    public void testIntern() {
+        NameTable table = createRootTable(false, Integer.MAX_VALUE);
+        String s = table.intern(new String("name"));
+        assertSame(s, table.intern(new String("name")));
+        assertSame("", table.intern(new String()));
+        assertNull(table.intern(null));
+    }
+    
+    public void testGetNamespace() {
+        NameTable table = createRootTable(true, Integer.MAX_VALUE);
+        OMNamespace ns = table.getNamespace(new String("urn:test"), "p");
+        assertSame(ns, table.getNamespace(new String("urn:test"), new String("p")));
+        assertNotSame(ns, table.getNamespace("urn:test", "q"));
+        assertNotSame(ns, table.getNamespace("urn:test", null));
+    }
+    
+    public void testParent() {
+        NameTable parent = createRootTable(true, Integer.MAX_VALUE);
+        NameTable child1 = new NameTable(parent);
+        NameTable child2 = new NameTable(parent);
+        assertSame(child1.intern(new String("name")), child2.intern(new String("name")));
+        assertSame(child1.getNamespace("urn:test", "p"), child2.getNamespace("urn:test", "p"));
+    }
+    
+    public void testMaxSize() {
+        NameTable table = createRootTable(true, 2);
+        table.intern("a");
+        table.intern("b");
+        assertEquals(2, table.size());
+        table.intern("c");
+        assertEquals(1, table.size());
+    }
+    
+    public void testEviction() {
+        NameTable table = createRootTable(false, 2);
+        String a = table.intern(new String("a"));
+        String b = table.intern(new String("b"));
+        // Starts a new generation; a and b are still found in the old one
+        table.intern("c");
+        assertSame(a, table.intern(new String("a")));
+        // Starts a new generation containing only d; b was not used and is evicted
+        table.intern("d");
+        assertSame(a, table.intern(new String("a")));
+        assertNotSame(b, table.intern(new String("b")));
+    }
+    
+    public void testNamespaceEviction() {
+        NameTable table = createRootTable(true, 2);
+        OMNamespace ns1 = table.getNamespace("urn:ns1", "p");
+        OMNamespace ns2 = table.getNamespace("urn:ns2", "p");
+        table.getNamespace("urn:ns3", "p");
+        assertSame(ns1, table.getNamespace("urn:ns1", "p"));
+        table.getNamespace("urn:ns4", "p");
+        assertSame(ns1, table.getNamespace("urn:ns1", "p"));
+        assertNotSame(ns2, table.getNamespace("urn:ns2", "p"));
+    }
+}
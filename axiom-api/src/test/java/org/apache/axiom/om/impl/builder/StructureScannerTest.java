@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.builder;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+public class StructureScannerTest extends TestCase {
+    private static StructureScanner scan(String xml, QName containerName) throws Exception {
+        return StructureScanner.scan(xml.getBytes("UTF-8"), containerName);
+    }
+    
+    private static String substring(String xml, int start, int end) throws Exception {
+        byte[] b = xml.getBytes("UTF-8");
+        return new String(b, start, end-start, "UTF-8");
+    }
+    
+    public void testDocumentElement() throws Exception {
+        String xml = "<?xml version='1.0' encoding='utf-8'?><!-- <x> --><root a='<b>'><a/> <b x=\"/>\">t&amp;t</b><?pi <c/>?><![CDATA[<d>]]><c><c/></c></root>";
+        StructureScanner scanner = scan(xml, null);
+        assertNotNull(scanner);
+        assertEquals("utf-8", scanner.getEncoding());
+        assertEquals(1, scanner.getPath().length);
+        assertEquals("<a/> <b x=\"/>\">t&amp;t</b><?pi <c/>?><![CDATA[<d>]]><c><c/></c>",
+                substring(xml, scanner.getContentStart(), scanner.getContentEnd()));
+        assertEquals(3, scanner.getBoundaryCount());
+        assertEquals("<a/> ", substring(xml, scanner.getBoundary(0), scanner.getBoundary(1)));
+        assertEquals("<c><c/></c>", substring(xml, scanner.getBoundary(2), scanner.getContentEnd()));
+    }
+    
+    public void testNestedContainer() throws Exception {
+        String xml = "<p:root xmlns:p='urn:p' xmlns='urn:d'><a/><p:list xmlns:q=\"urn:q\"/><list/>"
+                + "<x><p:list xmlns='urn:other'><q:item xmlns:q='urn:q'/><p:item/></p:list></x></p:root>";
+        StructureScanner scanner = scan(xml, new QName("urn:p", "list"));
+        assertNull("empty element must be skipped", scanner);
+        xml = xml.replace("<p:list xmlns:q=\"urn:q\"/>", "");
+        scanner = scan(xml, new QName("urn:p", "list"));
+        assertNotNull(scanner);
+        int[] path = scanner.getPath();
+        assertEquals(3, path.length);
+        assertEquals(0, path[0]);
+        assertEquals(2, path[1]);
+        assertEquals(0, path[2]);
+        assertEquals(2, scanner.getBoundaryCount());
+        assertEquals(" xmlns:p='urn:p' xmlns='urn:other'", new String(scanner.getNamespaceDeclarations(), "UTF-8"));
+    }
+    
+    public void testNoMatch() throws Exception {
+        assertNull(scan("<root><a/></root>", new QName("urn:x", "a")));
+    }
+    
+    public void testDoctype() throws Exception {
+        assertNull(scan("<!DOCTYPE root [<!ENTITY e 'x'>]><root><a>&e;</a></root>", null));
+    }
+    
+    public void testUnsupportedEncoding() throws Exception {
+        assertNull(StructureScanner.scan("<root><a/></root>".getBytes("UTF-16"), null));
+        assertNull(scan("<?xml version='1.0' encoding='Shift_JIS'?><root><a/></root>", null));
+    }
+    
+    public void testTruncated() throws Exception {
+        assertNull(scan("<root><a x='", null));
+        assertNull(scan("<root><a/>", null));
+    }
+}
@@ -19,6 +19,14 @@
 
 package org.apache.axiom.om.util;
 
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
 import junit.framework.TestCase;
 
 public class StAXUtilsTest extends TestCase {
@@ -41,4 +49,71 @@ public class StAXUtilsTest extends TestCase {
             // Expected
         }
     }
+    
+    public void testInputFactoryIsCachedPerConfiguration() {
+        assertSame(StAXUtils.getXMLInputFactory(StAXParserConfiguration.DEFAULT),
+                StAXUtils.getXMLInputFactory(StAXParserConfiguration.DEFAULT));
+        assertNotSame(StAXUtils.getXMLInputFactory(StAXParserConfiguration.DEFAULT),
+                StAXUtils.getXMLInputFactory(StAXParserConfiguration.STANDALONE));
+    }
+    
+    public void testInputFactoryIsCachedPerClassLoader() {
+        Thread thread = Thread.currentThread();
+        ClassLoader savedClassLoader = thread.getContextClassLoader();
+        try {
+            ClassLoader classLoader = new URLClassLoader(new URL[0], savedClassLoader);
+            thread.setContextClassLoader(classLoader);
+            assertSame(StAXUtils.getXMLInputFactory(), StAXUtils.getXMLInputFactory());
+            Object factory = StAXUtils.getXMLInputFactory();
+            thread.setContextClassLoader(new URLClassLoader(new URL[0], savedClassLoader));
+            assertNotSame(factory, StAXUtils.getXMLInputFactory());
+        } finally {
+            thread.setContextClassLoader(savedClassLoader);
+        }
+    }
+    
+    public void testReuseInstances() throws Exception {
+        StAXUtils.setReuseInstances(true);
+        try {
+            for (int i=0; i<3; i++) {
+                XMLStreamReader reader = StAXUtils.createXMLStreamReader(
+                        new StringReader("<root>" + i + "</root>"));
+                assertEquals(XMLStreamReader.START_ELEMENT, reader.nextTag());
+                assertEquals("root", reader.getLocalName());
+                assertEquals(String.valueOf(i), reader.getElementText());
+                reader.close();
+                // Closing a reader twice must not return the factory to the pool twice
+                reader.close();
+                
+                StringWriter sw = new StringWriter();
+                XMLStreamWriter writer = StAXUtils.createXMLStreamWriter(sw);
+                writer.writeStartElement("root");
+                writer.writeCharacters(String.valueOf(i));
+                writer.writeEndElement();
+                writer.close();
+                assertEquals("<root>" + i + "</root>", sw.toString());
+            }
+        } finally {
+            StAXUtils.setReuseInstances(false);
+        }
+    }
+    
+    public void testFactoryPoolDiscardsLeakedFactories() throws Exception {
+        FactoryPool<Object> pool = new FactoryPool<Object>() {
+            Object create() {
+                return new Object();
+            }
+        };
+        // Exhaust the pool with factories leased to owners that are never closed
+        Object factory;
+        while ((factory = pool.borrow()) != null) {
+            pool.lease(new Object(), factory);
+        }
+        for (int i=0; i<100 && factory == null; i++) {
+            System.gc();
+            Thread.sleep(10);
+            factory = pool.borrow();
+        }
+        assertNotNull(factory);
+    }
 }
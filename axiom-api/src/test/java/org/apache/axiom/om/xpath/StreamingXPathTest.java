@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.xpath;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import junit.framework.TestCase;
+
+public class StreamingXPathTest extends TestCase {
+    private static final String XML = "<p:root xmlns:p='urn:p'>"
+            + "<p:header><id>h1</id></p:header>"
+            + "<order status='done' id='1'><item>a</item></order>"
+            + "<order status='pending' id='2'><item>b<![CDATA[c]]></item><item>d</item></order>"
+            + "<group><order status='pending' id='3'><item>e</item></order></group>"
+            + "</p:root>";
+    
+    private static XMLStreamReader createReader(String xml) throws Exception {
+        return XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+    }
+    
+    private static StreamingXPath createXPath(String expression) {
+        StreamingXPath xpath = new StreamingXPath(expression);
+        xpath.addNamespace("p", "urn:p");
+        return xpath;
+    }
+    
+    public void testChildSteps() throws Exception {
+        assertEquals("h1", createXPath("/p:root/p:header/id").stringValueOf(createReader(XML)));
+        assertEquals("", createXPath("/p:root/header/id").stringValueOf(createReader(XML)));
+        assertEquals(Arrays.asList("a", "bc", "d"),
+                createXPath("/p:root/order/item").stringValuesOf(createReader(XML)));
+    }
+    
+    public void testDescendant() throws Exception {
+        assertEquals(Arrays.asList("1", "2", "3"),
+                createXPath("//order/@id").stringValuesOf(createReader(XML)));
+        assertEquals(Arrays.asList("bcd", "e"),
+                createXPath("/p:root//order[@status='pending']").stringValuesOf(createReader(XML)));
+    }
+    
+    public void testWildcards() throws Exception {
+        assertEquals(Arrays.asList("h1"), createXPath("/*/p:*").stringValuesOf(createReader(XML)));
+        assertEquals(Arrays.asList("h1", "a", "bc", "e"),
+                createXPath("/*/*/*[1]").stringValuesOf(createReader(XML)));
+    }
+    
+    public void testPositionalPredicates() throws Exception {
+        assertEquals(Arrays.asList("d"),
+                createXPath("/p:root/order[@status][2]/item[2]").stringValuesOf(createReader(XML)));
+        assertEquals(Arrays.asList("a", "b", "e"),
+                createXPath("//item[1]/text").stringValuesOf(createReader(XML.replaceAll("<item>(.)", "<item><text>$1</text>"))));
+    }
+    
+    public void testBooleanValueOf() throws Exception {
+        assertTrue(createXPath("//order[@status='pending']").booleanValueOf(createReader(XML)));
+        assertFalse(createXPath("//order[@status='failed']").booleanValueOf(createReader(XML)));
+        assertFalse(createXPath("//order/@missing").booleanValueOf(createReader(XML)));
+    }
+    
+    /**
+     * Tests that the evaluation stops as soon as the result is known, by appending content that is
+     * not well formed to the document.
+     */
+    public void testEarlyTermination() throws Exception {
+        String xml = XML.replace("</p:root>", "<broken></p:root>");
+        assertEquals("h1", createXPath("/p:root/p:header/id").stringValueOf(createReader(xml)));
+        assertTrue(createXPath("//order[@status='pending']").booleanValueOf(createReader(xml)));
+        assertEquals(Arrays.asList("a"),
+                createXPath("/p:root/order[1]/item").stringValuesOf(createReader(xml)));
+    }
+    
+    public void testReaderOnStartElement() throws Exception {
+        XMLStreamReader reader = createReader(XML);
+        reader.nextTag();
+        reader.nextTag();
+        assertEquals("h1", createXPath("/p:header/id").stringValueOf(reader));
+    }
+    
+    public void testUnsupportedExpression() {
+        String[] expressions = { "", "a/b", "/a/b[c]", "/a[1][2]", "/a/@b/c", "//@b", "/a[@b='c]", "/a[0]" };
+        for (int i=0; i<expressions.length; i++) {
+            try {
+                new StreamingXPath(expressions[i]);
+                fail("Expected IllegalArgumentException for " + expressions[i]);
+            } catch (IllegalArgumentException ex) {
+                // Expected
+            }
+        }
+    }
+}
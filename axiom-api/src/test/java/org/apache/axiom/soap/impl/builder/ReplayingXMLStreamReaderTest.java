@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.soap.impl.builder;
+
+import java.io.StringReader;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.om.util.StAXUtils;
+
+public class ReplayingXMLStreamReaderTest extends TestCase {
+    /**
+     * Tests that the replayed attribute and namespace counts are correct for an element with more
+     * than 65535 attributes. StAX implementations usually limit the number of attributes, so the
+     * attributes are simulated by a {@link StreamReaderDelegate}.
+     */
+    public void testManyAttributes() throws Exception {
+        final int attributeCount = 70000;
+        XMLStreamReader parent = new StreamReaderDelegate(StAXUtils.createXMLStreamReader(
+                new StringReader("<root xmlns:p='urn:p'/>"))) {
+            public int getAttributeCount() {
+                return attributeCount;
+            }
+
+            public String getAttributePrefix(int index) {
+                return "";
+            }
+
+            public String getAttributeNamespace(int index) {
+                return null;
+            }
+
+            public String getAttributeLocalName(int index) {
+                return "a" + index;
+            }
+
+            public String getAttributeValue(int index) {
+                return String.valueOf(index);
+            }
+
+            public String getAttributeType(int index) {
+                return "CDATA";
+            }
+
+            public boolean isAttributeSpecified(int index) {
+                return true;
+            }
+        };
+        ReplayingXMLStreamReader.EventBuffer buffer = new ReplayingXMLStreamReader.EventBuffer();
+        buffer.record(parent);
+        parent.next();
+        buffer.record(parent);
+        ReplayingXMLStreamReader reader = new ReplayingXMLStreamReader(parent, buffer);
+        assertEquals(XMLStreamConstants.START_DOCUMENT, reader.getEventType());
+        assertEquals(XMLStreamConstants.START_ELEMENT, reader.next());
+        assertEquals(1, reader.getNamespaceCount());
+        assertEquals("urn:p", reader.getNamespaceURI("p"));
+        assertEquals(attributeCount, reader.getAttributeCount());
+        assertEquals("a69999", reader.getAttributeLocalName(attributeCount-1));
+        assertEquals("69999", reader.getAttributeValue(attributeCount-1));
+        parent.close();
+    }
+}
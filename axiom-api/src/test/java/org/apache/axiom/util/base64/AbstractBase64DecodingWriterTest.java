@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.util.base64;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.codec.binary.Base64;
+
+public class AbstractBase64DecodingWriterTest extends TestCase {
+    private static class TestWriter extends AbstractBase64DecodingWriter {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int maxChunkSize;
+        
+        TestWriter(boolean blockWrites) {
+            super(blockWrites);
+        }
+        
+        TestWriter() {
+        }
+
+        protected void doWrite(byte[] b, int len) throws IOException {
+            maxChunkSize = Math.max(maxChunkSize, len);
+            out.write(b, 0, len);
+        }
+
+        public void flush() throws IOException {
+        }
+
+        public void close() throws IOException {
+        }
+    }
+    
+    private static String createTestData(byte[] data) {
+        new Random(43219876).nextBytes(data);
+        return Base64.encodeBase64String(data);
+    }
+    
+    public void testDefaultChunkSize() throws Exception {
+        byte[] data = new byte[5000];
+        String encoded = createTestData(data);
+        TestWriter writer = new TestWriter();
+        writer.write(encoded.toCharArray());
+        assertThat(writer.out.toByteArray()).isEqualTo(data);
+        assertThat(writer.maxChunkSize).isAtMost(3);
+    }
+    
+    public void testBlockWrites() throws Exception {
+        byte[] data = new byte[5000];
+        String encoded = createTestData(data);
+        TestWriter writer = new TestWriter(true);
+        writer.write(encoded.toCharArray());
+        assertThat(writer.out.toByteArray()).isEqualTo(data);
+        assertThat(writer.maxChunkSize).isGreaterThan(3);
+    }
+    
+    public void testBlockWritesWithString() throws Exception {
+        byte[] data = new byte[5000];
+        String encoded = createTestData(data);
+        TestWriter writer = new TestWriter(true);
+        // Write in pieces that are not aligned to groups of 4 characters
+        for (int i=0; i<encoded.length(); i+=7) {
+            writer.write(encoded, i, Math.min(7, encoded.length()-i));
+        }
+        assertThat(writer.out.toByteArray()).isEqualTo(data);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.util.base64;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.codec.binary.Base64;
+
+public class Base64CodecTest extends TestCase {
+    public void testEncodeToByteArray() throws Exception {
+        Random random = new Random(43219876);
+        for (int len=0; len<100; len++) {
+            byte[] data = new byte[len];
+            random.nextBytes(data);
+            byte[] encoded = new byte[Base64Codec.getEncodedLength(len)+2];
+            int encodedLen = Base64Codec.encode(data, 0, len, encoded, 1);
+            assertThat(new String(encoded, 1, encodedLen, "ascii")).isEqualTo(Base64.encodeBase64String(data));
+        }
+    }
+    
+    public void testEncodeToCharArray() {
+        Random random = new Random(43219876);
+        for (int len=0; len<100; len++) {
+            byte[] data = new byte[len];
+            random.nextBytes(data);
+            char[] encoded = new char[Base64Codec.getEncodedLength(len)];
+            int encodedLen = Base64Codec.encode(data, 0, len, encoded, 0);
+            assertThat(new String(encoded, 0, encodedLen)).isEqualTo(Base64.encodeBase64String(data));
+        }
+    }
+    
+    public void testEncodeByteBufferWithSmallOutputBuffer() throws Exception {
+        byte[] data = new byte[1000];
+        new Random(43219876).nextBytes(data);
+        ByteBuffer src = ByteBuffer.allocateDirect(data.length);
+        src.put(data);
+        src.flip();
+        StringBuilder result = new StringBuilder();
+        ByteBuffer dst = ByteBuffer.allocate(10);
+        while (src.hasRemaining()) {
+            Base64Codec.encode(src, dst, true);
+            dst.flip();
+            while (dst.hasRemaining()) {
+                result.append((char)dst.get());
+            }
+            dst.clear();
+        }
+        assertThat(result.toString()).isEqualTo(Base64.encodeBase64String(data));
+    }
+    
+    public void testDecodeWithLineBreaks() {
+        byte[] data = new byte[1000];
+        new Random(43219876).nextBytes(data);
+        assertThat(Base64Codec.decode(new String(Base64.encodeBase64Chunked(data)))).isEqualTo(data);
+    }
+    
+    public void testDecodeNonASCIICharacter() {
+        try {
+            Base64Codec.decode("AAAA\u00e9AAA");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+    }
+    
+    public void testDecodeBlocksStopsAtPadding() throws Exception {
+        // The output buffer must have space for len/4*3 bytes
+        byte[] buffer = new byte[21];
+        // The last group contains padding and is not consumed
+        assertThat(Base64Codec.decodeBlocks("YW55IGNhcm5hbCBwbGVhc3VyZS4=", 0, 28, buffer, 0)).isEqualTo(24);
+        assertThat(new String(buffer, 0, 18, "ascii")).isEqualTo("any carnal pleasur");
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.axiom.c14n.exceptions.InvalidCanonicalizerException;
 import org.apache.axiom.c14n.omwrapper.factory.WrapperFactory;
 import org.apache.axiom.om.OMElement;
 
+import javax.xml.stream.XMLStreamReader;
 import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
@@ -183,6 +184,45 @@ public class Canonicalizer {
                 inclusiveNamespaces);
     }
 
+    /**
+     * Canonicalizes the events produced by <CODE>reader</CODE> and writes the result to
+     * <CODE>os</CODE>. Contrary to the other methods, this doesn't wrap the object model in DOM
+     * adapter nodes and doesn't accumulate the result in memory, so that it can be used e.g.
+     * with a digesting stream. If the reader is positioned on a START_DOCUMENT event, the whole
+     * document is canonicalized. If it is positioned on a START_ELEMENT event, only that element
+     * is canonicalized and the reader is left on the corresponding END_ELEMENT event. The stream
+     * is flushed, but not closed.
+     * <p/>
+     * To canonicalize an element that is part of an object model, use a reader returned by
+     * {@link org.apache.axiom.om.OMContainer#getXMLStreamReader(boolean)} with
+     * <code>cache</code> set to <code>false</code> if the element is not needed afterwards. For
+     * inclusive canonicalization, namespace declarations of ancestors are only taken into account
+     * if the reader reports them on that element (see
+     * {@link org.apache.axiom.om.OMXMLStreamReaderConfiguration#setPreserveNamespaceContext(boolean)}).
+     *
+     * @param reader
+     * @param os
+     * @throws CanonicalizationException
+     */
+    public void canonicalize(XMLStreamReader reader, OutputStream os)
+            throws CanonicalizationException {
+        this.canonicalizerSpi.engineCanonicalize(reader, null, os);
+    }
+
+    /**
+     * Canonicalizes the events produced by <CODE>reader</CODE> using the given inclusive namespace
+     * list. See {@link #canonicalize(XMLStreamReader, OutputStream)} for more information.
+     *
+     * @param reader
+     * @param inclusiveNamespaces
+     * @param os
+     * @throws CanonicalizationException
+     */
+    public void canonicalize(XMLStreamReader reader, String inclusiveNamespaces, OutputStream os)
+            throws CanonicalizationException {
+        this.canonicalizerSpi.engineCanonicalize(reader, inclusiveNamespaces, os);
+    }
+
     /**
      * Sets the writter where the cannocalization ends. ByteArrayOutputStream if
      * none is setted.
@@ -26,6 +26,7 @@ import org.apache.axiom.c14n.omwrapper.interfaces.Node;
 import org.apache.axiom.om.impl.builder.StAXOMBuilder;
 
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.ByteArrayInputStream;
 import java.io.OutputStream;
 
@@ -70,4 +71,15 @@ public abstract class CanonicalizerSpi {
 
     public abstract byte[] engineCanonicalizeSubTree(Node node, String inclusiveNamespaces)
             throws CanonicalizationException;
+
+    /**
+     * Method engineCanonicalize
+     *
+     * @param reader              the reader producing the events to canonicalize
+     * @param inclusiveNamespaces the inclusive namespace list, or <code>null</code>
+     * @param os                  the stream to write the canonical form to
+     * @throws CanonicalizationException
+     */
+    public abstract void engineCanonicalize(XMLStreamReader reader, String inclusiveNamespaces,
+                                            OutputStream os) throws CanonicalizationException;
 }
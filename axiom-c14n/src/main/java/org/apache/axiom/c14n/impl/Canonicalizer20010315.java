@@ -27,6 +27,8 @@ import org.apache.axiom.c14n.omwrapper.interfaces.NamedNodeMap;
 import org.apache.axiom.c14n.omwrapper.interfaces.Node;
 import org.apache.axiom.c14n.utils.Constants;
 
+import javax.xml.stream.XMLStreamReader;
+import java.io.OutputStream;
 import java.util.*;
 
 public abstract class Canonicalizer20010315 extends CanonicalizerBase {
@@ -202,6 +204,23 @@ public abstract class Canonicalizer20010315 extends CanonicalizerBase {
         throw new CanonicalizationException("All Namespaces are Included by Default");
     }
 
+    /**
+     * Canonicalizes the events produced by a {@link XMLStreamReader}.
+     *
+     * @param reader
+     * @param inclusiveNamespaces must be <code>null</code>
+     * @param os
+     * @throws CanonicalizationException
+     */
+    public void engineCanonicalize(XMLStreamReader reader, String inclusiveNamespaces,
+                                   OutputStream os) throws CanonicalizationException {
+        if (inclusiveNamespaces != null) {
+            throw new CanonicalizationException("empty",
+                    new Object[] {"All Namespaces are Included by Default"});
+        }
+        canonicalize(reader, false, null, os);
+    }
+
     void handleParent(Element e, NameSpaceSymbTable ns) {
         if (!e.hasAttributes()) {
             return;
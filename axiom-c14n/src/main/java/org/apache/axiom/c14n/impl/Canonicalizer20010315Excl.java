@@ -27,6 +27,8 @@ import org.apache.axiom.c14n.omwrapper.interfaces.NamedNodeMap;
 import org.apache.axiom.c14n.omwrapper.interfaces.Node;
 import org.apache.axiom.c14n.utils.Constants;
 
+import javax.xml.stream.XMLStreamReader;
+import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.SortedSet;
 import java.util.StringTokenizer;
@@ -92,6 +94,19 @@ public abstract class Canonicalizer20010315Excl extends CanonicalizerBase {
     }
 
 
+    /**
+     * Canonicalizes the events produced by a {@link XMLStreamReader}.
+     *
+     * @param reader
+     * @param inclusiveNamespaces
+     * @param os
+     * @throws CanonicalizationException
+     */
+    public void engineCanonicalize(XMLStreamReader reader, String inclusiveNamespaces,
+                                   OutputStream os) throws CanonicalizationException {
+        canonicalize(reader, true, prefixStr2Set(inclusiveNamespaces), os);
+    }
+
 
     /**
      * Method handleAttributesSubtree
@@ -28,6 +28,9 @@ import org.apache.axiom.c14n.utils.Constants;
 import org.apache.axiom.c14n.utils.UnsyncByteArrayOutputStream;
 import org.apache.axiom.om.OMAbstractFactory;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -152,6 +155,30 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
         }
     }
 
+    /**
+     * Canonicalizes the events produced by a {@link XMLStreamReader}, without building an object
+     * model. The output is buffered, but the stream is neither closed nor accumulated in memory.
+     *
+     * @param reader            the reader, positioned on a START_DOCUMENT or START_ELEMENT event
+     * @param exclusive         whether to use exclusive canonicalization
+     * @param inclusivePrefixes the prefixes of the inclusive namespace list
+     * @param os                the stream to write the canonical form to
+     * @throws CanonicalizationException
+     */
+    final void canonicalize(XMLStreamReader reader, boolean exclusive, Set inclusivePrefixes,
+                            OutputStream os) throws CanonicalizationException {
+        try {
+            OutputStream out = new BufferedOutputStream(os);
+            new XMLStreamReaderCanonicalizer(this._includeComments, exclusive, inclusivePrefixes, out)
+                    .canonicalize(reader);
+            out.flush();
+        } catch (XMLStreamException ex) {
+            throw new CanonicalizationException("empty", ex);
+        } catch (IOException ex) {
+            throw new CanonicalizationException("empty", ex);
+        }
+    }
+
     /**
      * Method canonicalizeSubTree, this function is a recursive one.
      *
@@ -405,13 +432,24 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
      * @throws IOException
      */
     static final void outputPItoWriter(ProcessingInstruction currentPI, OutputStream writer, int position) throws IOException {
+        outputPItoWriter(currentPI.getTarget(), currentPI.getData(), writer, position);
+    }
+
+    /**
+     * Outputs a PI given by its target and data to the internal Writer.
+     *
+     * @param target
+     * @param data
+     * @param writer    where to write the things
+     * @throws IOException
+     */
+    static final void outputPItoWriter(final String target, final String data, OutputStream writer, int position) throws IOException {
 
         if (position == NODE_AFTER_DOCUMENT_ELEMENT) {
             writer.write('\n');
         }
         writer.write(_BEGIN_PI);
 
-        final String target = currentPI.getTarget();
         int length = target.length();
 
         for (int i = 0; i < length; i++) {
@@ -428,8 +466,6 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
             }
         }
 
-        final String data = currentPI.getData();
-
         length = data.length();
 
         if (length > 0) {
@@ -459,12 +495,22 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
      * @throws IOException
      */
     static final void outputCommentToWriter(Comment currentComment, OutputStream writer, int position) throws IOException {
+        outputCommentToWriter(currentComment.getData(), writer, position);
+    }
+
+    /**
+     * Outputs a comment given by its content to the internal Writer.
+     *
+     * @param data
+     * @param writer         writer where to write the things
+     * @throws IOException
+     */
+    static final void outputCommentToWriter(final String data, OutputStream writer, int position) throws IOException {
         if (position == NODE_AFTER_DOCUMENT_ELEMENT) {
             writer.write('\n');
         }
         writer.write(_BEGIN_COMM);
 
-        final String data = currentComment.getData();
         final int length = data.length();
 
         for (int i = 0; i < length; i++) {
@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.c14n.impl;
+
+import org.apache.axiom.c14n.exceptions.CanonicalizationException;
+import org.apache.axiom.c14n.helpers.C14nHelper;
+import org.apache.axiom.util.namespace.ScopedNamespaceContext;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Canonicalizes the events produced by an {@link XMLStreamReader}. Contrary to
+ * {@link CanonicalizerBase#canonicalizeSubTree}, this doesn't need an object model: every event is
+ * written to the output stream as soon as it is read, and the only state kept in memory are the
+ * namespace bindings rendered by the ancestors of the current element.
+ * <p/>
+ * Namespace bindings declared by ancestors that are not part of the stream (which is the case
+ * when canonicalizing a subtree) are handled as follows:
+ * <UL>
+ * <LI>for exclusive canonicalization, the bindings of visibly utilized prefixes are taken from
+ * the events themselves and the bindings of the prefixes in the inclusive namespace list are looked
+ * up using {@link XMLStreamReader#getNamespaceURI(String)}; the result is therefore the same as for
+ * the node based implementation;</LI>
+ * <LI>for inclusive canonicalization, a binding used by an element or attribute is rendered on the
+ * first element that needs it, but bindings that are not used are not rendered. To get the exact
+ * result, the reader must report the inherited bindings as namespace declarations on the root
+ * element (see
+ * {@link org.apache.axiom.om.OMXMLStreamReaderConfiguration#setPreserveNamespaceContext(boolean)}).
+ * Attributes in the <CODE>xml</CODE> namespace are not inherited from ancestors.</LI>
+ * </UL>
+ */
+final class XMLStreamReaderCanonicalizer {
+    private final boolean includeComments;
+    private final boolean exclusive;
+
+    /**
+     * The prefixes of the inclusive namespace list. The default namespace is represented by an
+     * empty string.
+     */
+    private final Set inclusivePrefixes;
+
+    private final OutputStream writer;
+    private final Map cache = new HashMap();
+
+    /**
+     * The namespace bindings rendered by the output ancestors of the current element.
+     */
+    private final ScopedNamespaceContext rendered = new ScopedNamespaceContext();
+
+    /**
+     * The namespace bindings to be considered for the current element, sorted by prefix (the
+     * default namespace, represented by an empty string, comes first).
+     */
+    private final SortedMap namespaces = new TreeMap();
+
+    /**
+     * Buffer used to sort the attributes of the current element.
+     */
+    private int[] attributeOrder = new int[16];
+
+    /**
+     * Constructor.
+     *
+     * @param includeComments   whether comments should be output
+     * @param exclusive         <code>true</code> for exclusive canonicalization,
+     *                          <code>false</code> for inclusive canonicalization
+     * @param inclusivePrefixes the prefixes of the inclusive namespace list, as returned by
+     *                          {@link Canonicalizer20010315Excl#prefixStr2Set(String)}; only
+     *                          used for exclusive canonicalization
+     * @param writer            the stream to write the canonical form to
+     */
+    XMLStreamReaderCanonicalizer(boolean includeComments, boolean exclusive,
+                                 Set inclusivePrefixes, OutputStream writer) {
+        this.includeComments = includeComments;
+        this.exclusive = exclusive;
+        this.inclusivePrefixes = new HashSet();
+        if (inclusivePrefixes != null) {
+            for (Iterator it = inclusivePrefixes.iterator(); it.hasNext(); ) {
+                String prefix = (String) it.next();
+                this.inclusivePrefixes.add(CanonicalizerBase.XMLNS.equals(prefix) ? "" : prefix);
+            }
+        }
+        this.writer = writer;
+    }
+
+    /**
+     * Canonicalize the events from the given reader. If the reader is positioned on a
+     * <CODE>START_DOCUMENT</CODE> event, the whole document is canonicalized and the reader is
+     * left on the <CODE>END_DOCUMENT</CODE> event. If it is positioned on a
+     * <CODE>START_ELEMENT</CODE> event, the element is canonicalized and the reader is left on
+     * the corresponding <CODE>END_ELEMENT</CODE> event.
+     *
+     * @param reader the reader
+     * @throws CanonicalizationException
+     * @throws XMLStreamException
+     * @throws IOException
+     */
+    void canonicalize(XMLStreamReader reader)
+            throws CanonicalizationException, XMLStreamException, IOException {
+        int event = reader.getEventType();
+        boolean subtree;
+        if (event == XMLStreamReader.START_DOCUMENT) {
+            subtree = false;
+        } else if (event == XMLStreamReader.START_ELEMENT) {
+            subtree = true;
+        } else {
+            throw new CanonicalizationException("empty",
+                    new Object[] {"The XMLStreamReader must be positioned on a START_DOCUMENT or START_ELEMENT event"});
+        }
+        int documentLevel = subtree ? CanonicalizerBase.NODE_NOT_BEFORE_OR_AFTER_DOCUMENT_ELEMENT
+                : CanonicalizerBase.NODE_BEFORE_DOCUMENT_ELEMENT;
+        int depth = 0;
+        while (true) {
+            switch (event) {
+                case XMLStreamReader.START_ELEMENT:
+                    depth++;
+                    outputStartElement(reader);
+                    break;
+
+                case XMLStreamReader.END_ELEMENT:
+                    writer.write('<');
+                    writer.write('/');
+                    UtfHelper.writeByte(getQName(reader.getPrefix(), reader.getLocalName()), writer, cache);
+                    writer.write('>');
+                    rendered.endScope();
+                    if (--depth == 0) {
+                        if (subtree) {
+                            return;
+                        }
+                        documentLevel = CanonicalizerBase.NODE_AFTER_DOCUMENT_ELEMENT;
+                    }
+                    break;
+
+                case XMLStreamReader.CHARACTERS:
+                case XMLStreamReader.CDATA:
+                case XMLStreamReader.SPACE:
+                case XMLStreamReader.ENTITY_REFERENCE:
+                    // Whitespace outside of the document element is not part of the canonical form
+                    if (depth > 0) {
+                        CanonicalizerBase.outputTextToWriter(reader.getText(), writer);
+                    }
+                    break;
+
+                case XMLStreamReader.COMMENT:
+                    if (includeComments) {
+                        CanonicalizerBase.outputCommentToWriter(reader.getText(), writer,
+                                depth > 0 ? CanonicalizerBase.NODE_NOT_BEFORE_OR_AFTER_DOCUMENT_ELEMENT : documentLevel);
+                    }
+                    break;
+
+                case XMLStreamReader.PROCESSING_INSTRUCTION:
+                    String data = reader.getPIData();
+                    CanonicalizerBase.outputPItoWriter(reader.getPITarget(), data == null ? "" : data,
+                            writer, depth > 0 ? CanonicalizerBase.NODE_NOT_BEFORE_OR_AFTER_DOCUMENT_ELEMENT : documentLevel);
+                    break;
+
+                case XMLStreamReader.END_DOCUMENT:
+                    return;
+
+                default:
+                    // START_DOCUMENT, DTD
+                    break;
+            }
+            event = reader.next();
+        }
+    }
+
+    private void outputStartElement(XMLStreamReader reader)
+            throws CanonicalizationException, IOException {
+        String elementPrefix = nullToEmpty(reader.getPrefix());
+        String elementNamespaceURI = nullToEmpty(reader.getNamespaceURI());
+        String qname = getQName(elementPrefix, reader.getLocalName());
+        final SortedMap namespaces = this.namespaces;
+        namespaces.clear();
+
+        for (int i = 0, count = reader.getNamespaceCount(); i < count; i++) {
+            String prefix = nullToEmpty(reader.getNamespacePrefix(i));
+            String namespaceURI = nullToEmpty(reader.getNamespaceURI(i));
+            if (CanonicalizerBase.XML.equals(prefix)) {
+                // The default mapping for xml must not be output.
+                continue;
+            }
+            if (C14nHelper.namespaceIsRelative(namespaceURI)) {
+                Object exArgs[] = {qname, prefix.length() == 0 ? CanonicalizerBase.XMLNS : prefix, namespaceURI};
+                throw new CanonicalizationException(
+                        "c14n.Canonicalizer.RelativeNamespace", exArgs);
+            }
+            if (!exclusive) {
+                namespaces.put(prefix, namespaceURI);
+            }
+        }
+
+        // Add the prefixes visibly utilized by the element and its attributes. For inclusive
+        // canonicalization, this only has an effect if they are bound by an ancestor that is not
+        // part of the stream.
+        if (elementNamespaceURI.length() == 0) {
+            elementPrefix = "";
+        }
+        namespaces.put(elementPrefix, elementNamespaceURI);
+        int attributeCount = reader.getAttributeCount();
+        for (int i = 0; i < attributeCount; i++) {
+            String prefix = reader.getAttributePrefix(i);
+            if (prefix != null && prefix.length() > 0 && !prefix.equals(CanonicalizerBase.XML)
+                    && !prefix.equals(CanonicalizerBase.XMLNS)) {
+                namespaces.put(prefix, nullToEmpty(reader.getAttributeNamespace(i)));
+            }
+        }
+        if (exclusive) {
+            for (Iterator it = inclusivePrefixes.iterator(); it.hasNext(); ) {
+                String prefix = (String) it.next();
+                if (!namespaces.containsKey(prefix)) {
+                    String namespaceURI = reader.getNamespaceURI(prefix);
+                    if (namespaceURI != null || prefix.length() == 0) {
+                        namespaces.put(prefix, nullToEmpty(namespaceURI));
+                    }
+                }
+            }
+        }
+
+        writer.write('<');
+        UtfHelper.writeByte(qname, writer, cache);
+
+        rendered.startScope();
+        for (Iterator it = namespaces.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry entry = (Map.Entry) it.next();
+            String prefix = (String) entry.getKey();
+            String namespaceURI = (String) entry.getValue();
+            if (prefix.length() > 0 && namespaceURI.length() == 0) {
+                // Prefixes can't be undeclared
+                continue;
+            }
+            if (!namespaceURI.equals(rendered.getNamespaceURI(prefix))) {
+                rendered.setPrefix(prefix, namespaceURI);
+                CanonicalizerBase.outputAttrToWriter(
+                        prefix.length() == 0 ? CanonicalizerBase.XMLNS : CanonicalizerBase.XMLNS + ":" + prefix,
+                        namespaceURI, writer, cache);
+            }
+        }
+
+        if (attributeCount > 0) {
+            int[] order = attributeOrder;
+            if (order.length < attributeCount) {
+                order = attributeOrder = new int[attributeCount];
+            }
+            // Insertion sort; elements rarely have more than a few attributes
+            for (int i = 0; i < attributeCount; i++) {
+                int j = i;
+                while (j > 0 && compareAttributes(reader, order[j - 1], i) > 0) {
+                    order[j] = order[j - 1];
+                    j--;
+                }
+                order[j] = i;
+            }
+            for (int i = 0; i < attributeCount; i++) {
+                int index = order[i];
+                CanonicalizerBase.outputAttrToWriter(
+                        getQName(reader.getAttributePrefix(index), reader.getAttributeLocalName(index)),
+                        reader.getAttributeValue(index), writer, cache);
+            }
+        }
+        writer.write('>');
+    }
+
+    /**
+     * Compares two attributes in the same way as {@link org.apache.axiom.c14n.helpers.AttrCompare}:
+     * attributes without namespace come first, the others are sorted by namespace URI and local
+     * name.
+     */
+    private static int compareAttributes(XMLStreamReader reader, int index0, int index1) {
+        String namespaceURI0 = nullToEmpty(reader.getAttributeNamespace(index0));
+        String namespaceURI1 = nullToEmpty(reader.getAttributeNamespace(index1));
+        int a = namespaceURI0.compareTo(namespaceURI1);
+        if (a != 0) {
+            return a;
+        }
+        return reader.getAttributeLocalName(index0).compareTo(reader.getAttributeLocalName(index1));
+    }
+
+    private static String getQName(String prefix, String localName) {
+        return prefix == null || prefix.length() == 0 ? localName : prefix + ":" + localName;
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+}
@@ -25,6 +25,7 @@ import junit.framework.TestSuite;
 import junit.textui.TestRunner;
 import org.apache.axiom.c14n.impl.Canonicalizer20010315OmitCommentTest;
 import org.apache.axiom.c14n.impl.Canonicalizer20010315WithCommentTest;
+import org.apache.axiom.c14n.impl.XMLStreamReaderCanonicalizerTest;
 
 public class ImplTest extends TestCase {
     public ImplTest(String name){
@@ -35,6 +36,7 @@ public class ImplTest extends TestCase {
         TestSuite suite = new TestSuite("All org.apache.axiom.c14n.impl JUnit Tests");
         suite.addTest(Canonicalizer20010315OmitCommentTest.suite());
         suite.addTest(Canonicalizer20010315WithCommentTest.suite());
+        suite.addTest(XMLStreamReaderCanonicalizerTest.suite());
         return suite;
     }
 
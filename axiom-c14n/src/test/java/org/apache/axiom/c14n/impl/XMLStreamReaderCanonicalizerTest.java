@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.c14n.impl;
+
+import org.apache.axiom.c14n.Canonicalizer;
+import org.apache.axiom.c14n.DataParser;
+import org.apache.axiom.c14n.exceptions.CanonicalizationException;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.util.StAXUtils;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class XMLStreamReaderCanonicalizerTest extends AbstractCanonicalizerTest {
+
+    public XMLStreamReaderCanonicalizerTest(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(XMLStreamReaderCanonicalizerTest.class);
+    }
+
+    public static void main(String[] args) {
+        TestRunner.run(suite());
+    }
+
+    private static final String[] ALGORITHMS = {
+            Canonicalizer.ALGO_ID_C14N_OMIT_COMMENTS,
+            Canonicalizer.ALGO_ID_C14N_WITH_COMMENTS,
+            Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS,
+            Canonicalizer.ALGO_ID_C14N_EXCL_WITH_COMMENTS
+    };
+
+    /**
+     * Output stream that is not a byte array output stream and that must not be closed.
+     */
+    private static class CheckingOutputStream extends FilterOutputStream {
+        CheckingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        public void close() throws IOException {
+            fail("The stream must not be closed");
+        }
+    }
+
+    private void testDocument(String fileName) throws Exception {
+        dp = new DataParser(fileName);
+        for (int i = 0; i < ALGORITHMS.length; i++) {
+            byte[] expected = Canonicalizer.getInstance(ALGORITHMS[i]).canonicalize(dp.getBytes());
+            c14n = Canonicalizer.getInstance(ALGORITHMS[i]);
+            XMLStreamReader reader = StAXUtils.createXMLStreamReader(getClass().getResourceAsStream(fileName));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            c14n.canonicalize(reader, new CheckingOutputStream(out));
+            assertEquals(ALGORITHMS[i], new String(expected, "UTF-8"), new String(out.toByteArray(), "UTF-8"));
+            assertEquals(XMLStreamReader.END_DOCUMENT, reader.getEventType());
+            reader.close();
+        }
+    }
+
+    public void testSample1() throws Exception {
+        testDocument("/sample1.xml");
+    }
+
+    public void testSample2() throws Exception {
+        testDocument("/sample2.xml");
+    }
+
+    public void testSample3() throws Exception {
+        testDocument("/sample3.xml");
+    }
+
+    public void testSample4() throws Exception {
+        testDocument("/sample4.xml");
+    }
+
+    public void testSample5() throws Exception {
+        testDocument("/sample5.xml");
+    }
+
+    public void testSample6() throws Exception {
+        testDocument("/sample6.xml");
+    }
+
+    public void testExclusiveSubtree() throws Exception {
+        dp = new DataParser("/sample3.xml");
+        dp.init();
+        OMElement e7 = dp.omDocEle.getFirstChildWithName(new QName("e6")).getFirstElement();
+        byte[] expected = Canonicalizer.getInstance(Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS)
+                .canonicalizeSubtree(e7, "a");
+        c14n = Canonicalizer.getInstance(Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        c14n.canonicalize(e7.getXMLStreamReader(), "a", out);
+        assertEquals(new String(expected, "UTF-8"), new String(out.toByteArray(), "UTF-8"));
+    }
+
+    public void testInclusiveNamespacesRejectedForInclusiveC14N() throws Exception {
+        c14n = Canonicalizer.getInstance(Canonicalizer.ALGO_ID_C14N_OMIT_COMMENTS);
+        XMLStreamReader reader = StAXUtils.createXMLStreamReader(getClass().getResourceAsStream("/sample2.xml"));
+        try {
+            c14n.canonicalize(reader, "a", new ByteArrayOutputStream());
+            fail("Expected CanonicalizationException");
+        } catch (CanonicalizationException ex) {
+            // Expected
+        }
+        reader.close();
+    }
+}
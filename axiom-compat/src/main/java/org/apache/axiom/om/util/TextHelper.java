@@ -30,7 +30,7 @@ import javax.mail.MessagingException;
 import org.apache.axiom.attachments.impl.BufferUtils;
 import org.apache.axiom.attachments.lifecycle.LifecycleManager;
 import org.apache.axiom.attachments.lifecycle.impl.FileAccessor;
-import org.apache.axiom.attachments.lifecycle.impl.LifecycleManagerImpl;
+import org.apache.axiom.attachments.lifecycle.impl.ConcurrentLifecycleManager;
 import org.apache.axiom.om.OMFactory;
 import org.apache.axiom.om.OMText;
 import org.apache.axiom.util.base64.Base64EncodingStringBufferOutputStream;
@@ -188,7 +188,7 @@ public class TextHelper {
         }
         */
         if (lm == null) {
-            return new LifecycleManagerImpl();
+            return ConcurrentLifecycleManager.getInstance();
         }
         return lm;
         
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.axiom.ts.soap.SOAPSampleSet;
+import org.apache.axiom.ts.soap.SOAPSpec;
+import org.apache.axiom.ts.xml.XMLSample;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * The plain XML documents used as input by the benchmarks.
+ */
+public enum Document {
+    /**
+     * A SOAP 1.2 request with WS-Addressing headers.
+     */
+    SOAP {
+        @Override
+        InputStream getInputStream() {
+            return SOAPSampleSet.WSA.getMessage(SOAPSpec.SOAP12).getInputStream();
+        }
+    },
+    
+    /**
+     * An Atom feed with a few dozen entries.
+     */
+    ATOM {
+        @Override
+        InputStream getInputStream() {
+            return Document.class.getResourceAsStream("feed.xml");
+        }
+    },
+    
+    /**
+     * A large, namespace heavy WSDL document.
+     */
+    LARGE {
+        @Override
+        InputStream getInputStream() {
+            return XMLSample.LARGE.getInputStream();
+        }
+    };
+    
+    abstract InputStream getInputStream();
+    
+    /**
+     * Load the content of the document into memory so that the benchmarks don't measure I/O.
+     * 
+     * @return the content of the document
+     * @throws IOException
+     *             if the document couldn't be read
+     */
+    public final byte[] getContent() throws IOException {
+        InputStream in = getInputStream();
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+}
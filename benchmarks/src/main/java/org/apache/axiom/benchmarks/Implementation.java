@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import org.apache.abdera.parser.stax.FOMMetaFactory;
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMMetaFactory;
+
+/**
+ * The Axiom implementations covered by the benchmarks.
+ */
+public enum Implementation {
+    /**
+     * The linked list implementation provided by <code>axiom-impl</code>.
+     */
+    LLOM {
+        @Override
+        public OMMetaFactory getMetaFactory() {
+            return OMAbstractFactory.getMetaFactory(OMAbstractFactory.FEATURE_DEFAULT);
+        }
+    },
+    
+    /**
+     * The DOM compatible implementation provided by <code>axiom-dom</code>.
+     */
+    DOOM {
+        @Override
+        public OMMetaFactory getMetaFactory() {
+            return OMAbstractFactory.getMetaFactory(OMAbstractFactory.FEATURE_DOM);
+        }
+    },
+    
+    /**
+     * The Abdera Feed Object Model implementation provided by <code>fom-impl</code>. Note that this
+     * implementation doesn't support SOAP.
+     */
+    FOM {
+        @Override
+        public OMMetaFactory getMetaFactory() {
+            return FOMMetaFactory.INSTANCE;
+        }
+    };
+    
+    public abstract OMMetaFactory getMetaFactory();
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.om.OMXMLParserWrapper;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures parsing, navigation and serialization of plain XML documents using
+ * {@link OMXMLBuilderFactory#createOMBuilder(OMFactory, java.io.InputStream)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=10, time=1)
+@Fork(2)
+public class OMBenchmark {
+    @Param({"LLOM", "DOOM", "FOM"})
+    public Implementation implementation;
+    
+    @Param({"SOAP", "ATOM", "LARGE"})
+    public Document document;
+    
+    private OMFactory factory;
+    private byte[] content;
+    private OMElement element;
+    
+    @Setup
+    public void setUp() throws Exception {
+        factory = implementation.getMetaFactory().getOMFactory();
+        content = document.getContent();
+        element = parse();
+    }
+    
+    private OMElement createElement() {
+        OMXMLParserWrapper builder = OMXMLBuilderFactory.createOMBuilder(factory,
+                new ByteArrayInputStream(content));
+        return builder.getDocumentElement();
+    }
+    
+    /**
+     * Build the complete tree.
+     * 
+     * @return the root element of the tree
+     */
+    @Benchmark
+    public OMElement parse() {
+        OMElement element = createElement();
+        element.build();
+        return element;
+    }
+    
+    /**
+     * Build the complete tree by navigating it. This exercises the deferred parsing code paths
+     * instead of {@link OMElement#build()}.
+     * 
+     * @param blackhole
+     *            the blackhole to consume the nodes
+     */
+    @Benchmark
+    public void parseAndNavigate(Blackhole blackhole) {
+        for (Iterator it = createElement().getDescendants(false); it.hasNext(); ) {
+            blackhole.consume(it.next());
+        }
+    }
+    
+    /**
+     * Navigate an already built tree.
+     * 
+     * @param blackhole
+     *            the blackhole to consume the nodes
+     */
+    @Benchmark
+    public void navigate(Blackhole blackhole) {
+        for (Iterator it = element.getDescendants(false); it.hasNext(); ) {
+            blackhole.consume(it.next());
+        }
+    }
+    
+    /**
+     * Serialize an already built tree with {@link OMElement#serialize(java.io.OutputStream)}.
+     * 
+     * @throws XMLStreamException
+     */
+    @Benchmark
+    public void serialize() throws XMLStreamException {
+        element.serialize(NullOutputStream.NULL_OUTPUT_STREAM);
+    }
+    
+    /**
+     * Stream the document from the parser to the output using
+     * {@link OMElement#serializeAndConsume(java.io.OutputStream)}, i.e. without building the
+     * tree.
+     * 
+     * @throws XMLStreamException
+     */
+    @Benchmark
+    public void parseAndSerializeAndConsume() throws XMLStreamException {
+        createElement().serializeAndConsume(NullOutputStream.NULL_OUTPUT_STREAM);
+    }
+    
+    /**
+     * Pull all events from an already built tree using
+     * {@link OMElement#getXMLStreamReader(boolean)} with caching disabled.
+     * 
+     * @param blackhole
+     *            the blackhole to consume the events
+     * @throws XMLStreamException
+     */
+    @Benchmark
+    public void getXMLStreamReader(Blackhole blackhole) throws XMLStreamException {
+        drain(element.getXMLStreamReader(false), blackhole);
+    }
+    
+    /**
+     * Pull all events using {@link OMElement#getXMLStreamReader(boolean)} with caching disabled on
+     * a tree that has not been built yet, so that events are passed through from the parser.
+     * 
+     * @param blackhole
+     *            the blackhole to consume the events
+     * @throws XMLStreamException
+     */
+    @Benchmark
+    public void parseAndGetXMLStreamReader(Blackhole blackhole) throws XMLStreamException {
+        drain(createElement().getXMLStreamReader(false), blackhole);
+    }
+    
+    static void drain(XMLStreamReader reader, Blackhole blackhole) throws XMLStreamException {
+        while (reader.hasNext()) {
+            blackhole.consume(reader.next());
+        }
+        reader.close();
+    }
+}
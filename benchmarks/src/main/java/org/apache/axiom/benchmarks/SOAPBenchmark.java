@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.axiom.attachments.Attachments;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.om.util.StAXParserConfiguration;
+import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.impl.builder.StAXSOAPModelBuilder;
+import org.apache.axiom.ts.soap.MTOMSample;
+import org.apache.axiom.ts.soap.SOAPSampleSet;
+import org.apache.axiom.ts.soap.SOAPSpec;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures processing of SOAP and MTOM messages. FOM is not included because it doesn't support
+ * SOAP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=10, time=1)
+@Fork(2)
+public class SOAPBenchmark {
+    @Param({"LLOM", "DOOM"})
+    public Implementation implementation;
+    
+    private OMMetaFactory metaFactory;
+    private byte[] soapMessage;
+    private byte[] mtomMessage;
+    private String mtomContentType;
+    private SOAPEnvelope envelope;
+    
+    @Setup
+    public void setUp() throws Exception {
+        metaFactory = implementation.getMetaFactory();
+        soapMessage = IOUtils.toByteArray(SOAPSampleSet.WSA.getMessage(SOAPSpec.SOAP12).getInputStream());
+        mtomMessage = IOUtils.toByteArray(MTOMSample.SAMPLE1.getInputStream());
+        mtomContentType = MTOMSample.SAMPLE1.getContentType();
+        envelope = parse();
+    }
+    
+    private SOAPEnvelope createEnvelope() throws XMLStreamException {
+        return new StAXSOAPModelBuilder(metaFactory, StAXUtils.createXMLStreamReader(
+                StAXParserConfiguration.SOAP, new ByteArrayInputStream(soapMessage))).getSOAPEnvelope();
+    }
+    
+    /**
+     * Build a SOAP message using {@link StAXSOAPModelBuilder}.
+     * 
+     * @return the SOAP envelope
+     * @throws XMLStreamException
+     */
+    @Benchmark
+    public SOAPEnvelope parse() throws XMLStreamException {
+        SOAPEnvelope envelope = createEnvelope();
+        envelope.build();
+        return envelope;
+    }
+    
+    /**
+     * Build an MTOM message and read the content of its attachments.
+     * 
+     * @param blackhole
+     *            the blackhole to consume the attachment content
+     * @throws Exception
+     */
+    @Benchmark
+    public void parseMTOM(Blackhole blackhole) throws Exception {
+        Attachments attachments = new Attachments(new ByteArrayInputStream(mtomMessage), mtomContentType);
+        SOAPEnvelope envelope = OMXMLBuilderFactory.createSOAPModelBuilder(metaFactory, attachments).getSOAPEnvelope();
+        envelope.build();
+        for (String contentID : attachments.getAllContentIDs()) {
+            blackhole.consume(IOUtils.toByteArray(attachments.getDataHandler(contentID).getInputStream()));
+        }
+    }
+    
+    /**
+     * Serialize an already built SOAP message.
+     * 
+     * @throws XMLStreamException
+     */
+    @Benchmark
+    public void serialize() throws XMLStreamException {
+        envelope.serialize(NullOutputStream.NULL_OUTPUT_STREAM);
+    }
+    
+    /**
+     * Stream a SOAP message from the parser to the output without building the body.
+     * 
+     * @throws XMLStreamException
+     */
+    @Benchmark
+    public void parseAndSerializeAndConsume() throws XMLStreamException {
+        createEnvelope().serializeAndConsume(NullOutputStream.NULL_OUTPUT_STREAM);
+    }
+    
+    /**
+     * Pull all events from an already built SOAP message.
+     * 
+     * @param blackhole
+     *            the blackhole to consume the events
+     * @throws XMLStreamException
+     */
+    @Benchmark
+    public void getXMLStreamReader(Blackhole blackhole) throws XMLStreamException {
+        OMBenchmark.drain(envelope.getXMLStreamReader(false), blackhole);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.om.util.StAXParserConfiguration;
+import org.apache.axiom.om.util.StAXUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the overhead of the factory cache in {@link StAXUtils}. Each benchmark is executed
+ * with a single thread and with 64 threads; comparing the results shows whether lookups scale or
+ * suffer from lock contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=10, time=1)
+@Fork(2)
+public class StAXUtilsBenchmark {
+    private static final String DOCUMENT = "<root/>";
+    
+    @Benchmark
+    @Threads(1)
+    public XMLInputFactory getXMLInputFactory() {
+        return StAXUtils.getXMLInputFactory(StAXParserConfiguration.SOAP);
+    }
+    
+    @Benchmark
+    @Threads(64)
+    public XMLInputFactory getXMLInputFactory64Threads() {
+        return StAXUtils.getXMLInputFactory(StAXParserConfiguration.SOAP);
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public int createXMLStreamReader() throws XMLStreamException {
+        return parse();
+    }
+    
+    @Benchmark
+    @Threads(64)
+    public int createXMLStreamReader64Threads() throws XMLStreamException {
+        return parse();
+    }
+    
+    private static int parse() throws XMLStreamException {
+        XMLStreamReader reader = StAXUtils.createXMLStreamReader(StAXParserConfiguration.SOAP,
+                new StringReader(DOCUMENT));
+        int event = reader.next();
+        reader.close();
+        return event;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.compact;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMCloneOptions;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMInformationItem;
+import org.apache.axiom.om.OMNamespace;
+
+/**
+ * View of an attribute in a {@link NodeStore}. Attributes are identified by their slot in the
+ * attribute table.
+ */
+final class CompactAttribute implements OMAttribute {
+    private final NodeStore store;
+    private final int owner;
+    private final int slot;
+
+    CompactAttribute(NodeStore store, int owner, int slot) {
+        this.store = store;
+        this.owner = owner;
+        this.slot = slot;
+    }
+
+    public OMFactory getOMFactory() {
+        return store.getOMFactory();
+    }
+
+    public String getLocalName() {
+        return store.getLocalName(store.getAttributeName(slot));
+    }
+
+    public void setLocalName(String localName) {
+        throw CompactInformationItem.readOnly();
+    }
+
+    public OMNamespace getNamespace() {
+        return store.getNamespace(store.getQNameNamespace(store.getAttributeName(slot)));
+    }
+
+    public void setNamespace(OMNamespace namespace, boolean declare) {
+        throw CompactInformationItem.readOnly();
+    }
+
+    public QName getQName() {
+        return store.getQName(store.getAttributeName(slot));
+    }
+
+    public String getPrefix() {
+        OMNamespace ns = getNamespace();
+        if (ns == null) {
+            return null;
+        } else {
+            String prefix = ns.getPrefix();
+            return prefix.length() == 0 ? null : prefix;
+        }
+    }
+
+    public String getNamespaceURI() {
+        OMNamespace ns = getNamespace();
+        return ns == null ? null : ns.getNamespaceURI();
+    }
+
+    public boolean hasName(QName name) {
+        if (name.getLocalPart().equals(getLocalName())) {
+            OMNamespace ns = getNamespace();
+            return ns == null && name.getNamespaceURI().length() == 0
+                    || ns != null && name.getNamespaceURI().equals(ns.getNamespaceURI());
+        } else {
+            return false;
+        }
+    }
+
+    public String getAttributeValue() {
+        return store.getAttributeValue(slot);
+    }
+
+    public void setAttributeValue(String value) {
+        throw CompactInformationItem.readOnly();
+    }
+
+    public String getAttributeType() {
+        return store.getAttributeType(slot);
+    }
+
+    public void setAttributeType(String value) {
+        throw CompactInformationItem.readOnly();
+    }
+
+    public void setOMNamespace(OMNamespace omNamespace) {
+        throw CompactInformationItem.readOnly();
+    }
+
+    public OMElement getOwner() {
+        return store.getElement(owner, null);
+    }
+
+    public OMInformationItem clone(OMCloneOptions options) {
+        OMAttribute clone = CompactOMMetaFactory.getMutableFactory(getOMFactory()).createOMAttribute(
+                getLocalName(), getNamespace(), getAttributeValue());
+        clone.setAttributeType(getAttributeType());
+        return clone;
+    }
+
+    public boolean equals(Object obj) {
+        if (obj instanceof CompactAttribute) {
+            CompactAttribute other = (CompactAttribute)obj;
+            return other.store == store && other.slot == slot;
+        } else {
+            return false;
+        }
+    }
+
+    public int hashCode() {
+        return System.identityHashCode(store)*31 + slot;
+    }
+}
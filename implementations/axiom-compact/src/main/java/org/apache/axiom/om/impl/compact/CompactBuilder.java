@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.compact;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.om.OMConstants;
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMXMLParserWrapper;
+
+/**
+ * Builder for the compact object model. In contrast to the builders of the default
+ * implementation, this builder is not incremental: the first request for the document (or any
+ * call to {@link #next()}) consumes the entire input and stores it in a {@link NodeStore}. The
+ * underlying parser is closed immediately afterwards.
+ * <p>
+ * The input is read from a builder of the default implementation in non caching mode, so that
+ * the logic to create parsers for the different types of input is not duplicated.
+ */
+final class CompactBuilder implements OMXMLParserWrapper, XMLStreamConstants {
+    private final XMLStreamReader parser;
+    private final OMXMLParserWrapper source;
+    private final NodeStore store;
+    private boolean completed;
+    private boolean closed;
+    private Object registeredContentHandler;
+    
+    CompactBuilder(OMFactory factory, OMXMLParserWrapper source) {
+        this.source = source;
+        parser = source.getDocument().getXMLStreamReader(false);
+        store = new NodeStore(factory, this);
+    }
+    
+    private void parse() {
+        if (completed) {
+            return;
+        }
+        if (closed) {
+            throw new OMException("The builder has already been closed");
+        }
+        try {
+            store.setDocumentInfo(parser.getVersion(), parser.getCharacterEncodingScheme(),
+                    parser.getEncoding(), parser.standaloneSet() ? (parser.isStandalone() ? "yes" : "no") : null);
+            // The open containers and the last child added to each of them
+            int[] containers = new int[16];
+            int[] lastChildren = new int[16];
+            int depth = 0;
+            containers[0] = 0;
+            lastChildren[0] = NodeStore.NONE;
+            loop: while (parser.hasNext()) {
+                int event = parser.next();
+                switch (event) {
+                    case START_ELEMENT: {
+                        int element = store.addNode(OMNode.ELEMENT_NODE, containers[depth], lastChildren[depth]);
+                        lastChildren[depth] = element;
+                        processStartElement(element);
+                        if (++depth == containers.length) {
+                            containers = grow(containers);
+                            lastChildren = grow(lastChildren);
+                        }
+                        containers[depth] = element;
+                        lastChildren[depth] = NodeStore.NONE;
+                        break;
+                    }
+                    case END_ELEMENT:
+                        depth--;
+                        break;
+                    case CHARACTERS:
+                    case SPACE:
+                    case CDATA: {
+                        int offset = store.getCharCount();
+                        int length = parser.getTextLength();
+                        store.appendChars(parser.getTextCharacters(), parser.getTextStart(), length);
+                        int last = lastChildren[depth];
+                        // Coalesce adjacent text events (but not CDATA sections)
+                        if (event == CDATA || last == NodeStore.NONE || store.getType(last) != event
+                                || !store.extendCharacterData(last, offset, length)) {
+                            int node = store.addNode(event, containers[depth], last);
+                            store.setCharacterData(node, offset, length);
+                            lastChildren[depth] = node;
+                        }
+                        break;
+                    }
+                    case COMMENT: {
+                        int node = store.addNode(OMNode.COMMENT_NODE, containers[depth], lastChildren[depth]);
+                        addCharacterData(node, parser.getText());
+                        lastChildren[depth] = node;
+                        break;
+                    }
+                    case PROCESSING_INSTRUCTION: {
+                        int node = store.addNode(OMNode.PI_NODE, containers[depth], lastChildren[depth]);
+                        store.setName(node, store.internString(parser.getPITarget()));
+                        addCharacterData(node, parser.getPIData());
+                        lastChildren[depth] = node;
+                        break;
+                    }
+                    case DTD:
+                        throw new OMException("The compact object model doesn't support documents with a DTD");
+                    case ENTITY_REFERENCE:
+                        throw new OMException("The compact object model doesn't support entity references");
+                    case END_DOCUMENT:
+                        break loop;
+                    default:
+                        throw new OMException("Unexpected event " + event);
+                }
+            }
+            completed = true;
+        } catch (XMLStreamException ex) {
+            throw new OMException(ex);
+        } finally {
+            close();
+        }
+    }
+    
+    private void processStartElement(int element) {
+        int firstSlot = store.getAttributeCount();
+        for (int i=0, count=parser.getNamespaceCount(); i<count; i++) {
+            store.addNamespaceDeclaration(store.internNamespace(
+                    emptyIfNull(parser.getNamespaceURI(i)), emptyIfNull(parser.getNamespacePrefix(i))));
+        }
+        // The parser may not report all the namespace declarations (e.g. if it is not namespace
+        // aware or if the declarations have been filtered out); add the missing ones before
+        // the attributes, because the declarations must come first in the attribute slots.
+        repairNamespace(element, firstSlot, parser.getPrefix(), parser.getNamespaceURI());
+        for (int i=0, count=parser.getAttributeCount(); i<count; i++) {
+            String prefix = parser.getAttributePrefix(i);
+            if (prefix != null && prefix.length() > 0) {
+                repairNamespace(element, firstSlot, prefix, parser.getAttributeNamespace(i));
+            }
+        }
+        for (int i=0, count=parser.getAttributeCount(); i<count; i++) {
+            int name = store.internQName(getNamespace(parser.getAttributeNamespace(i),
+                    parser.getAttributePrefix(i)), parser.getAttributeLocalName(i));
+            int offset = store.getCharCount();
+            String value = parser.getAttributeValue(i);
+            store.appendChars(value);
+            store.addAttribute(name, store.internString(parser.getAttributeType(i)), offset,
+                    value.length());
+        }
+        store.setAttributeRange(element, firstSlot, store.getAttributeCount() - firstSlot);
+        store.setName(element, store.internQName(getNamespace(parser.getNamespaceURI(),
+                parser.getPrefix()), parser.getLocalName()));
+    }
+    
+    private void repairNamespace(int element, int firstSlot, String prefix, String namespaceURI) {
+        prefix = emptyIfNull(prefix);
+        namespaceURI = emptyIfNull(namespaceURI);
+        if (prefix.equals(XMLConstants.XML_NS_PREFIX) || prefix.equals(XMLConstants.XMLNS_ATTRIBUTE)) {
+            return;
+        }
+        String boundURI = null;
+        for (int slot = firstSlot, end = store.getAttributeCount(); slot < end; slot++) {
+            OMNamespace ns = store.getDeclaredNamespace(slot);
+            if (ns.getPrefix().equals(prefix)) {
+                boundURI = ns.getNamespaceURI();
+                break;
+            }
+        }
+        if (boundURI == null) {
+            OMNamespace ns = store.findNamespaceURI(store.getParent(element), prefix);
+            boundURI = ns == null ? "" : ns.getNamespaceURI();
+        }
+        if (!boundURI.equals(namespaceURI)) {
+            store.addNamespaceDeclaration(store.internNamespace(namespaceURI, prefix));
+        }
+    }
+    
+    private int getNamespace(String namespaceURI, String prefix) {
+        if (namespaceURI == null || namespaceURI.length() == 0) {
+            return NodeStore.NONE;
+        } else {
+            return store.internNamespace(namespaceURI, emptyIfNull(prefix));
+        }
+    }
+    
+    private void addCharacterData(int node, String data) {
+        store.setCharacterData(node, store.getCharCount(), data.length());
+        store.appendChars(data);
+    }
+    
+    private static String emptyIfNull(String s) {
+        return s == null ? "" : s;
+    }
+    
+    private static int[] grow(int[] array) {
+        int[] newArray = new int[array.length*2];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+    
+    public int next() throws OMException {
+        parse();
+        return END_DOCUMENT;
+    }
+
+    public void discard(OMElement el) throws OMException {
+        throw CompactInformationItem.readOnly();
+    }
+
+    public void setCache(boolean b) throws OMException {
+        // The document is always stored entirely; there is nothing to do here
+    }
+
+    public boolean isCache() {
+        return true;
+    }
+
+    public Object getParser() {
+        return parser;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public OMDocument getDocument() {
+        parse();
+        return store.getDocument();
+    }
+
+    public OMElement getDocumentElement() {
+        return getDocumentElement(false);
+    }
+
+    public OMElement getDocumentElement(boolean discardDocument) {
+        parse();
+        OMElement element = (OMElement)store.getNodeOrNull(store.getFirstChildElement(0), null);
+        if (discardDocument) {
+            store.discardDocument();
+        }
+        return element;
+    }
+
+    public short getBuilderType() {
+        return OMConstants.PULL_TYPE_BUILDER;
+    }
+
+    public void registerExternalContentHandler(Object obj) {
+        registeredContentHandler = obj;
+    }
+
+    public Object getRegisteredContentHandler() {
+        return registeredContentHandler;
+    }
+
+    public String getCharacterEncoding() {
+        return getDocument().getCharsetEncoding();
+    }
+
+    public void close() {
+        if (!closed) {
+            closed = true;
+            try {
+                parser.close();
+            } catch (XMLStreamException ex) {
+                throw new OMException(ex);
+            }
+            source.close();
+        }
+    }
+
+    public void detach() {
+        parse();
+    }
+}
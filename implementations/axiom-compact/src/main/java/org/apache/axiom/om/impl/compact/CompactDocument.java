@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.compact;
+
+import org.apache.axiom.om.OMCloneOptions;
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMInformationItem;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.impl.common.serializer.push.OutputException;
+import org.apache.axiom.om.impl.common.serializer.push.Serializer;
+
+final class CompactDocument extends CompactInformationItem implements OMDocument {
+    CompactDocument(NodeStore store) {
+        super(store, 0);
+    }
+
+    public OMElement getOMDocumentElement() {
+        int element = store.getFirstChildElement(0);
+        return element == NodeStore.NONE ? null : store.getElement(element, this);
+    }
+
+    public void setOMDocumentElement(OMElement documentElement) {
+        throw readOnly();
+    }
+
+    public String getCharsetEncoding() {
+        String inputEncoding = store.getInputEncoding();
+        return inputEncoding == null ? "UTF-8" : inputEncoding;
+    }
+
+    public void setCharsetEncoding(String charsetEncoding) {
+        throw readOnly();
+    }
+
+    public String getXMLVersion() {
+        return store.getXMLVersion();
+    }
+
+    public void setXMLVersion(String version) {
+        throw readOnly();
+    }
+
+    public String getXMLEncoding() {
+        return store.getXMLEncoding();
+    }
+
+    public void setXMLEncoding(String encoding) {
+        throw readOnly();
+    }
+
+    public String isStandalone() {
+        return store.getStandalone();
+    }
+
+    public void setStandalone(String isStandalone) {
+        throw readOnly();
+    }
+
+    public OMInformationItem clone(OMCloneOptions options) {
+        return createMutableCopy().getDocument();
+    }
+
+    void internalSerialize(Serializer serializer, OMOutputFormat format) throws OutputException {
+        if (!format.isIgnoreXMLDeclaration()) {
+            //Check whether the OMOutput char encoding and OMDocument char
+            //encoding matches, if not use char encoding of OMOutput
+            String encoding = format.getCharSetEncoding();
+            if (encoding == null || "".equals(encoding)) {
+                encoding = getCharsetEncoding();
+            }
+            String version = getXMLVersion();
+            if (version == null) {
+                version = "1.0";
+            }
+            serializer.writeStartDocument(encoding, version);
+        }
+        serializeRange(serializer, 1, store.getNodeCount());
+        serializer.writeEndDocument();
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.compact;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMCloneOptions;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMInformationItem;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.impl.common.OMChildElementIterator;
+import org.apache.axiom.util.namespace.MapBasedNamespaceContext;
+
+final class CompactElement extends CompactNode implements OMElement {
+    CompactElement(NodeStore store, int node) {
+        super(store, node);
+    }
+
+    // Name
+    
+    public String getLocalName() {
+        return store.getLocalName(store.getName(node));
+    }
+
+    public void setLocalName(String localName) {
+        throw readOnly();
+    }
+
+    public OMNamespace getNamespace() {
+        return store.getNamespace(store.getQNameNamespace(store.getName(node)));
+    }
+
+    public void setNamespace(OMNamespace namespace, boolean declare) {
+        throw readOnly();
+    }
+
+    public void setNamespace(OMNamespace namespace) {
+        throw readOnly();
+    }
+
+    public void setNamespaceWithNoFindInCurrentScope(OMNamespace namespace) {
+        throw readOnly();
+    }
+
+    public QName getQName() {
+        return store.getQName(store.getName(node));
+    }
+
+    public String getPrefix() {
+        OMNamespace ns = getNamespace();
+        if (ns == null) {
+            return null;
+        } else {
+            String prefix = ns.getPrefix();
+            return prefix.length() == 0 ? null : prefix;
+        }
+    }
+
+    public String getNamespaceURI() {
+        OMNamespace ns = getNamespace();
+        return ns == null ? null : ns.getNamespaceURI();
+    }
+
+    public boolean hasName(QName name) {
+        if (name.getLocalPart().equals(getLocalName())) {
+            OMNamespace ns = getNamespace();
+            return ns == null && name.getNamespaceURI().length() == 0
+                    || ns != null && name.getNamespaceURI().equals(ns.getNamespaceURI());
+        } else {
+            return false;
+        }
+    }
+
+    // Namespaces
+    
+    public OMNamespace declareNamespace(String uri, String prefix) {
+        throw readOnly();
+    }
+
+    public OMNamespace declareDefaultNamespace(String uri) {
+        throw readOnly();
+    }
+
+    public OMNamespace declareNamespace(OMNamespace namespace) {
+        throw readOnly();
+    }
+
+    public void undeclarePrefix(String prefix) {
+        throw readOnly();
+    }
+
+    public OMNamespace getDefaultNamespace() {
+        return findNamespaceURI("");
+    }
+
+    public OMNamespace findNamespace(String uri, String prefix) {
+        return store.findNamespace(node, uri, prefix);
+    }
+
+    public OMNamespace findNamespaceURI(String prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException();
+        }
+        return store.findNamespaceURI(node, prefix);
+    }
+
+    public Iterator getAllDeclaredNamespaces() {
+        final int end = store.getFirstAttributeSlot(node) + store.getNamespaceDeclarationCount(node);
+        return new Iterator() {
+            private int slot = store.getFirstAttributeSlot(node);
+            
+            public boolean hasNext() {
+                return slot < end;
+            }
+
+            public Object next() {
+                if (slot >= end) {
+                    throw new NoSuchElementException();
+                }
+                return store.getDeclaredNamespace(slot++);
+            }
+
+            public void remove() {
+                throw readOnly();
+            }
+        };
+    }
+
+    public Iterator getNamespacesInScope() {
+        return store.getNamespacesInScope(node).iterator();
+    }
+
+    public NamespaceContext getNamespaceContext(boolean detached) {
+        // The object model is immutable; a live namespace context would always return the same
+        // information as a detached one.
+        Map namespaces = new HashMap();
+        for (Iterator it = getNamespacesInScope(); it.hasNext(); ) {
+            OMNamespace ns = (OMNamespace)it.next();
+            namespaces.put(ns.getPrefix(), ns.getNamespaceURI());
+        }
+        return new MapBasedNamespaceContext(namespaces);
+    }
+
+    public QName resolveQName(String qname) {
+        int idx = qname.indexOf(':');
+        if (idx == -1) {
+            OMNamespace ns = getDefaultNamespace();
+            return ns == null ? new QName(qname) : new QName(ns.getNamespaceURI(), qname, "");
+        } else {
+            String prefix = qname.substring(0, idx);
+            OMNamespace ns = findNamespace(null, prefix);
+            return ns == null ? null : new QName(ns.getNamespaceURI(), qname.substring(idx+1), prefix);
+        }
+    }
+
+    // Attributes
+    
+    public Iterator getAllAttributes() {
+        final int end = store.getFirstAttributeSlot(node) + store.getAttributeSlotCount(node);
+        return new Iterator() {
+            private int slot = store.getFirstAttributeSlot(node) + store.getNamespaceDeclarationCount(node);
+            
+            public boolean hasNext() {
+                return slot < end;
+            }
+
+            public Object next() {
+                if (slot >= end) {
+                    throw new NoSuchElementException();
+                }
+                return new CompactAttribute(store, node, slot++);
+            }
+
+            public void remove() {
+                throw readOnly();
+            }
+        };
+    }
+
+    public OMAttribute getAttribute(QName qname) {
+        int slot = store.findAttribute(node, qname.getNamespaceURI(), qname.getLocalPart());
+        return slot == NodeStore.NONE ? null : new CompactAttribute(store, node, slot);
+    }
+
+    public String getAttributeValue(QName qname) {
+        int slot = store.findAttribute(node, qname.getNamespaceURI(), qname.getLocalPart());
+        return slot == NodeStore.NONE ? null : store.getAttributeValue(slot);
+    }
+
+    public OMAttribute addAttribute(OMAttribute attr) {
+        throw readOnly();
+    }
+
+    public OMAttribute addAttribute(String localName, String value, OMNamespace ns) {
+        throw readOnly();
+    }
+
+    public void removeAttribute(OMAttribute attr) {
+        throw readOnly();
+    }
+
+    // Children
+    
+    public Iterator getChildElements() {
+        return new OMChildElementIterator(getFirstElement());
+    }
+
+    public OMElement getFirstElement() {
+        int child = store.getFirstChildElement(node);
+        return child == NodeStore.NONE ? null : store.getElement(child, this);
+    }
+
+    // Text content
+    
+    public void setText(String text) {
+        throw readOnly();
+    }
+
+    public void setText(QName qname) {
+        throw readOnly();
+    }
+
+    public String getText() {
+        String text = null;
+        StringBuilder buffer = null;
+        for (int child = store.getFirstChild(node); child != NodeStore.NONE;
+                child = store.getNextSibling(child)) {
+            switch (store.getType(child)) {
+                case OMNode.TEXT_NODE:
+                case OMNode.SPACE_NODE:
+                case OMNode.CDATA_SECTION_NODE:
+                    if (text == null) {
+                        text = store.getCharacterData(child);
+                    } else {
+                        if (buffer == null) {
+                            buffer = new StringBuilder(text);
+                        }
+                        buffer.append(store.getChars(), store.getOffset(child), store.getLength(child));
+                    }
+            }
+        }
+        return buffer != null ? buffer.toString() : text != null ? text : "";
+    }
+
+    public Reader getTextAsStream(boolean cache) {
+        return new StringReader(getText());
+    }
+
+    public void writeTextTo(Writer out, boolean cache) throws IOException {
+        out.write(getText());
+    }
+
+    public QName getTextAsQName() {
+        String childText = getText().trim();
+        return childText.length() == 0 ? null : resolveQName(childText);
+    }
+
+    // Miscellaneous
+    
+    public String toString() {
+        StringWriter sw = new StringWriter();
+        try {
+            serialize(sw);
+        } catch (XMLStreamException ex) {
+            throw new OMException("Failed to serialize node", ex);
+        }
+        return sw.toString();
+    }
+
+    public String toStringWithConsume() throws XMLStreamException {
+        return toString();
+    }
+
+    public OMElement cloneOMElement() {
+        return createMutableCopy().getDocumentElement(true);
+    }
+
+    public OMInformationItem clone(OMCloneOptions options) {
+        return cloneOMElement();
+    }
+
+    public void setLineNumber(int lineNumber) {
+        throw readOnly();
+    }
+
+    public void setSerializationCacheEnabled(boolean enabled) {
+        // Compact elements are immutable; their serialized form is not cached
+    }
+
+    public boolean isSerializationCacheEnabled() {
+        return false;
+    }
+
+    public int getLineNumber() {
+        // Line numbers are not stored
+        return 0;
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.compact;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXSource;
+
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.OMSerializable;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.om.OMXMLParserWrapper;
+import org.apache.axiom.om.OMXMLStreamReaderConfiguration;
+import org.apache.axiom.om.impl.MTOMXMLStreamWriter;
+import org.apache.axiom.om.impl.common.OMChildrenLocalNameIterator;
+import org.apache.axiom.om.impl.common.OMChildrenNamespaceIterator;
+import org.apache.axiom.om.impl.common.OMChildrenQNameIterator;
+import org.apache.axiom.om.impl.common.serializer.push.OutputException;
+import org.apache.axiom.om.impl.common.serializer.push.Serializer;
+import org.apache.axiom.om.impl.common.serializer.push.stax.StAXSerializer;
+import org.apache.axiom.om.impl.common.serializer.push.stream.StreamSerializer;
+import org.apache.axiom.om.impl.traverse.OMChildrenIterator;
+import org.apache.axiom.om.util.StAXUtils;
+
+/**
+ * Base class for all views of nodes in a {@link NodeStore}. A view only references the store and
+ * the index of the node; two views are equal if they refer to the same node.
+ * <p>
+ * This class also contains the implementations of the {@link org.apache.axiom.om.OMContainer}
+ * methods; they are only exposed through the interface by {@link CompactElement} and
+ * {@link CompactDocument}.
+ */
+abstract class CompactInformationItem implements OMSerializable {
+    private static final OMXMLStreamReaderConfiguration defaultReaderConfiguration = new OMXMLStreamReaderConfiguration();
+    
+    final NodeStore store;
+    final int node;
+    
+    CompactInformationItem(NodeStore store, int node) {
+        this.store = store;
+        this.node = node;
+    }
+    
+    static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("The compact object model is read-only");
+    }
+    
+    public final OMFactory getOMFactory() {
+        return store.getOMFactory();
+    }
+    
+    /**
+     * Create a mutable copy of this node (and its descendants) using the default implementation.
+     * 
+     * @return a builder for the copy; if this node is an element, then its copy is the document
+     *         element of the builder
+     */
+    final OMXMLParserWrapper createMutableCopy() {
+        OMXMLParserWrapper builder = OMXMLBuilderFactory.createStAXOMBuilder(
+                CompactOMMetaFactory.getMutableFactory(store.getOMFactory()),
+                new CompactXMLStreamReader(store, node, true, false));
+        builder.getDocument().build();
+        return builder;
+    }
+    
+    public final boolean isComplete() {
+        return true;
+    }
+    
+    public final void build() {
+        // Nodes in the store are always complete
+    }
+    
+    public final void close(boolean build) {
+        store.getBuilder().close();
+    }
+    
+    public final OMXMLParserWrapper getBuilder() {
+        return store.getBuilder();
+    }
+
+    // Navigation (for containers)
+    
+    public final OMNode getFirstOMChild() {
+        return store.getNodeOrNull(store.getFirstChild(node), (OMContainer)this);
+    }
+    
+    public final Iterator getChildren() {
+        return new OMChildrenIterator(getFirstOMChild());
+    }
+    
+    public final Iterator getChildrenWithName(QName elementQName) {
+        return new OMChildrenQNameIterator(getFirstOMChild(), elementQName);
+    }
+
+    public final Iterator getChildrenWithLocalName(String localName) {
+        return new OMChildrenLocalNameIterator(getFirstOMChild(), localName);
+    }
+
+    public final Iterator getChildrenWithNamespaceURI(String uri) {
+        return new OMChildrenNamespaceIterator(getFirstOMChild(), uri);
+    }
+
+    public final OMElement getFirstChildWithName(QName qname) {
+        String namespaceURI = qname.getNamespaceURI();
+        String localName = qname.getLocalPart();
+        for (int child = store.getFirstChildElement(node); child != NodeStore.NONE;
+                child = store.getNextSiblingElement(child)) {
+            int name = store.getName(child);
+            if (store.getLocalName(name).equals(localName)) {
+                OMNamespace ns = store.getNamespace(store.getQNameNamespace(name));
+                if (ns == null ? namespaceURI.length() == 0 : ns.getNamespaceURI().equals(namespaceURI)) {
+                    return store.getElement(child, (OMContainer)this);
+                }
+            }
+        }
+        return null;
+    }
+
+    public final Iterator getDescendants(final boolean includeSelf) {
+        final int end = store.getSubtreeEnd(node);
+        return new Iterator() {
+            private int next = includeSelf ? node : node+1;
+            
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            public Object next() {
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                int current = next++;
+                return current == 0 ? store.getDocument() : store.getNode(current, null);
+            }
+
+            public void remove() {
+                throw readOnly();
+            }
+        };
+    }
+
+    public final void addChild(OMNode omNode) {
+        throw readOnly();
+    }
+    
+    public final void removeChildren() {
+        throw readOnly();
+    }
+    
+    // Pull serialization (for containers)
+    
+    public final XMLStreamReader getXMLStreamReader() {
+        return getXMLStreamReader(true);
+    }
+
+    public final XMLStreamReader getXMLStreamReaderWithoutCaching() {
+        return getXMLStreamReader(false);
+    }
+
+    public final XMLStreamReader getXMLStreamReader(boolean cache) {
+        return getXMLStreamReader(cache, defaultReaderConfiguration);
+    }
+
+    public final XMLStreamReader getXMLStreamReader(boolean cache,
+            OMXMLStreamReaderConfiguration configuration) {
+        // The store is immutable and never consumed; the cache flag is therefore irrelevant
+        return new CompactXMLStreamReader(store, node, configuration.isPreserveNamespaceContext(),
+                configuration.isNamespaceURIInterning());
+    }
+    
+    public final SAXSource getSAXSource(boolean cache) {
+        OMXMLParserWrapper builder = createMutableCopy();
+        return node == 0 ? builder.getDocument().getSAXSource(cache)
+                : builder.getDocumentElement().getSAXSource(cache);
+    }
+
+    public final SAXResult getSAXResult() {
+        throw readOnly();
+    }
+    
+    // Push serialization
+    
+    abstract void internalSerialize(Serializer serializer, OMOutputFormat format)
+            throws OutputException;
+    
+    /**
+     * Serialize the nodes in the given index range. The range must contain entire subtrees.
+     */
+    final void serializeRange(Serializer serializer, int start, int end) throws OutputException {
+        int[] openElements = new int[8];
+        int depth = 0;
+        for (int current = start; current < end; current++) {
+            int parent = store.getParent(current);
+            while (depth > 0 && openElements[depth-1] != parent) {
+                serializer.writeEndElement();
+                depth--;
+            }
+            int type = store.getType(current);
+            switch (type) {
+                case OMNode.ELEMENT_NODE:
+                    serializer.serializeStartpart(store.getElement(current, null));
+                    if (depth == openElements.length) {
+                        int[] newOpenElements = new int[depth*2];
+                        System.arraycopy(openElements, 0, newOpenElements, 0, depth);
+                        openElements = newOpenElements;
+                    }
+                    openElements[depth++] = current;
+                    break;
+                case OMNode.TEXT_NODE:
+                case OMNode.SPACE_NODE:
+                case OMNode.CDATA_SECTION_NODE:
+                    serializer.writeText(type, store.getCharacterData(current));
+                    break;
+                case OMNode.COMMENT_NODE:
+                    serializer.writeComment(store.getCharacterData(current));
+                    break;
+                case OMNode.PI_NODE:
+                    serializer.writeProcessingInstruction(
+                            store.getString(store.getName(current)) + " ",
+                            store.getCharacterData(current));
+                    break;
+            }
+        }
+        while (depth-- > 0) {
+            serializer.writeEndElement();
+        }
+    }
+    
+    public final void serialize(XMLStreamWriter xmlWriter) throws XMLStreamException {
+        serialize(xmlWriter, true);
+    }
+
+    public final void serializeAndConsume(XMLStreamWriter xmlWriter) throws XMLStreamException {
+        serialize(xmlWriter, false);
+    }
+
+    public final void serialize(XMLStreamWriter xmlWriter, boolean cache) throws XMLStreamException {
+        // If the input xmlWriter is not an MTOMXMLStreamWriter, then wrapper it
+        MTOMXMLStreamWriter writer = xmlWriter instanceof MTOMXMLStreamWriter ?
+                (MTOMXMLStreamWriter) xmlWriter : 
+                    new MTOMXMLStreamWriter(xmlWriter);
+        try {
+            internalSerialize(new StAXSerializer(this, writer), writer.getOutputFormat());
+        } catch (OutputException ex) {
+            throw (XMLStreamException)ex.getCause();
+        }
+        writer.flush();
+    }
+    
+    public final void serialize(OutputStream output) throws XMLStreamException {
+        serialize(output, new OMOutputFormat());
+    }
+
+    public final void serialize(Writer writer) throws XMLStreamException {
+        XMLStreamWriter xmlStreamWriter = StAXUtils.createXMLStreamWriter(writer);
+        try {
+            serialize(xmlStreamWriter);
+        } finally {
+            xmlStreamWriter.close();
+        }
+    }
+
+    public final void serializeAndConsume(OutputStream output) throws XMLStreamException {
+        serialize(output);
+    }
+
+    public final void serializeAndConsume(Writer writer) throws XMLStreamException {
+        serialize(writer);
+    }
+
+    public final void serialize(OutputStream output, OMOutputFormat format) throws XMLStreamException {
+        StreamSerializer serializer = StreamSerializer.create(this, output, format);
+        if (serializer != null) {
+            try {
+                internalSerialize(serializer, serializer.getOutputFormat());
+                serializer.flush();
+            } catch (OutputException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof XMLStreamException) {
+                    throw (XMLStreamException)cause;
+                } else {
+                    throw new XMLStreamException(cause);
+                }
+            } finally {
+                serializer.release();
+            }
+            return;
+        }
+        MTOMXMLStreamWriter writer = new MTOMXMLStreamWriter(output, format, true);
+        try {
+            try {
+                internalSerialize(new StAXSerializer(this, writer), format);
+            } catch (OutputException ex) {
+                throw (XMLStreamException)ex.getCause();
+            }
+            writer.flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    public final void serialize(Writer writer2, OMOutputFormat format) throws XMLStreamException {
+        MTOMXMLStreamWriter writer =
+                new MTOMXMLStreamWriter(StAXUtils.createXMLStreamWriter(writer2));
+        writer.setOutputFormat(format);
+        try {
+            try {
+                internalSerialize(new StAXSerializer(this, writer), format);
+            } catch (OutputException ex) {
+                throw (XMLStreamException)ex.getCause();
+            }
+            writer.flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    public final void serializeAndConsume(OutputStream output, OMOutputFormat format)
+            throws XMLStreamException {
+        serialize(output, format);
+    }
+
+    public final void serializeAndConsume(Writer writer, OMOutputFormat format)
+            throws XMLStreamException {
+        serialize(writer, format);
+    }
+    
+    public final boolean equals(Object obj) {
+        if (obj instanceof CompactInformationItem) {
+            CompactInformationItem other = (CompactInformationItem)obj;
+            return other.store == store && other.node == node;
+        } else {
+            return false;
+        }
+    }
+
+    public final int hashCode() {
+        return System.identityHashCode(store)*31 + node;
+    }
+}
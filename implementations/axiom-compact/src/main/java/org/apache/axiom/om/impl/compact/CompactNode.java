@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.compact;
+
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.impl.common.serializer.push.OutputException;
+import org.apache.axiom.om.impl.common.serializer.push.Serializer;
+
+/**
+ * Base class for views of child nodes.
+ */
+abstract class CompactNode extends CompactInformationItem implements OMNode {
+    /**
+     * The view of the parent, or <code>null</code> if it has not been determined yet. This is set
+     * by {@link NodeStore#getNode(int, OMContainer)} or on the first call to {@link #getParent()}.
+     */
+    OMContainer parent;
+    
+    CompactNode(NodeStore store, int node) {
+        super(store, node);
+    }
+
+    public final OMContainer getParent() {
+        if (parent == null) {
+            parent = store.getContainer(store.getParent(node));
+        }
+        return parent;
+    }
+
+    public final OMNode getNextOMSibling() throws OMException {
+        return store.getNodeOrNull(store.getNextSibling(node), getParent());
+    }
+
+    public final OMNode getPreviousOMSibling() {
+        return store.getNodeOrNull(store.getPreviousSibling(node), getParent());
+    }
+
+    public final int getType() {
+        return store.getType(node);
+    }
+
+    public final OMNode detach() throws OMException {
+        throw readOnly();
+    }
+
+    public final void discard() throws OMException {
+        throw readOnly();
+    }
+
+    public final void insertSiblingAfter(OMNode sibling) throws OMException {
+        throw readOnly();
+    }
+
+    public final void insertSiblingBefore(OMNode sibling) throws OMException {
+        throw readOnly();
+    }
+
+    public final void buildWithAttachments() {
+        // The compact object model doesn't support XOP
+    }
+
+    final void internalSerialize(Serializer serializer, OMOutputFormat format)
+            throws OutputException {
+        serializeRange(serializer, node, store.getSubtreeEnd(node));
+    }
+}
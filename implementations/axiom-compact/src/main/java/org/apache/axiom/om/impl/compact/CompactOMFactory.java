@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.compact;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.ext.stax.datahandler.DataHandlerProvider;
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMComment;
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMDataSource;
+import org.apache.axiom.om.OMDocType;
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMEntityReference;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMProcessingInstruction;
+import org.apache.axiom.om.OMSourcedElement;
+import org.apache.axiom.om.OMText;
+
+/**
+ * {@link OMFactory} implementation for the compact object model. Nodes created programmatically
+ * are regular (mutable) nodes created by the default implementation; only object models
+ * produced by {@link CompactBuilder} use the compact representation. The purpose of this class is
+ * to make sure that {@link #getMetaFactory()} returns {@link CompactOMMetaFactory}, so that
+ * builders created using {@link org.apache.axiom.om.OMXMLBuilderFactory} with this factory
+ * produce compact object models.
+ */
+final class CompactOMFactory implements OMFactory {
+    private final OMMetaFactory metaFactory;
+    private final OMFactory delegate;
+
+    CompactOMFactory(OMMetaFactory metaFactory, OMFactory delegate) {
+        this.metaFactory = metaFactory;
+        this.delegate = delegate;
+    }
+
+    private static OMContainer checkParent(OMContainer parent) {
+        if (parent instanceof CompactInformationItem) {
+            throw CompactInformationItem.readOnly();
+        }
+        return parent;
+    }
+    
+    /**
+     * Get the factory used to create mutable nodes.
+     */
+    OMFactory getDelegate() {
+        return delegate;
+    }
+    
+    public OMMetaFactory getMetaFactory() {
+        return metaFactory;
+    }
+
+    public OMDocument createOMDocument() {
+        return delegate.createOMDocument();
+    }
+
+    public OMElement createOMElement(String localName, OMNamespace ns) {
+        return delegate.createOMElement(localName, ns);
+    }
+
+    public OMElement createOMElement(String localName, OMNamespace ns, OMContainer parent)
+            throws OMException {
+        return delegate.createOMElement(localName, ns, checkParent(parent));
+    }
+
+    public OMSourcedElement createOMElement(OMDataSource source) {
+        return delegate.createOMElement(source);
+    }
+
+    public OMSourcedElement createOMElement(OMDataSource source, String localName, OMNamespace ns) {
+        return delegate.createOMElement(source, localName, ns);
+    }
+
+    public OMSourcedElement createOMElement(OMDataSource source, QName qname) {
+        return delegate.createOMElement(source, qname);
+    }
+
+    public OMElement createOMElement(String localName, String namespaceURI, String prefix) {
+        return delegate.createOMElement(localName, namespaceURI, prefix);
+    }
+
+    public OMElement createOMElement(QName qname, OMContainer parent) {
+        return delegate.createOMElement(qname, checkParent(parent));
+    }
+
+    public OMElement createOMElement(QName qname) {
+        return delegate.createOMElement(qname);
+    }
+
+    public OMNamespace createOMNamespace(String uri, String prefix) {
+        return delegate.createOMNamespace(uri, prefix);
+    }
+
+    public OMText createOMText(OMContainer parent, String text) {
+        return delegate.createOMText(checkParent(parent), text);
+    }
+
+    public OMText createOMText(OMContainer parent, OMText source) {
+        return delegate.createOMText(checkParent(parent), source);
+    }
+
+    public OMText createOMText(OMContainer parent, QName text) {
+        return delegate.createOMText(checkParent(parent), text);
+    }
+
+    public OMText createOMText(OMContainer parent, String text, int type) {
+        return delegate.createOMText(checkParent(parent), text, type);
+    }
+
+    public OMText createOMText(OMContainer parent, char[] charArary, int type) {
+        return delegate.createOMText(checkParent(parent), charArary, type);
+    }
+
+    public OMText createOMText(OMContainer parent, QName text, int type) {
+        return delegate.createOMText(checkParent(parent), text, type);
+    }
+
+    public OMText createOMText(String s) {
+        return delegate.createOMText(s);
+    }
+
+    public OMText createOMText(String s, int type) {
+        return delegate.createOMText(s, type);
+    }
+
+    public OMText createOMText(String s, String mimeType, boolean optimize) {
+        return delegate.createOMText(s, mimeType, optimize);
+    }
+
+    public OMText createOMText(Object dataHandler, boolean optimize) {
+        return delegate.createOMText(dataHandler, optimize);
+    }
+
+    public OMText createOMText(OMContainer parent, String s, String mimeType, boolean optimize) {
+        return delegate.createOMText(checkParent(parent), s, mimeType, optimize);
+    }
+
+    public OMText createOMText(String contentID, DataHandlerProvider dataHandlerProvider,
+            boolean optimize) {
+        return delegate.createOMText(contentID, dataHandlerProvider, optimize);
+    }
+
+    public OMAttribute createOMAttribute(String localName, OMNamespace ns, String value) {
+        return delegate.createOMAttribute(localName, ns, value);
+    }
+
+    public OMDocType createOMDocType(OMContainer parent, String rootName, String publicId,
+            String systemId, String internalSubset) {
+        return delegate.createOMDocType(checkParent(parent), rootName, publicId, systemId,
+                internalSubset);
+    }
+
+    public OMProcessingInstruction createOMProcessingInstruction(OMContainer parent,
+            String piTarget, String piData) {
+        return delegate.createOMProcessingInstruction(checkParent(parent), piTarget, piData);
+    }
+
+    public OMComment createOMComment(OMContainer parent, String content) {
+        return delegate.createOMComment(checkParent(parent), content);
+    }
+
+    public OMEntityReference createOMEntityReference(OMContainer parent, String name) {
+        return delegate.createOMEntityReference(checkParent(parent), name);
+    }
+}
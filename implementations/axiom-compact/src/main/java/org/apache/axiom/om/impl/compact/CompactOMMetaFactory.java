@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.compact;
+
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+import javax.xml.transform.sax.SAXSource;
+
+import org.apache.axiom.om.AsyncOMBuilder;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMXMLParserWrapper;
+import org.apache.axiom.om.impl.llom.factory.OMLinkedListMetaFactory;
+import org.apache.axiom.om.util.StAXParserConfiguration;
+import org.apache.axiom.soap.SOAPFactory;
+import org.apache.axiom.soap.SOAPMessage;
+import org.apache.axiom.soap.SOAPModelBuilder;
+import org.apache.axiom.soap.impl.builder.OMMetaFactoryEx;
+import org.apache.axiom.util.stax.xop.MimePartProvider;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+/**
+ * {@link OMMetaFactory} implementation for the compact object model. Builders created by this
+ * meta factory parse the entire document at once into a {@link NodeStore} and return read-only
+ * views of it. This is appropriate for documents that are navigated and serialized, but never
+ * modified, and reduces the memory footprint and the number of long-lived objects compared to
+ * the default implementation.
+ * <p>
+ * The compact representation doesn't support SOAP, XOP encoded documents, DTDs and entity
+ * references. SOAP, XOP and asynchronous builders are delegated to the default implementation,
+ * while the other constructs cause the builder to throw an {@link OMException}. Factories returned
+ * by this meta factory also create regular (mutable) nodes; the compact representation is only
+ * used for documents created by the builders.
+ */
+public final class CompactOMMetaFactory implements OMMetaFactoryEx {
+    public static final CompactOMMetaFactory INSTANCE = new CompactOMMetaFactory();
+    
+    private final OMMetaFactoryEx delegate = OMLinkedListMetaFactory.INSTANCE;
+    private final OMFactory omFactory = new CompactOMFactory(this, delegate.getOMFactory());
+    
+    private CompactOMMetaFactory() {}
+    
+    public OMFactory getOMFactory() {
+        return omFactory;
+    }
+
+    public SOAPFactory getSOAP11Factory() {
+        return delegate.getSOAP11Factory();
+    }
+
+    public SOAPFactory getSOAP12Factory() {
+        return delegate.getSOAP12Factory();
+    }
+
+    public OMXMLParserWrapper createStAXOMBuilder(OMFactory omFactory, XMLStreamReader parser) {
+        return convert(omFactory, delegate.createStAXOMBuilder(getMutableFactory(omFactory), parser));
+    }
+
+    public OMXMLParserWrapper createOMBuilder(OMFactory omFactory,
+            StAXParserConfiguration configuration, InputSource is) {
+        return convert(omFactory, delegate.createOMBuilder(getMutableFactory(omFactory),
+                configuration, is));
+    }
+
+    public OMXMLParserWrapper createOMBuilder(OMFactory omFactory, Source source) {
+        return convert(omFactory, delegate.createOMBuilder(getMutableFactory(omFactory), source));
+    }
+
+    public OMXMLParserWrapper createOMBuilder(OMFactory omFactory, Node node,
+            boolean expandEntityReferences) {
+        return convert(omFactory, delegate.createOMBuilder(getMutableFactory(omFactory), node,
+                expandEntityReferences));
+    }
+
+    public OMXMLParserWrapper createOMBuilder(OMFactory omFactory, SAXSource source,
+            boolean expandEntityReferences) {
+        return convert(omFactory, delegate.createOMBuilder(getMutableFactory(omFactory), source,
+                expandEntityReferences));
+    }
+
+    /**
+     * Create a compact object model from the content of a builder of the default implementation.
+     * This reuses the logic of the default implementation to create a parser for the various
+     * input types. The content is read without caching, so that the default builder passes the
+     * events through from the underlying parser instead of building its own object model (unless
+     * it is a push-style builder).
+     */
+    private static OMXMLParserWrapper convert(OMFactory omFactory, OMXMLParserWrapper builder) {
+        return new CompactBuilder(omFactory, builder);
+    }
+    
+    static OMFactory getMutableFactory(OMFactory omFactory) {
+        return omFactory instanceof CompactOMFactory ? ((CompactOMFactory)omFactory).getDelegate() : omFactory;
+    }
+    
+    public OMXMLParserWrapper createOMBuilder(StAXParserConfiguration configuration,
+            OMFactory omFactory, InputSource rootPart, MimePartProvider mimePartProvider) {
+        // The compact representation can't store binary content
+        return delegate.createOMBuilder(configuration, getMutableFactory(omFactory), rootPart,
+                mimePartProvider);
+    }
+
+    public SOAPModelBuilder createStAXSOAPModelBuilder(XMLStreamReader parser) {
+        return delegate.createStAXSOAPModelBuilder(parser);
+    }
+
+    public SOAPMessage createSOAPMessage(OMXMLParserWrapper builder) {
+        return delegate.createSOAPMessage(builder);
+    }
+
+    public AsyncOMBuilder createAsyncOMBuilder(OMFactory omFactory) {
+        // Nodes are added to the tree while the document is being parsed, which is not compatible
+        // with the compact representation
+        return delegate.createAsyncOMBuilder(delegate.getOMFactory());
+    }
+
+    public SOAPModelBuilder createSOAPModelBuilder(StAXParserConfiguration configuration,
+            InputSource is) {
+        return delegate.createSOAPModelBuilder(configuration, is);
+    }
+
+    public SOAPModelBuilder createSOAPModelBuilder(StAXParserConfiguration configuration,
+            SOAPFactory soapFactory, InputSource rootPart, MimePartProvider mimePartProvider) {
+        return delegate.createSOAPModelBuilder(configuration, soapFactory, rootPart,
+                mimePartProvider);
+    }
+}
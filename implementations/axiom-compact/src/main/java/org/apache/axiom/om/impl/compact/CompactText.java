@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.compact;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMCloneOptions;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMInformationItem;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMText;
+
+final class CompactText extends CompactNode implements OMText {
+    CompactText(NodeStore store, int node) {
+        super(store, node);
+    }
+
+    public String getText() {
+        return store.getCharacterData(node);
+    }
+
+    public char[] getTextCharacters() {
+        char[] chars = new char[store.getLength(node)];
+        System.arraycopy(store.getChars(), store.getOffset(node), chars, 0, chars.length);
+        return chars;
+    }
+
+    public boolean isCharacters() {
+        return false;
+    }
+
+    public QName getTextAsQName() {
+        return ((OMElement)getParent()).resolveQName(getText());
+    }
+
+    public OMNamespace getNamespace() {
+        QName qname = getTextAsQName();
+        if (qname == null) {
+            return null;
+        } else {
+            String namespaceURI = qname.getNamespaceURI();
+            return namespaceURI.length() == 0 ? null
+                    : getOMFactory().createOMNamespace(namespaceURI, qname.getPrefix());
+        }
+    }
+
+    public Object getDataHandler() {
+        throw new OMException("No DataHandler available");
+    }
+
+    public boolean isOptimized() {
+        return false;
+    }
+
+    public void setOptimize(boolean value) {
+        throw readOnly();
+    }
+
+    public boolean isBinary() {
+        return false;
+    }
+
+    public void setBinary(boolean value) {
+        throw readOnly();
+    }
+
+    public String getContentID() {
+        return null;
+    }
+
+    public void setContentID(String cid) {
+        throw readOnly();
+    }
+
+    public OMInformationItem clone(OMCloneOptions options) {
+        return CompactOMMetaFactory.getMutableFactory(getOMFactory()).createOMText(getText(), getType());
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.compact;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.util.namespace.MapBasedNamespaceContext;
+import org.apache.axiom.util.stax.AbstractXMLStreamReader;
+
+/**
+ * {@link javax.xml.stream.XMLStreamReader} implementation that reads the nodes of a
+ * {@link NodeStore} directly, without creating views. The reader always starts with a
+ * {@link #START_DOCUMENT} event and ends with an {@link #END_DOCUMENT} event, even if the root
+ * is an element.
+ */
+final class CompactXMLStreamReader extends AbstractXMLStreamReader {
+    private final NodeStore store;
+    private final int root;
+    private final boolean preserveNamespaceContext;
+    private final boolean internNamespaceURIs;
+    private int event = START_DOCUMENT;
+    private int node;
+    
+    /**
+     * The namespace declarations for the current element, or <code>null</code> if they have not
+     * been loaded yet.
+     */
+    private OMNamespace[] namespaces;
+    
+    CompactXMLStreamReader(NodeStore store, int root, boolean preserveNamespaceContext,
+            boolean internNamespaceURIs) {
+        this.store = store;
+        this.root = root;
+        this.preserveNamespaceContext = preserveNamespaceContext;
+        this.internNamespaceURIs = internNamespaceURIs;
+        node = root;
+    }
+
+    private String processNamespaceURI(String namespaceURI) {
+        return internNamespaceURIs && namespaceURI != null ? namespaceURI.intern() : namespaceURI;
+    }
+    
+    public Object getProperty(String name) throws IllegalArgumentException {
+        return null;
+    }
+
+    public boolean hasNext() throws XMLStreamException {
+        return event != END_DOCUMENT;
+    }
+
+    public int next() throws XMLStreamException {
+        switch (event) {
+            case START_DOCUMENT:
+                if (root == 0) {
+                    int child = store.getFirstChild(0);
+                    if (child == NodeStore.NONE) {
+                        event = END_DOCUMENT;
+                    } else {
+                        setNode(child);
+                    }
+                } else {
+                    setNode(root);
+                }
+                break;
+            case START_ELEMENT: {
+                int child = store.getFirstChild(node);
+                if (child == NodeStore.NONE) {
+                    event = END_ELEMENT;
+                } else {
+                    setNode(child);
+                }
+                break;
+            }
+            case END_DOCUMENT:
+                throw new NoSuchElementException("End of the document reached");
+            default:
+                // We are leaving the current node
+                if (node == root) {
+                    event = END_DOCUMENT;
+                } else {
+                    int sibling = store.getNextSibling(node);
+                    if (sibling != NodeStore.NONE) {
+                        setNode(sibling);
+                    } else {
+                        int parent = store.getParent(node);
+                        if (parent == NodeStore.NONE || parent == 0) {
+                            event = END_DOCUMENT;
+                        } else {
+                            node = parent;
+                            event = END_ELEMENT;
+                            // The namespace declarations are those of the start tag
+                            namespaces = null;
+                        }
+                    }
+                }
+        }
+        return event;
+    }
+    
+    private void setNode(int node) {
+        this.node = node;
+        event = store.getType(node);
+        namespaces = null;
+    }
+
+    public void close() throws XMLStreamException {
+        // Nothing to do here
+    }
+
+    // Document information
+    
+    public String getEncoding() {
+        if (event != START_DOCUMENT) {
+            throw new IllegalStateException();
+        }
+        return store.getInputEncoding();
+    }
+
+    public String getVersion() {
+        return store.getXMLVersion();
+    }
+
+    public boolean isStandalone() {
+        return "yes".equals(store.getStandalone());
+    }
+
+    public boolean standaloneSet() {
+        return store.getStandalone() != null;
+    }
+
+    public String getCharacterEncodingScheme() {
+        if (event != START_DOCUMENT) {
+            throw new IllegalStateException();
+        }
+        return store.getXMLEncoding();
+    }
+
+    // Element names
+    
+    private void checkElement() {
+        if (event != START_ELEMENT && event != END_ELEMENT) {
+            throw new IllegalStateException();
+        }
+    }
+    
+    private OMNamespace getNamespace() {
+        checkElement();
+        return store.getNamespace(store.getQNameNamespace(store.getName(node)));
+    }
+    
+    public QName getName() {
+        checkElement();
+        return store.getQName(store.getName(node));
+    }
+
+    public String getLocalName() {
+        checkElement();
+        return store.getLocalName(store.getName(node));
+    }
+
+    public String getNamespaceURI() {
+        OMNamespace ns = getNamespace();
+        return ns == null ? null : processNamespaceURI(ns.getNamespaceURI());
+    }
+
+    public String getPrefix() {
+        OMNamespace ns = getNamespace();
+        if (ns == null) {
+            return null;
+        } else {
+            String prefix = ns.getPrefix();
+            return prefix.length() == 0 ? null : prefix;
+        }
+    }
+
+    // Namespace declarations
+    
+    private OMNamespace[] getNamespaces() {
+        checkElement();
+        if (namespaces == null) {
+            List<OMNamespace> list = new ArrayList<OMNamespace>();
+            int start = store.getFirstAttributeSlot(node);
+            int end = start + store.getNamespaceDeclarationCount(node);
+            for (int slot = start; slot < end; slot++) {
+                list.add(store.getDeclaredNamespace(slot));
+            }
+            if (preserveNamespaceContext && node == root) {
+                int parent = store.getParent(node);
+                if (parent != NodeStore.NONE && store.getType(parent) == OMNode.ELEMENT_NODE) {
+                    outer: for (OMNamespace ns : store.getNamespacesInScope(parent)) {
+                        for (int slot = start; slot < end; slot++) {
+                            if (store.getDeclaredNamespace(slot).getPrefix().equals(ns.getPrefix())) {
+                                continue outer;
+                            }
+                        }
+                        list.add(ns);
+                    }
+                }
+            }
+            namespaces = list.toArray(new OMNamespace[list.size()]);
+        }
+        return namespaces;
+    }
+    
+    public int getNamespaceCount() {
+        return getNamespaces().length;
+    }
+
+    public String getNamespacePrefix(int index) {
+        String prefix = getNamespaces()[index].getPrefix();
+        return prefix.length() == 0 ? null : prefix;
+    }
+
+    public String getNamespaceURI(int index) {
+        return processNamespaceURI(getNamespaces()[index].getNamespaceURI());
+    }
+
+    /**
+     * Get the element that determines the namespace context for the current event.
+     */
+    private int getContextElement() {
+        switch (event) {
+            case START_ELEMENT:
+            case END_ELEMENT:
+                return node;
+            case START_DOCUMENT:
+            case END_DOCUMENT:
+                return NodeStore.NONE;
+            default:
+                int parent = store.getParent(node);
+                return parent != NodeStore.NONE && store.getType(parent) == OMNode.ELEMENT_NODE
+                        ? parent : NodeStore.NONE;
+        }
+    }
+    
+    public String getNamespaceURI(String prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException();
+        } else if (prefix.equals(XMLConstants.XML_NS_PREFIX)) {
+            return XMLConstants.XML_NS_URI;
+        } else if (prefix.equals(XMLConstants.XMLNS_ATTRIBUTE)) {
+            return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+        } else {
+            int element = getContextElement();
+            OMNamespace ns = element == NodeStore.NONE ? null : store.findNamespaceURI(element, prefix);
+            return ns == null ? null : processNamespaceURI(ns.getNamespaceURI());
+        }
+    }
+
+    public NamespaceContext getNamespaceContext() {
+        Map<String,String> map = new HashMap<String,String>();
+        int element = getContextElement();
+        if (element != NodeStore.NONE) {
+            for (Iterator<OMNamespace> it = store.getNamespacesInScope(element).iterator(); it.hasNext(); ) {
+                OMNamespace ns = it.next();
+                map.put(ns.getPrefix(), processNamespaceURI(ns.getNamespaceURI()));
+            }
+        }
+        return new MapBasedNamespaceContext(map);
+    }
+
+    // Attributes
+    
+    private int getAttributeSlot(int index) {
+        if (event != START_ELEMENT) {
+            throw new IllegalStateException();
+        }
+        return store.getFirstAttributeSlot(node) + store.getNamespaceDeclarationCount(node) + index;
+    }
+    
+    public int getAttributeCount() {
+        if (event != START_ELEMENT) {
+            throw new IllegalStateException();
+        }
+        return store.getAttributeSlotCount(node) - store.getNamespaceDeclarationCount(node);
+    }
+
+    public QName getAttributeName(int index) {
+        return store.getQName(store.getAttributeName(getAttributeSlot(index)));
+    }
+
+    public String getAttributeLocalName(int index) {
+        return store.getLocalName(store.getAttributeName(getAttributeSlot(index)));
+    }
+
+    private OMNamespace getAttributeNamespaceObject(int index) {
+        return store.getNamespace(store.getQNameNamespace(store.getAttributeName(getAttributeSlot(index))));
+    }
+    
+    public String getAttributeNamespace(int index) {
+        OMNamespace ns = getAttributeNamespaceObject(index);
+        return ns == null ? null : processNamespaceURI(ns.getNamespaceURI());
+    }
+
+    public String getAttributePrefix(int index) {
+        OMNamespace ns = getAttributeNamespaceObject(index);
+        if (ns == null) {
+            return null;
+        } else {
+            String prefix = ns.getPrefix();
+            return prefix.length() == 0 ? null : prefix;
+        }
+    }
+
+    public String getAttributeType(int index) {
+        return store.getAttributeType(getAttributeSlot(index));
+    }
+
+    public String getAttributeValue(int index) {
+        return store.getAttributeValue(getAttributeSlot(index));
+    }
+
+    public boolean isAttributeSpecified(int index) {
+        getAttributeSlot(index);
+        // The information is not stored, but returning true is a reasonable default.
+        return true;
+    }
+
+    public String getAttributeValue(String namespaceURI, String localName) {
+        if (event != START_ELEMENT) {
+            throw new IllegalStateException();
+        }
+        int slot = store.findAttribute(node, namespaceURI, localName);
+        return slot == NodeStore.NONE ? null : store.getAttributeValue(slot);
+    }
+
+    // Character data
+    
+    private void checkCharacterData() {
+        switch (event) {
+            case CHARACTERS:
+            case SPACE:
+            case CDATA:
+            case COMMENT:
+                return;
+            default:
+                throw new IllegalStateException();
+        }
+    }
+    
+    public String getText() {
+        checkCharacterData();
+        return store.getCharacterData(node);
+    }
+
+    public char[] getTextCharacters() {
+        checkCharacterData();
+        return store.getChars();
+    }
+
+    public int getTextStart() {
+        checkCharacterData();
+        return store.getOffset(node);
+    }
+
+    public int getTextLength() {
+        checkCharacterData();
+        return store.getLength(node);
+    }
+
+    public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length)
+            throws XMLStreamException {
+        checkCharacterData();
+        int count = Math.min(length, store.getLength(node) - sourceStart);
+        if (count > 0) {
+            System.arraycopy(store.getChars(), store.getOffset(node) + sourceStart, target, targetStart, count);
+            return count;
+        } else {
+            return 0;
+        }
+    }
+
+    public String getPITarget() {
+        if (event != PROCESSING_INSTRUCTION) {
+            throw new IllegalStateException();
+        }
+        return store.getString(store.getName(node));
+    }
+
+    public String getPIData() {
+        if (event != PROCESSING_INSTRUCTION) {
+            throw new IllegalStateException();
+        }
+        return store.getCharacterData(node);
+    }
+
+    public int getEventType() {
+        return event;
+    }
+}
@@ -0,0 +1,714 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.compact;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+
+import org.apache.axiom.om.OMConstants;
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.impl.common.OMNamespaceImpl;
+
+/**
+ * Stores the nodes of a document in parallel primitive arrays. Nodes are identified by their index
+ * and appear in document order, so that the descendants of a node always form a contiguous range
+ * of indexes directly following the node itself. Index 0 is the document node.
+ * <p>
+ * Character data (text, comments, processing instruction data and attribute values) is stored in
+ * a single shared <code>char</code> buffer. Namespaces, qualified names and other recurring
+ * strings are stored once in name tables and referenced by index.
+ * <p>
+ * Instances are populated by {@link CompactBuilder} and are immutable afterwards.
+ */
+final class NodeStore implements XMLStreamConstants {
+    static final int NONE = -1;
+    
+    /**
+     * Node type used for the document node. The other nodes use the {@link OMNode} type constants.
+     */
+    static final byte DOCUMENT_NODE = START_DOCUMENT;
+    
+    private static final OMNamespace XMLNS = new OMNamespaceImpl(OMConstants.XMLNS_URI, OMConstants.XMLNS_PREFIX);
+    
+    private final OMFactory factory;
+    private final CompactBuilder builder;
+    
+    // Node table
+    private byte[] types = new byte[64];
+    private int[] parents = new int[64];
+    private int[] nextSiblings = new int[64];
+    /**
+     * For elements, the qualified name; for processing instructions, the target (as a string
+     * index); unused for other node types.
+     */
+    private int[] names = new int[64];
+    /**
+     * For elements, the index of the first slot in the attribute table; for other node types, the
+     * offset of the character data in the character buffer.
+     */
+    private int[] offsets = new int[64];
+    /**
+     * For elements, the number of slots in the attribute table; for other node types, the length
+     * of the character data.
+     */
+    private int[] lengths = new int[64];
+    private int nodeCount;
+    
+    // Attribute table; the slots for the namespace declarations of an element precede the slots
+    // for its attributes and have a negative name (-1 - namespace index).
+    private int[] attributeNames = new int[16];
+    private int[] attributeTypes = new int[16];
+    private int[] attributeValueOffsets = new int[16];
+    private int[] attributeValueLengths = new int[16];
+    private int attributeCount;
+    
+    private char[] chars = new char[1024];
+    private int charCount;
+    
+    // Name tables
+    private OMNamespace[] namespaces = new OMNamespace[8];
+    private int namespaceCount;
+    private final Map<String,Map<String,Integer>> namespaceIndex = new HashMap<String,Map<String,Integer>>();
+    
+    private int[] qnameNamespaces = new int[16];
+    private String[] qnameLocalNames = new String[16];
+    private QName[] qnames = new QName[16];
+    private int qnameCount;
+    private Map<String,Integer>[] qnameIndex;
+    
+    private String[] strings = new String[8];
+    private int stringCount;
+    private final Map<String,Integer> stringIndex = new HashMap<String,Integer>();
+    
+    private String xmlVersion;
+    private String xmlEncoding;
+    private String inputEncoding;
+    private String standalone;
+    
+    /**
+     * Indicates if the document node has been discarded, i.e. if the parent of the document
+     * element should be reported as <code>null</code>.
+     */
+    private boolean documentDiscarded;
+    
+    private CompactDocument document;
+    
+    /**
+     * The views created by {@link #getNode(int, OMContainer)}, indexed by node. This array is
+     * allocated on first use.
+     */
+    private WeakReference<CompactNode>[] views;
+
+    @SuppressWarnings("unchecked")
+    NodeStore(OMFactory factory, CompactBuilder builder) {
+        this.factory = factory;
+        this.builder = builder;
+        qnameIndex = new Map[8];
+        types[0] = DOCUMENT_NODE;
+        parents[0] = NONE;
+        nextSiblings[0] = NONE;
+        nodeCount = 1;
+    }
+    
+    OMFactory getOMFactory() {
+        return factory;
+    }
+    
+    CompactBuilder getBuilder() {
+        return builder;
+    }
+    
+    // Methods used by the builder
+    
+    int addNode(int type, int parent, int previousSibling) {
+        if (nodeCount == types.length) {
+            int capacity = nodeCount*2;
+            types = grow(types, capacity);
+            parents = grow(parents, capacity);
+            nextSiblings = grow(nextSiblings, capacity);
+            names = grow(names, capacity);
+            offsets = grow(offsets, capacity);
+            lengths = grow(lengths, capacity);
+        }
+        int node = nodeCount++;
+        types[node] = (byte)type;
+        parents[node] = parent;
+        nextSiblings[node] = NONE;
+        if (previousSibling != NONE) {
+            nextSiblings[previousSibling] = node;
+        }
+        return node;
+    }
+    
+    void setName(int node, int name) {
+        names[node] = name;
+    }
+    
+    void setCharacterData(int node, int offset, int length) {
+        offsets[node] = offset;
+        lengths[node] = length;
+    }
+    
+    /**
+     * Extend the character data of a node. This is used to coalesce adjacent text events and only
+     * works if the character data of the node is at the end of the character buffer.
+     * 
+     * @return <code>true</code> if the character data has been extended, <code>false</code> if the
+     *         node's character data is not at the end of the buffer
+     */
+    boolean extendCharacterData(int node, int offset, int length) {
+        if (offsets[node] + lengths[node] == offset) {
+            lengths[node] += length;
+            return true;
+        } else {
+            return false;
+        }
+    }
+    
+    void setAttributeRange(int element, int firstSlot, int slotCount) {
+        offsets[element] = firstSlot;
+        lengths[element] = slotCount;
+    }
+    
+    int getAttributeCount() {
+        return attributeCount;
+    }
+    
+    void addNamespaceDeclaration(int namespace) {
+        addAttributeSlot(-1 - namespace, NONE, 0, 0);
+    }
+    
+    void addAttribute(int name, int type, int valueOffset, int valueLength) {
+        addAttributeSlot(name, type, valueOffset, valueLength);
+    }
+    
+    private void addAttributeSlot(int name, int type, int valueOffset, int valueLength) {
+        if (attributeCount == attributeNames.length) {
+            int capacity = attributeCount*2;
+            attributeNames = grow(attributeNames, capacity);
+            attributeTypes = grow(attributeTypes, capacity);
+            attributeValueOffsets = grow(attributeValueOffsets, capacity);
+            attributeValueLengths = grow(attributeValueLengths, capacity);
+        }
+        int slot = attributeCount++;
+        attributeNames[slot] = name;
+        attributeTypes[slot] = type;
+        attributeValueOffsets[slot] = valueOffset;
+        attributeValueLengths[slot] = valueLength;
+    }
+    
+    int getCharCount() {
+        return charCount;
+    }
+    
+    void appendChars(char[] src, int start, int length) {
+        ensureCharCapacity(length);
+        System.arraycopy(src, start, chars, charCount, length);
+        charCount += length;
+    }
+    
+    void appendChars(String s) {
+        int length = s.length();
+        ensureCharCapacity(length);
+        s.getChars(0, length, chars, charCount);
+        charCount += length;
+    }
+    
+    private void ensureCharCapacity(int length) {
+        if (charCount + length > chars.length) {
+            char[] newChars = new char[Math.max(chars.length*2, charCount + length)];
+            System.arraycopy(chars, 0, newChars, 0, charCount);
+            chars = newChars;
+        }
+    }
+    
+    int internNamespace(String namespaceURI, String prefix) {
+        if (prefix == null) {
+            prefix = "";
+        }
+        Map<String,Integer> prefixes = namespaceIndex.get(namespaceURI);
+        if (prefixes == null) {
+            prefixes = new HashMap<String,Integer>(4);
+            namespaceIndex.put(namespaceURI, prefixes);
+        }
+        Integer index = prefixes.get(prefix);
+        if (index == null) {
+            if (namespaceCount == namespaces.length) {
+                OMNamespace[] newNamespaces = new OMNamespace[namespaceCount*2];
+                System.arraycopy(namespaces, 0, newNamespaces, 0, namespaceCount);
+                namespaces = newNamespaces;
+            }
+            index = Integer.valueOf(namespaceCount);
+            namespaces[namespaceCount++] = new OMNamespaceImpl(namespaceURI, prefix);
+            prefixes.put(prefix, index);
+        }
+        return index.intValue();
+    }
+    
+    /**
+     * Get the index of a qualified name, adding it to the name table if necessary.
+     * 
+     * @param namespace
+     *            the namespace index, or {@link #NONE} if the name has no namespace
+     * @param localName
+     *            the local name
+     * @return the qualified name index
+     */
+    @SuppressWarnings("unchecked")
+    int internQName(int namespace, String localName) {
+        int bucket = namespace + 1;
+        if (bucket >= qnameIndex.length) {
+            Map<String,Integer>[] newQNameIndex = new Map[Math.max(qnameIndex.length*2, bucket+1)];
+            System.arraycopy(qnameIndex, 0, newQNameIndex, 0, qnameIndex.length);
+            qnameIndex = newQNameIndex;
+        }
+        Map<String,Integer> localNames = qnameIndex[bucket];
+        if (localNames == null) {
+            localNames = new HashMap<String,Integer>();
+            qnameIndex[bucket] = localNames;
+        }
+        Integer index = localNames.get(localName);
+        if (index == null) {
+            if (qnameCount == qnameLocalNames.length) {
+                int capacity = qnameCount*2;
+                qnameNamespaces = grow(qnameNamespaces, capacity);
+                String[] newLocalNames = new String[capacity];
+                System.arraycopy(qnameLocalNames, 0, newLocalNames, 0, qnameCount);
+                qnameLocalNames = newLocalNames;
+                QName[] newQNames = new QName[capacity];
+                System.arraycopy(qnames, 0, newQNames, 0, qnameCount);
+                qnames = newQNames;
+            }
+            index = Integer.valueOf(qnameCount);
+            qnameNamespaces[qnameCount] = namespace;
+            qnameLocalNames[qnameCount] = localName;
+            qnameCount++;
+            localNames.put(localName, index);
+        }
+        return index.intValue();
+    }
+    
+    int internString(String s) {
+        Integer index = stringIndex.get(s);
+        if (index == null) {
+            if (stringCount == strings.length) {
+                String[] newStrings = new String[stringCount*2];
+                System.arraycopy(strings, 0, newStrings, 0, stringCount);
+                strings = newStrings;
+            }
+            index = Integer.valueOf(stringCount);
+            strings[stringCount++] = s;
+            stringIndex.put(s, index);
+        }
+        return index.intValue();
+    }
+    
+    void setDocumentInfo(String xmlVersion, String xmlEncoding, String inputEncoding, String standalone) {
+        this.xmlVersion = xmlVersion;
+        this.xmlEncoding = xmlEncoding;
+        this.inputEncoding = inputEncoding;
+        this.standalone = standalone;
+    }
+    
+    void discardDocument() {
+        documentDiscarded = true;
+    }
+    
+    private static byte[] grow(byte[] array, int capacity) {
+        byte[] newArray = new byte[capacity];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+    
+    private static int[] grow(int[] array, int capacity) {
+        int[] newArray = new int[capacity];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+    
+    // Navigation
+    
+    int getNodeCount() {
+        return nodeCount;
+    }
+    
+    int getType(int node) {
+        return types[node];
+    }
+    
+    int getParent(int node) {
+        int parent = parents[node];
+        return parent == 0 && documentDiscarded ? NONE : parent;
+    }
+    
+    int getNextSibling(int node) {
+        // If the document has been discarded, the nodes in the prolog and epilog are not
+        // accessible anymore
+        return parents[node] == 0 && documentDiscarded ? NONE : nextSiblings[node];
+    }
+    
+    int getPreviousSibling(int node) {
+        int parent = parents[node];
+        if (parent == NONE || node == parent+1 || parent == 0 && documentDiscarded) {
+            return NONE;
+        }
+        // The node preceding the given node in document order is either its previous sibling or
+        // the last descendant of the previous sibling. In the latter case, walk up the ancestors
+        // until we reach the level of the given node.
+        int previous = node-1;
+        while (parents[previous] != parent) {
+            previous = parents[previous];
+        }
+        return previous;
+    }
+    
+    int getFirstChild(int node) {
+        int candidate = node+1;
+        return candidate < nodeCount && parents[candidate] == node ? candidate : NONE;
+    }
+    
+    int getFirstChildElement(int node) {
+        int child = getFirstChild(node);
+        while (child != NONE && types[child] != OMNode.ELEMENT_NODE) {
+            child = nextSiblings[child];
+        }
+        return child;
+    }
+    
+    int getNextSiblingElement(int node) {
+        int sibling = nextSiblings[node];
+        while (sibling != NONE && types[sibling] != OMNode.ELEMENT_NODE) {
+            sibling = nextSiblings[sibling];
+        }
+        return sibling;
+    }
+    
+    /**
+     * Get the index following the last descendant of the given node.
+     */
+    int getSubtreeEnd(int node) {
+        while (node != NONE) {
+            int next = nextSiblings[node];
+            if (next != NONE) {
+                return next;
+            }
+            node = parents[node];
+        }
+        return nodeCount;
+    }
+    
+    // Names
+    
+    int getName(int node) {
+        return names[node];
+    }
+    
+    OMNamespace getNamespace(int namespace) {
+        return namespace == NONE ? null : namespaces[namespace];
+    }
+    
+    int getQNameNamespace(int qname) {
+        return qnameNamespaces[qname];
+    }
+    
+    String getLocalName(int qname) {
+        return qnameLocalNames[qname];
+    }
+    
+    QName getQName(int qname) {
+        QName result = qnames[qname];
+        if (result == null) {
+            OMNamespace ns = getNamespace(qnameNamespaces[qname]);
+            result = ns == null ? new QName(qnameLocalNames[qname])
+                    : new QName(ns.getNamespaceURI(), qnameLocalNames[qname], ns.getPrefix());
+            qnames[qname] = result;
+        }
+        return result;
+    }
+    
+    String getString(int string) {
+        return string == NONE ? null : strings[string];
+    }
+    
+    // Character data
+    
+    char[] getChars() {
+        return chars;
+    }
+    
+    int getOffset(int node) {
+        return offsets[node];
+    }
+    
+    int getLength(int node) {
+        return lengths[node];
+    }
+    
+    String getCharacterData(int node) {
+        return new String(chars, offsets[node], lengths[node]);
+    }
+    
+    // Attributes and namespace declarations
+    
+    int getNamespaceDeclarationCount(int element) {
+        int start = offsets[element];
+        int end = start + lengths[element];
+        int slot = start;
+        while (slot < end && attributeNames[slot] < 0) {
+            slot++;
+        }
+        return slot - start;
+    }
+    
+    int getAttributeSlot(int element, int index) {
+        return offsets[element] + getNamespaceDeclarationCount(element) + index;
+    }
+    
+    int getAttributeSlotCount(int element) {
+        return lengths[element];
+    }
+    
+    int getFirstAttributeSlot(int element) {
+        return offsets[element];
+    }
+    
+    boolean isNamespaceDeclaration(int slot) {
+        return attributeNames[slot] < 0;
+    }
+    
+    OMNamespace getDeclaredNamespace(int slot) {
+        return namespaces[-1 - attributeNames[slot]];
+    }
+    
+    int getAttributeName(int slot) {
+        return attributeNames[slot];
+    }
+    
+    String getAttributeType(int slot) {
+        return getString(attributeTypes[slot]);
+    }
+    
+    String getAttributeValue(int slot) {
+        return new String(chars, attributeValueOffsets[slot], attributeValueLengths[slot]);
+    }
+    
+    /**
+     * Find the attribute with the given name. If the namespace URI is <code>null</code>, only the
+     * local name is compared.
+     * 
+     * @return the attribute slot, or {@link #NONE} if the element has no such attribute
+     */
+    int findAttribute(int element, String namespaceURI, String localName) {
+        int end = offsets[element] + lengths[element];
+        for (int slot = offsets[element]; slot < end; slot++) {
+            int name = attributeNames[slot];
+            if (name >= 0 && qnameLocalNames[name].equals(localName)) {
+                OMNamespace ns = getNamespace(qnameNamespaces[name]);
+                if (namespaceURI == null
+                        || (ns == null ? namespaceURI.length() == 0 : ns.getNamespaceURI().equals(namespaceURI))) {
+                    return slot;
+                }
+            }
+        }
+        return NONE;
+    }
+    
+    /**
+     * Find the namespace bound to the given prefix in the scope of the given element. This method
+     * has the same semantics as {@link org.apache.axiom.om.OMElement#findNamespaceURI(String)}.
+     */
+    OMNamespace findNamespaceURI(int element, String prefix) {
+        for (int current = element; current != NONE && types[current] == OMNode.ELEMENT_NODE;
+                current = getParent(current)) {
+            int end = offsets[current] + lengths[current];
+            for (int slot = offsets[current]; slot < end && attributeNames[slot] < 0; slot++) {
+                OMNamespace ns = namespaces[-1 - attributeNames[slot]];
+                if (ns.getPrefix().equals(prefix)) {
+                    return ns.getNamespaceURI().length() == 0 ? null : ns;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Find a namespace in the scope of the given element. This method has the same semantics as
+     * {@link org.apache.axiom.om.OMElement#findNamespace(String, String)}.
+     */
+    OMNamespace findNamespace(int element, String uri, String prefix) {
+        OMNamespace namespace = findDeclaredNamespace(element, uri, prefix);
+        if (namespace != null) {
+            return namespace;
+        }
+        int parent = getParent(element);
+        if (parent != NONE && types[parent] == OMNode.ELEMENT_NODE) {
+            namespace = findNamespace(parent, uri, prefix);
+            // If the prefix has been redeclared, then ignore the binding found on the ancestors
+            if (namespace != null && findDeclaredNamespace(element, null, namespace.getPrefix()) != null) {
+                namespace = null;
+            }
+        }
+        return namespace;
+    }
+    
+    private OMNamespace findDeclaredNamespace(int element, String uri, String prefix) {
+        int end = offsets[element] + lengths[element];
+        for (int slot = offsets[element]; slot < end && attributeNames[slot] < 0; slot++) {
+            OMNamespace namespace = namespaces[-1 - attributeNames[slot]];
+            if ((prefix == null || prefix.equals(namespace.getPrefix()))
+                    && (uri == null || uri.equals(namespace.getNamespaceURI()))) {
+                return namespace;
+            }
+        }
+        if ((prefix == null || prefix.equals(OMConstants.XMLNS_PREFIX))
+                && (uri == null || uri.equals(OMConstants.XMLNS_URI))) {
+            return XMLNS;
+        } else {
+            return null;
+        }
+    }
+    
+    /**
+     * Get the namespaces in scope for the given element. Namespaces hidden by a declaration on a
+     * descendant and declarations with an empty namespace URI (<tt>xmlns=""</tt>) are excluded.
+     */
+    List<OMNamespace> getNamespacesInScope(int element) {
+        List<OMNamespace> result = new ArrayList<OMNamespace>();
+        Set<String> seenPrefixes = new HashSet<String>();
+        for (int current = element; current != NONE && types[current] == OMNode.ELEMENT_NODE;
+                current = getParent(current)) {
+            int end = offsets[current] + lengths[current];
+            for (int slot = offsets[current]; slot < end && attributeNames[slot] < 0; slot++) {
+                OMNamespace ns = namespaces[-1 - attributeNames[slot]];
+                if (seenPrefixes.add(ns.getPrefix()) && ns.getNamespaceURI().length() > 0) {
+                    result.add(ns);
+                }
+            }
+        }
+        return result;
+    }
+    
+    // Document information
+    
+    String getXMLVersion() {
+        return xmlVersion;
+    }
+    
+    String getXMLEncoding() {
+        return xmlEncoding;
+    }
+    
+    String getInputEncoding() {
+        return inputEncoding;
+    }
+    
+    String getStandalone() {
+        return standalone;
+    }
+    
+    // Views
+    
+    /**
+     * Get the view for the given node. Views are lightweight objects that don't have any state
+     * other than the store, the node index and (once determined) the view of the parent. They are
+     * created on demand and are canonical: as long as the application holds a reference to the
+     * view of a node, navigating to that node returns the same object. This is required because
+     * some callers (e.g. Jaxen and the iterators in {@link org.apache.axiom.om.impl.traverse})
+     * compare nodes by identity. The store only holds weak references to the views, so that views
+     * that are no longer used by the application can be garbage collected.
+     * 
+     * @param node
+     *            the node index
+     * @param parent
+     *            the view of the parent of the node, or <code>null</code> if it is not known
+     */
+    @SuppressWarnings("unchecked")
+    CompactNode getNode(int node, OMContainer parent) {
+        if (views == null || views.length < nodeCount) {
+            WeakReference<CompactNode>[] newViews = new WeakReference[nodeCount];
+            if (views != null) {
+                System.arraycopy(views, 0, newViews, 0, views.length);
+            }
+            views = newViews;
+        }
+        WeakReference<CompactNode> ref = views[node];
+        CompactNode view = ref == null ? null : ref.get();
+        if (view == null) {
+            switch (types[node]) {
+                case OMNode.ELEMENT_NODE:
+                    view = new CompactElement(this, node);
+                    break;
+                case OMNode.TEXT_NODE:
+                case OMNode.SPACE_NODE:
+                case OMNode.CDATA_SECTION_NODE:
+                    view = new CompactText(this, node);
+                    break;
+                case OMNode.COMMENT_NODE:
+                    view = new CompactComment(this, node);
+                    break;
+                case OMNode.PI_NODE:
+                    view = new CompactProcessingInstruction(this, node);
+                    break;
+                default:
+                    throw new IllegalArgumentException();
+            }
+            views[node] = new WeakReference<CompactNode>(view);
+        }
+        if (view.parent == null) {
+            view.parent = parent;
+        }
+        return view;
+    }
+    
+    CompactNode getNodeOrNull(int node, OMContainer parent) {
+        return node == NONE ? null : getNode(node, parent);
+    }
+    
+    CompactElement getElement(int node, OMContainer parent) {
+        return (CompactElement)getNode(node, parent);
+    }
+    
+    CompactDocument getDocument() {
+        if (document == null) {
+            document = new CompactDocument(this);
+        }
+        return document;
+    }
+    
+    OMContainer getContainer(int node) {
+        if (node == NONE) {
+            return null;
+        } else if (node == 0) {
+            return getDocument();
+        } else {
+            return getElement(node, null);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.compact;
+
+import java.io.StringReader;
+import java.util.Iterator;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMText;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.om.xpath.AXIOMXPath;
+
+public class CompactOMMetaFactoryTest extends TestCase {
+    private static final String XML = "<p:root xmlns:p='urn:p' xmlns='urn:default' a='1'>"
+            + "<child p:b='2'>text<!--comment--> more</child>"
+            + "<p:child/><?pi data?><![CDATA[cdata]]></p:root>";
+    
+    private static OMDocument parse(String xml) {
+        OMFactory factory = CompactOMMetaFactory.INSTANCE.getOMFactory();
+        return OMXMLBuilderFactory.createOMBuilder(factory, new StringReader(xml)).getDocument();
+    }
+    
+    public void testLocator() {
+        assertSame(CompactOMMetaFactory.INSTANCE,
+                OMAbstractFactory.getMetaFactory(OMAbstractFactory.FEATURE_COMPACT));
+    }
+    
+    public void testNavigation() {
+        OMDocument document = parse(XML);
+        OMElement root = document.getOMDocumentElement();
+        assertEquals(new QName("urn:p", "root"), root.getQName());
+        assertEquals("p", root.getPrefix());
+        assertEquals("1", root.getAttributeValue(new QName("a")));
+        assertEquals(document, root.getParent());
+        
+        OMElement child = root.getFirstElement();
+        assertEquals(new QName("urn:default", "child"), child.getQName());
+        assertNull(child.getPrefix());
+        assertEquals(root, child.getParent());
+        assertEquals("text more", child.getText());
+        OMAttribute attr = (OMAttribute)child.getAllAttributes().next();
+        assertEquals(new QName("urn:p", "b"), attr.getQName());
+        assertEquals("2", attr.getAttributeValue());
+        assertEquals(child, attr.getOwner());
+        assertEquals("urn:p", child.findNamespaceURI("p").getNamespaceURI());
+        assertEquals("urn:default", child.getDefaultNamespace().getNamespaceURI());
+        
+        Iterator it = root.getChildrenWithName(new QName("urn:p", "child"));
+        OMElement child2 = (OMElement)it.next();
+        assertFalse(it.hasNext());
+        assertEquals(child, child2.getPreviousOMSibling());
+        OMNode pi = child2.getNextOMSibling();
+        assertEquals(OMNode.PI_NODE, pi.getType());
+        // CDATA sections are reported as text unless the parser is configured to preserve them
+        OMText cdata = (OMText)pi.getNextOMSibling();
+        assertEquals(OMNode.TEXT_NODE, cdata.getType());
+        assertEquals("cdata", cdata.getText());
+        assertNull(cdata.getNextOMSibling());
+        
+        int count = 0;
+        for (Iterator descendants = root.getDescendants(false); descendants.hasNext(); ) {
+            descendants.next();
+            count++;
+        }
+        // child, text, comment, text, p:child, pi, cdata
+        assertEquals(7, count);
+    }
+    
+    public void testSerialize() {
+        String xml = "<root xmlns:p=\"urn:p\"><p:a x=\"y\">text</p:a><!--c--><b>x</b></root>";
+        OMElement root = parse(xml).getOMDocumentElement();
+        assertEquals(xml, root.toString());
+        // The namespace declaration of the parent must be added
+        assertEquals("<p:a xmlns:p=\"urn:p\" x=\"y\">text</p:a>", root.getFirstElement().toString());
+    }
+    
+    public void testGetXMLStreamReader() throws Exception {
+        OMElement root = parse(XML).getOMDocumentElement();
+        XMLStreamReader reader = root.getFirstElement().getXMLStreamReader();
+        assertEquals(XMLStreamReader.START_DOCUMENT, reader.getEventType());
+        assertEquals(XMLStreamReader.START_ELEMENT, reader.next());
+        assertEquals("child", reader.getLocalName());
+        assertEquals("urn:default", reader.getNamespaceURI());
+        assertEquals(1, reader.getAttributeCount());
+        assertEquals("2", reader.getAttributeValue("urn:p", "b"));
+        assertEquals("urn:p", reader.getNamespaceURI("p"));
+        assertEquals(XMLStreamReader.CHARACTERS, reader.next());
+        assertEquals("text", reader.getText());
+        assertEquals(XMLStreamReader.COMMENT, reader.next());
+        assertEquals(XMLStreamReader.CHARACTERS, reader.next());
+        assertEquals(XMLStreamReader.END_ELEMENT, reader.next());
+        assertEquals(XMLStreamReader.END_DOCUMENT, reader.next());
+        assertFalse(reader.hasNext());
+    }
+    
+    public void testCloneIsMutable() {
+        OMElement root = parse(XML).getOMDocumentElement();
+        OMElement clone = root.cloneOMElement();
+        assertFalse(clone instanceof CompactElement);
+        assertNull(clone.getParent());
+        clone.addAttribute("c", "3", null);
+        assertEquals("3", clone.getAttributeValue(new QName("c")));
+        assertEquals(root.getFirstElement().toString(), clone.getFirstElement().toString());
+    }
+    
+    public void testReadOnly() {
+        OMElement root = parse(XML).getOMDocumentElement();
+        try {
+            root.addAttribute("c", "3", null);
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException ex) {
+            // Expected
+        }
+        try {
+            root.getFirstOMChild().detach();
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException ex) {
+            // Expected
+        }
+    }
+    
+    public void testViewIdentity() {
+        OMElement root = parse(XML).getOMDocumentElement();
+        OMElement child = root.getFirstElement();
+        assertSame(child, root.getFirstElement());
+        assertSame(root, child.getParent());
+        assertSame(child, child.getNextOMSibling().getPreviousOMSibling());
+    }
+    
+    public void testXPathDescendantDeduplication() throws Exception {
+        OMElement root = parse("<r><a><a><b/></a></a></r>").getOMDocumentElement();
+        assertEquals(1, new AXIOMXPath("//a//b").selectNodes(root).size());
+    }
+}
@@ -30,15 +30,9 @@ import org.apache.axiom.om.OMException;
 import org.apache.axiom.om.OMNamespace;
 import org.apache.axiom.om.OMNode;
 import org.apache.axiom.om.impl.OMNodeEx;
-import org.apache.axiom.soap.RolePlayer;
 import org.apache.axiom.soap.SOAPFactory;
 import org.apache.axiom.soap.SOAPHeaderBlock;
 import org.apache.axiom.soap.SOAPProcessingException;
-import org.apache.axiom.soap.impl.common.Checker;
-import org.apache.axiom.soap.impl.common.HeaderIterator;
-import org.apache.axiom.soap.impl.common.MURoleChecker;
-import org.apache.axiom.soap.impl.common.RoleChecker;
-import org.apache.axiom.soap.impl.common.RolePlayerChecker;
 import org.apache.axiom.soap.impl.intf.AxiomSOAPHeader;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -74,32 +68,10 @@ public abstract class SOAPHeaderImpl extends SOAPElement implements AxiomSOAPHea
         return addHeaderBlock(qname.getLocalPart(), getOMFactory().createOMNamespace(qname.getNamespaceURI(), qname.getPrefix()));
     }
 
-    public Iterator getHeadersToProcess(RolePlayer rolePlayer) {
-        return new HeaderIterator(this, new RolePlayerChecker(rolePlayer));
-    }
-
-    public Iterator getHeadersToProcess(RolePlayer rolePlayer, String namespace) {
-        return new HeaderIterator(this, new RolePlayerChecker(rolePlayer, namespace));
-    }
-
-    public Iterator examineHeaderBlocks(String role) {
-        return new HeaderIterator(this, new RoleChecker(role));
-    }
-
     public abstract Iterator extractHeaderBlocks(String role);
 
-    public Iterator examineMustUnderstandHeaderBlocks(String actor) {
-        return new HeaderIterator(this, new MURoleChecker(actor));
-    }
-
     public Iterator examineAllHeaderBlocks() {
-        class DefaultChecker implements Checker {
-            public boolean checkHeader(SOAPHeaderBlock header) {
-                return true;
-            }
-        }
-
-        return new HeaderIterator(this, new DefaultChecker());
+        return examineHeaderBlocks(null);
     }
 
     public Iterator extractAllHeaderBlocks() {
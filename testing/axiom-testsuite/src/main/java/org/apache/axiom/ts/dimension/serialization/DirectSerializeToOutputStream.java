@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.dimension.serialization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.testutils.suite.MatrixTestCase;
+
+/**
+ * Serializes an {@link OMContainer} using {@link OMContainer#serialize(OutputStream, OMOutputFormat)}
+ * or {@link OMContainer#serializeAndConsume(OutputStream, OMOutputFormat)} with
+ * {@link OMOutputFormat#setDirectSerialization(boolean) direct serialization} enabled. If no
+ * encoding is specified, the default encoding (UTF-8) is used.
+ */
+public class DirectSerializeToOutputStream extends SerializationStrategy {
+    private final boolean cache;
+    private final String encoding;
+    
+    DirectSerializeToOutputStream(boolean cache, String encoding) {
+        this.cache = cache;
+        this.encoding = encoding;
+    }
+
+    public void addTestParameters(MatrixTestCase testCase) {
+        testCase.addTestParameter("serializationStrategy", "OutputStream-direct");
+        testCase.addTestParameter("cache", cache);
+        if (encoding != null) {
+            testCase.addTestParameter("encoding", encoding);
+        }
+    }
+
+    public XML serialize(OMContainer container) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OMOutputFormat format = new OMOutputFormat();
+        format.setDirectSerialization(true);
+        if (encoding != null) {
+            format.setCharSetEncoding(encoding);
+        }
+        if (cache) {
+            container.serialize(baos, format);
+        } else {
+            container.serializeAndConsume(baos, format);
+        }
+        return new XMLAsByteArray(baos.toByteArray());
+    }
+
+    public boolean isPush() {
+        return true;
+    }
+
+    public boolean isCaching() {
+        return cache;
+    }
+
+    public boolean supportsInternalSubset() {
+        return true;
+    }
+}
@@ -69,6 +69,10 @@ public abstract class SerializationStrategy extends Multiton implements Dimensio
         return new SerializationStrategy[] {
             new SerializeToOutputStream(true),
             new SerializeToOutputStream(false),
+            new DirectSerializeToOutputStream(true, null),
+            new DirectSerializeToOutputStream(false, null),
+            new DirectSerializeToOutputStream(true, "UTF-16"),
+            new DirectSerializeToOutputStream(false, "UTF-16"),
             new SerializeToWriter(true),
             new SerializeToWriter(false),
             new SerializeToXMLStreamWriter(true),
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.builder;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static org.apache.axiom.truth.xml.XMLTruth.xml;
+
+import java.nio.ByteBuffer;
+
+import org.apache.axiom.om.AsyncOMBuilder;
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.ts.AxiomTestCase;
+import org.apache.axiom.ts.om.OMTestSuiteBuilder;
+
+/**
+ * Tests {@link OMXMLBuilderFactory#createAsyncOMBuilder(org.apache.axiom.om.OMFactory)} by feeding
+ * a document in small chunks, so that tokens are split across chunks. This requires Aalto to be
+ * available. For that reason, this test is not part of {@link OMTestSuiteBuilder}; implementations
+ * run it separately with Aalto on the class path.
+ */
+public class TestCreateAsyncOMBuilder extends AxiomTestCase {
+    public TestCreateAsyncOMBuilder(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    protected void runTest() throws Throwable {
+        String xml = "<?xml version='1.0' encoding='UTF-8'?><!-- prolog --><p:root xmlns:p='urn:p'>"
+                + "<p:a attr='value'>r\u00e9sum\u00e9</p:a><b xmlns='urn:b'><![CDATA[<data>]]></b>"
+                + "<?pi data?><c p:attr='x'/></p:root>";
+        AsyncOMBuilder builder = OMXMLBuilderFactory.createAsyncOMBuilder(metaFactory.getOMFactory());
+        byte[] content = xml.getBytes("UTF-8");
+        ByteBuffer buffer = ByteBuffer.allocate(7);
+        for (int i=0; i<content.length; i+=buffer.capacity()) {
+            buffer.clear();
+            buffer.put(content, i, Math.min(buffer.capacity(), content.length-i));
+            buffer.flip();
+            builder.feed(buffer);
+            assertFalse(buffer.hasRemaining());
+            assertFalse(builder.isCompleted());
+        }
+        builder.endOfInput();
+        assertTrue(builder.isCompleted());
+        OMDocument document = builder.getDocument();
+        assertEquals("UTF-8", document.getXMLEncoding());
+        // The XML declaration doesn't specify the standalone attribute; the document keeps its default
+        assertEquals("no", document.isStandalone());
+        assertAbout(xml())
+                .that(xml(OMDocument.class, document))
+                .hasSameContentAs(xml);
+    }
+}
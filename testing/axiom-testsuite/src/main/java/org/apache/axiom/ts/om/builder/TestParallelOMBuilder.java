@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.builder;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static org.apache.axiom.truth.xml.XMLTruth.xml;
+
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.impl.builder.ParallelOMBuilder;
+import org.apache.axiom.ts.AxiomTestCase;
+
+/**
+ * Tests {@link ParallelOMBuilder} with a document where the children of a nested element use
+ * namespace prefixes declared by the ancestors of that element.
+ */
+public class TestParallelOMBuilder extends AxiomTestCase {
+    public TestParallelOMBuilder(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    protected void runTest() throws Throwable {
+        StringBuilder buffer = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>"
+                + "<p:root xmlns:p='urn:p'><header/><q:records xmlns:q='urn:q' xmlns='urn:d'>");
+        for (int i=0; i<100; i++) {
+            buffer.append("<q:record id='");
+            buffer.append(i);
+            buffer.append("'><p:name>r\u00e9cord ");
+            buffer.append(i);
+            buffer.append("</p:name><value>");
+            buffer.append(i*i);
+            buffer.append("</value></q:record><!-- ");
+            buffer.append(i);
+            buffer.append(" -->\n");
+        }
+        buffer.append("</q:records><trailer/></p:root>");
+        String xml = buffer.toString();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ParallelOMBuilder builder = new ParallelOMBuilder(metaFactory.getOMFactory(), executor);
+            builder.setBatchSize(512);
+            OMDocument document = builder.build(xml.getBytes("UTF-8"), new QName("urn:q", "records"));
+            assertAbout(xml())
+                    .that(xml(OMDocument.class, document))
+                    .hasSameContentAs(xml);
+            OMElement records = document.getOMDocumentElement().getFirstChildWithName(new QName("urn:q", "records"));
+            int count = 0;
+            for (Iterator it = records.getChildElements(); it.hasNext(); ) {
+                OMElement record = (OMElement)it.next();
+                assertSame(records, record.getParent());
+                OMNamespace ns = record.getFirstElement().getNamespace();
+                assertEquals("urn:p", ns.getNamespaceURI());
+                assertEquals("urn:d", ((OMElement)record.getFirstElement().getNextOMSibling()).getNamespace().getNamespaceURI());
+                assertEquals(String.valueOf(count), record.getAttributeValue(new QName("id")));
+                count++;
+            }
+            assertEquals(100, count);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.document;
+
+import java.io.StringReader;
+import java.util.Iterator;
+
+import org.apache.axiom.om.OMComment;
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMProcessingInstruction;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.ts.AxiomTestCase;
+
+/**
+ * Tests {@link OMDocument#getDescendants(boolean)}. In contrast to elements, the descendants of a
+ * document include the nodes in the prolog and epilog.
+ */
+public class TestGetDescendants extends AxiomTestCase {
+    private final boolean includeSelf;
+    
+    public TestGetDescendants(OMMetaFactory metaFactory, boolean includeSelf) {
+        super(metaFactory);
+        this.includeSelf = includeSelf;
+        addTestParameter("includeSelf", includeSelf);
+    }
+
+    protected void runTest() throws Throwable {
+        OMDocument document = OMXMLBuilderFactory.createOMBuilder(metaFactory.getOMFactory(),
+                new StringReader("<?pi data?><root><a><b/></a><c/></root><!--comment-->")).getDocument();
+        Iterator it = document.getDescendants(includeSelf);
+        if (includeSelf) {
+            assertSame(document, it.next());
+        }
+        assertEquals("pi", ((OMProcessingInstruction)it.next()).getTarget());
+        assertEquals("root", ((OMElement)it.next()).getLocalName());
+        assertEquals("a", ((OMElement)it.next()).getLocalName());
+        assertEquals("b", ((OMElement)it.next()).getLocalName());
+        assertEquals("c", ((OMElement)it.next()).getLocalName());
+        assertEquals("comment", ((OMComment)it.next()).getValue());
+        assertFalse(it.hasNext());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.element;
+
+import java.io.StringReader;
+import java.util.Iterator;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.ts.AxiomTestCase;
+
+/**
+ * Tests {@link OMElement#getFirstChildWithName(QName)} on an element with enough children for the
+ * implementation to use an index. Checks that lookups don't build more children than necessary and
+ * that the result stays correct when children are added, removed, inserted or renamed.
+ */
+public class TestGetFirstChildWithNameMany extends AxiomTestCase {
+    private static final int COUNT = 50;
+    
+    public TestGetFirstChildWithNameMany(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    protected void runTest() throws Throwable {
+        StringBuilder xml = new StringBuilder("<root xmlns:p='urn:test'>");
+        for (int i=0; i<COUNT; i++) {
+            xml.append(i % 2 == 0 ? "<item" : "<p:item");
+            xml.append(i);
+            xml.append("/>text<dup/>");
+        }
+        xml.append("</root>");
+        OMFactory factory = metaFactory.getOMFactory();
+        OMElement root = OMXMLBuilderFactory.createOMBuilder(factory,
+                new StringReader(xml.toString())).getDocumentElement();
+        
+        OMElement item20 = root.getFirstChildWithName(new QName("item20"));
+        assertEquals("item20", item20.getLocalName());
+        assertFalse(root.isComplete());
+        OMElement firstDup = root.getFirstChildWithName(new QName("dup"));
+        assertSame(root.getFirstElement().getNextOMSibling().getNextOMSibling(), firstDup);
+        assertNull(root.getFirstChildWithName(new QName("urn:test", "item20")));
+        for (int i=COUNT-1; i>=0; i--) {
+            OMElement item = root.getFirstChildWithName(new QName(i % 2 == 0 ? "" : "urn:test", "item" + i));
+            assertNotNull(item);
+            assertEquals("item" + i, item.getLocalName());
+        }
+        assertTrue(root.isComplete());
+        assertNull(root.getFirstChildWithName(new QName("missing")));
+        
+        // Iterators start at the first match
+        Iterator it = root.getChildrenWithLocalName("item21");
+        assertEquals("urn:test", ((OMElement)it.next()).getNamespace().getNamespaceURI());
+        assertFalse(it.hasNext());
+        
+        // Remove the first "dup" element; the next one must be found
+        OMElement secondDup = (OMElement)firstDup.getNextOMSibling().getNextOMSibling().getNextOMSibling();
+        assertEquals("dup", secondDup.getLocalName());
+        firstDup.detach();
+        assertSame(secondDup, root.getFirstChildWithName(new QName("dup")));
+        
+        // Append and insert elements
+        OMElement appended = factory.createOMElement("appended", null, root);
+        assertSame(appended, root.getFirstChildWithName(new QName("appended")));
+        OMElement inserted = factory.createOMElement("dup", null);
+        item20.insertSiblingBefore(inserted);
+        assertSame(secondDup, root.getFirstChildWithName(new QName("dup")));
+        root.getFirstElement().insertSiblingBefore(factory.createOMElement("appended", null));
+        assertNotSame(appended, root.getFirstChildWithName(new QName("appended")));
+        
+        // Rename an element
+        item20.setLocalName("renamed");
+        assertNull(root.getFirstChildWithName(new QName("item20")));
+        assertSame(item20, root.getFirstChildWithName(new QName("renamed")));
+        secondDup.setLocalName("other");
+        OMElement thirdDup = root.getFirstChildWithName(new QName("dup"));
+        assertNotSame(secondDup, thirdDup);
+        assertEquals("dup", thirdDup.getLocalName());
+        
+        // Remove all children
+        root.removeChildren();
+        assertNull(root.getFirstChildWithName(new QName("renamed")));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.element;
+
+import java.util.Iterator;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.ts.AxiomTestCase;
+
+/**
+ * Tests attribute lookups, replacements and removals on an element with enough attributes for the
+ * implementation to switch to an indexed attribute storage. Also checks that renaming an attribute
+ * is taken into account by subsequent lookups.
+ */
+public class TestManyAttributes extends AxiomTestCase {
+    private static final int COUNT = 40;
+    
+    public TestManyAttributes(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    protected void runTest() throws Throwable {
+        OMFactory factory = metaFactory.getOMFactory();
+        OMNamespace ns = factory.createOMNamespace("urn:test", "p");
+        OMElement element = factory.createOMElement("test", null);
+        OMAttribute[] attrs = new OMAttribute[COUNT];
+        for (int i=0; i<COUNT; i++) {
+            attrs[i] = element.addAttribute("attr" + i, "value" + i, i % 2 == 0 ? null : ns);
+        }
+        for (int i=0; i<COUNT; i++) {
+            assertSame(attrs[i], element.getAttribute(new QName(i % 2 == 0 ? "" : "urn:test", "attr" + i)));
+            assertNull(element.getAttribute(new QName(i % 2 == 0 ? "urn:test" : "", "attr" + i)));
+        }
+        
+        // Replace an attribute; the new attribute must take the position of the old one
+        OMAttribute replacement = element.addAttribute("attr5", "new", ns);
+        assertSame(replacement, element.getAttribute(new QName("urn:test", "attr5")));
+        assertNull(attrs[5].getOwner());
+        
+        // Remove an attribute
+        element.removeAttribute(attrs[10]);
+        assertNull(element.getAttribute(new QName("attr10")));
+        
+        // Rename an attribute
+        attrs[20].setLocalName("renamed");
+        assertNull(element.getAttribute(new QName("attr20")));
+        assertSame(attrs[20], element.getAttribute(new QName("renamed")));
+        
+        // Append a new attribute after the last one
+        OMAttribute last = element.addAttribute("last", "value", null);
+        
+        int i = 0;
+        for (Iterator it = element.getAllAttributes(); it.hasNext(); ) {
+            OMAttribute attr = (OMAttribute)it.next();
+            if (i == 10) {
+                i++;
+            }
+            if (i == 5) {
+                assertSame(replacement, attr);
+            } else if (i == COUNT) {
+                assertSame(last, attr);
+            } else {
+                assertSame(attrs[i], attr);
+            }
+            i++;
+        }
+        assertEquals(COUNT+1, i);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.element;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.ts.AxiomTestCase;
+
+/**
+ * Tests that the serialized form cached when {@link OMElement#setSerializationCacheEnabled(boolean)}
+ * is used is discarded when the element or one of its descendants is modified, and that it is not
+ * reused in an incompatible namespace context.
+ */
+public class TestSerializationCache extends AxiomTestCase {
+    public TestSerializationCache(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    private static String serialize(OMElement element) throws Exception {
+        OMOutputFormat format = new OMOutputFormat();
+        format.setDirectSerialization(true);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        element.serialize(baos, format);
+        return new String(baos.toByteArray(), "UTF-8");
+    }
+
+    /**
+     * Check that serializing a node that is or contains an element with serialization cache
+     * produces the same result as serializing it without cache.
+     */
+    private static void assertSerialization(OMElement cachedElement, OMElement node) throws Exception {
+        // This uses the cache populated before the last modification, if it has not been discarded
+        String actual = serialize(node);
+        cachedElement.setSerializationCacheEnabled(false);
+        String expected = serialize(node);
+        cachedElement.setSerializationCacheEnabled(true);
+        assertEquals(expected, actual);
+        // The first serialization populates the cache; the second one uses it
+        assertEquals(expected, serialize(node));
+        assertEquals(expected, serialize(node));
+    }
+
+    protected void runTest() throws Throwable {
+        OMFactory factory = metaFactory.getOMFactory();
+        OMNamespace ns = factory.createOMNamespace("urn:test", "p");
+        OMElement root = factory.createOMElement("root", null);
+        OMElement element = factory.createOMElement("element", ns, root);
+        OMElement child = factory.createOMElement("child", ns, element);
+        child.setText("text");
+        OMAttribute attr = child.addAttribute("attr", "value", null);
+        
+        assertFalse(element.isSerializationCacheEnabled());
+        element.setSerializationCacheEnabled(true);
+        assertTrue(element.isSerializationCacheEnabled());
+        assertSerialization(element, element);
+        assertSerialization(element, root);
+        
+        child.setText("new text");
+        assertSerialization(element, element);
+        
+        attr.setAttributeValue("new value");
+        assertSerialization(element, element);
+        
+        child.addAttribute("attr2", "value2", null);
+        assertSerialization(element, element);
+        
+        factory.createOMElement("child2", null, element);
+        assertSerialization(element, element);
+        
+        child.setLocalName("renamed");
+        assertSerialization(element, element);
+        
+        child.setNamespace(factory.createOMNamespace("urn:test", "q"));
+        assertSerialization(element, element);
+        
+        child.detach();
+        assertSerialization(element, element);
+        
+        // Serialize the element in a context where the namespace is already declared
+        root.declareNamespace(ns);
+        assertSerialization(element, root);
+        assertSerialization(element, element);
+        
+        element.setSerializationCacheEnabled(false);
+        assertFalse(element.isSerializationCacheEnabled());
+    }
+}
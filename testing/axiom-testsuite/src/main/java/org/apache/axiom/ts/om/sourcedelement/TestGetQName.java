@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.sourcedelement;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMSourcedElement;
+
+/**
+ * Tests that {@link OMSourcedElement#getQName()} returns the prefix of an unexpanded element if
+ * it is known, but doesn't expand the element to determine it.
+ */
+public class TestGetQName extends LazyNameTestCase {
+    public TestGetQName(OMMetaFactory metaFactory, OMSourcedElementVariant variant, QName qname) {
+        super(metaFactory, variant, qname);
+    }
+
+    protected void runTest(OMSourcedElement element) throws Throwable {
+        QName result = element.getQName();
+        assertEquals(qname.getNamespaceURI(), result.getNamespaceURI());
+        assertEquals(qname.getLocalPart(), result.getLocalPart());
+        if (variant.isNamespaceURIRequiresExpansion()) {
+            assertTrue(element.isExpanded());
+            assertEquals(qname.getPrefix(), result.getPrefix());
+        } else {
+            assertFalse(element.isExpanded());
+            assertEquals(variant.isPrefixRequiresExpansion(qname) ? "" : qname.getPrefix(),
+                    result.getPrefix());
+        }
+    }
+}
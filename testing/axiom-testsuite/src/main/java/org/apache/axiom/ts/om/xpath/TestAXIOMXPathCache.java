@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.xpath;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.util.AXIOMUtil;
+import org.apache.axiom.om.xpath.AXIOMXPath;
+import org.apache.axiom.om.xpath.AXIOMXPathCache;
+import org.apache.axiom.ts.AxiomTestCase;
+
+public class TestAXIOMXPathCache extends AxiomTestCase {
+    public TestAXIOMXPathCache(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    protected void runTest() throws Throwable {
+        OMElement root = AXIOMUtil.stringToOM(metaFactory.getOMFactory(),
+                "<p:root xmlns:p='urn:p'><p:a>1</p:a><b>2</b><p:a>3</p:a></p:root>");
+        AXIOMXPathCache cache = new AXIOMXPathCache(2);
+        Map<String,String> namespaces = Collections.singletonMap("p", "urn:p");
+        AXIOMXPath xpath = cache.getXPath("count(//p:a)", namespaces);
+        assertEquals(2, xpath.numberValueOf(root).intValue());
+        assertSame(xpath, cache.getXPath("count(//p:a)", Collections.singletonMap("p", "urn:p")));
+        // Same expression with a different namespace context
+        assertEquals(0, cache.getXPath("count(//p:a)", Collections.singletonMap("p", "urn:q")).numberValueOf(root).intValue());
+        assertEquals(2, cache.size());
+        // Access the first expression so that the second one becomes the least recently used
+        cache.getXPath("count(//p:a)", namespaces);
+        assertEquals("2", cache.getXPath("string(/p:root/b)", namespaces).stringValueOf(root));
+        assertEquals(2, cache.size());
+        assertSame(xpath, cache.getXPath("count(//p:a)", namespaces));
+        try {
+            xpath.addNamespace("q", "urn:q");
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException ex) {
+            // Expected
+        }
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
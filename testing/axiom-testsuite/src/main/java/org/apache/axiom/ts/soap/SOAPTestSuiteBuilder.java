@@ -135,7 +135,9 @@ public class SOAPTestSuiteBuilder extends MatrixTestSuiteBuilder {
         addTest(new org.apache.axiom.ts.soap.builder.TestCommentInEpilog(metaFactory, spec));
         addTest(new org.apache.axiom.ts.soap.builder.TestCommentInProlog(metaFactory, spec));
         addTest(new org.apache.axiom.ts.soap.builder.TestDTD(metaFactory, spec));
+        addTest(new org.apache.axiom.ts.soap.builder.TestSOAPMessageSnifferAddressing(metaFactory, spec));
         if (supportsOMSourcedElement) {
+            addTest(new org.apache.axiom.ts.soap.builder.TestDeferredBuildingWithNamespaceInContent(metaFactory, spec));
             addTest(new org.apache.axiom.ts.soap.builder.TestRegisterCustomBuilder(metaFactory, spec));
             if (supportsBodyElementNameOptimization) {
                 addTest(new org.apache.axiom.ts.soap.builder.TestRegisterCustomBuilderForPayloadAfterSOAPFaultCheck(metaFactory, spec));
@@ -239,6 +241,7 @@ public class SOAPTestSuiteBuilder extends MatrixTestSuiteBuilder {
         addTest(new org.apache.axiom.ts.soap.header.TestGetHeaderBlocksWithNSURI(metaFactory, spec));
         addTest(new org.apache.axiom.ts.soap.header.TestGetHeadersToProcessWithNamespace(metaFactory, spec));
         addTest(new org.apache.axiom.ts.soap.header.TestGetHeadersToProcessWithParser(metaFactory, spec));
+        addTest(new org.apache.axiom.ts.soap.header.TestHeaderIndexUpdate(metaFactory, spec));
         for (HeaderBlockAttribute attribute : getInstances(HeaderBlockAttribute.class)) {
             if (attribute.isBoolean()) {
                 if (attribute.isSupported(spec)) {
@@ -316,7 +319,10 @@ public class SOAPTestSuiteBuilder extends MatrixTestSuiteBuilder {
             addTest(new org.apache.axiom.ts.soap.builder.MessageTest(metaFactory, msg));
             if (supportsOMSourcedElement) {
                 addTest(new org.apache.axiom.ts.soap.builder.TestRegisterCustomBuilderForPayload(metaFactory, msg));
+                addTest(new org.apache.axiom.ts.soap.builder.TestRegisterByteRangeCustomBuilderForPayload(metaFactory, msg));
+                addTest(new org.apache.axiom.ts.soap.builder.TestDeferredBuilding(metaFactory, msg));
             }
+            addTest(new org.apache.axiom.ts.soap.builder.TestSOAPMessageSniffer(metaFactory, msg));
             addTest(new org.apache.axiom.ts.soap.envelope.TestClone(metaFactory, msg));
             for (ExpansionStrategy expansionStrategy : getInstances(ExpansionStrategy.class)) {
                 for (SerializationStrategy serializationStrategy : getInstances(SerializationStrategy.class)) {
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.soap.builder;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static org.apache.axiom.truth.xml.XMLTruth.xml;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMSourcedElement;
+import org.apache.axiom.soap.SOAPFault;
+import org.apache.axiom.soap.SOAPModelBuilder;
+import org.apache.axiom.soap.impl.builder.StAXSOAPModelBuilder;
+import org.apache.axiom.ts.AxiomTestCase;
+import org.apache.axiom.ts.soap.SOAPSample;
+import org.apache.axiom.ts.soap.SOAPSampleAdapter;
+
+/**
+ * Tests that with deferred building enabled at level 3, the payload is represented by an
+ * {@link OMSourcedElement} that is not expanded until its content is accessed, and that the
+ * content of the payload is preserved.
+ */
+public class TestDeferredBuilding extends AxiomTestCase {
+    private final SOAPSample message;
+
+    public TestDeferredBuilding(OMMetaFactory metaFactory, SOAPSample message) {
+        super(metaFactory);
+        this.message = message;
+        addTestParameter("message", message.getName());
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        SOAPModelBuilder builder = message.getAdapter(SOAPSampleAdapter.class).getBuilder(metaFactory);
+        ((StAXSOAPModelBuilder)builder).setDeferredBuildingLevel(3);
+        OMElement payload = builder.getSOAPEnvelope().getBody().getFirstElement();
+        if (message.getPayload() == null) {
+            assertNull(payload);
+        } else {
+            if (payload instanceof SOAPFault) {
+                assertFalse(payload instanceof OMSourcedElement);
+            } else {
+                assertTrue(payload instanceof OMSourcedElement);
+                assertFalse(((OMSourcedElement)payload).isExpanded());
+                assertEquals(message.getPayload().getLocalName(), payload.getLocalName());
+            }
+            assertAbout(xml())
+                    .that(xml(OMElement.class, payload))
+                    .ignoringNamespaceDeclarations()
+                    .hasSameContentAs(message.getPayloadInputSource());
+        }
+    }
+}
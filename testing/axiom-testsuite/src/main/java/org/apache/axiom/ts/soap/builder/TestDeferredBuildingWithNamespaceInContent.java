@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.soap.builder;
+
+import java.io.StringReader;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.blob.Blob;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMSourcedElement;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.om.ds.BlobOMDataSource;
+import org.apache.axiom.soap.SOAPModelBuilder;
+import org.apache.axiom.soap.impl.builder.StAXSOAPModelBuilder;
+import org.apache.axiom.ts.soap.SOAPSpec;
+import org.apache.axiom.ts.soap.SOAPTestCase;
+
+/**
+ * Tests that with deferred building, the data captured for the payload contains declarations for
+ * namespaces inherited from ancestors that are only used in content, i.e. that are not used in the
+ * name of any element or attribute of the payload.
+ */
+public class TestDeferredBuildingWithNamespaceInContent extends SOAPTestCase {
+    public TestDeferredBuildingWithNamespaceInContent(OMMetaFactory metaFactory, SOAPSpec spec) {
+        super(metaFactory, spec);
+    }
+
+    protected void runTest() throws Throwable {
+        String message = "<soapenv:Envelope xmlns:soapenv='" + spec.getEnvelopeNamespaceURI()
+                + "' xmlns:q='urn:q'><soapenv:Body><ns:echo xmlns:ns='urn:ns'><arg>q:value</arg>"
+                + "</ns:echo></soapenv:Body></soapenv:Envelope>";
+        SOAPModelBuilder builder = OMXMLBuilderFactory.createSOAPModelBuilder(metaFactory,
+                new StringReader(message));
+        ((StAXSOAPModelBuilder)builder).setDeferredBuildingLevel(3);
+        OMElement payload = builder.getSOAPEnvelope().getBody().getFirstElement();
+        assertTrue(payload instanceof OMSourcedElement);
+        Blob blob = (Blob)((OMSourcedElement)payload).getObject(BlobOMDataSource.class);
+        assertNotNull(blob);
+        OMElement captured = OMXMLBuilderFactory.createOMBuilder(metaFactory.getOMFactory(),
+                blob.getInputStream()).getDocumentElement();
+        OMElement arg = captured.getFirstElement();
+        assertEquals(new QName("urn:q", "value"), arg.resolveQName(arg.getText()));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.soap.builder;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.common.truth.Truth.assertThat;
+import static org.apache.axiom.truth.xml.XMLTruth.xml;
+
+import org.apache.axiom.blob.Blob;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMSourcedElement;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.om.ds.BlobOMDataSource;
+import org.apache.axiom.om.ds.custombuilder.ByteRangeCustomBuilder;
+import org.apache.axiom.om.ds.custombuilder.RecordingInputStream;
+import org.apache.axiom.soap.SOAPModelBuilder;
+import org.apache.axiom.soap.impl.builder.StAXSOAPModelBuilder;
+import org.apache.axiom.ts.AxiomTestCase;
+import org.apache.axiom.ts.soap.SOAPSample;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests that {@link ByteRangeCustomBuilder} produces a self-contained copy of the payload. This
+ * requires a parser that supports the {@link org.apache.axiom.ext.stax.CharacterOffsetReader}
+ * extension.
+ */
+public class TestRegisterByteRangeCustomBuilderForPayload extends AxiomTestCase {
+    private final SOAPSample message;
+
+    public TestRegisterByteRangeCustomBuilderForPayload(OMMetaFactory metaFactory, SOAPSample message) {
+        super(metaFactory);
+        this.message = message;
+        addTestParameter("message", message.getName());
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        RecordingInputStream in = new RecordingInputStream(message.getInputStream());
+        SOAPModelBuilder builder = OMXMLBuilderFactory.createSOAPModelBuilder(metaFactory, in, null);
+        ((StAXSOAPModelBuilder)builder).registerCustomBuilderForPayload(new ByteRangeCustomBuilder(in));
+        OMElement payload = builder.getSOAPEnvelope().getBody().getFirstElement();
+        if (message.getPayload() == null) {
+            assertNull(payload);
+        } else {
+            assertThat(payload).isInstanceOf(OMSourcedElement.class);
+            Blob blob = (Blob)((OMSourcedElement)payload).getObject(BlobOMDataSource.class);
+            assertNotNull(blob);
+            InputSource is = new InputSource(blob.getInputStream());
+            is.setEncoding("utf-8");
+            assertAbout(xml())
+                    .that(is)
+                    .ignoringNamespaceDeclarations()
+                    .hasSameContentAs(message.getPayloadInputSource());
+            assertAbout(xml())
+                    .that(xml(OMElement.class, payload))
+                    .ignoringNamespaceDeclarations()
+                    .hasSameContentAs(message.getPayloadInputSource());
+        }
+    }
+}
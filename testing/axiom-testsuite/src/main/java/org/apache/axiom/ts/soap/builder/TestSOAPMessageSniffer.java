@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.soap.builder;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static org.apache.axiom.truth.xml.XMLTruth.xml;
+
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.util.StAXParserConfiguration;
+import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPFactory;
+import org.apache.axiom.soap.impl.builder.SOAPMessageSniffer;
+import org.apache.axiom.ts.AxiomTestCase;
+import org.apache.axiom.ts.soap.SOAPSample;
+import org.apache.axiom.ts.soap.SOAPSampleAdapter;
+
+/**
+ * Tests that {@link SOAPMessageSniffer} returns the same routing information as the object model
+ * and that the builder it creates produces the complete message.
+ */
+public class TestSOAPMessageSniffer extends AxiomTestCase {
+    private final SOAPSample message;
+
+    public TestSOAPMessageSniffer(OMMetaFactory metaFactory, SOAPSample message) {
+        super(metaFactory);
+        this.message = message;
+        addTestParameter("message", message.getName());
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        SOAPEnvelope expected = message.getAdapter(SOAPSampleAdapter.class).getSOAPEnvelope(metaFactory);
+        XMLStreamReader parser = StAXUtils.createXMLStreamReader(StAXParserConfiguration.SOAP,
+                message.getInputStream());
+        SOAPMessageSniffer sniffer = new SOAPMessageSniffer(parser);
+        assertEquals(message.getSOAPSpec().getEnvelopeNamespaceURI(),
+                sniffer.getSOAPVersion().getEnvelopeURI());
+        OMNamespace expectedNS = expected.getSOAPBodyFirstElementNS();
+        assertEquals(expectedNS == null ? null : expectedNS.getNamespaceURI(),
+                sniffer.getSOAPBodyFirstElementNS());
+        assertEquals(expected.getSOAPBodyFirstElementLocalName(),
+                sniffer.getSOAPBodyFirstElementLocalName());
+        assertEquals(expected.hasFault(), sniffer.hasFault());
+        SOAPEnvelope envelope = sniffer.createSOAPModelBuilder(metaFactory).getSOAPEnvelope();
+        assertSame(message.getSOAPSpec().getEnvelopeNamespaceURI(),
+                ((SOAPFactory)envelope.getOMFactory()).getSoapVersionURI());
+        assertAbout(xml())
+                .that(xml(OMDocument.class, (OMDocument)envelope.getParent()))
+                .ignoringRedundantNamespaceDeclarations()
+                .hasSameContentAs(message.getInputStream());
+        envelope.close(false);
+        expected.close(false);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.soap.builder;
+
+import java.io.StringReader;
+import java.util.Iterator;
+
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPHeaderBlock;
+import org.apache.axiom.soap.impl.builder.SOAPMessageSniffer;
+import org.apache.axiom.ts.soap.SOAPSpec;
+import org.apache.axiom.ts.soap.SOAPTestCase;
+
+/**
+ * Tests that {@link SOAPMessageSniffer} extracts the WS-Addressing <tt>Action</tt> and <tt>To</tt>
+ * headers and that the header blocks are still available in the object model built afterwards.
+ */
+public class TestSOAPMessageSnifferAddressing extends SOAPTestCase {
+    public TestSOAPMessageSnifferAddressing(OMMetaFactory metaFactory, SOAPSpec spec) {
+        super(metaFactory, spec);
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        String message = "<?xml version='1.0'?>"
+                + "<soapenv:Envelope xmlns:soapenv='" + spec.getEnvelopeNamespaceURI() + "'"
+                + " xmlns:wsa='http://www.w3.org/2005/08/addressing'>"
+                + "<soapenv:Header><wsa:To>\n  http://example.org/service  \n</wsa:To>"
+                + "<wsa:MessageID>urn:uuid:1234</wsa:MessageID>"
+                + "<wsa:Action>urn:<![CDATA[echo]]></wsa:Action>"
+                + "<wsa:Action>urn:other</wsa:Action></soapenv:Header>"
+                + "<soapenv:Body><ns:echo xmlns:ns='urn:ns'><text>test</text></ns:echo></soapenv:Body>"
+                + "</soapenv:Envelope>";
+        XMLStreamReader parser = StAXUtils.createXMLStreamReader(new StringReader(message));
+        SOAPMessageSniffer sniffer = new SOAPMessageSniffer(parser);
+        assertEquals("urn:echo", sniffer.getAction());
+        assertEquals("http://example.org/service", sniffer.getTo());
+        assertEquals("urn:ns", sniffer.getSOAPBodyFirstElementNS());
+        assertEquals("echo", sniffer.getSOAPBodyFirstElementLocalName());
+        assertFalse(sniffer.hasFault());
+        SOAPEnvelope envelope = sniffer.createSOAPModelBuilder(metaFactory).getSOAPEnvelope();
+        Iterator<?> it = envelope.getHeader().examineAllHeaderBlocks();
+        assertEquals("To", ((SOAPHeaderBlock)it.next()).getLocalName());
+        assertEquals("MessageID", ((SOAPHeaderBlock)it.next()).getLocalName());
+        assertEquals("urn:echo", ((SOAPHeaderBlock)it.next()).getText());
+        assertEquals("urn:other", ((SOAPHeaderBlock)it.next()).getText());
+        assertFalse(it.hasNext());
+        assertEquals("test", envelope.getBody().getFirstElement().getFirstElement().getText());
+        try {
+            sniffer.createSOAPModelBuilder(metaFactory);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+        envelope.close(false);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.soap.header;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPHeader;
+import org.apache.axiom.soap.SOAPHeaderBlock;
+import org.apache.axiom.ts.soap.SOAPSpec;
+import org.apache.axiom.ts.soap.SOAPTestCase;
+
+/**
+ * Tests that the results of {@link SOAPHeader#examineHeaderBlocks(String)},
+ * {@link SOAPHeader#examineMustUnderstandHeaderBlocks(String)},
+ * {@link SOAPHeader#getHeaderBlocksWithName(QName)} and
+ * {@link SOAPHeader#getHeadersToProcess(org.apache.axiom.soap.RolePlayer)} reflect modifications
+ * made to the header after a previous invocation of these methods.
+ */
+public class TestHeaderIndexUpdate extends SOAPTestCase {
+    public TestHeaderIndexUpdate(OMMetaFactory metaFactory, SOAPSpec spec) {
+        super(metaFactory, spec);
+    }
+
+    private static List<Object> toList(Iterator it) {
+        List<Object> list = new ArrayList<Object>();
+        while (it.hasNext()) {
+            list.add(it.next());
+        }
+        return list;
+    }
+
+    private static void assertBlocks(Iterator it, SOAPHeaderBlock... expected) {
+        List<Object> actual = toList(it);
+        assertEquals(expected.length, actual.size());
+        for (int i=0; i<expected.length; i++) {
+            assertSame(expected[i], actual.get(i));
+        }
+    }
+
+    protected void runTest() throws Throwable {
+        SOAPEnvelope envelope = soapFactory.createSOAPEnvelope();
+        SOAPHeader header = soapFactory.createSOAPHeader(envelope);
+        OMNamespace ns = soapFactory.createOMNamespace("urn:test", "p");
+        String role1 = "urn:role1";
+        String role2 = "urn:role2";
+        QName name1 = new QName("urn:test", "header1");
+        SOAPHeaderBlock block1 = header.addHeaderBlock("header1", ns);
+        block1.setRole(role1);
+        SOAPHeaderBlock block2 = header.addHeaderBlock("header2", ns);
+        block2.setRole(role2);
+        block2.setMustUnderstand(true);
+        
+        assertBlocks(header.examineHeaderBlocks(role1), block1);
+        assertBlocks(header.examineMustUnderstandHeaderBlocks(role2), block2);
+        assertBlocks(header.getHeaderBlocksWithName(name1), block1);
+        assertBlocks(header.getHeadersToProcess(new MyRolePlayer(false, new String[] { role1 })), block1);
+        
+        // Change attributes of an existing header block
+        block2.setRole(role1);
+        block2.setMustUnderstand(false);
+        block1.setMustUnderstand(true);
+        assertEquals(role1, block2.getRole());
+        assertFalse(block2.getMustUnderstand());
+        assertBlocks(header.examineHeaderBlocks(role1), block1, block2);
+        assertBlocks(header.examineHeaderBlocks(role2));
+        assertBlocks(header.examineMustUnderstandHeaderBlocks(role1), block1);
+        assertBlocks(header.getHeadersToProcess(new MyRolePlayer(false, new String[] { role1 })), block1, block2);
+        
+        // Add a header block
+        SOAPHeaderBlock block3 = header.addHeaderBlock("header1", ns);
+        block3.setRole(role2);
+        assertBlocks(header.getHeaderBlocksWithName(name1), block1, block3);
+        assertBlocks(header.examineHeaderBlocks(role2), block3);
+        
+        // Remove a header block
+        block1.detach();
+        assertBlocks(header.getHeaderBlocksWithName(name1), block3);
+        assertBlocks(header.examineHeaderBlocks(role1), block2);
+        assertBlocks(header.examineMustUnderstandHeaderBlocks(null));
+        
+        // Rename a header block
+        block2.setLocalName("header1");
+        assertBlocks(header.getHeaderBlocksWithName(name1), block2, block3);
+        
+        // The role of a detached header block must still be up to date
+        block1.setRole(role2);
+        assertEquals(role2, block1.getRole());
+    }
+}